@@ -46,6 +46,7 @@
 import org.springframework.web.servlet.DispatcherServlet;
 import org.springframework.web.servlet.support.RequestContext;
 import org.springframework.web.servlet.view.AbstractTemplateView;
+import org.thymeleaf.spring5.context.BindStatusCache;
 import org.thymeleaf.spring5.context.webmvc.SpringWebMvcThymeleafRequestContext;
 import org.thymeleaf.spring5.expression.ThymeleafEvaluationContext;
 import org.thymeleaf.spring5.naming.SpringContextVariableNames;
@@ -173,6 +174,7 @@ protected final void doAdditionalVariableProcessing(
         final SpringWebMvcThymeleafRequestContext thymeleafRequestContext =
                 new SpringWebMvcThymeleafRequestContext(requestContext, httpServletRequest);
         variables.put(SpringContextVariableNames.THYMELEAF_REQUEST_CONTEXT, thymeleafRequestContext);
+        variables.put(SpringContextVariableNames.THYMELEAF_BIND_STATUS_CACHE, new BindStatusCache());
 
 
         /*
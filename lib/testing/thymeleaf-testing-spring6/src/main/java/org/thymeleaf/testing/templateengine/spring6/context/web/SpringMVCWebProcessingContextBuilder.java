@@ -45,6 +45,7 @@
 import org.springframework.web.servlet.DispatcherServlet;
 import org.springframework.web.servlet.support.RequestContext;
 import org.springframework.web.servlet.view.AbstractTemplateView;
+import org.thymeleaf.spring6.context.BindStatusCache;
 import org.thymeleaf.spring6.context.webmvc.SpringWebMvcThymeleafRequestContext;
 import org.thymeleaf.spring6.expression.ThymeleafEvaluationContext;
 import org.thymeleaf.spring6.naming.SpringContextVariableNames;
@@ -172,6 +173,7 @@ protected final void doAdditionalVariableProcessing(
         final SpringWebMvcThymeleafRequestContext thymeleafRequestContext =
                 new SpringWebMvcThymeleafRequestContext(requestContext, httpServletRequest);
         variables.put(SpringContextVariableNames.THYMELEAF_REQUEST_CONTEXT, thymeleafRequestContext);
+        variables.put(SpringContextVariableNames.THYMELEAF_BIND_STATUS_CACHE, new BindStatusCache());
 
 
         /*
@@ -25,6 +25,8 @@
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 
 import org.reactivestreams.Publisher;
@@ -37,6 +39,7 @@
 import org.thymeleaf.IThrottledTemplateProcessor;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.TemplateSpec;
+import org.thymeleaf.cache.TemplateCacheKey;
 import org.thymeleaf.context.IContext;
 import org.thymeleaf.context.IEngineContext;
 import org.thymeleaf.context.IWebContext;
@@ -49,9 +52,11 @@
 import org.thymeleaf.spring5.context.webflux.IReactiveDataDriverContextVariable;
 import org.thymeleaf.spring5.context.webflux.IReactiveSSEDataDriverContextVariable;
 import org.thymeleaf.util.LoggingUtils;
+import org.thymeleaf.util.Validate;
 import org.thymeleaf.web.IWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import static org.thymeleaf.spring5.SpringWebFluxTemplateEngine.DataDrivenFluxStep.FluxStepPhase.DATA_DRIVEN_PHASE_BUFFER;
 import static org.thymeleaf.spring5.SpringWebFluxTemplateEngine.DataDrivenFluxStep.FluxStepPhase.DATA_DRIVEN_PHASE_HEAD;
@@ -82,6 +87,36 @@
     private static final String LOG_CATEGORY_DATADRIVEN_INPUT = SpringWebFluxTemplateEngine.class.getName() + ".UPSTREAM.DATA-DRIVEN";
     private static final String LOG_CATEGORY_DATADRIVEN_OUTPUT = SpringWebFluxTemplateEngine.class.getName() + ".DOWNSTREAM.DATA-DRIVEN";
 
+    /*
+     * Sizes of the output produced by the last FULL-mode execution of each template, used for pre-sizing the
+     * output buffer of the next executions (so that it does not need to be repeatedly grown and copied).
+     */
+    private static final int MAX_FULL_MODE_SIZE_ESTIMATES = 512;
+    private static final int MAX_FULL_MODE_BUFFER_SIZE_ESTIMATE = 8 * 1024 * 1024;
+
+    // Number of data-driven steps (head, buffers, tail) requested in advance when rendering data-driven
+    // templates without any specific prefetch configuration (same as Reactor's default for concatMap)
+    private static final int DEFAULT_DATA_DRIVEN_STEP_PREFETCH = 32;
+    private final ConcurrentHashMap<TemplateCacheKey,Integer> fullModeSizeEstimates =
+            new ConcurrentHashMap<TemplateCacheKey, Integer>(16);
+
+
+
+
+    /**
+     * <p>
+     *   Default size of the first chunk produced in CHUNKED mode when adaptive chunk sizing is enabled.
+     *   Value is {@code 4096}.
+     * </p>
+     *
+     * @since 3.1.2
+     */
+    public static final int DEFAULT_ADAPTIVE_CHUNK_INITIAL_SIZE_BYTES = 4096;
+
+
+    private boolean adaptiveChunkSizing = false;
+    private int adaptiveChunkInitialSizeBytes = DEFAULT_ADAPTIVE_CHUNK_INITIAL_SIZE_BYTES;
+
 
 
 
@@ -92,6 +127,93 @@ public SpringWebFluxTemplateEngine() {
 
 
 
+    /**
+     * <p>
+     *   Returns whether adaptive chunk sizing is enabled for CHUNKED-mode executions (i.e. executions with a
+     *   limited response chunk size but no data-driver variable).
+     * </p>
+     * <p>
+     *   When enabled, instead of producing every chunk with the maximum chunk size, the first chunk will be
+     *   limited to {@link #getAdaptiveChunkInitialSizeBytes()} bytes so that it (usually containing the
+     *   {@code <head>} of the document) can be flushed to the client as soon as possible, and the size of the
+     *   following chunks will adapt to the observed downstream demand: it will be doubled (up to the maximum
+     *   chunk size) each time downstream requests the next chunk in less time than the previous one took to be
+     *   produced, and halved (down to the initial size) when downstream takes longer than that.
+     * </p>
+     * <p>
+     *   Output buffers are allocated with the size of each chunk, so that pooling buffer factories (like the
+     *   ones based on Netty's pooled allocators) can reuse them.
+     * </p>
+     * <p>
+     *   This flag is set to {@code false} by default.
+     * </p>
+     *
+     * @return {@code true} if adaptive chunk sizing is enabled, {@code false} if not.
+     * @since 3.1.2
+     */
+    public boolean getAdaptiveChunkSizing() {
+        return this.adaptiveChunkSizing;
+    }
+
+
+    /**
+     * <p>
+     *   Sets whether adaptive chunk sizing is enabled for CHUNKED-mode executions (i.e. executions with a
+     *   limited response chunk size but no data-driver variable).
+     * </p>
+     * <p>
+     *   See {@link #getAdaptiveChunkSizing()} for details.
+     * </p>
+     * <p>
+     *   This flag is set to {@code false} by default.
+     * </p>
+     *
+     * @param adaptiveChunkSizing {@code true} if adaptive chunk sizing should be enabled, {@code false} if not.
+     * @since 3.1.2
+     */
+    public void setAdaptiveChunkSizing(final boolean adaptiveChunkSizing) {
+        this.adaptiveChunkSizing = adaptiveChunkSizing;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the size (in bytes) of the first chunk produced when adaptive chunk sizing is enabled, which
+     *   is also the minimum size of the following chunks.
+     * </p>
+     * <p>
+     *   Default value is {@link #DEFAULT_ADAPTIVE_CHUNK_INITIAL_SIZE_BYTES}.
+     * </p>
+     *
+     * @return the initial chunk size, in bytes.
+     * @since 3.1.2
+     */
+    public int getAdaptiveChunkInitialSizeBytes() {
+        return this.adaptiveChunkInitialSizeBytes;
+    }
+
+
+    /**
+     * <p>
+     *   Sets the size (in bytes) of the first chunk produced when adaptive chunk sizing is enabled, which
+     *   is also the minimum size of the following chunks. It will never be bigger than the maximum chunk size
+     *   specified for the execution.
+     * </p>
+     * <p>
+     *   Default value is {@link #DEFAULT_ADAPTIVE_CHUNK_INITIAL_SIZE_BYTES}.
+     * </p>
+     *
+     * @param adaptiveChunkInitialSizeBytes the initial chunk size, in bytes.
+     * @since 3.1.2
+     */
+    public void setAdaptiveChunkInitialSizeBytes(final int adaptiveChunkInitialSizeBytes) {
+        Validate.isTrue(adaptiveChunkInitialSizeBytes > 0, "Adaptive chunk initial size must be greater than zero");
+        this.adaptiveChunkInitialSizeBytes = adaptiveChunkInitialSizeBytes;
+    }
+
+
+
+
     @Override
     public Publisher<DataBuffer> processStream(
             final String template, final Set<String> markupSelectors, final IContext context,
@@ -189,7 +311,11 @@ private Mono<DataBuffer> createFullStream(
                                         new Object[]{TemplateEngine.threadIndex(), LoggingUtils.loggifyTemplateName(templateName), context.getLocale()});
                             }
 
-                            final DataBuffer dataBuffer = bufferFactory.allocateBuffer();
+                            final TemplateCacheKey sizeEstimateKey = computeSizeEstimateKey(templateName, markupSelectors);
+                            final int sizeEstimate = estimateFullModeBufferSize(sizeEstimateKey);
+
+                            final DataBuffer dataBuffer =
+                                    (sizeEstimate > 0? bufferFactory.allocateBuffer(sizeEstimate) : bufferFactory.allocateBuffer());
                             // OutputStreamWriter object have an 8K buffer, but process(...) will flush it at the end
                             final OutputStreamWriter writer = new OutputStreamWriter(dataBuffer.asOutputStream(), charset);
 
@@ -208,6 +334,7 @@ private Mono<DataBuffer> createFullStream(
                             }
 
                             final int bytesProduced = dataBuffer.readableByteCount();
+                            recordFullModeBufferSize(sizeEstimateKey, bytesProduced);
 
                             if (logger.isTraceEnabled()) {
                                 logger.trace(
@@ -230,6 +357,39 @@ private Mono<DataBuffer> createFullStream(
 
 
 
+    private static TemplateCacheKey computeSizeEstimateKey(final String templateName, final Set<String> markupSelectors) {
+        // Template cache keys expect selectors to be either null or a non-empty, naturally-ordered set
+        final Set<String> templateSelectors =
+                (markupSelectors == null || markupSelectors.isEmpty()? null : new TreeSet<String>(markupSelectors));
+        return new TemplateCacheKey(null, templateName, templateSelectors, 0, 0, null, null);
+    }
+
+
+    private int estimateFullModeBufferSize(final TemplateCacheKey key) {
+        final Integer lastSize = this.fullModeSizeEstimates.get(key);
+        if (lastSize == null) {
+            return -1;
+        }
+        // We add some margin in order to avoid growing the buffer for slightly bigger results
+        final long estimate = lastSize.longValue() + (lastSize.longValue() >> 3);
+        return (int) Math.min(estimate, MAX_FULL_MODE_BUFFER_SIZE_ESTIMATE);
+    }
+
+
+    private void recordFullModeBufferSize(final TemplateCacheKey key, final int bytesProduced) {
+        if (bytesProduced <= 0) {
+            return;
+        }
+        if (this.fullModeSizeEstimates.size() >= MAX_FULL_MODE_SIZE_ESTIMATES && !this.fullModeSizeEstimates.containsKey(key)) {
+            return;
+        }
+        // Size might be temporarily exceeded by a few entries due to concurrency, which is not a problem
+        this.fullModeSizeEstimates.put(key, Integer.valueOf(bytesProduced));
+    }
+
+
+
+
     private Flux<DataBuffer> createChunkedStream(
             final String templateName, final Set<String> markupSelectors, final IContext context,
             final DataBufferFactory bufferFactory, final Charset charset, final int responseMaxChunkSizeBytes) {
@@ -241,8 +401,16 @@ private Flux<DataBuffer> createChunkedStream(
                 // is really requested.
                 // NOTE 'sse' is specified as 'false' because SSE is only allowed in data-driven mode. Also, no
                 // data-driven iterator is available (we are in chunked mode).
-                () -> new StreamThrottledTemplateProcessor(
-                        processThrottled(templateName, markupSelectors, context), null, null, 0L, false),
+                () -> {
+                    final StreamThrottledTemplateProcessor throttledProcessor =
+                            new StreamThrottledTemplateProcessor(
+                                    processThrottled(templateName, markupSelectors, context), null, null, 0L, false);
+                    if (adaptiveChunkSizing) {
+                        throttledProcessor.setAdaptiveChunkSizer(
+                                new AdaptiveChunkSizer(adaptiveChunkInitialSizeBytes, responseMaxChunkSizeBytes));
+                    }
+                    return throttledProcessor;
+                },
 
                 // This stream will execute, in a one-by-one (non-interleaved) fashion, the following code
                 // for each back-pressure request coming from downstream. Each of these steps (chunks) will
@@ -251,6 +419,10 @@ private Flux<DataBuffer> createChunkedStream(
 
                     throttledProcessor.startChunk();
 
+                    final AdaptiveChunkSizer chunkSizer = throttledProcessor.getAdaptiveChunkSizer();
+                    final int chunkSizeBytes =
+                            (chunkSizer != null? chunkSizer.startChunk(System.nanoTime()) : responseMaxChunkSizeBytes);
+
                     if (logger.isTraceEnabled()) {
                         logger.trace(
                                 "[THYMELEAF][{}][{}] STARTING PARTIAL STREAM PROCESS (CHUNKED MODE, THROTTLER ID " +
@@ -261,12 +433,12 @@ private Flux<DataBuffer> createChunkedStream(
                                         LoggingUtils.loggifyTemplateName(templateName), context.getLocale()});
                     }
 
-                    final DataBuffer buffer = bufferFactory.allocateBuffer(responseMaxChunkSizeBytes);
+                    final DataBuffer buffer = bufferFactory.allocateBuffer(chunkSizeBytes);
 
                     final int bytesProduced;
                     try {
                         bytesProduced =
-                                throttledProcessor.process(responseMaxChunkSizeBytes, buffer.asOutputStream(), charset);
+                                throttledProcessor.process(chunkSizeBytes, buffer.asOutputStream(), charset);
                     } catch (final Throwable t) {
                         emitter.error(t);
                         return null;
@@ -282,6 +454,12 @@ private Flux<DataBuffer> createChunkedStream(
                                         LoggingUtils.loggifyTemplateName(templateName), context.getLocale(), Integer.valueOf(bytesProduced)});
                     }
 
+                    // Production of this chunk ends here: emitting it might synchronously execute downstream
+                    // processing (and even request the next chunk), which must not be measured as production time
+                    if (chunkSizer != null) {
+                        chunkSizer.endChunk(System.nanoTime());
+                    }
+
                     emitter.next(buffer);
 
                     if (throttledProcessor.isFinished()) {
@@ -323,6 +501,7 @@ private Flux<DataBuffer> createDataDrivenStream(
         final IReactiveDataDriverContextVariable dataDriver =
                 (IReactiveDataDriverContextVariable) context.getVariable(dataDriverVariableName);
         final int bufferSizeElements = dataDriver.getBufferSizeElements();
+        final int prefetchBuffers = dataDriver.getPrefetchBuffers();
         final String sseEventsPrefix =
                 (dataDriver instanceof IReactiveSSEDataDriverContextVariable?
                         ((IReactiveSSEDataDriverContextVariable) dataDriver).getSseEventsPrefix() : null);
@@ -343,11 +522,21 @@ private Flux<DataBuffer> createDataDrivenStream(
         final IContext wrappedContext = applyDataDriverWrapper(context, dataDriverVariableName, dataDrivenIterator);
 
 
-        // STEP 3: Create the data stream buffers, plus add some logging in order to know how the stream is being used
-        final Flux<List<Object>> dataDrivenBufferedStream =
+        // STEP 3: Create the data stream buffers, plus add some logging in order to know how the stream is being used.
+        //         If prefetching has been configured, buffers will be handed over from the upstream data-driver
+        //         publisher to template processing through a queue of at most that size, and template processing
+        //         will move to a different thread (the one draining that queue), so that the upstream publisher can
+        //         go on producing the next buffers while the current one is being processed. That queue is the
+        //         only one allowed to hold several buffers: the processing step below will then request a single
+        //         buffer in advance.
+        final Flux<List<Object>> bufferedStream =
                 Flux.from(dataDriver.getDataStream(reactiveAdapterRegistry))
                         .buffer(bufferSizeElements)
                         .log(LOG_CATEGORY_DATADRIVEN_INPUT, Level.FINEST);
+        final Flux<List<Object>> dataDrivenBufferedStream =
+                (prefetchBuffers > 0)? bufferedStream.publishOn(Schedulers.boundedElastic(), prefetchBuffers) : bufferedStream;
+        final int dataDrivenStepPrefetch =
+                (prefetchBuffers > 0)? 1 : DEFAULT_DATA_DRIVEN_STEP_PREFETCH;
 
 
         // STEP 4: Initialize the (throttled) template engine for each subscriber (normally there will only be one)
@@ -417,7 +606,9 @@ private Flux<DataBuffer> createDataDrivenStream(
 
 
         // STEP 5: React to each buffer of published data by creating one or many (concatMap) DataBuffers containing
-        //         the result of processing only that buffer.
+        //         the result of processing only that buffer. The amount of steps (i.e. buffers) requested in advance
+        //         while one of them is being processed is explicitly set to one if prefetching has been configured,
+        //         so that the amount of buffers retrieved in advance is bounded by the prefetch queue (see STEP 3).
         final Flux<DataBuffer> stream = dataDrivenWithContextStream.concatMap(
                 (step) -> Flux.generate(
 
@@ -582,7 +773,8 @@ private Flux<DataBuffer> createDataDrivenStream(
 
                             return Boolean.FALSE;
 
-                        }));
+                        }),
+                dataDrivenStepPrefetch);
 
 
         // Will add some logging to the data flow
@@ -672,6 +864,7 @@ static class StreamThrottledTemplateProcessor {
         private final DataDrivenTemplateIterator dataDrivenTemplateIterator;
         private int chunkCount;
         private long totalBytesProduced;
+        private AdaptiveChunkSizer adaptiveChunkSizer;
 
         StreamThrottledTemplateProcessor(
                 final IThrottledTemplateProcessor throttledProcessor,
@@ -746,6 +939,69 @@ DataDrivenTemplateIterator getDataDrivenTemplateIterator() {
             return this.dataDrivenTemplateIterator;
         }
 
+        AdaptiveChunkSizer getAdaptiveChunkSizer() {
+            return this.adaptiveChunkSizer;
+        }
+
+        void setAdaptiveChunkSizer(final AdaptiveChunkSizer adaptiveChunkSizer) {
+            this.adaptiveChunkSizer = adaptiveChunkSizer;
+        }
+
+    }
+
+
+
+
+    /*
+     * Computes the size of each chunk in adaptive CHUNKED mode. The first chunk is small so that it can be flushed
+     * as soon as possible (better time-to-first-byte). After that, the time downstream takes to request each chunk
+     * is compared to the time it took to produce the previous one: if downstream is faster than the engine (demand
+     * was already there), chunks grow; if it is slower, they shrink (there is no point in producing large chunks
+     * that will just wait in memory).
+     *
+     * Not thread-safe, but Flux.generate() never executes its generator concurrently.
+     */
+    static final class AdaptiveChunkSizer {
+
+        private final int minChunkSizeBytes;
+        private final int maxChunkSizeBytes;
+        private int chunkSizeBytes;
+        private long chunkStartNanos;
+        private long lastChunkEndNanos;
+        private long lastChunkProductionNanos;
+
+        AdaptiveChunkSizer(final int initialChunkSizeBytes, final int maxChunkSizeBytes) {
+            super();
+            this.minChunkSizeBytes = Math.min(initialChunkSizeBytes, maxChunkSizeBytes);
+            this.maxChunkSizeBytes = maxChunkSizeBytes;
+            this.chunkSizeBytes = this.minChunkSizeBytes;
+            this.chunkStartNanos = -1L;
+            this.lastChunkEndNanos = -1L;
+            this.lastChunkProductionNanos = 0L;
+        }
+
+        int startChunk(final long nowNanos) {
+            if (this.lastChunkEndNanos >= 0L) {
+                final long demandWaitNanos = nowNanos - this.lastChunkEndNanos;
+                if (demandWaitNanos > this.lastChunkProductionNanos) {
+                    this.chunkSizeBytes = Math.max(this.minChunkSizeBytes, this.chunkSizeBytes / 2);
+                } else {
+                    this.chunkSizeBytes = (int) Math.min(this.maxChunkSizeBytes, 2L * this.chunkSizeBytes);
+                }
+            }
+            this.chunkStartNanos = nowNanos;
+            return this.chunkSizeBytes;
+        }
+
+        void endChunk(final long nowNanos) {
+            this.lastChunkProductionNanos = nowNanos - this.chunkStartNanos;
+            this.lastChunkEndNanos = nowNanos;
+        }
+
+        int getChunkSizeBytes() {
+            return this.chunkSizeBytes;
+        }
+
     }
 
 
@@ -0,0 +1,104 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.spring5.context;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.thymeleaf.util.Validate;
+
+/**
+ * <p>
+ *   Cache of {@link IThymeleafBindStatus} objects, meant to be used during a single template execution in
+ *   order to avoid creating a new {@code BindStatus} (path resolution, error lookup, property editor
+ *   discovery...) every time the same form field is accessed by {@code th:field}, {@code th:errors},
+ *   {@code th:errorclass}, {@code #fields.hasErrors(...)}, etc.
+ * </p>
+ * <p>
+ *   Bind statuses are cached by their complete bind expression (i.e. including the bound object expression
+ *   in the case of selection expressions). The cache is cleared whenever it is accessed with a different
+ *   request context or selection target (the bound object expression set by {@code th:object}) than the
+ *   one it was last accessed with.
+ * </p>
+ * <p>
+ *   Instances of this class are set into the context as a variable named
+ *   {@link org.thymeleaf.spring5.naming.SpringContextVariableNames#THYMELEAF_BIND_STATUS_CACHE}, and are
+ *   <strong>not thread-safe</strong>: a new instance should be created for each template execution.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.1.2
+ *
+ */
+public final class BindStatusCache {
+
+    private final Map<String,IThymeleafBindStatus> bindStatuses = new HashMap<String, IThymeleafBindStatus>(16);
+    private IThymeleafRequestContext requestContext = null;
+    private Object selectionTarget = null;
+
+
+
+    public BindStatusCache() {
+        super();
+    }
+
+
+
+    public IThymeleafBindStatus getBindStatus(
+            final IThymeleafRequestContext requestContext, final Object selectionTarget, final String expression) {
+        Validate.notNull(expression, "Expression cannot be null");
+        checkValidity(requestContext, selectionTarget);
+        return this.bindStatuses.get(expression);
+    }
+
+
+    public void putBindStatus(
+            final IThymeleafRequestContext requestContext, final Object selectionTarget, final String expression,
+            final IThymeleafBindStatus bindStatus) {
+        Validate.notNull(expression, "Expression cannot be null");
+        Validate.notNull(bindStatus, "Bind status cannot be null");
+        checkValidity(requestContext, selectionTarget);
+        this.bindStatuses.put(expression, bindStatus);
+    }
+
+
+    public int size() {
+        return this.bindStatuses.size();
+    }
+
+
+    public void clear() {
+        this.bindStatuses.clear();
+    }
+
+
+
+    private void checkValidity(final IThymeleafRequestContext requestContext, final Object selectionTarget) {
+        // Identity comparisons are intentional: a new selection target (e.g. a new th:object) invalidates the cache
+        if (this.requestContext != requestContext || this.selectionTarget != selectionTarget) {
+            this.bindStatuses.clear();
+            this.requestContext = requestContext;
+            this.selectionTarget = selectionTarget;
+        }
+    }
+
+
+}
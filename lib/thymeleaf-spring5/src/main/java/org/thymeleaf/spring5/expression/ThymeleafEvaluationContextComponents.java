@@ -0,0 +1,152 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.spring5.expression;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.expression.BeanFactoryResolver;
+import org.springframework.context.expression.MapAccessor;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.expression.BeanResolver;
+import org.springframework.expression.MethodResolver;
+import org.springframework.expression.PropertyAccessor;
+import org.springframework.expression.TypeConverter;
+import org.springframework.expression.TypeLocator;
+import org.springframework.expression.spel.support.ReflectivePropertyAccessor;
+import org.springframework.expression.spel.support.StandardTypeConverter;
+import org.thymeleaf.spring5.expression.ThymeleafEvaluationContext.ThymeleafEvaluationContextACLMethodResolver;
+import org.thymeleaf.spring5.expression.ThymeleafEvaluationContext.ThymeleafEvaluationContextACLPropertyAccessor;
+import org.thymeleaf.spring5.expression.ThymeleafEvaluationContext.ThymeleafEvaluationContextACLTypeLocator;
+import org.thymeleaf.util.Validate;
+
+/**
+ * <p>
+ *   Immutable, thread-safe set of the components of a {@link ThymeleafEvaluationContext} that do not depend on
+ *   the specific request or template execution: bean resolver, type converter, property accessors, type locator
+ *   and method resolvers.
+ * </p>
+ * <p>
+ *   Spring's EvaluationContexts are not thread-safe, so a new {@link ThymeleafEvaluationContext} has to be
+ *   created for each template execution. But those created from an instance of this class (by means of
+ *   {@link #createEvaluationContext()} or {@link ThymeleafEvaluationContext#ThymeleafEvaluationContext(ThymeleafEvaluationContextComponents)})
+ *   will reuse these shared components, and therefore only allocate what is specific to each execution
+ *   (i.e. variables and expression objects). Instances of this class are meant to be created once per
+ *   application context and conversion service (e.g. by views), and reused.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.1.2
+ *
+ */
+public final class ThymeleafEvaluationContextComponents {
+
+    private static final ReflectivePropertyAccessor REFLECTIVE_PROPERTY_ACCESSOR_INSTANCE =
+            new ThymeleafEvaluationContextACLPropertyAccessor();
+    private static final MapAccessor MAP_ACCESSOR_INSTANCE = new MapAccessor();
+    private static final TypeLocator TYPE_LOCATOR = new ThymeleafEvaluationContextACLTypeLocator();
+    private static final List<MethodResolver> METHOD_RESOLVERS =
+            Collections.singletonList(new ThymeleafEvaluationContextACLMethodResolver());
+    private static final List<PropertyAccessor> PROPERTY_ACCESSORS;
+
+    static {
+        final List<PropertyAccessor> propertyAccessors = new ArrayList<>(3);
+        propertyAccessors.add(SPELContextPropertyAccessor.INSTANCE);
+        propertyAccessors.add(MAP_ACCESSOR_INSTANCE);
+        propertyAccessors.add(REFLECTIVE_PROPERTY_ACCESSOR_INSTANCE);
+        PROPERTY_ACCESSORS = Collections.unmodifiableList(propertyAccessors);
+    }
+
+
+    private final ApplicationContext applicationContext;
+    private final ConversionService conversionService;
+    private final BeanResolver beanResolver;
+    private final TypeConverter typeConverter;
+
+
+
+    public ThymeleafEvaluationContextComponents(
+            final ApplicationContext applicationContext, final ConversionService conversionService) {
+
+        super();
+
+        Validate.notNull(applicationContext, "Application Context cannot be null");
+        // ConversionService CAN be null
+
+        this.applicationContext = applicationContext;
+        this.conversionService = conversionService;
+        this.beanResolver = new BeanFactoryResolver(applicationContext);
+        this.typeConverter = (conversionService != null? new StandardTypeConverter(conversionService) : null);
+
+    }
+
+
+    /**
+     * <p>
+     *   Creates a new {@link ThymeleafEvaluationContext} that uses these shared components.
+     * </p>
+     *
+     * @return the new evaluation context, to be used for a single template execution.
+     */
+    public ThymeleafEvaluationContext createEvaluationContext() {
+        return new ThymeleafEvaluationContext(this);
+    }
+
+
+    public ApplicationContext getApplicationContext() {
+        return this.applicationContext;
+    }
+
+    public ConversionService getConversionService() {
+        return this.conversionService;
+    }
+
+    public BeanResolver getBeanResolver() {
+        return this.beanResolver;
+    }
+
+    /**
+     * <p>
+     *   Returns the type converter, which will be {@code null} if no conversion service was specified (in which
+     *   case the default converter of the evaluation context will be used).
+     * </p>
+     *
+     * @return the type converter (might be null).
+     */
+    public TypeConverter getTypeConverter() {
+        return this.typeConverter;
+    }
+
+    public List<PropertyAccessor> getPropertyAccessors() {
+        return PROPERTY_ACCESSORS;
+    }
+
+    public TypeLocator getTypeLocator() {
+        return TYPE_LOCATOR;
+    }
+
+    public List<MethodResolver> getMethodResolvers() {
+        return METHOD_RESOLVERS;
+    }
+
+}
@@ -38,6 +38,7 @@ public final class SpringContextVariableNames {
     public static final String THYMELEAF_REQUEST_CONTEXT = "thymeleafRequestContext";
 
     public static final String THYMELEAF_FIELD_BIND_STATUS = "thymeleafFieldBindStatus";
+    public static final String THYMELEAF_BIND_STATUS_CACHE = "thymeleafBindStatusCache";
 
     public static final String SPRING_BOUND_OBJECT_EXPRESSION = "springBoundObjectExpression";
 
@@ -64,8 +64,12 @@ protected void doProcess(final ITemplateContext context,
                     "Attribute \"value\" is required in \"option\" tags");
         }
 
+        final SpringSelectedValueComparator.SelectedValueLookup selectedValueLookup =
+                (SpringSelectedValueComparator.SelectedValueLookup) context.getVariable(
+                        SpringSelectFieldTagProcessor.OPTION_IN_SELECT_SELECTED_VALUE_LOOKUP);
+
         final boolean selected =
-                SpringSelectedValueComparator.isSelected(bindStatus, HtmlEscape.unescapeHtml(value));
+                SpringSelectedValueComparator.isSelected(selectedValueLookup, bindStatus, HtmlEscape.unescapeHtml(value));
 
         StandardProcessorUtils.setAttribute(
                 structureHandler,
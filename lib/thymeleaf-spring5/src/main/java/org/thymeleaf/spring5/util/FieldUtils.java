@@ -32,6 +32,7 @@
 import org.springframework.validation.ObjectError;
 import org.thymeleaf.context.IExpressionContext;
 import org.thymeleaf.exceptions.TemplateProcessingException;
+import org.thymeleaf.spring5.context.BindStatusCache;
 import org.thymeleaf.spring5.context.IThymeleafBindStatus;
 import org.thymeleaf.spring5.context.IThymeleafRequestContext;
 import org.thymeleaf.spring5.context.SpringContextUtils;
@@ -302,6 +303,37 @@ public static IThymeleafBindStatus getBindStatusFromParsedExpression(
         }
 
 
+        // Bind statuses for the same field are usually requested several times during the same template execution
+        // (th:field, th:errors, th:errorclass, #fields...), so we will reuse them if a cache has been set
+        final BindStatusCache bindStatusCache =
+                (BindStatusCache) context.getVariable(SpringContextVariableNames.THYMELEAF_BIND_STATUS_CACHE);
+        final Object selectionTarget =
+                (bindStatusCache != null? context.getVariable(SpringContextVariableNames.SPRING_BOUND_OBJECT_EXPRESSION) : null);
+
+        if (bindStatusCache != null) {
+            final IThymeleafBindStatus cachedBindStatus =
+                    bindStatusCache.getBindStatus(requestContext, selectionTarget, completeExpression);
+            if (cachedBindStatus != null) {
+                return cachedBindStatus;
+            }
+        }
+
+        final IThymeleafBindStatus bindStatus = computeBindStatus(requestContext, optional, completeExpression);
+
+        if (bindStatusCache != null && bindStatus != null) {
+            bindStatusCache.putBindStatus(requestContext, selectionTarget, completeExpression, bindStatus);
+        }
+
+        return bindStatus;
+
+    }
+
+
+
+
+    private static IThymeleafBindStatus computeBindStatus(
+            final IThymeleafRequestContext requestContext, final boolean optional, final String completeExpression) {
+
         if (!optional) {
             return requestContext.getBindStatus(completeExpression, false);
         }
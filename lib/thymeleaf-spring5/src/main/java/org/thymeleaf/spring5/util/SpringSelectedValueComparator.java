@@ -20,9 +20,13 @@
 package org.thymeleaf.spring5.util;
 
 import java.beans.PropertyEditor;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.ObjectUtils;
@@ -94,6 +98,60 @@ public static boolean isSelected(final IThymeleafBindStatus bindStatus, final Ob
     }
 
 
+    /**
+     * <p>
+     *   Equivalent to {@link #isSelected(IThymeleafBindStatus, Object)}, but using a {@link SelectedValueLookup}
+     *   in order to avoid walking (and converting) the elements of the bound collection, array or map once
+     *   for each candidate value.
+     * </p>
+     * <p>
+     *   This is meant to be used when many candidate values are checked against the same bound value, as
+     *   happens with the {@code <option>} elements of a {@code <select>}.
+     * </p>
+     *
+     * @param lookup the lookup object to be used for memoizing the bound value (can be null).
+     * @param bindStatus the bind status.
+     * @param candidateValue the candidate value.
+     * @return whether the candidate value should be considered as selected.
+     * @since 3.1.2
+     */
+    public static boolean isSelected(
+            final SelectedValueLookup lookup, final IThymeleafBindStatus bindStatus, final Object candidateValue) {
+
+        if (lookup == null || bindStatus == null || !(candidateValue instanceof String)) {
+            return isSelected(bindStatus, candidateValue);
+        }
+
+        // Same obvious equality checks as in isSelected(bindStatus, candidateValue)
+        Object boundValue = bindStatus.getValue();
+        if (ObjectUtils.nullSafeEquals(boundValue, candidateValue)) {
+            return true;
+        }
+        Object actualValue = bindStatus.getActualValue();
+        if (actualValue != null && actualValue != boundValue &&
+                ObjectUtils.nullSafeEquals(actualValue, candidateValue)) {
+            return true;
+        }
+        if (actualValue != null) {
+            boundValue = actualValue;
+        } else if (boundValue == null) {
+            return false;
+        }
+
+        if (!boundValue.getClass().isArray() && !(boundValue instanceof Collection) && !(boundValue instanceof Map)) {
+            // Nothing to memoize here, exhaustive comparison of a single value is cheap
+            return exhaustiveCompare(boundValue, candidateValue, bindStatus.getEditor(), null);
+        }
+
+        final BoundValueIndex index = lookup.getIndex(bindStatus, boundValue);
+        if (index.contains((String) candidateValue)) {
+            return true;
+        }
+        return index.boundValueMatches((String) candidateValue, bindStatus.getEditor());
+
+    }
+
+
     private static boolean collectionCompare(
             final Collection<?> boundCollection, final Object candidateValue, final IThymeleafBindStatus bindStatus) {
 
@@ -190,4 +248,171 @@ private SpringSelectedValueComparator() {
     }
 
 
+
+
+    /**
+     * <p>
+     *   Memoizes the lookup structures computed for a bound collection, array or map, so that checking
+     *   whether each of a series of candidate values is selected does not require walking the bound value
+     *   again for every candidate.
+     * </p>
+     * <p>
+     *   Instances of this class are created per rendered {@code <select>}, and are <strong>not thread-safe</strong>.
+     *   The memoized structures are rebuilt whenever the bind path or the (identity of the) bound value change.
+     * </p>
+     *
+     * @since 3.1.2
+     */
+    public static final class SelectedValueLookup {
+
+        private String path = null;
+        private Object boundValue = null;
+        private BoundValueIndex index = null;
+
+        public SelectedValueLookup() {
+            super();
+        }
+
+        BoundValueIndex getIndex(final IThymeleafBindStatus bindStatus, final Object boundValue) {
+            final String bindPath = bindStatus.getPath();
+            if (this.index == null || this.boundValue != boundValue || !ObjectUtils.nullSafeEquals(this.path, bindPath)) {
+                this.index = new BoundValueIndex(bindStatus, boundValue);
+                this.boundValue = boundValue;
+                this.path = bindPath;
+            }
+            return this.index;
+        }
+
+    }
+
+
+
+
+    /*
+     * Precomputes, for a bound collection, array or map, the results of collectionCompare/mapCompare and of the
+     * exhaustiveCollectionCompare for String candidates:
+     *   - Direct containment is checked against the original Set or Map (to respect their own equality, e.g. the
+     *     comparator of a TreeSet) or against a HashSet copy of the elements of lists and arrays.
+     *   - Display strings (and enum names) of all elements are indexed in a HashSet.
+     *   - Elements that would be compared after converting the candidate by means of a PropertyEditor are
+     *     indexed in a HashSet, so that the candidate is converted only once.
+     *   - The display string of the bound value itself (last resort comparison) is computed only once.
+     */
+    static final class BoundValueIndex {
+
+        private final Object boundValue;
+        private final Collection<?> containmentElements;
+        private final Map<?,?> containmentMap;
+        private final Set<String> displayStrings;
+        private final Set<String> leadingDisplayStrings;
+        private final PropertyEditor elementEditor;
+        private final Set<Object> editorComparedElements;
+        private final String boundValueDisplayString;
+
+
+        BoundValueIndex(final IThymeleafBindStatus bindStatus, final Object boundValue) {
+
+            super();
+
+            this.boundValue = boundValue;
+
+            final Collection<?> elements;
+            if (boundValue.getClass().isArray()) {
+                elements = CollectionUtils.arrayToList(boundValue);
+                this.containmentElements = new HashSet<Object>(elements);
+                this.containmentMap = null;
+            } else if (boundValue instanceof Map) {
+                elements = ((Map<?,?>) boundValue).keySet();
+                this.containmentElements = null;
+                this.containmentMap = (Map<?,?>) boundValue;
+            } else if (boundValue instanceof Set) {
+                elements = (Collection<?>) boundValue;
+                this.containmentElements = elements;
+                this.containmentMap = null;
+            } else {
+                elements = (Collection<?>) boundValue;
+                this.containmentElements = new HashSet<Object>(elements);
+                this.containmentMap = null;
+            }
+
+            this.displayStrings = new HashSet<String>(elements.size() * 2 + 1);
+            this.leadingDisplayStrings = new HashSet<String>(4);
+            final List<Object> editorCompared = new ArrayList<Object>(elements.size());
+            PropertyEditor editor = null;
+            for (final Object element : elements) {
+                // Display strings of the elements up to (and including) the first one compared by means of the editor
+                final Set<String> elementDisplayStrings =
+                        (editorCompared.isEmpty()? this.leadingDisplayStrings : this.displayStrings);
+                // Mirrors the way exhaustiveCollectionCompare selects the editor for String candidates
+                if (editor == null && element != null) {
+                    editor = bindStatus.findEditor(element.getClass());
+                }
+                if (element != null && element.getClass().isEnum()) {
+                    final Enum<?> elementEnum = (Enum<?>) element;
+                    elementDisplayStrings.add(ObjectUtils.getDisplayString(elementEnum.name()));
+                    elementDisplayStrings.add(ObjectUtils.getDisplayString(elementEnum.toString()));
+                } else {
+                    elementDisplayStrings.add(ObjectUtils.getDisplayString(element));
+                    if (editor != null) {
+                        editorCompared.add(element);
+                    }
+                }
+            }
+            this.displayStrings.addAll(this.leadingDisplayStrings);
+            this.elementEditor = editor;
+            this.editorComparedElements = (editorCompared.isEmpty()? null : new HashSet<Object>(editorCompared));
+
+            this.boundValueDisplayString = ObjectUtils.getDisplayString(boundValue);
+
+        }
+
+
+        boolean contains(final String candidateValue) {
+
+            try {
+                if (this.containmentMap != null) {
+                    if (this.containmentMap.containsKey(candidateValue)) {
+                        return true;
+                    }
+                } else if (this.containmentElements.contains(candidateValue)) {
+                    return true;
+                }
+            } catch (ClassCastException ex) {
+                // Probably from a TreeSet or TreeMap - ignore.
+            }
+
+            if (this.editorComparedElements == null) {
+                return this.displayStrings.contains(candidateValue);
+            }
+
+            // The exhaustive comparison would only convert the candidate (which might raise an exception) if it did
+            // not match any of the elements preceding the first one compared by means of the PropertyEditor
+            if (this.leadingDisplayStrings.contains(candidateValue)) {
+                return true;
+            }
+
+            // Try PE-based comparison (PE should *not* be allowed to escape creating thread)
+            this.elementEditor.setAsText(candidateValue);
+            final Object candidateAsValue = this.elementEditor.getValue();
+
+            return this.displayStrings.contains(candidateValue) || this.editorComparedElements.contains(candidateAsValue);
+
+        }
+
+
+        boolean boundValueMatches(final String candidateValue, final PropertyEditor editor) {
+            // Equivalent to exhaustiveCompare(boundValue, candidateValue, editor, null), with a memoized display string
+            if (this.boundValueDisplayString.equals(candidateValue)) {
+                return true;
+            }
+            if (editor != null) {
+                editor.setAsText(candidateValue);
+                return ObjectUtils.nullSafeEquals(this.boundValue, editor.getValue());
+            }
+            return false;
+        }
+
+    }
+
+
 }
@@ -120,4 +120,34 @@ public interface IReactiveDataDriverContextVariable {
      */
     public int getBufferSizeElements();
 
+    /**
+     * <p>
+     *   Returns the maximum number of buffers that can be requested from the data-driver stream in advance,
+     *   i.e. while the template is still being processed for the previous buffer(s).
+     * </p>
+     * <p>
+     *   When a value greater than {@code 0} is returned, buffers will be handed over from the data-driver
+     *   stream to template processing through a queue of this size, so that the production of data at the
+     *   upstream publisher (e.g. a database query) can overlap with the processing of the template for the
+     *   current buffer. Note it is template processing (i.e. rendering) that is moved to a separate thread
+     *   (from Reactor's <em>bounded elastic</em> scheduler) in order to drain this queue, whereas the upstream
+     *   publisher keeps on producing data on whichever thread it would normally use. Apart from the buffers
+     *   in this queue, template processing will only request one more buffer in advance, so the amount of
+     *   buffers retrieved before they can be processed is bounded by this number (plus that one).
+     * </p>
+     * <p>
+     *   A value of {@code 0} (the default) means no specific prefetching will be configured: buffers will be
+     *   retrieved on the same thread that processes the template, and the template processing step will
+     *   request up to 32 buffers in advance from the data-driver stream (Reactor's default prefetch).
+     * </p>
+     *
+     * @return the maximum number of buffers to be requested in advance, or {@code 0} for the default
+     *         behaviour.
+     *
+     * @since 3.1.2
+     */
+    public default int getPrefetchBuffers() {
+        return 0;
+    }
+
 }
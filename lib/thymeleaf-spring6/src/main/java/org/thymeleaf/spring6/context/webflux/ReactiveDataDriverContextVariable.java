@@ -98,11 +98,22 @@ public class ReactiveDataDriverContextVariable implements IReactiveSSEDataDriver
      */
     public static final long DEFAULT_FIRST_EVENT_ID = 0L;
 
+    /**
+     * <p>
+     *   Default number of buffers to be requested in advance from the data stream. Value = {@code 0} (no
+     *   specific prefetching, see {@link IReactiveDataDriverContextVariable#getPrefetchBuffers()}).
+     * </p>
+     *
+     * @since 3.1.2
+     */
+    public static final int DEFAULT_DATA_DRIVER_PREFETCH_BUFFERS = 0;
+
 
     private final Object dataStream;
     private final int dataStreamBufferSizeElements;
     private final String sseEventsPrefix;
     private final long sseEventsFirstID;
+    private final int prefetchBuffers;
 
 
     /**
@@ -276,15 +287,53 @@ public ReactiveDataDriverContextVariable(
     public ReactiveDataDriverContextVariable(
             final Object dataStream, final int dataStreamBufferSizeElements,
             final String sseEventsPrefix, final long sseEventsFirstID) {
+        this(dataStream, dataStreamBufferSizeElements, sseEventsPrefix, sseEventsFirstID, DEFAULT_DATA_DRIVER_PREFETCH_BUFFERS);
+    }
+
+
+    /**
+     * <p>
+     *   Creates a new lazy context variable, wrapping a reactive asynchronous data stream and specifying a
+     *   buffer size, a value for the ID of the first event generated in SSE scenarios, a prefix for all
+     *   the names and IDs of events generated from a specific SSE stream, and the maximum number of buffers
+     *   that can be requested in advance from the data stream.
+     * </p>
+     * <p>
+     *   Prefetching buffers allows the upstream data stream (e.g. a database query) to produce the next
+     *   buffer(s) of elements while the template is still being processed for the current one (template
+     *   processing is moved to a separate thread for this), which can reduce the total time needed for
+     *   rendering large data-driven templates. A value of {@code 0} means no specific prefetching will be
+     *   configured (see {@link IReactiveDataDriverContextVariable#getPrefetchBuffers()}).
+     * </p>
+     * <p>
+     *   Note the specified {@code dataStream} must be <strong>multi-valued</strong>, and <em>adaptable</em> to
+     *   a Reactive Stream's {@link Publisher} (see {@link #ReactiveDataDriverContextVariable(Object)}).
+     * </p>
+     *
+     * @param dataStream the asynchronous object, which must be convertible to a multi-valued {@link Publisher} by
+     *                    means of Spring's {@link ReactiveAdapterRegistry}.
+     * @param dataStreamBufferSizeElements the buffer size to be applied (in elements).
+     * @param sseEventsPrefix the prefix to be used for event names and IDs, so that events coming from a specific
+     *                        SSE stream can be identified (if applies). Can be null.
+     * @param sseEventsFirstID the first value to be used as event ID in SSE scenarios (if applies).
+     * @param prefetchBuffers the maximum number of buffers to be requested in advance from the data stream.
+     *
+     * @since 3.1.2
+     */
+    public ReactiveDataDriverContextVariable(
+            final Object dataStream, final int dataStreamBufferSizeElements,
+            final String sseEventsPrefix, final long sseEventsFirstID, final int prefetchBuffers) {
         super();
         Validate.notNull(dataStream, "Data stream cannot be null");
         Validate.isTrue(dataStreamBufferSizeElements > 0, "Data Buffer Size cannot be <= 0");
         // The prefix for SSE events CAN be null
         Validate.isTrue(sseEventsFirstID >= 0L, "First Event ID cannot be < 0");
+        Validate.isTrue(prefetchBuffers >= 0, "Prefetch Buffers cannot be < 0");
         this.dataStream = dataStream;
         this.dataStreamBufferSizeElements = dataStreamBufferSizeElements;
         this.sseEventsPrefix = sseEventsPrefix;
         this.sseEventsFirstID = sseEventsFirstID;
+        this.prefetchBuffers = prefetchBuffers;
     }
 
 
@@ -307,6 +356,12 @@ public final int getBufferSizeElements() {
     }
 
 
+    @Override
+    public final int getPrefetchBuffers() {
+        return this.prefetchBuffers;
+    }
+
+
     @Override
     public final String getSseEventsPrefix() {
         return this.sseEventsPrefix;
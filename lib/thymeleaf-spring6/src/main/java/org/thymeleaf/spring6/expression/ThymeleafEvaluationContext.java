@@ -20,13 +20,10 @@
 package org.thymeleaf.spring6.expression;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.context.ApplicationContext;
-import org.springframework.context.expression.BeanFactoryResolver;
-import org.springframework.context.expression.MapAccessor;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.expression.AccessException;
@@ -39,7 +36,6 @@
 import org.springframework.expression.spel.support.ReflectiveMethodResolver;
 import org.springframework.expression.spel.support.ReflectivePropertyAccessor;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
-import org.springframework.expression.spel.support.StandardTypeConverter;
 import org.springframework.expression.spel.support.StandardTypeLocator;
 import org.thymeleaf.expression.IExpressionObjects;
 import org.thymeleaf.spring6.view.ThymeleafView;
@@ -79,14 +75,6 @@
     public static final String THYMELEAF_EVALUATION_CONTEXT_CONTEXT_VARIABLE_NAME = "thymeleaf::EvaluationContext";
 
 
-    private static final ReflectivePropertyAccessor REFLECTIVE_PROPERTY_ACCESSOR_INSTANCE =
-            new ThymeleafEvaluationContextACLPropertyAccessor();
-    private static final MapAccessor MAP_ACCESSOR_INSTANCE = new MapAccessor();
-    private static final TypeLocator TYPE_LOCATOR = new ThymeleafEvaluationContextACLTypeLocator();
-    private static final List<MethodResolver> METHOD_RESOLVERS =
-            Collections.singletonList(new ThymeleafEvaluationContextACLMethodResolver());
-
-
     private final ApplicationContext applicationContext;
 
     private IExpressionObjects expressionObjects = null;
@@ -96,29 +84,40 @@
 
 
     public ThymeleafEvaluationContext(final ApplicationContext applicationContext, final ConversionService conversionService) {
+        this(new ThymeleafEvaluationContextComponents(applicationContext, conversionService));
+    }
+
+
+    /**
+     * <p>
+     *   Creates a new evaluation context that reuses a set of shared (application-scoped) components, so that
+     *   only the per-execution state (variables, expression objects) needs to be allocated.
+     * </p>
+     *
+     * @param components the shared components.
+     * @since 3.1.2
+     */
+    public ThymeleafEvaluationContext(final ThymeleafEvaluationContextComponents components) {
 
         super();
 
-        Validate.notNull(applicationContext, "Application Context cannot be null");
-        // ConversionService CAN be null
+        Validate.notNull(components, "Evaluation Context Components cannot be null");
 
-        this.applicationContext = applicationContext;
-        this.setBeanResolver(new BeanFactoryResolver(applicationContext));
-        if (conversionService != null) {
-            this.setTypeConverter(new StandardTypeConverter(conversionService));
+        this.applicationContext = components.getApplicationContext();
+        this.setBeanResolver(components.getBeanResolver());
+        if (components.getTypeConverter() != null) {
+            this.setTypeConverter(components.getTypeConverter());
         }
 
-        final List<PropertyAccessor> propertyAccessors = new ArrayList<>(5);
-        propertyAccessors.add(SPELContextPropertyAccessor.INSTANCE);
-        propertyAccessors.add(MAP_ACCESSOR_INSTANCE);
-        propertyAccessors.add(REFLECTIVE_PROPERTY_ACCESSOR_INSTANCE);
-        this.setPropertyAccessors(propertyAccessors);
+        // Property accessors include Thymeleaf's own accessors for the context, plus an ACL-enabled reflective one.
+        // This list is shared and unmodifiable, so it will be copied if any accessors are added or removed.
+        this.setPropertyAccessors(components.getPropertyAccessors());
 
         // We need to establish a custom type locator in order to forbid access to certain dangerous classes in expressions
-        this.setTypeLocator(TYPE_LOCATOR);
+        this.setTypeLocator(components.getTypeLocator());
 
         // We need to establish a custom method resolver in order to forbid calling methods on any of the blocked classes
-        this.setMethodResolvers(METHOD_RESOLVERS);
+        this.setMethodResolvers(components.getMethodResolvers());
 
     }
 
@@ -143,6 +142,38 @@ public Object lookupVariable(final String name) {
 
 
 
+    /*
+     * Property accessors and method resolvers are initially set to lists shared among all evaluation contexts
+     * created from the same components, so we copy them before any modifications.
+     */
+
+    @Override
+    public void addPropertyAccessor(final PropertyAccessor accessor) {
+        this.setPropertyAccessors(new ArrayList<>(getPropertyAccessors()));
+        super.addPropertyAccessor(accessor);
+    }
+
+    @Override
+    public boolean removePropertyAccessor(final PropertyAccessor accessor) {
+        this.setPropertyAccessors(new ArrayList<>(getPropertyAccessors()));
+        return super.removePropertyAccessor(accessor);
+    }
+
+    @Override
+    public void addMethodResolver(final MethodResolver resolver) {
+        this.setMethodResolvers(new ArrayList<>(getMethodResolvers()));
+        super.addMethodResolver(resolver);
+    }
+
+    @Override
+    public boolean removeMethodResolver(final MethodResolver methodResolver) {
+        this.setMethodResolvers(new ArrayList<>(getMethodResolvers()));
+        return super.removeMethodResolver(methodResolver);
+    }
+
+
+
+
     public boolean isVariableAccessRestricted() {
         return this.variableAccessRestricted;
     }
@@ -33,6 +33,7 @@
 import org.thymeleaf.processor.element.IElementTagStructureHandler;
 import org.thymeleaf.spring6.context.IThymeleafBindStatus;
 import org.thymeleaf.spring6.requestdata.RequestDataValueProcessorUtils;
+import org.thymeleaf.spring6.util.SpringSelectedValueComparator;
 import org.thymeleaf.standard.util.StandardProcessorUtils;
 
 
@@ -48,6 +49,7 @@ public final class SpringSelectFieldTagProcessor extends AbstractSpringFieldTagP
 
     static final String OPTION_IN_SELECT_ATTR_NAME = "%%OPTION_IN_SELECT_ATTR_NAME%%";
     static final String OPTION_IN_SELECT_ATTR_VALUE = "%%OPTION_IN_SELECT_ATTR_VALUE%%";
+    static final String OPTION_IN_SELECT_SELECTED_VALUE_LOOKUP = "%%OPTION_IN_SELECT_SELECTED_VALUE_LOOKUP%%";
 
 
 
@@ -75,6 +77,9 @@ protected void doProcess(final ITemplateContext context,
 
         structureHandler.setLocalVariable(OPTION_IN_SELECT_ATTR_NAME, attributeName);
         structureHandler.setLocalVariable(OPTION_IN_SELECT_ATTR_VALUE, attributeValue);
+        // Shared by all the <option>'s in this <select> so that the bound value is only indexed once
+        structureHandler.setLocalVariable(
+                OPTION_IN_SELECT_SELECTED_VALUE_LOOKUP, new SpringSelectedValueComparator.SelectedValueLookup());
 
         if (multiple && !isDisabled(tag)) {
 
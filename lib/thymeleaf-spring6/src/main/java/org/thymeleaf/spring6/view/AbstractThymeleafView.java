@@ -72,6 +72,16 @@
      */
     public static final boolean DEFAULT_PRODUCE_PARTIAL_OUTPUT_WHILE_PROCESSING = true;
 
+    /**
+     * <p>
+     *   By default, when output is not produced while processing, Thymeleaf will buffer the template
+     *   result as text and write it to the response's {@code Writer}. Value is {@code false}.
+     * </p>
+     *
+     * @since 3.1.2
+     */
+    public static final boolean DEFAULT_PRODUCE_BUFFERED_BYTE_OUTPUT = false;
+
 
     private String beanName = null;
     private String contentType = DEFAULT_CONTENT_TYPE;
@@ -81,6 +91,8 @@
     private String characterEncoding = null;
     private boolean producePartialOutputWhileProcessing = DEFAULT_PRODUCE_PARTIAL_OUTPUT_WHILE_PROCESSING;
     private boolean producePartialOutputWhileProcessingSet = false;
+    private boolean produceBufferedByteOutput = DEFAULT_PRODUCE_BUFFERED_BYTE_OUTPUT;
+    private boolean produceBufferedByteOutputSet = false;
     private ISpringTemplateEngine templateEngine = null;
 	private String templateName = null;
     private Locale locale = null;
@@ -349,6 +361,86 @@ protected boolean isProducePartialOutputWhileProcessingSet() {
 
 
 
+    /**
+     * <p>
+     *   Returns whether Thymeleaf should encode the buffered result of template executions directly into bytes
+     *   and write them to the response's {@code OutputStream}, setting the {@code Content-Length} of the response.
+     * </p>
+     * <p>
+     *   This setting only has effect when {@code producePartialOutputWhileProcessing} is set to {@code false},
+     *   i.e. when the whole result of the template execution is buffered before being sent to the web server's
+     *   output buffers. If set to {@code true}, instead of rendering the result into a {@code String} that is then
+     *   written to the response's {@code Writer}, the template result will be encoded (using the response's
+     *   character encoding) directly into a byte buffer, which will be written to the response's
+     *   {@code OutputStream} at once after setting the {@code Content-Length} of the response to its size.
+     * </p>
+     * <p>
+     *   This avoids several full copies of the template result, which can be significant for large pages. Note
+     *   that, as the response's {@code OutputStream} will be used, no other components should have already
+     *   obtained the response's {@code Writer} when this is enabled.
+     * </p>
+     * <p>
+     *   Byte buffers are reused among requests by means of a static pool, which can retain up to 16 buffers of
+     *   up to 1MB each (larger buffers are discarded after use).
+     * </p>
+     * <p>
+     *   Default value is {@code false}.
+     * </p>
+     *
+     * @return whether to produce buffered output as bytes or not (default: {@code false}).
+     * @since 3.1.2
+     */
+    public boolean getProduceBufferedByteOutput() {
+        return this.produceBufferedByteOutput;
+    }
+
+
+    /**
+     * <p>
+     *   Sets whether Thymeleaf should encode the buffered result of template executions directly into bytes
+     *   and write them to the response's {@code OutputStream}, setting the {@code Content-Length} of the response.
+     * </p>
+     * <p>
+     *   This setting only has effect when {@code producePartialOutputWhileProcessing} is set to {@code false},
+     *   i.e. when the whole result of the template execution is buffered before being sent to the web server's
+     *   output buffers. If set to {@code true}, instead of rendering the result into a {@code String} that is then
+     *   written to the response's {@code Writer}, the template result will be encoded (using the response's
+     *   character encoding) directly into a byte buffer, which will be written to the response's
+     *   {@code OutputStream} at once after setting the {@code Content-Length} of the response to its size.
+     * </p>
+     * <p>
+     *   This avoids several full copies of the template result, which can be significant for large pages. Note
+     *   that, as the response's {@code OutputStream} will be used, no other components should have already
+     *   obtained the response's {@code Writer} when this is enabled.
+     * </p>
+     * <p>
+     *   Byte buffers are reused among requests by means of a static pool, which can retain up to 16 buffers of
+     *   up to 1MB each (larger buffers are discarded after use).
+     * </p>
+     * <p>
+     *   Default value is {@code false}.
+     * </p>
+     *
+     * @param produceBufferedByteOutput whether to produce buffered output as bytes or not (default: {@code false}).
+     * @since 3.1.2
+     */
+    public void setProduceBufferedByteOutput(final boolean produceBufferedByteOutput) {
+        this.produceBufferedByteOutput = produceBufferedByteOutput;
+        this.produceBufferedByteOutputSet = true;
+    }
+
+
+    /*
+     * Internally used (by ThymeleafViewResolver) in order to know whether a value
+     * for the "produceBufferedByteOutput" flag has been explicitly set or not.
+     * @since 3.1.2
+     */
+    protected boolean isProduceBufferedByteOutputSet() {
+        return this.produceBufferedByteOutputSet;
+    }
+
+
+
 
     /**
      * <p>
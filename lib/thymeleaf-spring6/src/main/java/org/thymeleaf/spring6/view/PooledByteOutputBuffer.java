@@ -0,0 +1,93 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.spring6.view;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+
+/*
+ * Byte buffer used by ThymeleafView for writing the whole result of a template execution, already encoded,
+ * before sending it to the response's output stream (see AbstractThymeleafView#setProduceBufferedByteOutput).
+ *
+ * Buffers are pooled in order to avoid growing a new byte array from scratch for every request. The pool is
+ * a bounded ArrayBlockingQueue: acquiring and releasing take its (short-lived) internal lock, but never wait for
+ * a buffer or for free space, as poll() and offer() are used. Buffers that grew too large are not returned to the
+ * pool so that they can be garbage-collected.
+ *
+ * NOTE the pool is static, so it retains up to POOL_SIZE (16) buffers of up to MAX_POOLED_CAPACITY (1MB) each,
+ * i.e. up to 16MB, for as long as this class is loaded, even after the views using it are gone.
+ *
+ * Instances of this class are NOT thread-safe, but they are only used by one thread between acquire() and release().
+ *
+ * @since 3.1.2
+ */
+final class PooledByteOutputBuffer extends ByteArrayOutputStream {
+
+    static final int INITIAL_CAPACITY = 8192;
+    static final int MAX_POOLED_CAPACITY = 1024 * 1024;
+    static final int POOL_SIZE = 16;
+
+    private static final BlockingQueue<PooledByteOutputBuffer> POOL =
+            new ArrayBlockingQueue<PooledByteOutputBuffer>(POOL_SIZE);
+
+
+
+    static PooledByteOutputBuffer acquire() {
+        final PooledByteOutputBuffer buffer = POOL.poll();
+        if (buffer != null) {
+            return buffer;
+        }
+        return new PooledByteOutputBuffer();
+    }
+
+
+    static void release(final PooledByteOutputBuffer buffer) {
+        if (buffer.buf.length > MAX_POOLED_CAPACITY) {
+            // Too large to be kept, a large template result should not be retaining memory forever
+            return;
+        }
+        buffer.reset();
+        // If the pool is full, this buffer will simply be discarded
+        POOL.offer(buffer);
+    }
+
+
+
+    private PooledByteOutputBuffer() {
+        super(INITIAL_CAPACITY);
+    }
+
+
+
+    Writer createWriter(final Charset charset) {
+        return new OutputStreamWriter(this, charset);
+    }
+
+
+    int capacity() {
+        return this.buf.length;
+    }
+
+}
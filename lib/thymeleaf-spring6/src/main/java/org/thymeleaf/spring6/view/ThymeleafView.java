@@ -19,6 +19,8 @@
  */
 package org.thymeleaf.spring6.view;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Writer;
 import java.lang.reflect.Field;
 import java.nio.charset.Charset;
@@ -39,11 +41,14 @@
 import org.springframework.web.servlet.support.RequestContext;
 import org.springframework.web.servlet.view.AbstractTemplateView;
 import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.context.IContext;
 import org.thymeleaf.context.WebExpressionContext;
 import org.thymeleaf.exceptions.TemplateProcessingException;
 import org.thymeleaf.spring6.ISpringTemplateEngine;
+import org.thymeleaf.spring6.context.BindStatusCache;
 import org.thymeleaf.spring6.context.webmvc.SpringWebMvcThymeleafRequestContext;
 import org.thymeleaf.spring6.expression.ThymeleafEvaluationContext;
+import org.thymeleaf.spring6.expression.ThymeleafEvaluationContextComponents;
 import org.thymeleaf.spring6.naming.SpringContextVariableNames;
 import org.thymeleaf.spring6.util.SpringContentTypeUtils;
 import org.thymeleaf.spring6.util.SpringRequestUtils;
@@ -85,6 +90,10 @@
 
     private Set<String> markupSelectors = null;
 
+    // Application-scoped components shared by the evaluation contexts created for each execution of this view.
+    // These will be created again if the application context or the conversion service ever change.
+    private volatile ThymeleafEvaluationContextComponents evaluationContextComponents = null;
+
 
 
     static {
@@ -246,17 +255,20 @@ protected void renderFragment(final Set<String> markupSelectorsToRender, final M
         // Add the Thymeleaf RequestContext wrapper that we will be using in this dialect (the bare RequestContext
         // stays in the context to for compatibility with other dialects)
         mergedModel.put(SpringContextVariableNames.THYMELEAF_REQUEST_CONTEXT, thymeleafRequestContext);
+        // Bind statuses for form fields will be reused during this template execution
+        mergedModel.put(SpringContextVariableNames.THYMELEAF_BIND_STATUS_CACHE, new BindStatusCache());
 
 
         // Expose Thymeleaf's own evaluation context as a model variable
         //
         // Note Spring's EvaluationContexts are NOT THREAD-SAFE (in exchange for SpelExpressions being thread-safe).
-        // That's why we need to create a new EvaluationContext for each request / template execution, even if it is
-        // quite expensive to create because of requiring the initialization of several ConcurrentHashMaps.
+        // That's why we need to create a new EvaluationContext for each request / template execution. But the most
+        // expensive parts of it (bean resolver, type converter, accessors, resolvers...) are immutable and therefore
+        // shared among all executions of this view, so that only per-execution state needs to be created.
         final ConversionService conversionService =
                 (ConversionService) request.getAttribute(ConversionService.class.getName()); // might be null!
         final ThymeleafEvaluationContext evaluationContext =
-                new ThymeleafEvaluationContext(applicationContext, conversionService);
+                obtainEvaluationContextComponents(applicationContext, conversionService).createEvaluationContext();
         mergedModel.put(ThymeleafEvaluationContext.THYMELEAF_EVALUATION_CONTEXT_CONTEXT_VARIABLE_NAME, evaluationContext);
 
 
@@ -365,6 +377,13 @@ protected void renderFragment(final Set<String> markupSelectorsToRender, final M
 
         final boolean producePartialOutputWhileProcessing = getProducePartialOutputWhileProcessing();
 
+        if (!producePartialOutputWhileProcessing && getProduceBufferedByteOutput()) {
+            // Output will be encoded directly into a byte buffer, so that it can be written to the response's
+            // output stream at once and with a known Content-Length
+            processIntoByteBuffer(viewTemplateEngine, templateName, processMarkupSelectors, context, response);
+            return;
+        }
+
         // If we have chosen to not output anything until processing finishes, we will use a buffer
         final Writer templateWriter =
                 (producePartialOutputWhileProcessing? response.getWriter() : new FastStringWriter(1024));
@@ -381,4 +400,48 @@ protected void renderFragment(final Set<String> markupSelectorsToRender, final M
 
 
 
+
+    private static void processIntoByteBuffer(
+            final ISpringTemplateEngine viewTemplateEngine, final String templateName,
+            final Set<String> processMarkupSelectors, final IContext context,
+            final HttpServletResponse response) throws IOException {
+
+        // The response character encoding has already been set by means of the content type
+        final Charset charset = Charset.forName(response.getCharacterEncoding());
+
+        final PooledByteOutputBuffer buffer = PooledByteOutputBuffer.acquire();
+        try {
+
+            final Writer templateWriter = buffer.createWriter(charset);
+            viewTemplateEngine.process(templateName, processMarkupSelectors, context, templateWriter);
+            templateWriter.flush();
+
+            response.setContentLength(buffer.size());
+            final OutputStream outputStream = response.getOutputStream();
+            buffer.writeTo(outputStream);
+            outputStream.flush();
+
+        } finally {
+            PooledByteOutputBuffer.release(buffer);
+        }
+
+    }
+
+
+
+
+    private ThymeleafEvaluationContextComponents obtainEvaluationContextComponents(
+            final ApplicationContext applicationContext, final ConversionService conversionService) {
+        ThymeleafEvaluationContextComponents components = this.evaluationContextComponents;
+        if (components == null ||
+                components.getApplicationContext() != applicationContext ||
+                components.getConversionService() != conversionService) {
+            components = new ThymeleafEvaluationContextComponents(applicationContext, conversionService);
+            this.evaluationContextComponents = components;
+        }
+        return components;
+    }
+
+
+
 }
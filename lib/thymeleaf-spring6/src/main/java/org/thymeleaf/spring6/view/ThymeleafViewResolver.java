@@ -95,6 +95,7 @@
     private boolean alwaysProcessRedirectAndForward = true;
 
     private boolean producePartialOutputWhileProcessing = AbstractThymeleafView.DEFAULT_PRODUCE_PARTIAL_OUTPUT_WHILE_PROCESSING;
+    private boolean produceBufferedByteOutput = AbstractThymeleafView.DEFAULT_PRODUCE_BUFFERED_BYTE_OUTPUT;
 
     private Class<? extends AbstractThymeleafView> viewClass = ThymeleafView.class;
     private String[] viewNames = null;
@@ -651,6 +652,67 @@ public void setProducePartialOutputWhileProcessing(final boolean producePartialO
 
 
 
+    /**
+     * <p>
+     *   Returns whether Thymeleaf should encode the buffered result of template executions directly into bytes
+     *   and write them to the response's {@code OutputStream}, setting the {@code Content-Length} of the response.
+     * </p>
+     * <p>
+     *   This setting only has effect when {@code producePartialOutputWhileProcessing} is set to {@code false},
+     *   i.e. when the whole result of the template execution is buffered before being sent to the web server's
+     *   output buffers. If set to {@code true}, instead of rendering the result into a {@code String} that is then
+     *   written to the response's {@code Writer}, the template result will be encoded (using the response's
+     *   character encoding) directly into a byte buffer, which will be written to the response's
+     *   {@code OutputStream} at once after setting the {@code Content-Length} of the response to its size.
+     * </p>
+     * <p>
+     *   This avoids several full copies of the template result, which can be significant for large pages. Note
+     *   that, as the response's {@code OutputStream} will be used, no other components should have already
+     *   obtained the response's {@code Writer} when this is enabled.
+     * </p>
+     * <p>
+     *   Default value is {@code false}.
+     * </p>
+     *
+     * @return whether to produce buffered output as bytes or not (default: {@code false}).
+     * @since 3.1.2
+     */
+    public boolean getProduceBufferedByteOutput() {
+        return this.produceBufferedByteOutput;
+    }
+
+
+    /**
+     * <p>
+     *   Sets whether Thymeleaf should encode the buffered result of template executions directly into bytes
+     *   and write them to the response's {@code OutputStream}, setting the {@code Content-Length} of the response.
+     * </p>
+     * <p>
+     *   This setting only has effect when {@code producePartialOutputWhileProcessing} is set to {@code false},
+     *   i.e. when the whole result of the template execution is buffered before being sent to the web server's
+     *   output buffers. If set to {@code true}, instead of rendering the result into a {@code String} that is then
+     *   written to the response's {@code Writer}, the template result will be encoded (using the response's
+     *   character encoding) directly into a byte buffer, which will be written to the response's
+     *   {@code OutputStream} at once after setting the {@code Content-Length} of the response to its size.
+     * </p>
+     * <p>
+     *   This avoids several full copies of the template result, which can be significant for large pages. Note
+     *   that, as the response's {@code OutputStream} will be used, no other components should have already
+     *   obtained the response's {@code Writer} when this is enabled.
+     * </p>
+     * <p>
+     *   Default value is {@code false}.
+     * </p>
+     *
+     * @param produceBufferedByteOutput whether to produce buffered output as bytes or not (default: {@code false}).
+     * @since 3.1.2
+     */
+    public void setProduceBufferedByteOutput(final boolean produceBufferedByteOutput) {
+        this.produceBufferedByteOutput = produceBufferedByteOutput;
+    }
+
+
+
 
     /**
      * <p>
@@ -882,6 +944,9 @@ protected View loadView(final String viewName, final Locale locale) throws Excep
         if (!view.isProducePartialOutputWhileProcessingSet()) {
             view.setProducePartialOutputWhileProcessing(getProducePartialOutputWhileProcessing());
         }
+        if (!view.isProduceBufferedByteOutputSet()) {
+            view.setProduceBufferedByteOutput(getProduceBufferedByteOutput());
+        }
 
         return view;
 
@@ -54,10 +54,12 @@
 import org.thymeleaf.context.WebExpressionContext;
 import org.thymeleaf.exceptions.TemplateProcessingException;
 import org.thymeleaf.spring6.ISpringWebFluxTemplateEngine;
+import org.thymeleaf.spring6.context.BindStatusCache;
 import org.thymeleaf.spring6.context.webflux.IReactiveDataDriverContextVariable;
 import org.thymeleaf.spring6.context.webflux.ReactiveDataDriverContextVariable;
 import org.thymeleaf.spring6.context.webflux.SpringWebFluxThymeleafRequestContext;
 import org.thymeleaf.spring6.expression.ThymeleafEvaluationContext;
+import org.thymeleaf.spring6.expression.ThymeleafEvaluationContextComponents;
 import org.thymeleaf.spring6.naming.SpringContextVariableNames;
 import org.thymeleaf.spring6.util.SpringReactiveModelAdditionsUtils;
 import org.thymeleaf.spring6.web.webflux.SpringWebFluxWebApplication;
@@ -135,6 +137,10 @@ public class ThymeleafReactiveView extends AbstractView implements BeanNameAware
     // value established at the ThymeleafReactiveViewResolver for the same purpose.
     private Integer responseMaxChunkSizeBytes = null;
 
+    // Application-scoped components shared by the evaluation contexts created for each execution of this view.
+    // These will be created again if the application context or the conversion service ever change.
+    private volatile ThymeleafEvaluationContextComponents evaluationContextComponents = null;
+
 
 
 
@@ -414,18 +420,21 @@ protected Mono<Void> renderFragmentInternal(
         // Add the Thymeleaf RequestContext wrapper that we will be using in this dialect (the bare RequestContext
         // stays in the context to for compatibility with other dialects)
         mergedModel.put(SpringContextVariableNames.THYMELEAF_REQUEST_CONTEXT, thymeleafRequestContext);
+        // Bind statuses for form fields will be reused during this template execution
+        mergedModel.put(SpringContextVariableNames.THYMELEAF_BIND_STATUS_CACHE, new BindStatusCache());
 
 
         // Expose Thymeleaf's own evaluation context as a model variable
         //
         // Note Spring's EvaluationContexts are NOT THREAD-SAFE (in exchange for SpelExpressions being thread-safe).
-        // That's why we need to create a new EvaluationContext for each request / template execution, even if it is
-        // quite expensive to create because of requiring the initialization of several ConcurrentHashMaps.
+        // That's why we need to create a new EvaluationContext for each request / template execution. But the most
+        // expensive parts of it (bean resolver, type converter, accessors, resolvers...) are immutable and therefore
+        // shared among all executions of this view, so that only per-execution state needs to be created.
         final ConversionService conversionService =
                 applicationContext.containsBean(WEBFLUX_CONVERSION_SERVICE_NAME)?
                         (ConversionService)applicationContext.getBean(WEBFLUX_CONVERSION_SERVICE_NAME): null;
         final ThymeleafEvaluationContext evaluationContext =
-                new ThymeleafEvaluationContext(applicationContext, conversionService);
+                obtainEvaluationContextComponents(applicationContext, conversionService).createEvaluationContext();
         mergedModel.put(ThymeleafEvaluationContext.THYMELEAF_EVALUATION_CONTEXT_CONTEXT_VARIABLE_NAME, evaluationContext);
 
 
@@ -613,6 +622,14 @@ protected Mono<Void> renderFragmentInternal(
 
             // No size limit for output chunks has been set (FULL mode), so we will let the
             // server apply its standard behaviour ("writeWith").
+            if (stream instanceof Mono) {
+                // The whole output is produced in a single buffer, so we know its final size and can set the
+                // Content-Length header before writing it.
+                return ((Mono<DataBuffer>) stream).flatMap(dataBuffer -> {
+                    responseHeaders.setContentLength(dataBuffer.readableByteCount());
+                    return response.writeWith(Mono.just(dataBuffer));
+                });
+            }
             return response.writeWith(stream);
 
         }
@@ -626,6 +643,21 @@ protected Mono<Void> renderFragmentInternal(
 
 
 
+    private ThymeleafEvaluationContextComponents obtainEvaluationContextComponents(
+            final ApplicationContext applicationContext, final ConversionService conversionService) {
+        ThymeleafEvaluationContextComponents components = this.evaluationContextComponents;
+        if (components == null ||
+                components.getApplicationContext() != applicationContext ||
+                components.getConversionService() != conversionService) {
+            components = new ThymeleafEvaluationContextComponents(applicationContext, conversionService);
+            this.evaluationContextComponents = components;
+        }
+        return components;
+    }
+
+
+
+
     private static Optional<Charset> getCharset(final MediaType mediaType) {
         return mediaType != null ? Optional.ofNullable(mediaType.getCharset()) : Optional.empty();
     }
@@ -54,6 +54,8 @@
 import org.thymeleaf.processor.text.ITextProcessor;
 import org.thymeleaf.processor.xmldeclaration.IXMLDeclarationProcessor;
 import org.thymeleaf.standard.StandardDialect;
+import org.thymeleaf.standard.expression.StandardExpressionCompiler;
+import org.thymeleaf.standard.expression.StandardExpressions;
 import org.thymeleaf.templatemode.TemplateMode;
 import org.thymeleaf.util.ProcessorComparators;
 import org.thymeleaf.util.ProcessorConfigurationUtils;
@@ -74,6 +76,7 @@ final class DialectSetConfiguration {
     private final String standardDialectPrefix;
 
     private final Map<String,Object> executionAttributes;
+    private final boolean standardExpressionCompilerPresent;
 
     private final AggregateExpressionObjectFactory expressionObjectFactory;
 
@@ -573,6 +576,8 @@ private DialectSetConfiguration(
         this.standardDialectPresent = standardDialectPresent;
         this.standardDialectPrefix = standardDialectPrefix;
         this.executionAttributes = Collections.unmodifiableMap(executionAttributes);
+        this.standardExpressionCompilerPresent =
+                (executionAttributes.get(StandardExpressions.STANDARD_EXPRESSION_COMPILER_ATTRIBUTE_NAME) instanceof StandardExpressionCompiler);
         this.expressionObjectFactory = expressionObjectFactory;
         this.elementDefinitions = elementDefinitions;
         this.attributeDefinitions = attributeDefinitions;
@@ -619,6 +624,10 @@ public boolean hasExecutionAttribute(final String executionAttributeName) {
         return this.executionAttributes.containsKey(executionAttributeName);
     }
 
+    public boolean isStandardExpressionCompilerPresent() {
+        return this.standardExpressionCompilerPresent;
+    }
+
     public ElementDefinitions getElementDefinitions() {
         return this.elementDefinitions;
     }
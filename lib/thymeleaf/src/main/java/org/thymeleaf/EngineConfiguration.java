@@ -35,6 +35,8 @@
 import org.thymeleaf.engine.ElementDefinitions;
 import org.thymeleaf.engine.StandardModelFactory;
 import org.thymeleaf.engine.TemplateManager;
+import org.thymeleaf.instrumentation.ITemplateInstrumentation;
+import org.thymeleaf.instrumentation.ProcessorProfiler;
 import org.thymeleaf.expression.IExpressionObjectFactory;
 import org.thymeleaf.linkbuilder.ILinkBuilder;
 import org.thymeleaf.messageresolver.IMessageResolver;
@@ -75,6 +77,10 @@ public class EngineConfiguration implements IEngineConfiguration {
     private final ICacheManager cacheManager;
     private final IEngineContextFactory engineContextFactory;
     private final IDecoupledTemplateLogicResolver decoupledTemplateLogicResolver;
+    private final boolean singleFlightTemplateParsing;
+    private final boolean fragmentIndexing;
+    private final ITemplateInstrumentation templateInstrumentation;
+    private final ProcessorProfiler processorProfiler;
     private TemplateManager templateManager;
     private final ConcurrentHashMap<TemplateMode,IModelFactory> modelFactories;
 
@@ -89,7 +95,11 @@ public class EngineConfiguration implements IEngineConfiguration {
             final Set<DialectConfiguration> dialectConfigurations,
             final ICacheManager cacheManager,
             final IEngineContextFactory engineContextFactory,
-            final IDecoupledTemplateLogicResolver decoupledTemplateLogicResolver) {
+            final IDecoupledTemplateLogicResolver decoupledTemplateLogicResolver,
+            final boolean singleFlightTemplateParsing,
+            final boolean fragmentIndexing,
+            final ITemplateInstrumentation templateInstrumentation,
+            final ProcessorProfiler processorProfiler) {
 
         super();
 
@@ -101,6 +111,8 @@ public class EngineConfiguration implements IEngineConfiguration {
         // Cache Manager CAN be null
         Validate.notNull(engineContextFactory, "Engine Context Factory cannot be null");
         Validate.notNull(decoupledTemplateLogicResolver, "Decoupled Template Logic Resolver cannot be null");
+        Validate.notNull(templateInstrumentation, "Template Instrumentation cannot be null");
+        // Processor Profiler CAN be null
 
         final List<ITemplateResolver> templateResolversList = new ArrayList<ITemplateResolver>(templateResolvers);
         Collections.sort(templateResolversList, TemplateResolverComparator.INSTANCE);
@@ -120,6 +132,14 @@ public class EngineConfiguration implements IEngineConfiguration {
 
         this.decoupledTemplateLogicResolver = decoupledTemplateLogicResolver;
 
+        this.singleFlightTemplateParsing = singleFlightTemplateParsing;
+
+        this.fragmentIndexing = fragmentIndexing;
+
+        this.templateInstrumentation = templateInstrumentation;
+
+        this.processorProfiler = processorProfiler;
+
         this.dialectSetConfiguration = DialectSetConfiguration.build(dialectConfigurations);
 
         // NOTE we are NOT initializing the templateManager here, but in #initialize()
@@ -171,6 +191,30 @@ public IDecoupledTemplateLogicResolver getDecoupledTemplateLogicResolver() {
 
 
 
+    public boolean isSingleFlightTemplateParsing() {
+        return this.singleFlightTemplateParsing;
+    }
+
+
+
+    public boolean isFragmentIndexing() {
+        return this.fragmentIndexing;
+    }
+
+
+
+    public ITemplateInstrumentation getTemplateInstrumentation() {
+        return this.templateInstrumentation;
+    }
+
+
+
+    public ProcessorProfiler getProcessorProfiler() {
+        return this.processorProfiler;
+    }
+
+
+
 
     public Set<DialectConfiguration> getDialectConfigurations() {
         return this.dialectSetConfiguration.getDialectConfigurations();
@@ -258,6 +302,10 @@ public Map<String, Object> getExecutionAttributes() {
         return this.dialectSetConfiguration.getExecutionAttributes();
     }
 
+    public boolean isStandardExpressionCompilerPresent() {
+        return this.dialectSetConfiguration.isStandardExpressionCompilerPresent();
+    }
+
 
     public IExpressionObjectFactory getExpressionObjectFactory() {
         return this.dialectSetConfiguration.getExpressionObjectFactory();
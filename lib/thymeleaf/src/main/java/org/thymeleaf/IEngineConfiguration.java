@@ -28,6 +28,8 @@
 import org.thymeleaf.engine.AttributeDefinitions;
 import org.thymeleaf.engine.ElementDefinitions;
 import org.thymeleaf.engine.TemplateManager;
+import org.thymeleaf.instrumentation.ITemplateInstrumentation;
+import org.thymeleaf.instrumentation.ProcessorProfiler;
 import org.thymeleaf.expression.IExpressionObjectFactory;
 import org.thymeleaf.linkbuilder.ILinkBuilder;
 import org.thymeleaf.messageresolver.IMessageResolver;
@@ -42,6 +44,8 @@
 import org.thymeleaf.processor.templateboundaries.ITemplateBoundariesProcessor;
 import org.thymeleaf.processor.text.ITextProcessor;
 import org.thymeleaf.processor.xmldeclaration.IXMLDeclarationProcessor;
+import org.thymeleaf.standard.expression.StandardExpressionCompiler;
+import org.thymeleaf.standard.expression.StandardExpressions;
 import org.thymeleaf.templatemode.TemplateMode;
 import org.thymeleaf.templateparser.markup.decoupled.IDecoupledTemplateLogicResolver;
 import org.thymeleaf.templateresolver.ITemplateResolver;
@@ -74,6 +78,66 @@ public interface IEngineConfiguration {
 
     public IDecoupledTemplateLogicResolver getDecoupledTemplateLogicResolver();
 
+    /**
+     * <p>
+     *   Returns whether <em>single-flight</em> template parsing is enabled, i.e. whether threads that
+     *   need a template which is not cached but is currently being parsed by another thread should wait
+     *   for that parsing to finish and reuse its result instead of parsing the same template themselves.
+     * </p>
+     *
+     * <p>
+     *   Default implementation returns {@code false}, so that existing implementations of this interface
+     *   are not affected.
+     * </p>
+     *
+     * @return {@code true} if single-flight template parsing is enabled, {@code false} if not.
+     * @since 3.1.2
+     */
+    public default boolean isSingleFlightTemplateParsing() {
+        return false;
+    }
+
+    /**
+     * <p>
+     *   Returns whether fragments selected by name from cacheable templates should be computed from an
+     *   index on the cached complete template instead of parsing the template again for each different
+     *   set of selectors.
+     * </p>
+     *
+     * <p>
+     *   Default implementation returns {@code false}, so that existing implementations of this interface
+     *   are not affected.
+     * </p>
+     *
+     * @return {@code true} if fragment indexing is enabled, {@code false} if not.
+     * @since 3.1.2
+     */
+    public default boolean isFragmentIndexing() {
+        return false;
+    }
+
+    /**
+     * <p>
+     *   Returns the instrumentation object that will be notified of the time spent rendering templates.
+     * </p>
+     *
+     * @return the template instrumentation (never null, a
+     *         {@link org.thymeleaf.instrumentation.NoOpTemplateInstrumentation} if none has been configured).
+     * @since 3.1.2
+     */
+    public ITemplateInstrumentation getTemplateInstrumentation();
+
+    /**
+     * <p>
+     *   Returns the profiler that will record the executions of processors, if processor profiling
+     *   has been enabled.
+     * </p>
+     *
+     * @return the processor profiler, or {@code null} if processor profiling is disabled.
+     * @since 3.1.2
+     */
+    public ProcessorProfiler getProcessorProfiler();
+
     public Set<DialectConfiguration> getDialectConfigurations();
     public Set<IDialect> getDialects();
     public <T extends IDialect> Set<T> getDialectsOfType(final Class<T> type);
@@ -97,6 +161,26 @@ public interface IEngineConfiguration {
 
     public Map<String,Object> getExecutionAttributes();
 
+    /**
+     * <p>
+     *   Returns whether a {@link StandardExpressionCompiler} has been registered (by the Standard Dialect)
+     *   as an execution attribute, so that Standard Expressions can avoid looking it up each time they are
+     *   executed if it has not.
+     * </p>
+     *
+     * <p>
+     *   Default implementation looks for the compiler among the execution attributes each time it is called,
+     *   so that existing implementations of this interface are not affected.
+     * </p>
+     *
+     * @return {@code true} if an expression compiler has been registered, {@code false} if not.
+     * @since 3.1.2
+     */
+    public default boolean isStandardExpressionCompilerPresent() {
+        return (getExecutionAttributes().get(StandardExpressions.STANDARD_EXPRESSION_COMPILER_ATTRIBUTE_NAME)
+                        instanceof StandardExpressionCompiler);
+    }
+
     public IExpressionObjectFactory getExpressionObjectFactory();
 
     public TemplateManager getTemplateManager();
@@ -20,9 +20,18 @@
 package org.thymeleaf;
 
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 import org.thymeleaf.context.IContext;
+import org.thymeleaf.util.PatternSpec;
+import org.thymeleaf.util.Validate;
 
 
 /**
@@ -278,4 +287,100 @@ public interface ITemplateEngine {
      */
     public IThrottledTemplateProcessor processThrottled(final TemplateSpec templateSpec, final IContext context);
 
+
+
+    /**
+     * <p>
+     * Warm up the template cache by resolving and parsing the specified templates in parallel, using the
+     * specified executor, so that their first executions do not need to parse them. Templates are parsed but
+     * not processed, so no context is needed.
+     * </p>
+     * <p>
+     * Each template specification (including any template selectors it might specify) will result in
+     * the same template cache entry as processing it with {@link #process(TemplateSpec, IContext)}.
+     * Templates that are already cached will not be parsed again, and templates resolved as non-cacheable
+     * (or all templates, if the template cache is disabled) will only be resolved, but neither parsed nor cached,
+     * as there would be no benefit in parsing them in advance. These will not be reported as cached in the
+     * returned result.
+     * </p>
+     * <p>
+     * Note fragments inserted from other templates (e.g. by means of <tt>th:insert</tt> or <tt>th:replace</tt>)
+     * are cached independently for each template inserting them, so these will only benefit from warming up
+     * if fragment indexing is enabled at the {@link TemplateEngine}: in that case, warming up a template
+     * (with or without selectors) also caches the complete template model that all these fragments are
+     * selected from.
+     * </p>
+     * <p>
+     * This method blocks until all templates have been warmed up. Failures resolving or parsing templates
+     * will not be raised, but reported in the returned result together with the time spent on each template.
+     * </p>
+     *
+     * <p>
+     * Default implementation does not warm up anything, and reports each of the template specifications as
+     * failed with an {@link UnsupportedOperationException}, so that existing implementations of this interface
+     * are not affected.
+     * </p>
+     *
+     * @param templateSpecs the template specs of the templates to be warmed up.
+     * @param executor the executor that will execute the resolution and parsing of each template.
+     * @return the result of the warm-up operation.
+     * @since 3.1.2
+     */
+    public default TemplateCacheWarmUpResult warmUpTemplateCache(
+            final Collection<TemplateSpec> templateSpecs, final Executor executor) {
+
+        Validate.notNull(templateSpecs, "Template Specifications cannot be null");
+        Validate.containsNoNulls(templateSpecs, "Template Specifications cannot contain nulls");
+
+        final UnsupportedOperationException failure =
+                new UnsupportedOperationException(
+                        "Template cache warm-up is not supported by template engine implementation " + getClass().getName());
+
+        final Map<TemplateSpec,Long> parseTimes = new LinkedHashMap<TemplateSpec, Long>(templateSpecs.size() + 1, 1.0f);
+        final Map<TemplateSpec,Throwable> failures = new LinkedHashMap<TemplateSpec, Throwable>(templateSpecs.size() + 1, 1.0f);
+        for (final TemplateSpec templateSpec : templateSpecs) {
+            parseTimes.put(templateSpec, Long.valueOf(0L));
+            failures.put(templateSpec, failure);
+        }
+
+        return new TemplateCacheWarmUpResult(parseTimes, Collections.<TemplateSpec>emptySet(), failures, 0L);
+
+    }
+
+
+    /**
+     * <p>
+     * Warm up the template cache by resolving and parsing in parallel those of the specified templates
+     * whose names match the specified patterns (if any), using the specified executor. Patterns
+     * follow the same syntax as those used for configuring template resolvers (see {@link PatternSpec}),
+     * so the resolvable patterns of a resolver can be used for selecting the templates it will resolve.
+     * </p>
+     * <p>
+     * See {@link #warmUpTemplateCache(Collection, Executor)} for more details.
+     * </p>
+     *
+     * @param templates the names of the candidate templates to be warmed up.
+     * @param patternSpec the patterns template names must match in order to be warmed up. Can be null or empty
+     *                    if all templates should be warmed up.
+     * @param executor the executor that will execute the resolution and parsing of each template.
+     * @return the result of the warm-up operation.
+     * @since 3.1.2
+     */
+    public default TemplateCacheWarmUpResult warmUpTemplateCache(
+            final Collection<String> templates, final PatternSpec patternSpec, final Executor executor) {
+
+        Validate.notNull(templates, "Templates cannot be null");
+        Validate.containsNoNulls(templates, "Templates cannot contain nulls");
+
+        final List<TemplateSpec> templateSpecs = new ArrayList<TemplateSpec>(templates.size());
+        for (final String template : templates) {
+            if (patternSpec == null || patternSpec.isEmpty() || patternSpec.matches(template)) {
+                templateSpecs.add(new TemplateSpec(template, null, null, null, null));
+            }
+        }
+
+        return warmUpTemplateCache(templateSpecs, executor);
+
+    }
+
 }
@@ -0,0 +1,152 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * <p>
+ *   Result of warming up the template cache of a template engine by means of
+ *   {@link ITemplateEngine#warmUpTemplateCache(java.util.Collection, java.util.concurrent.Executor)}.
+ * </p>
+ * <p>
+ *   For each of the template specifications that were warmed up, this object contains the time spent
+ *   resolving and parsing it, whether its model is now in the template cache, and the failure that
+ *   prevented it from being parsed, if any.
+ * </p>
+ * <p>
+ *   Objects of this class are <strong>immutable</strong>, and therefore <strong>thread-safe</strong>.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.1.2
+ *
+ */
+public final class TemplateCacheWarmUpResult {
+
+    private final Map<TemplateSpec,Long> parseTimes;
+    private final Set<TemplateSpec> cachedTemplateSpecs;
+    private final Map<TemplateSpec,Throwable> failures;
+    private final long totalTimeNanos;
+
+
+
+    TemplateCacheWarmUpResult(
+            final Map<TemplateSpec,Long> parseTimes, final Set<TemplateSpec> cachedTemplateSpecs,
+            final Map<TemplateSpec,Throwable> failures, final long totalTimeNanos) {
+        super();
+        this.parseTimes = Collections.unmodifiableMap(parseTimes);
+        this.cachedTemplateSpecs = Collections.unmodifiableSet(cachedTemplateSpecs);
+        this.failures = Collections.unmodifiableMap(failures);
+        this.totalTimeNanos = totalTimeNanos;
+    }
+
+
+    /**
+     * <p>
+     *   Returns all the template specifications that were warmed up, in the same order they were specified.
+     * </p>
+     *
+     * @return the template specifications.
+     */
+    public Set<TemplateSpec> getTemplateSpecs() {
+        return this.parseTimes.keySet();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the time (in nanoseconds) spent resolving and parsing each of the template specifications
+     *   (including those that failed). Templates that were already in the template cache will report a
+     *   time close to zero.
+     * </p>
+     *
+     * @return the resolution and parsing time of each template specification, in nanoseconds.
+     */
+    public Map<TemplateSpec,Long> getParseTimes() {
+        return this.parseTimes;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the template specifications whose template models are now in the template cache. Templates
+     *   that failed or that were resolved as non-cacheable will not be in this set.
+     * </p>
+     *
+     * @return the cached template specifications.
+     */
+    public Set<TemplateSpec> getCachedTemplateSpecs() {
+        return this.cachedTemplateSpecs;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the failures that prevented templates from being resolved or parsed.
+     * </p>
+     *
+     * @return the failures, by template specification (empty if there were none).
+     */
+    public Map<TemplateSpec,Throwable> getFailures() {
+        return this.failures;
+    }
+
+
+    /**
+     * <p>
+     *   Returns whether all the template specifications could be resolved and parsed without failures.
+     * </p>
+     *
+     * @return true if there were no failures, false if not.
+     */
+    public boolean isSuccessful() {
+        return this.failures.isEmpty();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the total time (in nanoseconds) spent by the warm-up operation, from the moment it started
+     *   until all templates were finished.
+     * </p>
+     *
+     * @return the total time, in nanoseconds.
+     */
+    public long getTotalTimeNanos() {
+        return this.totalTimeNanos;
+    }
+
+
+    @Override
+    public String toString() {
+        return "TemplateCacheWarmUpResult{" +
+                "templates=" + this.parseTimes.size() +
+                ", cached=" + this.cachedTemplateSpecs.size() +
+                ", failures=" + this.failures.keySet() +
+                ", totalTimeNanos=" + this.totalTimeNanos +
+                '}';
+    }
+
+}
@@ -19,15 +19,26 @@
  */
 package org.thymeleaf;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Writer;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,6 +54,9 @@
 import org.thymeleaf.exceptions.TemplateEngineException;
 import org.thymeleaf.exceptions.TemplateOutputException;
 import org.thymeleaf.exceptions.TemplateProcessingException;
+import org.thymeleaf.instrumentation.ITemplateInstrumentation;
+import org.thymeleaf.instrumentation.NoOpTemplateInstrumentation;
+import org.thymeleaf.instrumentation.ProcessorProfiler;
 import org.thymeleaf.linkbuilder.ILinkBuilder;
 import org.thymeleaf.linkbuilder.StandardLinkBuilder;
 import org.thymeleaf.messageresolver.IMessageResolver;
@@ -255,6 +269,11 @@ public class TemplateEngine implements ITemplateEngine {
     private ICacheManager cacheManager = null;
     private IEngineContextFactory engineContextFactory = null;
     private IDecoupledTemplateLogicResolver decoupledTemplateLogicResolver = null;
+    private boolean singleFlightTemplateParsing = false;
+    private boolean fragmentIndexing = false;
+    private ITemplateInstrumentation templateInstrumentation = null;
+    private ProcessorProfiler processorProfiler = null;
+    private File templateModelSnapshotFile = null;
 
 
     private IEngineConfiguration configuration = null;
@@ -280,6 +299,7 @@ public TemplateEngine() {
         setMessageResolver(new StandardMessageResolver());
         setLinkBuilder(new StandardLinkBuilder());
         setDecoupledTemplateLogicResolver(new StandardDecoupledTemplateLogicResolver());
+        setTemplateInstrumentation(NoOpTemplateInstrumentation.INSTANCE);
         setDialect(new StandardDialect());
     }
 
@@ -342,9 +362,13 @@ final void initialize() {
                             new EngineConfiguration(
                                     this.templateResolvers, this.messageResolvers, this.linkBuilders,
                                     this.dialectConfigurations, this.cacheManager, this.engineContextFactory,
-                                    this.decoupledTemplateLogicResolver);
+                                    this.decoupledTemplateLogicResolver, this.singleFlightTemplateParsing,
+                                    this.fragmentIndexing, this.templateInstrumentation, this.processorProfiler);
                     ((EngineConfiguration)this.configuration).initialize();
 
+                    // Pre-populate the template cache if a template model snapshot is available
+                    loadTemplateModelSnapshot();
+
                     this.initialized = true;
 
                     // Log configuration details
@@ -362,6 +386,39 @@ final void initialize() {
 
 
 
+    private void loadTemplateModelSnapshot() {
+
+        if (this.templateModelSnapshotFile == null || !this.templateModelSnapshotFile.isFile()) {
+            return;
+        }
+
+        // A snapshot that cannot be read should never prevent the engine from working: templates will just be
+        // parsed and cached as usual
+        InputStream inputStream = null;
+        try {
+            inputStream = new BufferedInputStream(new FileInputStream(this.templateModelSnapshotFile));
+            final int loaded = this.configuration.getTemplateManager().loadTemplateModelSnapshot(inputStream);
+            logger.debug(
+                    "[THYMELEAF] Loaded {} template models from template model snapshot \"{}\"",
+                    Integer.valueOf(loaded), this.templateModelSnapshotFile);
+        } catch (final IOException | RuntimeException e) {
+            logger.warn(
+                    "[THYMELEAF] Template model snapshot \"" + this.templateModelSnapshotFile + "\" could not be " +
+                    "loaded. It will be ignored.", e);
+        } finally {
+            if (inputStream != null) {
+                try {
+                    inputStream.close();
+                } catch (final IOException ignored) {
+                    // Nothing to do here
+                }
+            }
+        }
+
+    }
+
+
+
     /**
      * <p>
      *   This method performs additional initializations required for a
@@ -821,6 +878,248 @@ public void setDecoupledTemplateLogicResolver(final IDecoupledTemplateLogicResol
         this.decoupledTemplateLogicResolver = decoupledTemplateLogicResolver;
     }
 
+
+    /**
+     * <p>
+     *   Returns whether <em>single-flight</em> template parsing is enabled.
+     * </p>
+     * <p>
+     *   By default, single-flight template parsing is disabled.
+     * </p>
+     *
+     * @return whether single-flight template parsing is enabled
+     * @since 3.1.2
+     */
+    public final boolean isSingleFlightTemplateParsing() {
+        if (this.initialized) {
+            return this.configuration.isSingleFlightTemplateParsing();
+        }
+        return this.singleFlightTemplateParsing;
+    }
+
+    /**
+     * <p>
+     *   Sets whether <em>single-flight</em> template parsing should be enabled.
+     * </p>
+     * <p>
+     *   When enabled, if several threads need the same template at the same time and this template is not
+     *   in the template cache (e.g. just after startup, or after it has been evicted), only one of them will
+     *   resolve and parse it, and the rest will wait for the resulting template model to be available and
+     *   then reuse it. If the template turns out not to be cacheable, or if its parsing fails, the waiting
+     *   threads will resolve and parse the template on their own.
+     * </p>
+     * <p>
+     *   This setting has no effect if no template cache is being used.
+     * </p>
+     * <p>
+     *   By default, single-flight template parsing is disabled.
+     * </p>
+     * <p>
+     *   This operation can only be executed before processing templates for the first
+     *   time. Once a template is processed, the template engine is considered to be
+     *   <i>initialized</i>, and from then on any attempt to change its configuration
+     *   will result in an exception.
+     * </p>
+     *
+     * @param singleFlightTemplateParsing whether single-flight template parsing should be enabled.
+     * @since 3.1.2
+     */
+    public void setSingleFlightTemplateParsing(final boolean singleFlightTemplateParsing) {
+        checkNotInitialized();
+        this.singleFlightTemplateParsing = singleFlightTemplateParsing;
+    }
+
+
+    /**
+     * <p>
+     *   Returns whether fragments with simple selectors are selected from an index on the cached complete
+     *   template.
+     * </p>
+     * <p>
+     *   By default, fragment indexing is disabled.
+     * </p>
+     *
+     * @return whether fragment indexing is enabled
+     * @since 3.1.2
+     */
+    public final boolean isFragmentIndexing() {
+        if (this.initialized) {
+            return this.configuration.isFragmentIndexing();
+        }
+        return this.fragmentIndexing;
+    }
+
+    /**
+     * <p>
+     *   Sets whether fragments with simple selectors should be selected from an index on the cached complete
+     *   template.
+     * </p>
+     * <p>
+     *   When enabled, selecting fragments by name (e.g. <tt>~{common :: header}</tt>) from a cacheable
+     *   <tt>HTML</tt> or <tt>XML</tt> template will parse the complete template only once and cache it,
+     *   and then compute every selected fragment from it instead of reading and parsing the template again
+     *   for each different set of selectors. The complete template is cached independently of the template
+     *   it is being inserted into, so that it is shared among all of them. Selected fragments are still
+     *   cached on their own as usual.
+     * </p>
+     * <p>
+     *   This setting has no effect if no template cache is being used.
+     * </p>
+     * <p>
+     *   By default, fragment indexing is disabled.
+     * </p>
+     * <p>
+     *   This operation can only be executed before processing templates for the first
+     *   time. Once a template is processed, the template engine is considered to be
+     *   <i>initialized</i>, and from then on any attempt to change its configuration
+     *   will result in an exception.
+     * </p>
+     *
+     * @param fragmentIndexing whether fragment indexing should be enabled.
+     * @since 3.1.2
+     */
+    public void setFragmentIndexing(final boolean fragmentIndexing) {
+        checkNotInitialized();
+        this.fragmentIndexing = fragmentIndexing;
+    }
+
+    
+    /**
+     * <p>
+     *   Returns the template instrumentation object configured for this Template Engine.
+     * </p>
+     * <p>
+     *   By default, an instance of {@link NoOpTemplateInstrumentation} will be used, which disables
+     *   instrumentation.
+     * </p>
+     *
+     * @return the template instrumentation.
+     * @since 3.1.2
+     */
+    public final ITemplateInstrumentation getTemplateInstrumentation() {
+        if (this.initialized) {
+            return this.configuration.getTemplateInstrumentation();
+        }
+        return this.templateInstrumentation;
+    }
+
+    /**
+     * <p>
+     *   Sets the template instrumentation object (implementation of {@link ITemplateInstrumentation}) that
+     *   will be notified of the time spent in each phase of the rendering of templates (resolution, parsing,
+     *   processing and output) and of the amount of output produced. A
+     *   {@link org.thymeleaf.instrumentation.HistogramTemplateInstrumentation} can be used for aggregating
+     *   these measurements in-process.
+     * </p>
+     * <p>
+     *   By default, an instance of {@link NoOpTemplateInstrumentation} will be used, which disables
+     *   instrumentation.
+     * </p>
+     * <p>
+     *   This operation can only be executed before processing templates for the first
+     *   time. Once a template is processed, the template engine is considered to be
+     *   <i>initialized</i>, and from then on any attempt to change its configuration
+     *   will result in an exception.
+     * </p>
+     *
+     * @param templateInstrumentation the template instrumentation to be used.
+     * @since 3.1.2
+     */
+    public void setTemplateInstrumentation(final ITemplateInstrumentation templateInstrumentation) {
+        Validate.notNull(templateInstrumentation, "Template Instrumentation cannot be set to null");
+        checkNotInitialized();
+        this.templateInstrumentation = templateInstrumentation;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the processor profiler configured for this Template Engine (if any).
+     * </p>
+     *
+     * @return the processor profiler, or {@code null} if processor profiling is disabled.
+     * @since 3.1.2
+     */
+    public final ProcessorProfiler getProcessorProfiler() {
+        if (this.initialized) {
+            return this.configuration.getProcessorProfiler();
+        }
+        return this.processorProfiler;
+    }
+
+    /**
+     * <p>
+     *   Sets the processor profiler that will record the number of executions of each processor (per
+     *   template and line) and the time spent in them, so that the processors that make a page slow
+     *   can be found.
+     * </p>
+     * <p>
+     *   Processor profiling is disabled by default ({@code null}), in which case no measurements are
+     *   performed at all. It is not meant to be enabled in production environments.
+     * </p>
+     * <p>
+     *   This operation can only be executed before processing templates for the first
+     *   time. Once a template is processed, the template engine is considered to be
+     *   <i>initialized</i>, and from then on any attempt to change its configuration
+     *   will result in an exception.
+     * </p>
+     *
+     * @param processorProfiler the processor profiler to be used, or {@code null} for disabling
+     *                          processor profiling.
+     * @since 3.1.2
+     */
+    public void setProcessorProfiler(final ProcessorProfiler processorProfiler) {
+        checkNotInitialized();
+        this.processorProfiler = processorProfiler;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the template model snapshot file configured for this Template Engine (if any).
+     * </p>
+     *
+     * @return the template model snapshot file, or null if none has been configured.
+     * @since 3.1.2
+     */
+    public final File getTemplateModelSnapshotFile() {
+        return this.templateModelSnapshotFile;
+    }
+
+    /**
+     * <p>
+     *   Sets the <em>template model snapshot</em> file to be used by this Template Engine.
+     * </p>
+     * <p>
+     *   If this file exists at the moment the template engine is initialized, it will be read and used
+     *   for pre-populating the template cache with already-parsed templates, so that the first executions
+     *   of these templates do not need to parse them. Snapshot files are created by means of
+     *   {@link #writeTemplateModelSnapshot()}, usually at build time or when the application shuts down.
+     * </p>
+     * <p>
+     *   Snapshots are validated before being used: a snapshot created by a different version of Thymeleaf or by
+     *   a template engine configured with a different set of dialects will be ignored, and so will the
+     *   templates in the snapshot that are no longer cacheable or whose contents have been modified since the
+     *   snapshot was created. A snapshot file that cannot be read will be ignored too (logging a warning).
+     * </p>
+     * <p>
+     *   This setting has no effect if no template cache is being used.
+     * </p>
+     * <p>
+     *   This operation can only be executed before processing templates for the first
+     *   time. Once a template is processed, the template engine is considered to be
+     *   <i>initialized</i>, and from then on any attempt to change its configuration
+     *   will result in an exception.
+     * </p>
+     *
+     * @param templateModelSnapshotFile the template model snapshot file (can be null).
+     * @since 3.1.2
+     */
+    public void setTemplateModelSnapshotFile(final File templateModelSnapshotFile) {
+        checkNotInitialized();
+        this.templateModelSnapshotFile = templateModelSnapshotFile;
+    }
+
     
     /**
      * <p>
@@ -1006,6 +1305,61 @@ public void clearTemplateCache() {
     }
 
 
+    /**
+     * <p>
+     *   Writes a snapshot of the current contents of the Template Cache to the output stream, so that it can
+     *   be later used for pre-populating the Template Cache of other template engine instances (see
+     *   {@link #setTemplateModelSnapshotFile(File)}).
+     * </p>
+     * <p>
+     *   The output stream will be flushed, but not closed.
+     * </p>
+     * <p>
+     *   If this method is called before the TemplateEngine has been initialized,
+     *   it causes its initialization.
+     * </p>
+     *
+     * @param outputStream the output stream the snapshot will be written to.
+     * @return the number of template models included in the snapshot.
+     * @throws IOException if the snapshot cannot be written.
+     * @since 3.1.2
+     */
+    public int writeTemplateModelSnapshot(final OutputStream outputStream) throws IOException {
+        Validate.notNull(outputStream, "Output stream cannot be null");
+        if (!this.initialized) {
+            initialize();
+        }
+        return this.configuration.getTemplateManager().writeTemplateModelSnapshot(outputStream);
+    }
+
+
+    /**
+     * <p>
+     *   Writes a snapshot of the current contents of the Template Cache to the template model snapshot file
+     *   configured by means of {@link #setTemplateModelSnapshotFile(File)}, replacing it if it already exists.
+     * </p>
+     * <p>
+     *   If this method is called before the TemplateEngine has been initialized,
+     *   it causes its initialization.
+     * </p>
+     *
+     * @return the number of template models included in the snapshot.
+     * @throws IOException if the snapshot cannot be written.
+     * @since 3.1.2
+     */
+    public int writeTemplateModelSnapshot() throws IOException {
+        if (this.templateModelSnapshotFile == null) {
+            throw new IllegalStateException("No template model snapshot file has been configured");
+        }
+        final OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(this.templateModelSnapshotFile));
+        try {
+            return writeTemplateModelSnapshot(outputStream);
+        } finally {
+            outputStream.close();
+        }
+    }
+
+
     /**
      * <p>
      *   Clears the entry in the Template Cache for the specified
@@ -1232,6 +1586,95 @@ public final IThrottledTemplateProcessor processThrottled(final TemplateSpec tem
 
 
 
+    public final TemplateCacheWarmUpResult warmUpTemplateCache(
+            final Collection<TemplateSpec> templateSpecs, final Executor executor) {
+
+        Validate.notNull(templateSpecs, "Template Specifications cannot be null");
+        Validate.containsNoNulls(templateSpecs, "Template Specifications cannot contain nulls");
+        Validate.notNull(executor, "Executor cannot be null");
+
+        if (!this.initialized) {
+            initialize();
+        }
+
+        final TemplateManager templateManager = this.configuration.getTemplateManager();
+
+        // Equal specs would end up in the same cache entry, so there is no need to parse them more than once
+        final TemplateSpec[] specs = new LinkedHashSet<TemplateSpec>(templateSpecs).toArray(new TemplateSpec[0]);
+
+        // Each task only writes its own position in these arrays, and the latch makes these writes visible to us
+        final long[] parseTimes = new long[specs.length];
+        final boolean[] cached = new boolean[specs.length];
+        final Throwable[] failures = new Throwable[specs.length];
+        final CountDownLatch latch = new CountDownLatch(specs.length);
+
+        final long startNanos = System.nanoTime();
+
+        for (int i = 0; i < specs.length; i++) {
+
+            final int index = i;
+            final Runnable task = () -> {
+                final long taskStartNanos = System.nanoTime();
+                try {
+                    cached[index] = templateManager.parseAndCache(specs[index]);
+                } catch (final Exception e) {
+                    failures[index] = e;
+                } catch (final Error e) {
+                    failures[index] = e;
+                    throw e;
+                } finally {
+                    parseTimes[index] = System.nanoTime() - taskStartNanos;
+                    latch.countDown();
+                }
+            };
+
+            try {
+                executor.execute(task);
+            } catch (final RejectedExecutionException e) {
+                failures[index] = e;
+                latch.countDown();
+            }
+
+        }
+
+        try {
+            latch.await();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TemplateProcessingException("Interrupted while warming up the template cache", e);
+        }
+
+        final long totalTimeNanos = System.nanoTime() - startNanos;
+
+        final Map<TemplateSpec,Long> parseTimesBySpec = new LinkedHashMap<TemplateSpec, Long>(specs.length + 1, 1.0f);
+        final Set<TemplateSpec> cachedSpecs = new LinkedHashSet<TemplateSpec>(specs.length + 1, 1.0f);
+        final Map<TemplateSpec,Throwable> failuresBySpec = new LinkedHashMap<TemplateSpec, Throwable>(4);
+        for (int i = 0; i < specs.length; i++) {
+            parseTimesBySpec.put(specs[i], Long.valueOf(parseTimes[i]));
+            if (cached[i]) {
+                cachedSpecs.add(specs[i]);
+            }
+            if (failures[i] != null) {
+                failuresBySpec.put(specs[i], failures[i]);
+                logger.warn(
+                        String.format("[THYMELEAF][%s] Template \"%s\" could not be warmed up: %s",
+                                new Object[] {TemplateEngine.threadIndex(), specs[i], failures[i].getMessage()}),
+                        failures[i]);
+            }
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug(
+                    "[THYMELEAF] Template cache warmed up: {} templates ({} cached, {} failed) in {} nanoseconds",
+                    new Object[] {Integer.valueOf(specs.length), Integer.valueOf(cachedSpecs.size()),
+                                  Integer.valueOf(failuresBySpec.size()), Long.valueOf(totalTimeNanos)});
+        }
+
+        return new TemplateCacheWarmUpResult(parseTimesBySpec, cachedSpecs, failuresBySpec, totalTimeNanos);
+
+    }
+
+
 
 
 }
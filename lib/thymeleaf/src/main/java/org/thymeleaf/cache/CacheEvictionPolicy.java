@@ -0,0 +1,47 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.cache;
+
+/**
+ * <p>
+ *   Eviction policies that can be selected for each of the caches created by {@link StandardCacheManager}.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.1.2
+ *
+ */
+public enum CacheEvictionPolicy {
+
+    /**
+     * Entries are evicted in insertion order, no matter how often they are used. Caches using this
+     * policy are implemented by {@link StandardCache}.
+     */
+    FIFO,
+
+    /**
+     * Frequency-aware eviction (Window TinyLFU): entries are only admitted into the main space of the cache
+     * if they are expected to be used more often than the entries they would displace. Caches using this policy
+     * are implemented by {@link TinyLFUCache}.
+     */
+    TINY_LFU
+
+}
@@ -102,4 +102,21 @@
      */
     public Set<K> keySet();
 
+    /**
+     * <p>
+     *   Returns the current total <em>weight</em> of the entries in this cache, for caches that are
+     *   bounded by weight (see {@link ICacheEntryWeigher}). Depending on the weigher being used, this
+     *   can be an approximation of the amount of memory retained by the cache.
+     * </p>
+     * <p>
+     *   Caches that do not compute weights for their entries will return {@code -1}.
+     * </p>
+     *
+     * @return the total weight of the cache entries, or {@code -1} if this cache does not compute weights.
+     * @since 3.1.2
+     */
+    public default long getWeight() {
+        return -1L;
+    }
+
 }
@@ -0,0 +1,55 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.cache;
+
+/**
+ * <p>
+ *   Computes the <em>weight</em> of a cache entry, i.e. how much of the maximum capacity of a
+ *   weight-bounded cache (like {@link TinyLFUCache}) this entry will consume.
+ * </p>
+ * <p>
+ *   Weights are computed only once, when the entry is inserted into the cache, so they should
+ *   not depend on any mutable state of the key or the value.
+ * </p>
+ * <p>
+ *   Implementations of this interface should be <strong>thread-safe</strong>.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.1.2
+ *
+ * @param <K> The type of the cache map keys
+ * @param <V> The type of the cache map values
+ */
+public interface ICacheEntryWeigher<K,V> {
+
+    /**
+     * <p>
+     *   Computes the weight of a cache entry.
+     * </p>
+     *
+     * @param key the key of the entry.
+     * @param value the value of the entry.
+     * @return the weight of the entry, which must be zero or positive.
+     */
+    public int weigh(final K key, final V value);
+
+}
@@ -23,6 +23,7 @@
 import org.slf4j.LoggerFactory;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.engine.TemplateModel;
+import org.thymeleaf.util.Validate;
 
 
 /**
@@ -57,8 +58,20 @@
  *   <li>An (optional) <i>validity checker</i> implementing {@link ICacheEntryValidityChecker},
  *       which will be applied on each entry upon retrieval from cache in order to ensure
  *       it is still valid and can be used.
+ *   <li>Its <i>eviction policy</i> (see {@link CacheEvictionPolicy}): either {@code FIFO}, in which
+ *       case a {@link StandardCache} will be created, or {@code TINY_LFU}, in which case the cache
+ *       will be a frequency-aware {@link TinyLFUCache}. Note soft references are not used by
+ *       {@link TinyLFUCache} caches.</li>
  * </ul>
  * <p>
+ *   Additionally, the template cache can be bounded by the approximate amount of memory retained by its
+ *   entries instead of by their number, by setting a <i>maximum weight</i> (in bytes) and (optionally)
+ *   a <i>weigher</i> implementing {@link ICacheEntryWeigher} (an instance of
+ *   {@link StandardTemplateModelWeigher} is used by default). When a maximum weight is set, the
+ *   template cache will always be a {@link TinyLFUCache}, no matter the eviction policy configured.
+ *   The current footprint of the cache can then be obtained by means of {@link ICache#getWeight()}.
+ * </p>
+ * <p>
  *   Note a class with this name existed since 2.0.0, but it was completely reimplemented
  *   in Thymeleaf 3.0
  * </p>
@@ -106,6 +119,21 @@ public class StandardCacheManager extends AbstractCacheManager {
      */
     public static final ICacheEntryValidityChecker<TemplateCacheKey,TemplateModel> DEFAULT_TEMPLATE_CACHE_VALIDITY_CHECKER = new StandardParsedTemplateEntryValidator();
 
+    /**
+     * Default template cache eviction policy: {@link CacheEvictionPolicy#FIFO}.
+     */
+    public static final CacheEvictionPolicy DEFAULT_TEMPLATE_CACHE_EVICTION_POLICY = CacheEvictionPolicy.FIFO;
+
+    /**
+     * Default template cache maximum weight: {@value} (no weight limit, template cache is bounded by its max size)
+     */
+    public static final long DEFAULT_TEMPLATE_CACHE_MAX_WEIGHT = -1L;
+
+    /**
+     * Default template cache weigher: an instance of {@link StandardTemplateModelWeigher}.
+     */
+    public static final ICacheEntryWeigher<TemplateCacheKey,TemplateModel> DEFAULT_TEMPLATE_CACHE_WEIGHER = new StandardTemplateModelWeigher();
+
     
     /**
      * Default expression cache name: {@value}
@@ -142,6 +170,11 @@ public class StandardCacheManager extends AbstractCacheManager {
      */
     public static final ICacheEntryValidityChecker<ExpressionCacheKey,Object> DEFAULT_EXPRESSION_CACHE_VALIDITY_CHECKER = null;
 
+    /**
+     * Default expression cache eviction policy: {@link CacheEvictionPolicy#FIFO}.
+     */
+    public static final CacheEvictionPolicy DEFAULT_EXPRESSION_CACHE_EVICTION_POLICY = CacheEvictionPolicy.FIFO;
+
     
     
     
@@ -152,6 +185,9 @@ public class StandardCacheManager extends AbstractCacheManager {
     private boolean templateCacheUseSoftReferences = DEFAULT_TEMPLATE_CACHE_USE_SOFT_REFERENCES;
     private String templateCacheLoggerName = DEFAULT_TEMPLATE_CACHE_LOGGER_NAME;
     private ICacheEntryValidityChecker<TemplateCacheKey,TemplateModel> templateCacheValidityChecker = DEFAULT_TEMPLATE_CACHE_VALIDITY_CHECKER;
+    private CacheEvictionPolicy templateCacheEvictionPolicy = DEFAULT_TEMPLATE_CACHE_EVICTION_POLICY;
+    private long templateCacheMaxWeight = DEFAULT_TEMPLATE_CACHE_MAX_WEIGHT;
+    private ICacheEntryWeigher<TemplateCacheKey,TemplateModel> templateCacheWeigher = DEFAULT_TEMPLATE_CACHE_WEIGHER;
 
     private String expressionCacheName = DEFAULT_EXPRESSION_CACHE_NAME;
     private int expressionCacheInitialSize = DEFAULT_EXPRESSION_CACHE_INITIAL_SIZE;
@@ -160,6 +196,7 @@ public class StandardCacheManager extends AbstractCacheManager {
     private boolean expressionCacheUseSoftReferences = DEFAULT_EXPRESSION_CACHE_USE_SOFT_REFERENCES;
     private String expressionCacheLoggerName = DEFAULT_EXPRESSION_CACHE_LOGGER_NAME;
     private ICacheEntryValidityChecker<ExpressionCacheKey,Object> expressionCacheValidityChecker = DEFAULT_EXPRESSION_CACHE_VALIDITY_CHECKER;
+    private CacheEvictionPolicy expressionCacheEvictionPolicy = DEFAULT_EXPRESSION_CACHE_EVICTION_POLICY;
     
     
     
@@ -175,6 +212,17 @@ protected final ICache<TemplateCacheKey, TemplateModel> initializeTemplateCache(
         if (maxSize == 0) {
             return null;
         }
+        final long maxWeight = getTemplateCacheMaxWeight();
+        if (maxWeight > 0L) {
+            return new TinyLFUCache<TemplateCacheKey, TemplateModel>(
+                    getTemplateCacheName(), getTemplateCacheInitialSize(), maxWeight, getTemplateCacheWeigher(),
+                    getTemplateCacheValidityChecker(), getTemplateCacheLogger(), getTemplateCacheEnableCounters());
+        }
+        if (getTemplateCacheEvictionPolicy() == CacheEvictionPolicy.TINY_LFU) {
+            return new TinyLFUCache<TemplateCacheKey, TemplateModel>(
+                    getTemplateCacheName(), getTemplateCacheInitialSize(), maxSize, null,
+                    getTemplateCacheValidityChecker(), getTemplateCacheLogger(), getTemplateCacheEnableCounters());
+        }
         return new StandardCache<TemplateCacheKey, TemplateModel>(
                 getTemplateCacheName(), getTemplateCacheUseSoftReferences(), 
                 getTemplateCacheInitialSize(), maxSize,
@@ -188,6 +236,11 @@ protected final ICache<ExpressionCacheKey, Object> initializeExpressionCache() {
         if (maxSize == 0) {
             return null;
         }
+        if (getExpressionCacheEvictionPolicy() == CacheEvictionPolicy.TINY_LFU) {
+            return new TinyLFUCache<ExpressionCacheKey, Object>(
+                    getExpressionCacheName(), getExpressionCacheInitialSize(), maxSize, null,
+                    getExpressionCacheValidityChecker(), getExpressionCacheLogger(), getExpressionCacheEnableCounters());
+        }
         return new StandardCache<ExpressionCacheKey, Object>(
                 getExpressionCacheName(), getExpressionCacheUseSoftReferences(), 
                 getExpressionCacheInitialSize(), maxSize,
@@ -224,6 +277,18 @@ public String getTemplateCacheLoggerName() {
     public ICacheEntryValidityChecker<TemplateCacheKey,TemplateModel> getTemplateCacheValidityChecker() {
         return this.templateCacheValidityChecker;
     }
+
+    public CacheEvictionPolicy getTemplateCacheEvictionPolicy() {
+        return this.templateCacheEvictionPolicy;
+    }
+
+    public long getTemplateCacheMaxWeight() {
+        return this.templateCacheMaxWeight;
+    }
+
+    public ICacheEntryWeigher<TemplateCacheKey,TemplateModel> getTemplateCacheWeigher() {
+        return this.templateCacheWeigher;
+    }
     
     public final Logger getTemplateCacheLogger() {
         final String loggerName = getTemplateCacheLoggerName();
@@ -264,6 +329,10 @@ public ICacheEntryValidityChecker<ExpressionCacheKey,Object> getExpressionCacheV
         return this.expressionCacheValidityChecker;
     }
 
+    public CacheEvictionPolicy getExpressionCacheEvictionPolicy() {
+        return this.expressionCacheEvictionPolicy;
+    }
+
     public final Logger getExpressionCacheLogger() {
         final String loggerName = getExpressionCacheLoggerName();
         if (loggerName != null) {
@@ -303,6 +372,21 @@ public void setTemplateCacheValidityChecker(final ICacheEntryValidityChecker<Tem
     public void setTemplateCacheEnableCounters(boolean templateCacheEnableCounters) {
         this.templateCacheEnableCounters = templateCacheEnableCounters;
     }
+
+    public void setTemplateCacheEvictionPolicy(final CacheEvictionPolicy templateCacheEvictionPolicy) {
+        Validate.notNull(templateCacheEvictionPolicy, "Eviction policy cannot be null");
+        this.templateCacheEvictionPolicy = templateCacheEvictionPolicy;
+    }
+
+    public void setTemplateCacheMaxWeight(final long templateCacheMaxWeight) {
+        Validate.isTrue(templateCacheMaxWeight == -1L || templateCacheMaxWeight > 0L, "Max weight must be either -1 (no weight limit) or > 0");
+        this.templateCacheMaxWeight = templateCacheMaxWeight;
+    }
+
+    public void setTemplateCacheWeigher(final ICacheEntryWeigher<TemplateCacheKey,TemplateModel> templateCacheWeigher) {
+        Validate.notNull(templateCacheWeigher, "Weigher cannot be null");
+        this.templateCacheWeigher = templateCacheWeigher;
+    }
     
     
     public void setExpressionCacheName(final String expressionCacheName) {
@@ -332,6 +416,11 @@ public void setExpressionCacheValidityChecker(final ICacheEntryValidityChecker<E
     public void setExpressionCacheEnableCounters(boolean expressionCacheEnableCounters) {
         this.expressionCacheEnableCounters = expressionCacheEnableCounters;
     }
+
+    public void setExpressionCacheEvictionPolicy(final CacheEvictionPolicy expressionCacheEvictionPolicy) {
+        Validate.notNull(expressionCacheEvictionPolicy, "Eviction policy cannot be null");
+        this.expressionCacheEvictionPolicy = expressionCacheEvictionPolicy;
+    }
     
     
     
@@ -0,0 +1,133 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.cache;
+
+import org.thymeleaf.engine.TemplateModel;
+import org.thymeleaf.model.IAttribute;
+import org.thymeleaf.model.ICDATASection;
+import org.thymeleaf.model.IComment;
+import org.thymeleaf.model.IDocType;
+import org.thymeleaf.model.IProcessableElementTag;
+import org.thymeleaf.model.IProcessingInstruction;
+import org.thymeleaf.model.ITemplateEvent;
+import org.thymeleaf.model.IText;
+import org.thymeleaf.model.IXMLDeclaration;
+
+/**
+ * <p>
+ *   Standard implementation of {@link ICacheEntryWeigher} for template cache entries, which estimates
+ *   the amount of memory (in bytes) retained by a cached {@link TemplateModel}.
+ * </p>
+ * <p>
+ *   The estimation is computed from the sequence of events in the model: a fixed overhead per event
+ *   plus the length of its textual contents (texts, comments, CDATA sections, DOCTYPEs, etc.) and, for
+ *   element tags, a fixed overhead per attribute plus the length of attribute names and values. It is not
+ *   meant to be exact, but to be proportional to the real footprint of the model, so that caches can be
+ *   sized in a reasonably deterministic way with regard to heap usage.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.1.2
+ *
+ */
+public final class StandardTemplateModelWeigher implements ICacheEntryWeigher<TemplateCacheKey,TemplateModel> {
+
+    // Rough estimations for a 64-bit JVM with compressed references
+    private static final long MODEL_OVERHEAD = 64L;
+    private static final long REFERENCE_SIZE = 4L;
+    private static final long EVENT_OVERHEAD = 48L;
+    private static final long ATTRIBUTE_OVERHEAD = 56L;
+    private static final long STRING_OVERHEAD = 40L;
+    private static final long CHAR_SIZE = 2L;
+
+
+    public StandardTemplateModelWeigher() {
+        super();
+    }
+
+
+    public int weigh(final TemplateCacheKey key, final TemplateModel value) {
+
+        final int size = value.size();
+
+        long weight = MODEL_OVERHEAD + (size * REFERENCE_SIZE);
+
+        if (key != null) {
+            weight += stringWeight(key.getTemplate()) + stringWeight(key.getOwnerTemplate());
+        }
+
+        for (int i = 0; i < size; i++) {
+            weight += EVENT_OVERHEAD + eventWeight(value.get(i));
+        }
+
+        return (weight > Integer.MAX_VALUE? Integer.MAX_VALUE : (int) weight);
+
+    }
+
+
+    private static long eventWeight(final ITemplateEvent event) {
+
+        if (event instanceof IText || event instanceof IComment || event instanceof ICDATASection) {
+            return textWeight((CharSequence) event);
+        }
+
+        if (event instanceof IProcessableElementTag) {
+            final IAttribute[] attributes = ((IProcessableElementTag) event).getAllAttributes();
+            long weight = attributes.length * REFERENCE_SIZE;
+            for (final IAttribute attribute : attributes) {
+                weight += ATTRIBUTE_OVERHEAD;
+                weight += stringWeight(attribute.getAttributeCompleteName());
+                weight += stringWeight(attribute.getOperator());
+                weight += stringWeight(attribute.getValue());
+            }
+            // Element names are not computed because they are normally shared with the element definitions
+            return weight;
+        }
+
+        if (event instanceof IDocType) {
+            return stringWeight(((IDocType) event).getDocType());
+        }
+
+        if (event instanceof IProcessingInstruction) {
+            return stringWeight(((IProcessingInstruction) event).getProcessingInstruction());
+        }
+
+        if (event instanceof IXMLDeclaration) {
+            return stringWeight(((IXMLDeclaration) event).getXmlDeclaration());
+        }
+
+        // Close tags, template start/end...
+        return 0L;
+
+    }
+
+
+    private static long textWeight(final CharSequence text) {
+        return STRING_OVERHEAD + (text.length() * CHAR_SIZE);
+    }
+
+
+    private static long stringWeight(final String str) {
+        return (str == null? 0L : textWeight(str));
+    }
+
+
+}
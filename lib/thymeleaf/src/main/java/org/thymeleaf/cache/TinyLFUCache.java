@@ -0,0 +1,878 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.cache;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.util.Validate;
+
+
+/**
+ * <p>
+ *   Implementation of {@link ICache} using a frequency-aware eviction policy
+ *   (<a href="https://arxiv.org/abs/1512.00727">Window TinyLFU</a>) and bounded by the
+ *   total <em>weight</em> of its entries, as computed by an {@link ICacheEntryWeigher}
+ *   (each entry weighs {@code 1} if no weigher is specified, so that the cache is bounded by entry count).
+ * </p>
+ * <p>
+ *   New entries are first inserted into a small LRU <em>window</em>. When they leave this window they
+ *   compete for admission into the <em>main</em> space of the cache (a segmented LRU) against the entry
+ *   that would be evicted from it, and only the one expected to be used more often (according to a compact
+ *   frequency sketch of the recent history of accesses) is kept. This way entries that are used very often
+ *   (like layouts or common fragments) are not evicted by bursts of entries that are used only once.
+ * </p>
+ * <p>
+ *   {@code get} operations do not acquire any locks: accesses are recorded in striped, lossy buffers,
+ *   and all the bookkeeping of the eviction policy is performed in batches by whichever thread manages
+ *   to acquire the (non-fair) eviction lock when these buffers fill up or when entries are inserted.
+ * </p>
+ * <p>
+ *   Note that, unlike {@link StandardCache}, this implementation does not use soft references, because
+ *   the memory used by the cache is bounded in a deterministic way by the maximum weight.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.1.2
+ *
+ * @param <K> The type of the cache keys
+ * @param <V> The type of the cache values
+ */
+public final class TinyLFUCache<K, V> implements ICache<K,V> {
+
+
+    private static final double WINDOW_PERCENTAGE = 0.01d;
+    private static final double PROTECTED_PERCENTAGE = 0.80d;
+
+    private static final int READ_BUFFER_STRIPES = ceilingPowerOfTwo(Math.min(4 * Runtime.getRuntime().availableProcessors(), 64));
+    private static final int READ_BUFFER_SIZE = 32; // Must be a power of two
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+    private static final int WRITE_BUFFER_MAX_PENDING = 128;
+
+    private static final byte IN_NONE = 0;
+    private static final byte IN_WINDOW = 1;
+    private static final byte IN_PROBATION = 2;
+    private static final byte IN_PROTECTED = 3;
+
+    private final String name;
+    private final long maxWeight;
+    private final ICacheEntryWeigher<? super K, ? super V> weigher;
+    private final ICacheEntryValidityChecker<? super K, ? super V> entryValidityChecker;
+
+    private final boolean traceExecution;
+    private final boolean enableCounters;
+
+    private final Logger logger;
+
+    private final ConcurrentHashMap<K,Node<K,V>> data;
+
+    private final ReadBuffer[] readBuffers;
+    private final ConcurrentLinkedQueue<WriteTask<K,V>> writeBuffer;
+    private final AtomicInteger pendingWrites;
+
+    // All the following fields are guarded by the eviction lock
+    private final ReentrantLock evictionLock;
+    private final FrequencySketch sketch;
+    private final AccessOrderDeque<K,V> window;
+    private final AccessOrderDeque<K,V> probation;
+    private final AccessOrderDeque<K,V> protectedSpace;
+    private final long windowMaxWeight;
+    private final long protectedMaxWeight;
+    private long windowWeight;
+    private long protectedWeight;
+    private volatile long totalWeight;
+
+    private final AtomicLong getCount;
+    private final AtomicLong putCount;
+    private final AtomicLong hitCount;
+    private final AtomicLong missCount;
+    private final AtomicLong evictionCount;
+
+
+
+
+    public TinyLFUCache(final String name, final int initialCapacity, final long maxWeight, final Logger logger) {
+        this(name, initialCapacity, maxWeight, null, null, logger, false);
+    }
+
+    public TinyLFUCache(final String name, final int initialCapacity, final long maxWeight,
+            final ICacheEntryWeigher<? super K, ? super V> weigher,
+            final ICacheEntryValidityChecker<? super K, ? super V> entryValidityChecker,
+            final Logger logger) {
+        this(name, initialCapacity, maxWeight, weigher, entryValidityChecker, logger, false);
+    }
+
+    public TinyLFUCache(final String name, final int initialCapacity, final long maxWeight,
+            final ICacheEntryWeigher<? super K, ? super V> weigher,
+            final ICacheEntryValidityChecker<? super K, ? super V> entryValidityChecker,
+            final Logger logger, final boolean enableCounters) {
+
+        super();
+
+        Validate.notEmpty(name, "Name cannot be null or empty");
+        Validate.isTrue(initialCapacity > 0, "Initial capacity must be > 0");
+        Validate.isTrue(maxWeight == -1L || maxWeight > 0L, "Cache max weight must be either -1 (no limit) or > 0");
+
+        this.name = name;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.entryValidityChecker = entryValidityChecker;
+
+        this.logger = logger;
+        this.traceExecution = (logger != null && logger.isTraceEnabled());
+        this.enableCounters = (this.traceExecution || enableCounters);
+
+        this.data = new ConcurrentHashMap<K,Node<K,V>>(initialCapacity, 0.75f, READ_BUFFER_STRIPES);
+
+        this.readBuffers = new ReadBuffer[READ_BUFFER_STRIPES];
+        for (int i = 0; i < this.readBuffers.length; i++) {
+            this.readBuffers[i] = new ReadBuffer();
+        }
+        this.writeBuffer = new ConcurrentLinkedQueue<WriteTask<K,V>>();
+        this.pendingWrites = new AtomicInteger(0);
+
+        this.evictionLock = new ReentrantLock();
+        this.sketch = new FrequencySketch(initialCapacity);
+        this.window = new AccessOrderDeque<K,V>();
+        this.probation = new AccessOrderDeque<K,V>();
+        this.protectedSpace = new AccessOrderDeque<K,V>();
+        if (this.maxWeight > 0L) {
+            this.windowMaxWeight = Math.max(1L, (long) (this.maxWeight * WINDOW_PERCENTAGE));
+            this.protectedMaxWeight = (long) ((this.maxWeight - this.windowMaxWeight) * PROTECTED_PERCENTAGE);
+        } else {
+            this.windowMaxWeight = Long.MAX_VALUE;
+            this.protectedMaxWeight = Long.MAX_VALUE;
+        }
+        this.windowWeight = 0L;
+        this.protectedWeight = 0L;
+        this.totalWeight = 0L;
+
+        this.getCount = new AtomicLong(0);
+        this.putCount = new AtomicLong(0);
+        this.hitCount = new AtomicLong(0);
+        this.missCount = new AtomicLong(0);
+        this.evictionCount = new AtomicLong(0);
+
+        if (this.logger != null) {
+            if (this.maxWeight < 0L) {
+                this.logger.trace("[THYMELEAF][CACHE_INITIALIZE] Initializing TinyLFU cache {}.", this.name);
+            } else {
+                this.logger.trace("[THYMELEAF][CACHE_INITIALIZE] Initializing TinyLFU cache {}. Max weight: {}.",
+                        this.name, Long.valueOf(this.maxWeight));
+            }
+        }
+
+    }
+
+
+
+
+    // -----
+
+
+
+    public void put(final K key, final V value) {
+
+        Validate.notNull(key, "Key cannot be null");
+        Validate.notNull(value, "Value cannot be null");
+
+        incrementReportEntity(this.putCount);
+
+        final int weight = (this.weigher == null? 1 : this.weigher.weigh(key, value));
+        Validate.isTrue(weight >= 0, "Weight of cache entries cannot be negative");
+
+        final Node<K,V> node = new Node<K,V>(key, value, weight);
+        final Node<K,V> replaced = this.data.put(key, node);
+
+        if (replaced != null) {
+            this.writeBuffer.add(new WriteTask<K,V>(replaced, false));
+        }
+        this.writeBuffer.add(new WriteTask<K,V>(node, true));
+        final int pending = this.pendingWrites.addAndGet(replaced != null? 2 : 1);
+
+        if (this.traceExecution) {
+            this.logger.trace(
+                    "[THYMELEAF][{}][{}][CACHE_ADD] Adding cache entry in cache \"{}\" for key \"{}\" with weight {}.",
+                    new Object[] {TemplateEngine.threadIndex(), this.name, this.name, key, Integer.valueOf(weight)});
+        }
+
+        // Writes are much less frequent than reads, so we will try to apply them right away. But if other thread is
+        // already doing maintenance work we will just leave them at the buffer, unless too many have been piling up.
+        if (pending > WRITE_BUFFER_MAX_PENDING) {
+            this.evictionLock.lock();
+            try {
+                maintenance();
+            } finally {
+                this.evictionLock.unlock();
+            }
+        } else {
+            tryMaintenance();
+        }
+
+    }
+
+
+
+    public V get(final K key) {
+        return get(key, this.entryValidityChecker);
+    }
+
+
+
+    public V get(final K key, final ICacheEntryValidityChecker<? super K, ? super V> validityChecker) {
+
+        incrementReportEntity(this.getCount);
+
+        final Node<K,V> node = this.data.get(key);
+
+        if (node == null) {
+            incrementReportEntity(this.missCount);
+            if (this.traceExecution) {
+                this.logger.trace(
+                        "[THYMELEAF][{}][{}][CACHE_MISS] Cache miss in cache \"{}\" for key \"{}\".",
+                        new Object[] {TemplateEngine.threadIndex(), this.name, this.name, key});
+            }
+            return null;
+        }
+
+        if (validityChecker != null && !validityChecker.checkIsValueStillValid(key, node.value, node.creationTimeInMillis)) {
+            removeNode(key, node);
+            incrementReportEntity(this.missCount);
+            if (this.traceExecution) {
+                this.logger.trace(
+                        "[THYMELEAF][{}][{}][CACHE_REMOVE] Removing cache entry in cache \"{}\" (Entry \"{}\" is not valid anymore).",
+                        new Object[] {TemplateEngine.threadIndex(), this.name, this.name, key});
+                this.logger.trace(
+                        "[THYMELEAF][{}][{}][CACHE_MISS] Cache miss in cache \"{}\" for key \"{}\".",
+                        new Object[] {TemplateEngine.threadIndex(), this.name, this.name, key});
+            }
+            return null;
+        }
+
+        // Record the access. If the buffer for this thread's stripe is full, it's time to apply the buffered accesses
+        final ReadBuffer readBuffer = this.readBuffers[stripeIndex()];
+        if (!readBuffer.offer(node)) {
+            tryMaintenance();
+        }
+
+        incrementReportEntity(this.hitCount);
+        if (this.traceExecution) {
+            this.logger.trace(
+                    "[THYMELEAF][{}][{}][CACHE_HIT] Cache hit in cache \"{}\" for key \"{}\".",
+                    new Object[] {TemplateEngine.threadIndex(), this.name, this.name, key});
+        }
+
+        return node.value;
+
+    }
+
+
+
+    /**
+     * <p>
+     *   Returns all the keys contained in this cache. Note this method might return keys for entries
+     *   that are already invalid, so the result of calling {@link #get(Object)} for these keys might
+     *   be {@code null}.
+     * </p>
+     * <p>
+     *   The returned set is an unmodifiable view on the keys of the cache.
+     * </p>
+     *
+     * @return the complete set of cache keys. Might include keys for already-invalid (non-cleaned) entries.
+     */
+    public Set<K> keySet() {
+        // Cast needed for the same reasons explained at StandardCache
+        return Collections.unmodifiableSet(((Map<K,Node<K,V>>)this.data).keySet());
+    }
+
+
+
+    public void clear() {
+
+        for (final K key : ((Map<K,Node<K,V>>)this.data).keySet()) {
+            final Node<K,V> node = this.data.remove(key);
+            if (node != null) {
+                this.writeBuffer.add(new WriteTask<K,V>(node, false));
+                this.pendingWrites.incrementAndGet();
+            }
+        }
+
+        this.evictionLock.lock();
+        try {
+            maintenance();
+        } finally {
+            this.evictionLock.unlock();
+        }
+
+        if (this.traceExecution) {
+            this.logger.trace(
+                    "[THYMELEAF][{}][*][{}][CACHE_REMOVE][0] Removing ALL cache entries in cache \"{}\".",
+                    new Object[] {TemplateEngine.threadIndex(), this.name, this.name});
+        }
+
+    }
+
+
+
+    public void clearKey(final K key) {
+
+        final Node<K,V> node = this.data.get(key);
+        if (node != null && removeNode(key, node)) {
+            if (this.traceExecution) {
+                this.logger.trace(
+                        "[THYMELEAF][{}][*][{}][CACHE_REMOVE] Removed cache entry in cache \"{}\" for key \"{}\".",
+                        new Object[] {TemplateEngine.threadIndex(), this.name, this.name, key});
+            }
+            tryMaintenance();
+        }
+
+    }
+
+
+
+    // -----
+
+
+
+    public String getName() {
+        return this.name;
+    }
+
+    public boolean hasMaxWeight() {
+        return (this.maxWeight > 0L);
+    }
+
+    public long getMaxWeight() {
+        return this.maxWeight;
+    }
+
+    public int size() {
+        return this.data.size();
+    }
+
+    /**
+     * <p>
+     *   Returns the total weight of the entries currently in the cache. Note this value is updated
+     *   asynchronously (in batches), so it might not reflect the most recent operations.
+     * </p>
+     *
+     * @return the total weight of the cache entries.
+     */
+    public long getWeight() {
+        return this.totalWeight;
+    }
+
+    public long getPutCount() {
+        return this.putCount.get();
+    }
+
+    public long getGetCount() {
+        return this.getCount.get();
+    }
+
+    public long getHitCount() {
+        return this.hitCount.get();
+    }
+
+    public long getMissCount(){
+        return this.missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return this.evictionCount.get();
+    }
+
+
+    public double getHitRatio() {
+        long hitCount = getHitCount();
+        long getCount = getGetCount();
+
+        if (hitCount == 0 || getCount == 0) {
+            return 0;
+        }
+
+        return (double) hitCount / (double) getCount;
+    }
+
+    public double getMissRatio() {
+       return 1 - getHitRatio();
+    }
+
+
+
+    // -----
+
+
+    private void incrementReportEntity(final AtomicLong entity) {
+        if (this.enableCounters) {
+            entity.incrementAndGet();
+        }
+    }
+
+
+    private boolean removeNode(final K key, final Node<K,V> node) {
+        if (this.data.remove(key, node)) {
+            this.writeBuffer.add(new WriteTask<K,V>(node, false));
+            this.pendingWrites.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+
+    private static int stripeIndex() {
+        final long id = Thread.currentThread().getId();
+        return (int) (id ^ (id >>> 16)) & (READ_BUFFER_STRIPES - 1);
+    }
+
+
+    private void tryMaintenance() {
+        if (this.evictionLock.tryLock()) {
+            try {
+                maintenance();
+            } finally {
+                this.evictionLock.unlock();
+            }
+        }
+    }
+
+
+    /*
+     * Must be called with the eviction lock held
+     */
+    private void maintenance() {
+
+        for (int i = 0; i < this.readBuffers.length; i++) {
+            this.readBuffers[i].drain(this);
+        }
+
+        WriteTask<K,V> task;
+        while ((task = this.writeBuffer.poll()) != null) {
+            this.pendingWrites.decrementAndGet();
+            if (task.add) {
+                onAdd(task.node);
+            } else {
+                onRemove(task.node);
+            }
+        }
+
+        if (this.maxWeight > 0L) {
+            evictEntries();
+        }
+
+    }
+
+
+    private void onAdd(final Node<K,V> node) {
+        if (node.retired) {
+            // Removal was processed before this addition (both were buffered from different threads)
+            return;
+        }
+        this.sketch.ensureCapacity(this.data.size());
+        this.sketch.increment(node.hash);
+        this.window.linkLast(node);
+        node.queue = IN_WINDOW;
+        this.windowWeight += node.weight;
+        this.totalWeight += node.weight;
+    }
+
+
+    private void onRemove(final Node<K,V> node) {
+        if (!node.retired) {
+            unlinkNode(node);
+            node.retired = true;
+        }
+    }
+
+
+    private void onAccess(final Node<K,V> node) {
+        if (node.retired || node.queue == IN_NONE) {
+            return;
+        }
+        this.sketch.increment(node.hash);
+        switch (node.queue) {
+            case IN_WINDOW:
+                this.window.moveToLast(node);
+                break;
+            case IN_PROBATION:
+                // Used again while on probation: promote to the protected segment
+                this.probation.unlink(node);
+                this.protectedSpace.linkLast(node);
+                node.queue = IN_PROTECTED;
+                this.protectedWeight += node.weight;
+                // Demote the least recently used protected entries if needed
+                while (this.protectedWeight > this.protectedMaxWeight && this.protectedSpace.first != null) {
+                    final Node<K,V> demoted = this.protectedSpace.first;
+                    this.protectedSpace.unlink(demoted);
+                    this.protectedWeight -= demoted.weight;
+                    this.probation.linkLast(demoted);
+                    demoted.queue = IN_PROBATION;
+                }
+                break;
+            case IN_PROTECTED:
+                this.protectedSpace.moveToLast(node);
+                break;
+        }
+    }
+
+
+    private void unlinkNode(final Node<K,V> node) {
+        switch (node.queue) {
+            case IN_WINDOW:
+                this.window.unlink(node);
+                this.windowWeight -= node.weight;
+                break;
+            case IN_PROBATION:
+                this.probation.unlink(node);
+                break;
+            case IN_PROTECTED:
+                this.protectedSpace.unlink(node);
+                this.protectedWeight -= node.weight;
+                break;
+            default:
+                return;
+        }
+        node.queue = IN_NONE;
+        this.totalWeight -= node.weight;
+    }
+
+
+    private void evictEntries() {
+
+        // Entries leaving the window move to the main space. If there is no room for them, they will have to
+        // compete for admission with the entry that would be evicted from the main space instead.
+        while (this.windowWeight > this.windowMaxWeight && this.window.first != null) {
+
+            final Node<K,V> candidate = this.window.first;
+            this.window.unlink(candidate);
+            this.windowWeight -= candidate.weight;
+
+            if (this.totalWeight <= this.maxWeight) {
+                this.probation.linkLast(candidate);
+                candidate.queue = IN_PROBATION;
+                continue;
+            }
+
+            final Node<K,V> victim =
+                    (this.probation.first != null? this.probation.first : this.protectedSpace.first);
+
+            if (victim == null || this.sketch.frequency(candidate.hash) > this.sketch.frequency(victim.hash)) {
+                this.probation.linkLast(candidate);
+                candidate.queue = IN_PROBATION;
+                if (victim != null) {
+                    evict(victim);
+                }
+            } else {
+                // Candidate is rejected. We link it to probation only so that evict() can discount its weight.
+                this.probation.linkLast(candidate);
+                candidate.queue = IN_PROBATION;
+                evict(candidate);
+            }
+
+        }
+
+        // If we are still over the maximum (e.g. because of very heavy entries), evict from the main space first
+        while (this.totalWeight > this.maxWeight) {
+            final Node<K,V> victim =
+                    (this.probation.first != null? this.probation.first :
+                            (this.protectedSpace.first != null? this.protectedSpace.first : this.window.first));
+            if (victim == null) {
+                break;
+            }
+            evict(victim);
+        }
+
+    }
+
+
+    private void evict(final Node<K,V> node) {
+
+        unlinkNode(node);
+        node.retired = true;
+
+        // The entry might have been replaced or removed in the meantime, in which case there is nothing to remove
+        if (this.data.remove(node.key, node)) {
+            incrementReportEntity(this.evictionCount);
+            if (this.traceExecution) {
+                this.logger.trace(
+                        "[THYMELEAF][{}][{}][CACHE_REMOVE] Max weight exceeded for cache \"{}\". Evicting entry for key \"{}\" with weight {}.",
+                        new Object[] {TemplateEngine.threadIndex(), this.name, this.name, node.key, Integer.valueOf(node.weight)});
+            }
+        }
+
+    }
+
+
+    private static int ceilingPowerOfTwo(final int value) {
+        return (value <= 1? 1 : Integer.highestOneBit(value - 1) << 1);
+    }
+
+
+    private static int spread(final int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+
+
+
+
+    static final class Node<K,V> {
+
+        final K key;
+        final V value;
+        final int hash;
+        final int weight;
+        final long creationTimeInMillis;
+
+        // Guarded by the eviction lock
+        Node<K,V> previous;
+        Node<K,V> next;
+        byte queue;
+        boolean retired;
+
+        Node(final K key, final V value, final int weight) {
+            super();
+            this.key = key;
+            this.value = value;
+            this.hash = spread(key.hashCode());
+            this.weight = weight;
+            this.creationTimeInMillis = System.currentTimeMillis();
+            this.queue = IN_NONE;
+            this.retired = false;
+        }
+
+    }
+
+
+
+
+    static final class WriteTask<K,V> {
+
+        final Node<K,V> node;
+        final boolean add;
+
+        WriteTask(final Node<K,V> node, final boolean add) {
+            super();
+            this.node = node;
+            this.add = add;
+        }
+
+    }
+
+
+
+
+    /*
+     * Doubly-linked list of nodes, ordered from least recently used (first) to most recently used (last).
+     * Not thread-safe: guarded by the eviction lock.
+     */
+    static final class AccessOrderDeque<K,V> {
+
+        Node<K,V> first;
+        Node<K,V> last;
+
+        AccessOrderDeque() {
+            super();
+        }
+
+        void linkLast(final Node<K,V> node) {
+            node.previous = this.last;
+            node.next = null;
+            if (this.last == null) {
+                this.first = node;
+            } else {
+                this.last.next = node;
+            }
+            this.last = node;
+        }
+
+        void unlink(final Node<K,V> node) {
+            final Node<K,V> previous = node.previous;
+            final Node<K,V> next = node.next;
+            if (previous == null) {
+                this.first = next;
+            } else {
+                previous.next = next;
+            }
+            if (next == null) {
+                this.last = previous;
+            } else {
+                next.previous = previous;
+            }
+            node.previous = null;
+            node.next = null;
+        }
+
+        void moveToLast(final Node<K,V> node) {
+            if (node != this.last) {
+                unlink(node);
+                linkLast(node);
+            }
+        }
+
+    }
+
+
+
+
+    /*
+     * Lossy ring buffer for recording accesses. Any number of threads can offer elements, but only the thread
+     * holding the eviction lock can drain it. If the buffer is full (or the thread loses a race with another one)
+     * the access is simply not recorded, which is acceptable for the purpose of estimating frequencies.
+     */
+    static final class ReadBuffer {
+
+        private final AtomicLong writeCounter;
+        private volatile long readCounter;
+        private final AtomicReferenceArray<Node<?,?>> buffer;
+
+        ReadBuffer() {
+            super();
+            this.writeCounter = new AtomicLong(0L);
+            this.readCounter = 0L;
+            this.buffer = new AtomicReferenceArray<Node<?,?>>(READ_BUFFER_SIZE);
+        }
+
+        /*
+         * Returns false if the buffer is full and should be drained
+         */
+        boolean offer(final Node<?,?> node) {
+            final long head = this.readCounter;
+            final long tail = this.writeCounter.get();
+            if (tail - head >= READ_BUFFER_SIZE) {
+                return false;
+            }
+            if (this.writeCounter.compareAndSet(tail, tail + 1L)) {
+                this.buffer.lazySet((int) (tail & READ_BUFFER_MASK), node);
+            }
+            return true;
+        }
+
+        @SuppressWarnings("unchecked")
+        <K,V> void drain(final TinyLFUCache<K,V> cache) {
+            long head = this.readCounter;
+            final long tail = this.writeCounter.get();
+            while (head < tail) {
+                final int index = (int) (head & READ_BUFFER_MASK);
+                final Node<K,V> node = (Node<K,V>) this.buffer.get(index);
+                if (node == null) {
+                    // Slot reserved by a writer but not published yet: we will get it next time
+                    break;
+                }
+                this.buffer.lazySet(index, null);
+                cache.onAccess(node);
+                head++;
+            }
+            this.readCounter = head;
+        }
+
+    }
+
+
+
+
+    /*
+     * Count-Min sketch with 4-bit counters (16 counters per long), used for estimating the frequency of use of
+     * each entry in the recent history. Counters are periodically halved so that old accesses count less than
+     * new ones. Not thread-safe: guarded by the eviction lock.
+     */
+    static final class FrequencySketch {
+
+        private static final long[] SEEDS =
+                new long[] { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+        private static final long RESET_MASK = 0x7777777777777777L;
+
+        private long[] table;
+        private int tableMask;
+        private int sampleSize;
+        private int size;
+
+        FrequencySketch(final int initialCapacity) {
+            super();
+            ensureCapacity(initialCapacity);
+        }
+
+        void ensureCapacity(final int capacity) {
+            final int length = ceilingPowerOfTwo(Math.max(16, Math.min(capacity, 1 << 24)));
+            if (this.table != null && this.table.length >= length) {
+                return;
+            }
+            this.table = new long[length];
+            this.tableMask = length - 1;
+            this.sampleSize = 10 * length;
+            this.size = 0;
+        }
+
+        int frequency(final int hash) {
+            final int start = (hash & 3) << 2;
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < 4; i++) {
+                final int index = indexOf(hash, i);
+                final int count = (int) ((this.table[index] >>> ((start + i) << 2)) & 0xFL);
+                frequency = Math.min(frequency, count);
+            }
+            return frequency;
+        }
+
+        void increment(final int hash) {
+            final int start = (hash & 3) << 2;
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                final int index = indexOf(hash, i);
+                final int offset = (start + i) << 2;
+                final long mask = 0xFL << offset;
+                if ((this.table[index] & mask) != mask) {
+                    this.table[index] += 1L << offset;
+                    added = true;
+                }
+            }
+            if (added && ++this.size == this.sampleSize) {
+                reset();
+            }
+        }
+
+        private int indexOf(final int hash, final int i) {
+            long h = (hash + SEEDS[i]) * SEEDS[i];
+            h += h >>> 32;
+            return ((int) h) & this.tableMask;
+        }
+
+        private void reset() {
+            for (int i = 0; i < this.table.length; i++) {
+                this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+            }
+            this.size = (this.size >>> 1);
+        }
+
+    }
+
+
+}
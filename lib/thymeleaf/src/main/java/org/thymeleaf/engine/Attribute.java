@@ -25,7 +25,6 @@
 import org.thymeleaf.exceptions.TemplateProcessingException;
 import org.thymeleaf.model.AttributeValueQuotes;
 import org.thymeleaf.model.IAttribute;
-import org.thymeleaf.standard.expression.IStandardExpression;
 import org.thymeleaf.util.FastStringWriter;
 
 /*
@@ -54,7 +53,11 @@ final class Attribute implements IAttribute {
     final int line;
     final int col;
 
-    private volatile IStandardExpression standardExpression = null;
+    /*
+     * Parsed form of the attribute value (IStandardExpression, Each, AssignationSequence, FragmentSignature...),
+     * cached here so that processors executed on cached template models do not need to hit the expression cache.
+     */
+    private volatile Object parsedValue = null;
 
 
 
@@ -139,12 +142,12 @@ public int getCol() {
     }
 
 
-    IStandardExpression getCachedStandardExpression() {
-        return this.standardExpression;
+    Object getCachedParsedValue() {
+        return this.parsedValue;
     }
 
-    void setCachedStandardExpression(final IStandardExpression standardExpression) {
-        this.standardExpression = standardExpression;
+    void setCachedParsedValue(final Object parsedValue) {
+        this.parsedValue = parsedValue;
     }
 
 
@@ -27,9 +27,6 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.thymeleaf.exceptions.ConfigurationException;
 import org.thymeleaf.processor.element.IElementProcessor;
@@ -167,6 +164,23 @@ public AttributeDefinitions(final Map<TemplateMode, Set<IElementProcessor>> elem
             this.htmlAttributeRepository.storeStandardAttribute(attributeDefinition);
         }
 
+
+        /*
+         * Pin the names of standard attributes and of those matched by processors, so that these are never
+         * evicted from the attribute name repositories when working in bounded mode
+         */
+        for (final AttributeDefinition attributeDefinition : standardHTMLAttributeDefinitions) {
+            AttributeNames.pin(attributeDefinition.getAttributeName());
+        }
+        for (final Set<IElementProcessor> elementProcessors : elementProcessorsByTemplateMode.values()) {
+            for (final IElementProcessor elementProcessor : elementProcessors) {
+                final MatchingAttributeName matchingAttributeName = elementProcessor.getMatchingAttributeName();
+                if (matchingAttributeName != null && matchingAttributeName.getMatchingAttributeName() != null) {
+                    AttributeNames.pin(matchingAttributeName.getMatchingAttributeName());
+                }
+            }
+        }
+
     }
 
 
@@ -544,7 +558,15 @@ public TextAttributeDefinition forCSSName(final char[] attributeName, final int
      * This repository class is thread-safe. The reason for this is that it not only contains the
      * standard attributes, but will also contain new instances of AttributeDefinition created during processing (created
      * when asking the repository for them when they do not exist yet). As any thread can create a new attribute,
-     * this has to be lock-protected.
+     * writes have to be synchronized.
+     *
+     * Reads, on the other side, are lock-free: the contents of the repository are kept in an immutable snapshot
+     * (sorted arrays) that is replaced as a whole (copy-on-write) each time a new attribute is stored, so that
+     * readers (i.e. the parsers, for every attribute in every template) never have to wait for any other thread.
+     *
+     * When attribute name repositories work in bounded mode (see AttributeNames.setAdHocNamesMaxSize()), definitions
+     * for attributes that are not in the snapshot (whether found by the parsers or not) are not added to it, but kept
+     * in a bounded structure instead.
      */
     static final class AttributeDefinitionRepository {
 
@@ -553,15 +575,11 @@ static final class AttributeDefinitionRepository {
         // These have already been filtered previously - only element-oriented processors will be here
         private final Map<TemplateMode, Set<IElementProcessor>> elementProcessorsByTemplateMode;
 
-        private final List<String> standardRepositoryNames; // read-only, no sync needed
-        private final List<AttributeDefinition> standardRepository; // read-only, no sync needed
+        private Snapshot standardSnapshot; // only modified during initialization, read-only afterwards
 
-        private final List<String> repositoryNames;  // read-write, sync will be needed
-        private final List<AttributeDefinition> repository;  // read-write, sync will be needed
+        private volatile Snapshot snapshot; // immutable, replaced as a whole (copy-on-write) on each store
 
-        private final ReadWriteLock lock = new ReentrantReadWriteLock(true);
-        private final Lock readLock = this.lock.readLock();
-        private final Lock writeLock = this.lock.writeLock();
+        private volatile BoundedNameCache<AttributeDefinition> adHocDefinitions; // only used in bounded mode
 
 
         AttributeDefinitionRepository(final TemplateMode templateMode, final Map<TemplateMode, Set<IElementProcessor>> elementProcessorsByTemplateMode) {
@@ -571,11 +589,9 @@ static final class AttributeDefinitionRepository {
             this.templateMode = templateMode;
             this.elementProcessorsByTemplateMode = elementProcessorsByTemplateMode;
 
-            this.standardRepositoryNames = (templateMode == TemplateMode.HTML ? new ArrayList<String>(150) : null);
-            this.standardRepository = (templateMode == TemplateMode.HTML ? new ArrayList<AttributeDefinition>(150) : null);
+            this.standardSnapshot = (templateMode == TemplateMode.HTML ? Snapshot.EMPTY : null);
 
-            this.repositoryNames = new ArrayList<String>(500);
-            this.repository = new ArrayList<AttributeDefinition>(500);
+            this.snapshot = Snapshot.EMPTY;
 
         }
 
@@ -584,48 +600,49 @@ AttributeDefinition getAttribute(final char[] text, final int offset, final int
 
             int index;
 
-            if (this.standardRepository != null) {
+            if (this.standardSnapshot != null) {
                 /*
-                 * We first try to find it in the repository containing the standard elements, which does not need
+                 * We first try to find it in the repositories containing the standard attributes, which does not need
                  * any synchronization.
                  */
-                index = binarySearch(this.templateMode.isCaseSensitive(), this.standardRepositoryNames, text, offset, len);
+                index = binarySearch(this.templateMode.isCaseSensitive(), this.standardSnapshot.names, text, offset, len);
 
                 if (index >= 0) {
-                    return this.standardRepository.get(index);
+                    return this.standardSnapshot.attributeDefinitions[index];
                 }
+
             }
 
             /*
-             * We did not find it in the repository of standard elements, so let's try in the read+write one,
-             * which does require synchronization through a readwrite lock.
+             * We did not find it in the repository of standard attributes, so let's try in the current snapshot
+             * of the read+write one, which does not need any synchronization either.
              */
+            final Snapshot current = this.snapshot;
+            index = binarySearch(this.templateMode.isCaseSensitive(), current.names, text, offset, len);
 
-            this.readLock.lock();
-            try {
-
-                /*
-                 * First look for the element in the namespaced repository
-                 */
-                index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, text, offset, len);
+            if (index >= 0) {
+                return current.attributeDefinitions[index];
+            }
 
-                if (index >= 0) {
-                    return this.repository.get(index);
+            /*
+             * NOT FOUND. If working in bounded mode this is an ad-hoc attribute, the definition of which will not be
+             * added to the snapshot but to a bounded (and evictable) structure instead.
+             */
+            final BoundedNameCache<AttributeDefinition> adHocDefinitions = adHocDefinitions();
+            if (adHocDefinitions != null) {
+                AttributeDefinition attributeDefinition = adHocDefinitions.get(text, offset, len);
+                if (attributeDefinition == null) {
+                    attributeDefinition = buildAttribute(text, offset, len);
+                    adHocDefinitions.put(attributeDefinition.attributeName.completeAttributeNames, attributeDefinition);
                 }
-
-            } finally {
-                this.readLock.unlock();
+                return attributeDefinition;
             }
 
-
             /*
-             * NOT FOUND. We need to obtain a write lock and store the text
+             * Not in bounded mode. We need to synchronize and store the text
              */
-            this.writeLock.lock();
-            try {
+            synchronized (this) {
                 return storeAttribute(text, offset, len);
-            } finally {
-                this.writeLock.unlock();
             }
 
         }
@@ -635,48 +652,48 @@ AttributeDefinition getAttribute(final String completeAttributeName) {
 
             int index;
 
-            if (this.standardRepository != null) {
+            if (this.standardSnapshot != null) {
                 /*
-                 * We first try to find it in the repository containing the standard elements, which does not need
+                 * We first try to find it in the repository containing the standard attributes, which does not need
                  * any synchronization.
                  */
-                index = binarySearch(this.templateMode.isCaseSensitive(), this.standardRepositoryNames, completeAttributeName);
+                index = binarySearch(this.templateMode.isCaseSensitive(), this.standardSnapshot.names, completeAttributeName);
 
                 if (index >= 0) {
-                    return this.standardRepository.get(index);
+                    return this.standardSnapshot.attributeDefinitions[index];
                 }
             }
 
             /*
-             * We did not find it in the repository of standard elements, so let's try in the read+write one,
-             * which does require synchronization through a readwrite lock.
+             * We did not find it in the repository of standard attributes, so let's try in the current snapshot
+             * of the read+write one, which does not need any synchronization either.
              */
+            final Snapshot current = this.snapshot;
+            index = binarySearch(this.templateMode.isCaseSensitive(), current.names, completeAttributeName);
 
-            this.readLock.lock();
-            try {
-
-                /*
-                 * First look for the element in the namespaced repository
-                 */
-                index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, completeAttributeName);
+            if (index >= 0) {
+                return current.attributeDefinitions[index];
+            }
 
-                if (index >= 0) {
-                    return this.repository.get(index);
+            /*
+             * NOT FOUND. If working in bounded mode this is an ad-hoc attribute (e.g. computed during template
+             * execution), the definition of which will not be added to the snapshot but to a bounded structure instead.
+             */
+            final BoundedNameCache<AttributeDefinition> adHocDefinitions = adHocDefinitions();
+            if (adHocDefinitions != null) {
+                AttributeDefinition attributeDefinition = adHocDefinitions.get(completeAttributeName);
+                if (attributeDefinition == null) {
+                    attributeDefinition = buildAttribute(completeAttributeName);
+                    adHocDefinitions.put(attributeDefinition.attributeName.completeAttributeNames, attributeDefinition);
                 }
-
-            } finally {
-                this.readLock.unlock();
+                return attributeDefinition;
             }
 
-
             /*
-             * NOT FOUND. We need to obtain a write lock and store the text
+             * Not in bounded mode. We need to synchronize and store the text
              */
-            this.writeLock.lock();
-            try {
+            synchronized (this) {
                 return storeAttribute(completeAttributeName);
-            } finally {
-                this.writeLock.unlock();
             }
 
         }
@@ -686,193 +703,185 @@ AttributeDefinition getAttribute(final String prefix, final String attributeName
 
             int index;
 
-            if (this.standardRepository != null) {
+            if (this.standardSnapshot != null) {
                 /*
-                 * We first try to find it in the repository containing the standard elements, which does not need
+                 * We first try to find it in the repository containing the standard attributes, which does not need
                  * any synchronization.
                  */
-                index = binarySearch(this.templateMode.isCaseSensitive(), this.standardRepositoryNames, prefix, attributeName);
+                index = binarySearch(this.templateMode.isCaseSensitive(), this.standardSnapshot.names, prefix, attributeName);
 
                 if (index >= 0) {
-                    return this.standardRepository.get(index);
+                    return this.standardSnapshot.attributeDefinitions[index];
                 }
             }
 
             /*
-             * We did not find it in the repository of standard elements, so let's try in the read+write one,
-             * which does require synchronization through a readwrite lock.
+             * We did not find it in the repository of standard attributes, so let's try in the current snapshot
+             * of the read+write one, which does not need any synchronization either.
              */
+            final Snapshot current = this.snapshot;
+            index = binarySearch(this.templateMode.isCaseSensitive(), current.names, prefix, attributeName);
 
-            this.readLock.lock();
-            try {
-
-                /*
-                 * First look for the element in the namespaced repository
-                 */
-                index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, prefix, attributeName);
+            if (index >= 0) {
+                return current.attributeDefinitions[index];
+            }
 
-                if (index >= 0) {
-                    return this.repository.get(index);
+            /*
+             * NOT FOUND. If working in bounded mode this is an ad-hoc attribute (e.g. computed during template
+             * execution), the definition of which will not be added to the snapshot but to a bounded structure instead.
+             */
+            final BoundedNameCache<AttributeDefinition> adHocDefinitions = adHocDefinitions();
+            if (adHocDefinitions != null) {
+                AttributeDefinition attributeDefinition = adHocDefinitions.get(prefix, attributeName);
+                if (attributeDefinition == null) {
+                    attributeDefinition = buildAttribute(prefix, attributeName);
+                    adHocDefinitions.put(attributeDefinition.attributeName.completeAttributeNames, attributeDefinition);
                 }
-
-            } finally {
-                this.readLock.unlock();
+                return attributeDefinition;
             }
 
-
             /*
-             * NOT FOUND. We need to obtain a write lock and store the text
+             * Not in bounded mode. We need to synchronize and store the text
              */
-            this.writeLock.lock();
-            try {
+            synchronized (this) {
                 return storeAttribute(prefix, attributeName);
-            } finally {
-                this.writeLock.unlock();
             }
 
         }
 
 
-        private AttributeDefinition storeAttribute(final char[] text, final int offset, final int len) {
+        private BoundedNameCache<AttributeDefinition> adHocDefinitions() {
 
-            int index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, text, offset, len);
-            if (index >= 0) {
-                // It was already added while we were waiting for the lock!
-                return this.repository.get(index);
+            final int maxSize = AttributeNames.getAdHocNamesMaxSize();
+            if (maxSize <= 0) {
+                return null;
             }
 
-            final Set<IElementProcessor> elementProcessors = this.elementProcessorsByTemplateMode.get(this.templateMode);
+            final BoundedNameCache<AttributeDefinition> current = this.adHocDefinitions;
+            if (current != null && current.getRequestedMaxSize() == maxSize) {
+                return current;
+            }
 
-            final AttributeDefinition attributeDefinition;
-            if (this.templateMode == TemplateMode.HTML) {
-                attributeDefinition =
-                        buildHTMLAttributeDefinition(AttributeNames.forHTMLName(text, offset, len), elementProcessors);
-            } else if (this.templateMode == TemplateMode.XML) {
-                attributeDefinition =
-                        buildXMLAttributeDefinition(AttributeNames.forXMLName(text, offset, len), elementProcessors);
-            } else { // this.templateMode.isText()
-                attributeDefinition =
-                        buildTextAttributeDefinition(this.templateMode, AttributeNames.forTextName(text, offset, len), elementProcessors);
+            // Bounded mode has just been enabled or reconfigured
+            synchronized (this) {
+                if (this.adHocDefinitions == null || this.adHocDefinitions.getRequestedMaxSize() != maxSize) {
+                    this.adHocDefinitions = new BoundedNameCache<AttributeDefinition>(this.templateMode.isCaseSensitive(), maxSize);
+                }
+                return this.adHocDefinitions;
             }
 
-            final String[] completeAttributeNames = attributeDefinition.attributeName.completeAttributeNames;
+        }
 
-            for (final String completeAttributeName : completeAttributeNames) {
 
-                index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, completeAttributeName);
+        private AttributeDefinition buildAttribute(final char[] text, final int offset, final int len) {
 
-                // binary Search returned (-(insertion point) - 1)
-                this.repositoryNames.add(((index + 1) * -1), completeAttributeName);
-                this.repository.add(((index + 1) * -1), attributeDefinition);
+            final Set<IElementProcessor> elementProcessors = this.elementProcessorsByTemplateMode.get(this.templateMode);
 
+            if (this.templateMode == TemplateMode.HTML) {
+                return buildHTMLAttributeDefinition(AttributeNames.forHTMLName(text, offset, len), elementProcessors);
             }
-
-            return attributeDefinition;
+            if (this.templateMode == TemplateMode.XML) {
+                return buildXMLAttributeDefinition(AttributeNames.forXMLName(text, offset, len), elementProcessors);
+            }
+            // this.templateMode.isText()
+            return buildTextAttributeDefinition(this.templateMode, AttributeNames.forTextName(text, offset, len), elementProcessors);
 
         }
 
 
-        private AttributeDefinition storeAttribute(final String attributeName) {
-
-            int index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, attributeName);
-            if (index >= 0) {
-                // It was already added while we were waiting for the lock!
-                return this.repository.get(index);
-            }
+        private AttributeDefinition buildAttribute(final String text) {
 
             final Set<IElementProcessor> elementProcessors = this.elementProcessorsByTemplateMode.get(this.templateMode);
 
-            final AttributeDefinition attributeDefinition;
             if (this.templateMode == TemplateMode.HTML) {
-                attributeDefinition =
-                        buildHTMLAttributeDefinition(AttributeNames.forHTMLName(attributeName), elementProcessors);
-            } else if (this.templateMode == TemplateMode.XML) {
-                attributeDefinition =
-                        buildXMLAttributeDefinition(AttributeNames.forXMLName(attributeName), elementProcessors);
-            } else { // this.templateMode.isText()
-                attributeDefinition =
-                        buildTextAttributeDefinition(this.templateMode, AttributeNames.forTextName(attributeName), elementProcessors);
+                return buildHTMLAttributeDefinition(AttributeNames.forHTMLName(text), elementProcessors);
+            }
+            if (this.templateMode == TemplateMode.XML) {
+                return buildXMLAttributeDefinition(AttributeNames.forXMLName(text), elementProcessors);
             }
+            // this.templateMode.isText()
+            return buildTextAttributeDefinition(this.templateMode, AttributeNames.forTextName(text), elementProcessors);
 
-            final String[] completeAttributeNames = attributeDefinition.attributeName.completeAttributeNames;
+        }
 
-            for (final String completeAttributeName : completeAttributeNames) {
 
-                index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, completeAttributeName);
+        private AttributeDefinition buildAttribute(final String prefix, final String attributeName) {
 
-                // binary Search returned (-(insertion point) - 1)
-                this.repositoryNames.add(((index + 1) * -1), completeAttributeName);
-                this.repository.add(((index + 1) * -1), attributeDefinition);
+            final Set<IElementProcessor> elementProcessors = this.elementProcessorsByTemplateMode.get(this.templateMode);
 
+            if (this.templateMode == TemplateMode.HTML) {
+                return buildHTMLAttributeDefinition(AttributeNames.forHTMLName(prefix, attributeName), elementProcessors);
             }
-
-            return attributeDefinition;
+            if (this.templateMode == TemplateMode.XML) {
+                return buildXMLAttributeDefinition(AttributeNames.forXMLName(prefix, attributeName), elementProcessors);
+            }
+            // this.templateMode.isText()
+            return buildTextAttributeDefinition(this.templateMode, AttributeNames.forTextName(prefix, attributeName), elementProcessors);
 
         }
 
 
-        private AttributeDefinition storeAttribute(final String prefix, final String attributeName) {
+        private AttributeDefinition storeAttribute(final char[] text, final int offset, final int len) {
 
-            int index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, prefix, attributeName);
+            final Snapshot current = this.snapshot;
+            final int index = binarySearch(this.templateMode.isCaseSensitive(), current.names, text, offset, len);
             if (index >= 0) {
                 // It was already added while we were waiting for the lock!
-                return this.repository.get(index);
+                return current.attributeDefinitions[index];
             }
 
-            final Set<IElementProcessor> elementProcessors = this.elementProcessorsByTemplateMode.get(this.templateMode);
+            final AttributeDefinition attributeDefinition = buildAttribute(text, offset, len);
 
-            final AttributeDefinition attributeDefinition;
-            if (this.templateMode == TemplateMode.HTML) {
-                attributeDefinition =
-                        buildHTMLAttributeDefinition(AttributeNames.forHTMLName(prefix, attributeName), elementProcessors);
-            } else if (this.templateMode == TemplateMode.XML) {
-                attributeDefinition =
-                        buildXMLAttributeDefinition(AttributeNames.forXMLName(prefix, attributeName), elementProcessors);
-            } else { // this.templateMode.isText()
-                attributeDefinition =
-                        buildTextAttributeDefinition(this.templateMode, AttributeNames.forTextName(prefix, attributeName), elementProcessors);
-            }
+            this.snapshot = current.add(this.templateMode.isCaseSensitive(), attributeDefinition);
 
-            final String[] completeAttributeNames = attributeDefinition.attributeName.completeAttributeNames;
+            return attributeDefinition;
 
-            for (final String completeAttributeName : completeAttributeNames) {
+        }
 
-                index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, completeAttributeName);
 
-                // binary Search returned (-(insertion point) - 1)
-                this.repositoryNames.add(((index + 1) * -1), completeAttributeName);
-                this.repository.add(((index + 1) * -1), attributeDefinition);
+        private AttributeDefinition storeAttribute(final String text) {
 
+            final Snapshot current = this.snapshot;
+            final int index = binarySearch(this.templateMode.isCaseSensitive(), current.names, text);
+            if (index >= 0) {
+                // It was already added while we were waiting for the lock!
+                return current.attributeDefinitions[index];
             }
 
+            final AttributeDefinition attributeDefinition = buildAttribute(text);
+
+            this.snapshot = current.add(this.templateMode.isCaseSensitive(), attributeDefinition);
+
             return attributeDefinition;
 
         }
 
 
-        private AttributeDefinition storeStandardAttribute(final AttributeDefinition attributeDefinition) {
+        private AttributeDefinition storeAttribute(final String prefix, final String attributeName) {
 
-            // This method will only be called from within the AttributeDefinitions class itself, during initialization of
-            // standard elements.
+            final Snapshot current = this.snapshot;
+            final int index = binarySearch(this.templateMode.isCaseSensitive(), current.names, prefix, attributeName);
+            if (index >= 0) {
+                // It was already added while we were waiting for the lock!
+                return current.attributeDefinitions[index];
+            }
 
-            final String[] completeAttributeNames = attributeDefinition.attributeName.completeAttributeNames;
+            final AttributeDefinition attributeDefinition = buildAttribute(prefix, attributeName);
 
-            int index;
-            for (final String completeAttributeName : completeAttributeNames) {
+            this.snapshot = current.add(this.templateMode.isCaseSensitive(), attributeDefinition);
 
-                index = binarySearch(this.templateMode.isCaseSensitive(), this.standardRepositoryNames, completeAttributeName);
+            return attributeDefinition;
 
-                // binary Search returned (-(insertion point) - 1)
-                this.standardRepositoryNames.add(((index + 1) * -1), completeAttributeName);
-                this.standardRepository.add(((index + 1) * -1), attributeDefinition);
+        }
 
-                index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, completeAttributeName);
 
-                // binary Search returned (-(insertion point) - 1)
-                this.repositoryNames.add(((index + 1) * -1), completeAttributeName);
-                this.repository.add(((index + 1) * -1), attributeDefinition);
+        private AttributeDefinition storeStandardAttribute(final AttributeDefinition attributeDefinition) {
 
-            }
+            // This method will only be called from within the AttributeDefinitions class itself, during initialization of
+            // standard attributes.
+
+            this.standardSnapshot = this.standardSnapshot.add(this.templateMode.isCaseSensitive(), attributeDefinition);
+            this.snapshot = this.snapshot.add(this.templateMode.isCaseSensitive(), attributeDefinition);
 
             return attributeDefinition;
 
@@ -880,10 +889,10 @@ private AttributeDefinition storeStandardAttribute(final AttributeDefinition att
 
 
         private static int binarySearch(
-                final boolean caseSensitive, final List<String> values, final char[] text, final int offset, final int len) {
+                final boolean caseSensitive, final String[] values, final char[] text, final int offset, final int len) {
 
             int low = 0;
-            int high = values.size() - 1;
+            int high = values.length - 1;
 
             int mid, cmp;
             String midVal;
@@ -891,7 +900,7 @@ private static int binarySearch(
             while (low <= high) {
 
                 mid = (low + high) >>> 1;
-                midVal = values.get(mid);
+                midVal = values[mid];
 
                 cmp = TextUtils.compareTo(caseSensitive, midVal, 0, midVal.length(), text, offset, len);
 
@@ -911,10 +920,15 @@ private static int binarySearch(
         }
 
 
-        private static int binarySearch(final boolean caseSensitive, final List<String> values, final String text) {
+        private static int binarySearch(final boolean caseSensitive, final String[] values, final String text) {
+            return binarySearch(caseSensitive, values, values.length, text);
+        }
+
+
+        private static int binarySearch(final boolean caseSensitive, final String[] values, final int size, final String text) {
 
             int low = 0;
-            int high = values.size() - 1;
+            int high = size - 1;
 
             int mid, cmp;
             String midVal;
@@ -922,7 +936,7 @@ private static int binarySearch(final boolean caseSensitive, final List<String>
             while (low <= high) {
 
                 mid = (low + high) >>> 1;
-                midVal = values.get(mid);
+                midVal = values[mid];
 
                 cmp = TextUtils.compareTo(caseSensitive, midVal, text);
 
@@ -943,7 +957,7 @@ private static int binarySearch(final boolean caseSensitive, final List<String>
 
 
         private static int binarySearch(final boolean caseSensitive,
-                                        final List<String> values, final String prefix, final String attributeName) {
+                                        final String[] values, final String prefix, final String attributeName) {
 
             // This method will be specialized in finding prefixed attribute names (in the prefix:name form)
 
@@ -955,7 +969,7 @@ private static int binarySearch(final boolean caseSensitive,
             final int attributeNameLen = attributeName.length();
 
             int low = 0;
-            int high = values.size() - 1;
+            int high = values.length - 1;
 
             int mid, cmp;
             String midVal;
@@ -964,7 +978,7 @@ private static int binarySearch(final boolean caseSensitive,
             while (low <= high) {
 
                 mid = (low + high) >>> 1;
-                midVal = values.get(mid);
+                midVal = values[mid];
                 midValLen = midVal.length();
 
                 if (TextUtils.startsWith(caseSensitive, midVal, prefix)) {
@@ -1028,6 +1042,58 @@ private static int binarySearch(final boolean caseSensitive,
         }
 
 
+        /*
+         * Immutable contents of the repository: names are kept sorted so that binary search can be applied on
+         * them, and each position in the attributeDefinitions array corresponds to the same position in names. Note
+         * an AttributeDefinition will appear once for each of the complete names of its attribute.
+         */
+        private static final class Snapshot {
+
+            static final Snapshot EMPTY = new Snapshot(new String[0], new AttributeDefinition[0]);
+
+            final String[] names;
+            final AttributeDefinition[] attributeDefinitions;
+
+            Snapshot(final String[] names, final AttributeDefinition[] attributeDefinitions) {
+                super();
+                this.names = names;
+                this.attributeDefinitions = attributeDefinitions;
+            }
+
+            Snapshot add(final boolean caseSensitive, final AttributeDefinition attributeDefinition) {
+
+                final String[] completeAttributeNames = attributeDefinition.attributeName.completeAttributeNames;
+
+                final int newSize = this.names.length + completeAttributeNames.length;
+                final String[] newNames = new String[newSize];
+                final AttributeDefinition[] newAttributeDefinitions = new AttributeDefinition[newSize];
+
+                System.arraycopy(this.names, 0, newNames, 0, this.names.length);
+                System.arraycopy(this.attributeDefinitions, 0, newAttributeDefinitions, 0, this.attributeDefinitions.length);
+
+                int size = this.names.length;
+                int index, insertionPoint;
+                for (final String completeAttributeName : completeAttributeNames) {
+
+                    index = binarySearch(caseSensitive, newNames, size, completeAttributeName);
+
+                    // binary Search returned (-(insertion point) - 1)
+                    insertionPoint = ((index + 1) * -1);
+                    System.arraycopy(newNames, insertionPoint, newNames, insertionPoint + 1, size - insertionPoint);
+                    System.arraycopy(newAttributeDefinitions, insertionPoint, newAttributeDefinitions, insertionPoint + 1, size - insertionPoint);
+                    newNames[insertionPoint] = completeAttributeName;
+                    newAttributeDefinitions[insertionPoint] = attributeDefinition;
+                    size++;
+
+                }
+
+                return new Snapshot(newNames, newAttributeDefinitions);
+
+            }
+
+        }
+
+
     }
 
 
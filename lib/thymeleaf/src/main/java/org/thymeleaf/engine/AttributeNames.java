@@ -19,12 +19,6 @@
  */
 package org.thymeleaf.engine;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-
 import org.thymeleaf.templatemode.TemplateMode;
 import org.thymeleaf.util.TextUtils;
 
@@ -42,6 +36,18 @@ public class AttributeNames {
     private static final AttributeNamesRepository xmlAttributeNamesRepository = new AttributeNamesRepository(TemplateMode.XML);
     private static final AttributeNamesRepository textAttributeNamesRepository = new AttributeNamesRepository(TemplateMode.TEXT);
 
+    /**
+     * <p>
+     *   Default maximum size of the repositories of <em>ad-hoc</em> attribute names: {@value} (no limit,
+     *   repositories are unbounded).
+     * </p>
+     *
+     * @since 3.1.2
+     */
+    public static final int DEFAULT_AD_HOC_NAMES_MAX_SIZE = -1;
+
+    private static volatile int adHocNamesMaxSize = DEFAULT_AD_HOC_NAMES_MAX_SIZE;
+
 
 
 
@@ -506,6 +512,119 @@ public static HTMLAttributeName forHTMLName(final String prefix, final String at
 
 
 
+    /**
+     * <p>
+     *   Returns the maximum amount of <em>ad-hoc</em> attribute names that will be kept in each name repository
+     *   (one per template mode), or {@code -1} if repositories are unbounded.
+     * </p>
+     *
+     * @return the maximum size of the ad-hoc part of each repository, or -1 if unbounded.
+     * @since 3.1.2
+     */
+    public static int getAdHocNamesMaxSize() {
+        return adHocNamesMaxSize;
+    }
+
+
+    /**
+     * <p>
+     *   Sets the maximum amount of <em>ad-hoc</em> attribute names that will be kept in each name repository
+     *   (one per template mode). Setting a value greater than zero enables <em>bounded mode</em>.
+     * </p>
+     * <p>
+     *   In bounded mode, the names of standard attributes and those matched by the processors configured in
+     *   template engines are <em>pinned</em> and will never leave the repository. Any other names, whether found
+     *   by the parsers in the contents of templates or obtained by specifying them as a {@code String} (e.g.
+     *   attribute names computed during template execution), are considered <em>ad-hoc</em>, and will be stored in a
+     *   size-limited structure from which they can be evicted. This avoids the unlimited growth of the
+     *   repositories when processing lots of different (e.g. user-provided) contents.
+     * </p>
+     * <p>
+     *   Note that in bounded mode different instances of {@link AttributeName} might be created for the same
+     *   ad-hoc name during the life of the application, so these should be compared by means of
+     *   {@link AttributeName#equals(Object)}. Also note this setting is global to all the template engine
+     *   instances in the application, and that its value also applies to the attribute definitions of each
+     *   engine ({@link AttributeDefinitions}).
+     * </p>
+     *
+     * @param maxSize the maximum size of the ad-hoc part of each repository, or -1 for no limit.
+     * @since 3.1.2
+     */
+    public static void setAdHocNamesMaxSize(final int maxSize) {
+        if (maxSize != -1 && maxSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be either -1 (no limit) or greater than zero");
+        }
+        adHocNamesMaxSize = maxSize;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the amount of <em>pinned</em> complete attribute names currently stored in the name repositories
+     *   (adding up all template modes). If repositories are unbounded, all names are considered pinned.
+     * </p>
+     *
+     * @return the amount of pinned complete names.
+     * @since 3.1.2
+     */
+    public static int getPinnedNamesSize() {
+        return htmlAttributeNamesRepository.pinnedSize() +
+                xmlAttributeNamesRepository.pinnedSize() +
+                textAttributeNamesRepository.pinnedSize();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the amount of <em>ad-hoc</em> complete attribute names currently stored in the name repositories
+     *   (adding up all template modes). Will be zero if repositories are unbounded.
+     * </p>
+     *
+     * @return the amount of ad-hoc complete names.
+     * @since 3.1.2
+     */
+    public static int getAdHocNamesSize() {
+        return htmlAttributeNamesRepository.adHocSize() +
+                xmlAttributeNamesRepository.adHocSize() +
+                textAttributeNamesRepository.adHocSize();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the amount of <em>ad-hoc</em> complete attribute names that have been evicted from the
+     *   name repositories (adding up all template modes) since bounded mode was last configured.
+     * </p>
+     *
+     * @return the amount of evicted ad-hoc complete names.
+     * @since 3.1.2
+     */
+    public static long getAdHocNamesEvictionCount() {
+        return htmlAttributeNamesRepository.adHocEvictionCount() +
+                xmlAttributeNamesRepository.adHocEvictionCount() +
+                textAttributeNamesRepository.adHocEvictionCount();
+    }
+
+
+
+
+    /*
+     * Pins a name, so that it will never be evicted from its repository when working in bounded mode. Used by the
+     * engine for the names of standard attributes and of those matched by the configured processors.
+     */
+    static void pin(final AttributeName attributeName) {
+        if (attributeName instanceof HTMLAttributeName) {
+            htmlAttributeNamesRepository.pinAttribute(attributeName);
+        } else if (attributeName instanceof XMLAttributeName) {
+            xmlAttributeNamesRepository.pinAttribute(attributeName);
+        } else { // attributeName instanceof TextAttributeName
+            textAttributeNamesRepository.pinAttribute(attributeName);
+        }
+    }
+
+
+
+
     private AttributeNames() {
         super();
     }
@@ -518,18 +637,25 @@ private AttributeNames() {
     /*
      * This repository class is thread-safe, as it will contain new instances of AttributeName created during
      * processing (created when asking the repository for them when they do not exist yet). As any thread can
-     * create a new attribute, this has to be lock-protected.
+     * create a new attribute, writes have to be synchronized.
+     *
+     * Reads, on the other side, are lock-free: the contents of the repository are kept in an immutable snapshot
+     * (sorted arrays) that is replaced as a whole (copy-on-write) each time a new attribute is stored. Given the
+     * number of different attribute names used in an application is normally very low and stabilizes quickly,
+     * writes will be very rare and readers (i.e. the parsers, for every attribute in every template) will never
+     * have to wait for any other thread.
+     *
+     * When working in bounded mode (see setAdHocNamesMaxSize()), names that are not in the snapshot (i.e. not
+     * pinned) are not added to it, but kept in a bounded structure instead. Only the engine pins names, by means
+     * of pin().
      */
     static final class AttributeNamesRepository {
 
         private final TemplateMode templateMode;
 
-        private final List<String> repositoryNames;  // read-write, sync will be needed
-        private final List<AttributeName> repository;  // read-write, sync will be needed
+        private volatile Snapshot snapshot; // immutable, replaced as a whole (copy-on-write) on each store
 
-        private final ReadWriteLock lock = new ReentrantReadWriteLock(true);
-        private final Lock readLock = this.lock.readLock();
-        private final Lock writeLock = this.lock.writeLock();
+        private volatile BoundedNameCache<AttributeName> adHocNames; // only used in bounded mode
 
 
         AttributeNamesRepository(final TemplateMode templateMode) {
@@ -538,41 +664,42 @@ static final class AttributeNamesRepository {
 
             this.templateMode = templateMode;
 
-            this.repositoryNames = new ArrayList<String>(500);
-            this.repository = new ArrayList<AttributeName>(500);
+            this.snapshot = Snapshot.EMPTY;
 
         }
 
 
         AttributeName getAttribute(final char[] text, final int offset, final int len) {
 
-            int index;
-
-            this.readLock.lock();
-            try {
+            /*
+             * First look for the attribute in the current snapshot, which needs no synchronization
+             */
+            final Snapshot current = this.snapshot;
+            final int index = binarySearch(this.templateMode.isCaseSensitive(), current.names, text, offset, len);
 
-                /*
-                 * First look for the element in the namespaced repository
-                 */
-                index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, text, offset, len);
+            if (index >= 0) {
+                return current.attributeNames[index];
+            }
 
-                if (index >= 0) {
-                    return this.repository.get(index);
+            /*
+             * NOT FOUND. If working in bounded mode this is an ad-hoc name, which will not be added to the
+             * snapshot but to a bounded (and evictable) structure instead.
+             */
+            final BoundedNameCache<AttributeName> adHocNames = adHocNames();
+            if (adHocNames != null) {
+                AttributeName name = adHocNames.get(text, offset, len);
+                if (name == null) {
+                    name = buildAttribute(text, offset, len);
+                    adHocNames.put(name.completeAttributeNames, name);
                 }
-
-            } finally {
-                this.readLock.unlock();
+                return name;
             }
 
-
             /*
-             * NOT FOUND. We need to obtain a write lock and store the text
+             * Not in bounded mode. We need to synchronize and store the text
              */
-            this.writeLock.lock();
-            try {
+            synchronized (this) {
                 return storeAttribute(text, offset, len);
-            } finally {
-                this.writeLock.unlock();
             }
 
         }
@@ -580,33 +707,35 @@ AttributeName getAttribute(final char[] text, final int offset, final int len) {
 
         AttributeName getAttribute(final String completeAttributeName) {
 
-            int index;
-
-            this.readLock.lock();
-            try {
+            /*
+             * First look for the attribute in the current snapshot, which needs no synchronization
+             */
+            final Snapshot current = this.snapshot;
+            final int index = binarySearch(this.templateMode.isCaseSensitive(), current.names, completeAttributeName);
 
-                /*
-                 * First look for the element in the namespaced repository
-                 */
-                index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, completeAttributeName);
+            if (index >= 0) {
+                return current.attributeNames[index];
+            }
 
-                if (index >= 0) {
-                    return this.repository.get(index);
+            /*
+             * NOT FOUND. If working in bounded mode this is an ad-hoc name (e.g. computed during template execution),
+             * which will be kept in the same bounded structure as the ad-hoc names found by the parsers.
+             */
+            final BoundedNameCache<AttributeName> adHocNames = adHocNames();
+            if (adHocNames != null) {
+                AttributeName name = adHocNames.get(completeAttributeName);
+                if (name == null) {
+                    name = buildAttribute(completeAttributeName);
+                    adHocNames.put(name.completeAttributeNames, name);
                 }
-
-            } finally {
-                this.readLock.unlock();
+                return name;
             }
 
-
             /*
-             * NOT FOUND. We need to obtain a write lock and store the text
+             * Not in bounded mode. We need to synchronize and store the text
              */
-            this.writeLock.lock();
-            try {
+            synchronized (this) {
                 return storeAttribute(completeAttributeName);
-            } finally {
-                this.writeLock.unlock();
             }
 
         }
@@ -614,145 +743,204 @@ AttributeName getAttribute(final String completeAttributeName) {
 
         AttributeName getAttribute(final String prefix, final String attributeName) {
 
-            int index;
-
-            this.readLock.lock();
-            try {
+            /*
+             * First look for the attribute in the current snapshot, which needs no synchronization
+             */
+            final Snapshot current = this.snapshot;
+            final int index = binarySearch(this.templateMode.isCaseSensitive(), current.names, prefix, attributeName);
 
-                /*
-                 * First look for the element in the namespaced repository
-                 */
-                index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, prefix, attributeName);
+            if (index >= 0) {
+                return current.attributeNames[index];
+            }
 
-                if (index >= 0) {
-                    return this.repository.get(index);
+            /*
+             * NOT FOUND. If working in bounded mode this is an ad-hoc name (e.g. computed during template execution),
+             * which will be kept in the same bounded structure as the ad-hoc names found by the parsers.
+             */
+            final BoundedNameCache<AttributeName> adHocNames = adHocNames();
+            if (adHocNames != null) {
+                AttributeName name = adHocNames.get(prefix, attributeName);
+                if (name == null) {
+                    name = buildAttribute(prefix, attributeName);
+                    adHocNames.put(name.completeAttributeNames, name);
                 }
-
-            } finally {
-                this.readLock.unlock();
+                return name;
             }
 
-
             /*
-             * NOT FOUND. We need to obtain a write lock and store the text
+             * Not in bounded mode. We need to synchronize and store the text
              */
-            this.writeLock.lock();
-            try {
+            synchronized (this) {
                 return storeAttribute(prefix, attributeName);
-            } finally {
-                this.writeLock.unlock();
             }
 
         }
 
 
-        private AttributeName storeAttribute(final char[] text, final int offset, final int len) {
+        void pinAttribute(final AttributeName attributeName) {
 
-            int index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, text, offset, len);
-            if (index >= 0) {
-                // It was already added while we were waiting for the lock!
-                return this.repository.get(index);
-            }
+            synchronized (this) {
+
+                final Snapshot current = this.snapshot;
+                final int index =
+                        binarySearch(this.templateMode.isCaseSensitive(), current.names, attributeName.completeAttributeNames[0]);
+                if (index >= 0) {
+                    // Already pinned (or not working in bounded mode)
+                    return;
+                }
+
+                this.snapshot = current.add(this.templateMode.isCaseSensitive(), attributeName);
 
-            final AttributeName name;
-            if (this.templateMode == TemplateMode.HTML) {
-                name = buildHTMLAttributeName(text, offset, len);
-            } else if (this.templateMode == TemplateMode.XML) {
-                name = buildXMLAttributeName(text, offset, len);
-            } else { // this.templateMode.isText()
-                name = buildTextAttributeName(text, offset, len);
             }
 
-            final String[] completeAttributeNames = name.completeAttributeNames;
+        }
 
-            for (final String completeAttributeName : completeAttributeNames) {
 
-                index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, completeAttributeName);
+        int pinnedSize() {
+            return this.snapshot.names.length;
+        }
 
-                // binary Search returned (-(insertion point) - 1)
-                this.repositoryNames.add(((index + 1) * -1), completeAttributeName);
-                this.repository.add(((index + 1) * -1), name);
 
-            }
+        int adHocSize() {
+            final BoundedNameCache<AttributeName> adHocNames = this.adHocNames;
+            return (adHocNames == null? 0 : adHocNames.size());
+        }
 
-            return name;
 
+        long adHocEvictionCount() {
+            final BoundedNameCache<AttributeName> adHocNames = this.adHocNames;
+            return (adHocNames == null? 0L : adHocNames.getEvictionCount());
         }
 
 
-        private AttributeName storeAttribute(final String attributeName) {
+        private BoundedNameCache<AttributeName> adHocNames() {
 
-            int index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, attributeName);
-            if (index >= 0) {
-                // It was already added while we were waiting for the lock!
-                return this.repository.get(index);
+            final int maxSize = adHocNamesMaxSize;
+            if (maxSize <= 0) {
+                return null;
+            }
+
+            final BoundedNameCache<AttributeName> current = this.adHocNames;
+            if (current != null && current.getRequestedMaxSize() == maxSize) {
+                return current;
+            }
+
+            // Bounded mode has just been enabled or reconfigured
+            synchronized (this) {
+                if (this.adHocNames == null || this.adHocNames.getRequestedMaxSize() != maxSize) {
+                    this.adHocNames = new BoundedNameCache<AttributeName>(this.templateMode.isCaseSensitive(), maxSize);
+                }
+                return this.adHocNames;
+            }
+
+        }
+
+
+        private AttributeName buildAttribute(final char[] text, final int offset, final int len) {
+            if (this.templateMode == TemplateMode.HTML) {
+                return buildHTMLAttributeName(text, offset, len);
+            }
+            if (this.templateMode == TemplateMode.XML) {
+                return buildXMLAttributeName(text, offset, len);
             }
+            // this.templateMode.isText()
+            return buildTextAttributeName(text, offset, len);
+        }
+
 
-            final AttributeName name;
+        private AttributeName buildAttribute(final String completeAttributeName) {
             if (this.templateMode == TemplateMode.HTML) {
-                name = buildHTMLAttributeName(attributeName);
-            } else if (this.templateMode == TemplateMode.XML) {
-                name = buildXMLAttributeName(attributeName);
-            } else { // this.templateMode.isText()
-                name = buildTextAttributeName(attributeName);
+                return buildHTMLAttributeName(completeAttributeName);
             }
+            if (this.templateMode == TemplateMode.XML) {
+                return buildXMLAttributeName(completeAttributeName);
+            }
+            // this.templateMode.isText()
+            return buildTextAttributeName(completeAttributeName);
+        }
 
-            final String[] completeAttributeNames = name.completeAttributeNames;
 
-            for (final String completeAttributeName : completeAttributeNames) {
+        private AttributeName buildAttribute(final String prefix, final String attributeName) {
+            if (this.templateMode == TemplateMode.HTML) {
+                return buildHTMLAttributeName(prefix, attributeName);
+            }
+            if (this.templateMode == TemplateMode.XML) {
+                return buildXMLAttributeName(prefix, attributeName);
+            }
+            // this.templateMode.isText()
+            return buildTextAttributeName(prefix, attributeName);
+        }
 
-                index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, completeAttributeName);
 
-                // binary Search returned (-(insertion point) - 1)
-                this.repositoryNames.add(((index + 1) * -1), completeAttributeName);
-                this.repository.add(((index + 1) * -1), name);
+        private AttributeName storeAttribute(final char[] text, final int offset, final int len) {
 
+            final Snapshot current = this.snapshot;
+            final int index = binarySearch(this.templateMode.isCaseSensitive(), current.names, text, offset, len);
+            if (index >= 0) {
+                // It was already added while we were waiting for the lock!
+                return current.attributeNames[index];
             }
 
+            final AttributeName name = buildAttribute(text, offset, len);
+
+            this.snapshot = current.add(this.templateMode.isCaseSensitive(), name);
+
             return name;
 
         }
 
 
-        private AttributeName storeAttribute(final String prefix, final String attributeName) {
+        private AttributeName storeAttribute(final String attributeName) {
 
-            int index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, prefix, attributeName);
+            final Snapshot current = this.snapshot;
+            final int index = binarySearch(this.templateMode.isCaseSensitive(), current.names, attributeName);
             if (index >= 0) {
                 // It was already added while we were waiting for the lock!
-                return this.repository.get(index);
+                return current.attributeNames[index];
             }
 
-            final AttributeName name;
-            if (this.templateMode == TemplateMode.HTML) {
-                name = buildHTMLAttributeName(prefix, attributeName);
-            } else if (this.templateMode == TemplateMode.XML) {
-                name = buildXMLAttributeName(prefix, attributeName);
-            } else { // this.templateMode.isText()
-                name = buildTextAttributeName(prefix, attributeName);
+            // If the name was being used as an ad-hoc name, we will pin that same instance
+            final BoundedNameCache<AttributeName> adHocNames = this.adHocNames;
+            AttributeName name = (adHocNames != null? adHocNames.get(attributeName) : null);
+            if (name == null) {
+                name = buildAttribute(attributeName);
             }
 
-            final String[] completeAttributeNames = name.completeAttributeNames;
+            this.snapshot = current.add(this.templateMode.isCaseSensitive(), name);
 
-            for (final String completeAttributeName : completeAttributeNames) {
+            return name;
 
-                index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, completeAttributeName);
+        }
 
-                // binary Search returned (-(insertion point) - 1)
-                this.repositoryNames.add(((index + 1) * -1), completeAttributeName);
-                this.repository.add(((index + 1) * -1), name);
 
+        private AttributeName storeAttribute(final String prefix, final String attributeName) {
+
+            final Snapshot current = this.snapshot;
+            final int index = binarySearch(this.templateMode.isCaseSensitive(), current.names, prefix, attributeName);
+            if (index >= 0) {
+                // It was already added while we were waiting for the lock!
+                return current.attributeNames[index];
+            }
+
+            // If the name was being used as an ad-hoc name, we will pin that same instance
+            final BoundedNameCache<AttributeName> adHocNames = this.adHocNames;
+            AttributeName name = (adHocNames != null? adHocNames.get(prefix, attributeName) : null);
+            if (name == null) {
+                name = buildAttribute(prefix, attributeName);
             }
 
+            this.snapshot = current.add(this.templateMode.isCaseSensitive(), name);
+
             return name;
 
         }
 
 
         private static int binarySearch(
-                final boolean caseSensitive, final List<String> values, final char[] text, final int offset, final int len) {
+                final boolean caseSensitive, final String[] values, final char[] text, final int offset, final int len) {
 
             int low = 0;
-            int high = values.size() - 1;
+            int high = values.length - 1;
 
             int mid, cmp;
             String midVal;
@@ -760,7 +948,7 @@ private static int binarySearch(
             while (low <= high) {
 
                 mid = (low + high) >>> 1;
-                midVal = values.get(mid);
+                midVal = values[mid];
 
                 cmp = TextUtils.compareTo(caseSensitive, midVal, 0, midVal.length(), text, offset, len);
 
@@ -780,10 +968,15 @@ private static int binarySearch(
         }
 
 
-        private static int binarySearch(final boolean caseSensitive, final List<String> values, final String text) {
+        private static int binarySearch(final boolean caseSensitive, final String[] values, final String text) {
+            return binarySearch(caseSensitive, values, values.length, text);
+        }
+
+
+        private static int binarySearch(final boolean caseSensitive, final String[] values, final int size, final String text) {
 
             int low = 0;
-            int high = values.size() - 1;
+            int high = size - 1;
 
             int mid, cmp;
             String midVal;
@@ -791,7 +984,7 @@ private static int binarySearch(final boolean caseSensitive, final List<String>
             while (low <= high) {
 
                 mid = (low + high) >>> 1;
-                midVal = values.get(mid);
+                midVal = values[mid];
 
                 cmp = TextUtils.compareTo(caseSensitive, midVal, text);
 
@@ -812,7 +1005,7 @@ private static int binarySearch(final boolean caseSensitive, final List<String>
 
 
         private static int binarySearch(final boolean caseSensitive,
-                                        final List<String> values, final String prefix, final String attributeName) {
+                                        final String[] values, final String prefix, final String attributeName) {
 
             // This method will be specialized in finding prefixed attribute names (in the prefix:name form)
 
@@ -824,7 +1017,7 @@ private static int binarySearch(final boolean caseSensitive,
             final int attributeNameLen = attributeName.length();
 
             int low = 0;
-            int high = values.size() - 1;
+            int high = values.length - 1;
 
             int mid, cmp;
             String midVal;
@@ -833,7 +1026,7 @@ private static int binarySearch(final boolean caseSensitive,
             while (low <= high) {
 
                 mid = (low + high) >>> 1;
-                midVal = values.get(mid);
+                midVal = values[mid];
                 midValLen = midVal.length();
 
                 if (TextUtils.startsWith(caseSensitive, midVal, prefix)) {
@@ -897,6 +1090,58 @@ private static int binarySearch(final boolean caseSensitive,
         }
 
 
+        /*
+         * Immutable contents of the repository: names are kept sorted so that binary search can be applied on
+         * them, and each position in the attributeNames array corresponds to the same position in names. Note
+         * an AttributeName will appear once for each of its complete names.
+         */
+        private static final class Snapshot {
+
+            static final Snapshot EMPTY = new Snapshot(new String[0], new AttributeName[0]);
+
+            final String[] names;
+            final AttributeName[] attributeNames;
+
+            Snapshot(final String[] names, final AttributeName[] attributeNames) {
+                super();
+                this.names = names;
+                this.attributeNames = attributeNames;
+            }
+
+            Snapshot add(final boolean caseSensitive, final AttributeName attributeName) {
+
+                final String[] completeAttributeNames = attributeName.completeAttributeNames;
+
+                final int newSize = this.names.length + completeAttributeNames.length;
+                final String[] newNames = new String[newSize];
+                final AttributeName[] newAttributeNames = new AttributeName[newSize];
+
+                System.arraycopy(this.names, 0, newNames, 0, this.names.length);
+                System.arraycopy(this.attributeNames, 0, newAttributeNames, 0, this.attributeNames.length);
+
+                int size = this.names.length;
+                int index, insertionPoint;
+                for (final String completeAttributeName : completeAttributeNames) {
+
+                    index = binarySearch(caseSensitive, newNames, size, completeAttributeName);
+
+                    // binary Search returned (-(insertion point) - 1)
+                    insertionPoint = ((index + 1) * -1);
+                    System.arraycopy(newNames, insertionPoint, newNames, insertionPoint + 1, size - insertionPoint);
+                    System.arraycopy(newAttributeNames, insertionPoint, newAttributeNames, insertionPoint + 1, size - insertionPoint);
+                    newNames[insertionPoint] = completeAttributeName;
+                    newAttributeNames[insertionPoint] = attributeName;
+                    size++;
+
+                }
+
+                return new Snapshot(newNames, newAttributeNames);
+
+            }
+
+        }
+
+
     }
 
 
@@ -124,8 +124,10 @@ private int searchAttribute(final AttributeName attributeName) {
         }
         int n = this.attributes.length;
         while (n-- != 0) {
-            // AttributeName objects are registered in a repository and are singletons, so == is fine
-            if (this.attributes[n].definition.attributeName == attributeName) {
+            // AttributeName objects are registered in a repository and are normally singletons, but ad-hoc names
+            // might have more than one instance if name repositories work in bounded mode, so we fall back to equals
+            final AttributeName name = this.attributes[n].definition.attributeName;
+            if (name == attributeName || name.equals(attributeName)) {
                 return n;
             }
         }
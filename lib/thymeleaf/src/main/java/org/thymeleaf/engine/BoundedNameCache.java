@@ -0,0 +1,292 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.engine;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.thymeleaf.util.TextUtils;
+
+/*
+ * Bounded, lock-free container for the "ad-hoc" names (or definitions) that name repositories store when they
+ * are working in bounded mode, i.e. those names that are not standard or registered by dialects, but appear
+ * in the contents of the templates being parsed.
+ *
+ * Entries are kept in a fixed-size, 2-way set-associative hash table: each complete name can only live in one of
+ * two slots, and when both are occupied one of them is evicted, giving a second chance to the entry that
+ * has been used most recently (CLOCK-like). Lookups do not allocate and can be performed directly on
+ * char[]/offset/len ranges. Concurrent inserts of the same name might create more than one instance for it,
+ * so the objects stored here should only be compared by means of equals().
+ *
+ * @author Daniel Fernandez
+ * @since 3.1.2
+ *
+ */
+final class BoundedNameCache<T> {
+
+    private final boolean caseSensitive;
+    private final int requestedMaxSize;
+    private final int maxSize;
+    private final int mask;
+    private final AtomicReferenceArray<Entry<T>> table;
+
+    private final AtomicInteger size = new AtomicInteger(0);
+    private final AtomicLong evictionCount = new AtomicLong(0L);
+
+
+
+    BoundedNameCache(final boolean caseSensitive, final int maxSize) {
+
+        super();
+
+        // Slots are grouped in pairs, so we need an even (and power-of-two) number of them, which we will
+        // make sure does not go over the specified maximum size
+        int capacity = 2;
+        while ((capacity << 1) > 0 && (capacity << 1) <= maxSize) {
+            capacity <<= 1;
+        }
+
+        this.caseSensitive = caseSensitive;
+        this.requestedMaxSize = maxSize;
+        this.maxSize = capacity;
+        this.mask = capacity - 2;
+        this.table = new AtomicReferenceArray<Entry<T>>(capacity);
+
+    }
+
+
+    int getRequestedMaxSize() {
+        return this.requestedMaxSize;
+    }
+
+
+    int getMaxSize() {
+        return this.maxSize;
+    }
+
+
+    int size() {
+        return this.size.get();
+    }
+
+
+    long getEvictionCount() {
+        return this.evictionCount.get();
+    }
+
+
+
+
+    T get(final char[] text, final int offset, final int len) {
+
+        final int slot = spread(hash(this.caseSensitive, text, offset, len)) & this.mask;
+
+        Entry<T> entry = this.table.get(slot);
+        if (entry != null && TextUtils.equals(this.caseSensitive, entry.name, 0, entry.name.length(), text, offset, len)) {
+            markReferenced(entry);
+            return entry.value;
+        }
+        entry = this.table.get(slot + 1);
+        if (entry != null && TextUtils.equals(this.caseSensitive, entry.name, 0, entry.name.length(), text, offset, len)) {
+            markReferenced(entry);
+            return entry.value;
+        }
+        return null;
+
+    }
+
+
+    T get(final String completeName) {
+
+        final int slot = spread(hash(this.caseSensitive, completeName, 0, completeName.length(), 0)) & this.mask;
+
+        Entry<T> entry = this.table.get(slot);
+        if (entry != null && TextUtils.equals(this.caseSensitive, entry.name, completeName)) {
+            markReferenced(entry);
+            return entry.value;
+        }
+        entry = this.table.get(slot + 1);
+        if (entry != null && TextUtils.equals(this.caseSensitive, entry.name, completeName)) {
+            markReferenced(entry);
+            return entry.value;
+        }
+        return null;
+
+    }
+
+
+    T get(final String prefix, final String name) {
+
+        if (prefix == null || prefix.trim().length() == 0) {
+            return get(name);
+        }
+
+        // We compute the hash of "prefix:name" without actually building such String
+        int h = hash(this.caseSensitive, prefix, 0, prefix.length(), 0);
+        h = 31 * h + ':';
+        h = hash(this.caseSensitive, name, 0, name.length(), h);
+
+        final int slot = spread(h) & this.mask;
+
+        Entry<T> entry = this.table.get(slot);
+        if (entry != null && matches(entry.name, prefix, name)) {
+            markReferenced(entry);
+            return entry.value;
+        }
+        entry = this.table.get(slot + 1);
+        if (entry != null && matches(entry.name, prefix, name)) {
+            markReferenced(entry);
+            return entry.value;
+        }
+        return null;
+
+    }
+
+
+    void put(final String[] completeNames, final T value) {
+        for (final String completeName : completeNames) {
+            put(completeName, value);
+        }
+    }
+
+
+    private void put(final String completeName, final T value) {
+
+        final int slot = spread(hash(this.caseSensitive, completeName, 0, completeName.length(), 0)) & this.mask;
+        final Entry<T> newEntry = new Entry<T>(completeName, value);
+
+        // If there is an empty slot (or one containing the same name), we will just use it
+        for (int i = slot; i <= slot + 1; i++) {
+            final Entry<T> entry = this.table.get(i);
+            if (entry == null) {
+                if (this.table.compareAndSet(i, null, newEntry)) {
+                    this.size.incrementAndGet();
+                    return;
+                }
+            } else if (TextUtils.equals(this.caseSensitive, entry.name, completeName)) {
+                this.table.compareAndSet(i, entry, newEntry);
+                return;
+            }
+        }
+
+        // Both slots are in use, so we need to evict one of them. Entries that have been used since the last
+        // eviction in this pair of slots get a second chance.
+        final Entry<T> first = this.table.get(slot);
+        final Entry<T> second = this.table.get(slot + 1);
+        final int victim;
+        if (first != null && !first.referenced) {
+            victim = slot;
+        } else if (second != null && !second.referenced) {
+            victim = slot + 1;
+        } else {
+            victim = slot;
+        }
+        if (first != null) {
+            first.referenced = false;
+        }
+        if (second != null) {
+            second.referenced = false;
+        }
+
+        final Entry<T> evicted = this.table.getAndSet(victim, newEntry);
+        if (evicted != null) {
+            this.evictionCount.incrementAndGet();
+        } else {
+            this.size.incrementAndGet();
+        }
+
+    }
+
+
+    private static void markReferenced(final Entry<?> entry) {
+        // Only write if needed, so that hits on hot names do not keep invalidating the CPU caches of other threads
+        if (!entry.referenced) {
+            entry.referenced = true;
+        }
+    }
+
+
+    private boolean matches(final String completeName, final String prefix, final String name) {
+        final int prefixLen = prefix.length();
+        final int nameLen = name.length();
+        return completeName.length() == prefixLen + 1 + nameLen &&
+                completeName.charAt(prefixLen) == ':' &&
+                TextUtils.equals(this.caseSensitive, completeName, 0, prefixLen, prefix, 0, prefixLen) &&
+                TextUtils.equals(this.caseSensitive, completeName, prefixLen + 1, nameLen, name, 0, nameLen);
+    }
+
+
+
+
+    /*
+     * Hash functions must be consistent with TextUtils.equals(...), so in case-insensitive mode each char
+     * is normalized in the same way String#equalsIgnoreCase() would consider two chars to be equal.
+     */
+
+    private static int hash(final boolean caseSensitive, final char[] text, final int offset, final int len) {
+        int h = 0;
+        final int max = offset + len;
+        for (int i = offset; i < max; i++) {
+            h = 31 * h + normalize(caseSensitive, text[i]);
+        }
+        return h;
+    }
+
+
+    private static int hash(final boolean caseSensitive, final String text, final int offset, final int len, final int initial) {
+        int h = initial;
+        final int max = offset + len;
+        for (int i = offset; i < max; i++) {
+            h = 31 * h + normalize(caseSensitive, text.charAt(i));
+        }
+        return h;
+    }
+
+
+    private static char normalize(final boolean caseSensitive, final char c) {
+        return (caseSensitive? c : Character.toLowerCase(Character.toUpperCase(c)));
+    }
+
+
+    private static int spread(final int hash) {
+        final int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+
+
+
+    private static final class Entry<T> {
+
+        final String name;
+        final T value;
+        boolean referenced; // just a hint for eviction, so no need for it to be volatile
+
+        Entry(final String name, final T value) {
+            super();
+            this.name = name;
+            this.value = value;
+        }
+
+    }
+
+
+}
@@ -25,9 +25,6 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.thymeleaf.exceptions.ConfigurationException;
 import org.thymeleaf.processor.element.IElementProcessor;
@@ -266,6 +263,23 @@ public ElementDefinitions(final Map<TemplateMode, Set<IElementProcessor>> elemen
             this.htmlElementRepository.storeStandardElement(elementDefinition);
         }
 
+
+        /*
+         * Pin the names of standard elements and of those matched by processors, so that these are never
+         * evicted from the element name repositories when working in bounded mode
+         */
+        for (final HTMLElementDefinition elementDefinition : standardHTMLElementDefinitions) {
+            ElementNames.pin(elementDefinition.getElementName());
+        }
+        for (final Set<IElementProcessor> elementProcessors : elementProcessorsByTemplateMode.values()) {
+            for (final IElementProcessor elementProcessor : elementProcessors) {
+                final MatchingElementName matchingElementName = elementProcessor.getMatchingElementName();
+                if (matchingElementName != null && matchingElementName.getMatchingElementName() != null) {
+                    ElementNames.pin(matchingElementName.getMatchingElementName());
+                }
+            }
+        }
+
     }
 
 
@@ -640,7 +654,15 @@ public TextElementDefinition forCSSName(final char[] elementName, final int elem
      * This repository class is thread-safe. The reason for this is that it not only contains the
      * standard elements, but will also contain new instances of ElementDefinition created during processing (created
      * when asking the repository for them when they do not exist yet). As any thread can create a new element,
-     * this has to be lock-protected.
+     * writes have to be synchronized.
+     *
+     * Reads, on the other side, are lock-free: the contents of the repository are kept in an immutable snapshot
+     * (sorted arrays) that is replaced as a whole (copy-on-write) each time a new element is stored, so that
+     * readers (i.e. the parsers, for every element in every template) never have to wait for any other thread.
+     *
+     * When element name repositories work in bounded mode (see ElementNames.setAdHocNamesMaxSize()), definitions
+     * for elements that are not in the snapshot (whether found by the parsers or not) are not added to it, but kept
+     * in a bounded structure instead.
      */
     static final class ElementDefinitionRepository {
 
@@ -649,15 +671,11 @@ static final class ElementDefinitionRepository {
         // These have already been filtered previously - only element-oriented processors will be here
         private final Map<TemplateMode, Set<IElementProcessor>> elementProcessorsByTemplateMode;
 
-        private final List<String> standardRepositoryNames; // read-only, no sync needed
-        private final List<ElementDefinition> standardRepository; // read-only, no sync needed
+        private Snapshot standardSnapshot; // only modified during initialization, read-only afterwards
 
-        private final List<String> repositoryNames;  // read-write, sync will be needed
-        private final List<ElementDefinition> repository;  // read-write, sync will be needed
+        private volatile Snapshot snapshot; // immutable, replaced as a whole (copy-on-write) on each store
 
-        private final ReadWriteLock lock = new ReentrantReadWriteLock(true);
-        private final Lock readLock = this.lock.readLock();
-        private final Lock writeLock = this.lock.writeLock();
+        private volatile BoundedNameCache<ElementDefinition> adHocDefinitions; // only used in bounded mode
 
 
         ElementDefinitionRepository(final TemplateMode templateMode, final Map<TemplateMode, Set<IElementProcessor>> elementProcessorsByTemplateMode) {
@@ -667,11 +685,9 @@ static final class ElementDefinitionRepository {
             this.templateMode = templateMode;
             this.elementProcessorsByTemplateMode = elementProcessorsByTemplateMode;
 
-            this.standardRepositoryNames = (templateMode == TemplateMode.HTML ? new ArrayList<String>(150) : null);
-            this.standardRepository = (templateMode == TemplateMode.HTML ? new ArrayList<ElementDefinition>(150) : null);
+            this.standardSnapshot = (templateMode == TemplateMode.HTML ? Snapshot.EMPTY : null);
 
-            this.repositoryNames = new ArrayList<String>(150);
-            this.repository = new ArrayList<ElementDefinition>(150);
+            this.snapshot = Snapshot.EMPTY;
 
         }
 
@@ -680,49 +696,49 @@ ElementDefinition getElement(final char[] text, final int offset, final int len)
 
             int index;
 
-            if (this.standardRepository != null) {
+            if (this.standardSnapshot != null) {
                 /*
                  * We first try to find it in the repositories containing the standard elements, which does not need
                  * any synchronization.
                  */
-                index = binarySearch(this.templateMode.isCaseSensitive(), this.standardRepositoryNames, text, offset, len);
+                index = binarySearch(this.templateMode.isCaseSensitive(), this.standardSnapshot.names, text, offset, len);
 
                 if (index >= 0) {
-                    return this.standardRepository.get(index);
+                    return this.standardSnapshot.elementDefinitions[index];
                 }
 
             }
 
             /*
-             * We did not find it in the repository of standard elements, so let's try in the read+write one,
-             * which does require synchronization through a readwrite lock.
+             * We did not find it in the repository of standard elements, so let's try in the current snapshot
+             * of the read+write one, which does not need any synchronization either.
              */
+            final Snapshot current = this.snapshot;
+            index = binarySearch(this.templateMode.isCaseSensitive(), current.names, text, offset, len);
 
-            this.readLock.lock();
-            try {
-
-                /*
-                 * First look for the element in the namespaced repository
-                 */
-                index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, text, offset, len);
+            if (index >= 0) {
+                return current.elementDefinitions[index];
+            }
 
-                if (index >= 0) {
-                    return this.repository.get(index);
+            /*
+             * NOT FOUND. If working in bounded mode this is an ad-hoc element, the definition of which will not be
+             * added to the snapshot but to a bounded (and evictable) structure instead.
+             */
+            final BoundedNameCache<ElementDefinition> adHocDefinitions = adHocDefinitions();
+            if (adHocDefinitions != null) {
+                ElementDefinition elementDefinition = adHocDefinitions.get(text, offset, len);
+                if (elementDefinition == null) {
+                    elementDefinition = buildElement(text, offset, len);
+                    adHocDefinitions.put(elementDefinition.elementName.completeElementNames, elementDefinition);
                 }
-
-            } finally {
-                this.readLock.unlock();
+                return elementDefinition;
             }
 
-
             /*
-             * NOT FOUND. We need to obtain a write lock and store the text
+             * Not in bounded mode. We need to synchronize and store the text
              */
-            this.writeLock.lock();
-            try {
+            synchronized (this) {
                 return storeElement(text, offset, len);
-            } finally {
-                this.writeLock.unlock();
             }
 
         }
@@ -732,48 +748,48 @@ ElementDefinition getElement(final String completeElementName) {
 
             int index;
 
-            if (this.standardRepository != null) {
+            if (this.standardSnapshot != null) {
                 /*
                  * We first try to find it in the repository containing the standard elements, which does not need
                  * any synchronization.
                  */
-                index = binarySearch(this.templateMode.isCaseSensitive(), this.standardRepositoryNames, completeElementName);
+                index = binarySearch(this.templateMode.isCaseSensitive(), this.standardSnapshot.names, completeElementName);
 
                 if (index >= 0) {
-                    return this.standardRepository.get(index);
+                    return this.standardSnapshot.elementDefinitions[index];
                 }
             }
 
             /*
-             * We did not find it in the repository of standard elements, so let's try in the read+write one,
-             * which does require synchronization through a readwrite lock.
+             * We did not find it in the repository of standard elements, so let's try in the current snapshot
+             * of the read+write one, which does not need any synchronization either.
              */
+            final Snapshot current = this.snapshot;
+            index = binarySearch(this.templateMode.isCaseSensitive(), current.names, completeElementName);
 
-            this.readLock.lock();
-            try {
-
-                /*
-                 * First look for the element in the namespaced repository
-                 */
-                index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, completeElementName);
+            if (index >= 0) {
+                return current.elementDefinitions[index];
+            }
 
-                if (index >= 0) {
-                    return this.repository.get(index);
+            /*
+             * NOT FOUND. If working in bounded mode this is an ad-hoc element (e.g. computed during template
+             * execution), the definition of which will not be added to the snapshot but to a bounded structure instead.
+             */
+            final BoundedNameCache<ElementDefinition> adHocDefinitions = adHocDefinitions();
+            if (adHocDefinitions != null) {
+                ElementDefinition elementDefinition = adHocDefinitions.get(completeElementName);
+                if (elementDefinition == null) {
+                    elementDefinition = buildElement(completeElementName);
+                    adHocDefinitions.put(elementDefinition.elementName.completeElementNames, elementDefinition);
                 }
-
-            } finally {
-                this.readLock.unlock();
+                return elementDefinition;
             }
 
-
             /*
-             * NOT FOUND. We need to obtain a write lock and store the text
+             * Not in bounded mode. We need to synchronize and store the text
              */
-            this.writeLock.lock();
-            try {
+            synchronized (this) {
                 return storeElement(completeElementName);
-            } finally {
-                this.writeLock.unlock();
             }
 
         }
@@ -783,193 +799,185 @@ ElementDefinition getElement(final String prefix, final String elementName) {
 
             int index;
 
-            if (this.standardRepository != null) {
+            if (this.standardSnapshot != null) {
                 /*
                  * We first try to find it in the repository containing the standard elements, which does not need
                  * any synchronization.
                  */
-                index = binarySearch(this.templateMode.isCaseSensitive(), this.standardRepositoryNames, prefix, elementName);
+                index = binarySearch(this.templateMode.isCaseSensitive(), this.standardSnapshot.names, prefix, elementName);
 
                 if (index >= 0) {
-                    return this.standardRepository.get(index);
+                    return this.standardSnapshot.elementDefinitions[index];
                 }
             }
 
             /*
-             * We did not find it in the repository of standard elements, so let's try in the read+write one,
-             * which does require synchronization through a readwrite lock.
+             * We did not find it in the repository of standard elements, so let's try in the current snapshot
+             * of the read+write one, which does not need any synchronization either.
              */
+            final Snapshot current = this.snapshot;
+            index = binarySearch(this.templateMode.isCaseSensitive(), current.names, prefix, elementName);
 
-            this.readLock.lock();
-            try {
-
-                /*
-                 * First look for the element in the namespaced repository
-                 */
-                index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, prefix, elementName);
+            if (index >= 0) {
+                return current.elementDefinitions[index];
+            }
 
-                if (index >= 0) {
-                    return this.repository.get(index);
+            /*
+             * NOT FOUND. If working in bounded mode this is an ad-hoc element (e.g. computed during template
+             * execution), the definition of which will not be added to the snapshot but to a bounded structure instead.
+             */
+            final BoundedNameCache<ElementDefinition> adHocDefinitions = adHocDefinitions();
+            if (adHocDefinitions != null) {
+                ElementDefinition elementDefinition = adHocDefinitions.get(prefix, elementName);
+                if (elementDefinition == null) {
+                    elementDefinition = buildElement(prefix, elementName);
+                    adHocDefinitions.put(elementDefinition.elementName.completeElementNames, elementDefinition);
                 }
-
-            } finally {
-                this.readLock.unlock();
+                return elementDefinition;
             }
 
-
             /*
-             * NOT FOUND. We need to obtain a write lock and store the text
+             * Not in bounded mode. We need to synchronize and store the text
              */
-            this.writeLock.lock();
-            try {
+            synchronized (this) {
                 return storeElement(prefix, elementName);
-            } finally {
-                this.writeLock.unlock();
             }
 
         }
 
 
-        private ElementDefinition storeElement(final char[] text, final int offset, final int len) {
+        private BoundedNameCache<ElementDefinition> adHocDefinitions() {
 
-            int index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, text, offset, len);
-            if (index >= 0) {
-                // It was already added while we were waiting for the lock!
-                return this.repository.get(index);
+            final int maxSize = ElementNames.getAdHocNamesMaxSize();
+            if (maxSize <= 0) {
+                return null;
             }
 
-            final Set<IElementProcessor> elementProcessors = this.elementProcessorsByTemplateMode.get(this.templateMode);
+            final BoundedNameCache<ElementDefinition> current = this.adHocDefinitions;
+            if (current != null && current.getRequestedMaxSize() == maxSize) {
+                return current;
+            }
 
-            final ElementDefinition elementDefinition;
-            if (this.templateMode == TemplateMode.HTML) {
-                elementDefinition =
-                        buildHTMLElementDefinition(ElementNames.forHTMLName(text, offset, len), HTMLElementType.NORMAL, elementProcessors);
-            } else if (this.templateMode == TemplateMode.XML) {
-                elementDefinition =
-                        buildXMLElementDefinition(ElementNames.forXMLName(text, offset, len), elementProcessors);
-            } else { // this.templateMode.isText()
-                elementDefinition =
-                        buildTextElementDefinition(this.templateMode, ElementNames.forTextName(text, offset, len), elementProcessors);
+            // Bounded mode has just been enabled or reconfigured
+            synchronized (this) {
+                if (this.adHocDefinitions == null || this.adHocDefinitions.getRequestedMaxSize() != maxSize) {
+                    this.adHocDefinitions = new BoundedNameCache<ElementDefinition>(this.templateMode.isCaseSensitive(), maxSize);
+                }
+                return this.adHocDefinitions;
             }
 
-            final String[] completeElementNames = elementDefinition.elementName.completeElementNames;
+        }
 
-            for (final String completeElementName : completeElementNames) {
 
-                index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, completeElementName);
+        private ElementDefinition buildElement(final char[] text, final int offset, final int len) {
 
-                // binary Search returned (-(insertion point) - 1)
-                this.repositoryNames.add(((index + 1) * -1), completeElementName);
-                this.repository.add(((index + 1) * -1), elementDefinition);
+            final Set<IElementProcessor> elementProcessors = this.elementProcessorsByTemplateMode.get(this.templateMode);
 
+            if (this.templateMode == TemplateMode.HTML) {
+                return buildHTMLElementDefinition(ElementNames.forHTMLName(text, offset, len), HTMLElementType.NORMAL, elementProcessors);
             }
-
-            return elementDefinition;
+            if (this.templateMode == TemplateMode.XML) {
+                return buildXMLElementDefinition(ElementNames.forXMLName(text, offset, len), elementProcessors);
+            }
+            // this.templateMode.isText()
+            return buildTextElementDefinition(this.templateMode, ElementNames.forTextName(text, offset, len), elementProcessors);
 
         }
 
 
-        private ElementDefinition storeElement(final String text) {
-
-            int index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, text);
-            if (index >= 0) {
-                // It was already added while we were waiting for the lock!
-                return this.repository.get(index);
-            }
+        private ElementDefinition buildElement(final String text) {
 
             final Set<IElementProcessor> elementProcessors = this.elementProcessorsByTemplateMode.get(this.templateMode);
 
-            final ElementDefinition elementDefinition;
             if (this.templateMode == TemplateMode.HTML) {
-                elementDefinition =
-                        buildHTMLElementDefinition(ElementNames.forHTMLName(text), HTMLElementType.NORMAL, elementProcessors);
-            } else if (this.templateMode == TemplateMode.XML) {
-                elementDefinition =
-                        buildXMLElementDefinition(ElementNames.forXMLName(text), elementProcessors);
-            } else { // this.templateMode.isText()
-                elementDefinition =
-                        buildTextElementDefinition(this.templateMode, ElementNames.forTextName(text), elementProcessors);
+                return buildHTMLElementDefinition(ElementNames.forHTMLName(text), HTMLElementType.NORMAL, elementProcessors);
             }
+            if (this.templateMode == TemplateMode.XML) {
+                return buildXMLElementDefinition(ElementNames.forXMLName(text), elementProcessors);
+            }
+            // this.templateMode.isText()
+            return buildTextElementDefinition(this.templateMode, ElementNames.forTextName(text), elementProcessors);
 
-            final String[] completeElementNames = elementDefinition.elementName.completeElementNames;
+        }
 
-            for (final String completeElementName : completeElementNames) {
 
-                index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, completeElementName);
+        private ElementDefinition buildElement(final String prefix, final String elementName) {
 
-                // binary Search returned (-(insertion point) - 1)
-                this.repositoryNames.add(((index + 1) * -1), completeElementName);
-                this.repository.add(((index + 1) * -1), elementDefinition);
+            final Set<IElementProcessor> elementProcessors = this.elementProcessorsByTemplateMode.get(this.templateMode);
 
+            if (this.templateMode == TemplateMode.HTML) {
+                return buildHTMLElementDefinition(ElementNames.forHTMLName(prefix, elementName), HTMLElementType.NORMAL, elementProcessors);
             }
-
-            return elementDefinition;
+            if (this.templateMode == TemplateMode.XML) {
+                return buildXMLElementDefinition(ElementNames.forXMLName(prefix, elementName), elementProcessors);
+            }
+            // this.templateMode.isText()
+            return buildTextElementDefinition(this.templateMode, ElementNames.forTextName(prefix, elementName), elementProcessors);
 
         }
 
 
-        private ElementDefinition storeElement(final String prefix, final String elementName) {
+        private ElementDefinition storeElement(final char[] text, final int offset, final int len) {
 
-            int index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, prefix, elementName);
+            final Snapshot current = this.snapshot;
+            final int index = binarySearch(this.templateMode.isCaseSensitive(), current.names, text, offset, len);
             if (index >= 0) {
                 // It was already added while we were waiting for the lock!
-                return this.repository.get(index);
+                return current.elementDefinitions[index];
             }
 
-            final Set<IElementProcessor> elementProcessors = this.elementProcessorsByTemplateMode.get(this.templateMode);
+            final ElementDefinition elementDefinition = buildElement(text, offset, len);
 
-            final ElementDefinition elementDefinition;
-            if (this.templateMode == TemplateMode.HTML) {
-                elementDefinition =
-                        buildHTMLElementDefinition(ElementNames.forHTMLName(prefix, elementName), HTMLElementType.NORMAL, elementProcessors);
-            } else if (this.templateMode == TemplateMode.XML) {
-                elementDefinition =
-                        buildXMLElementDefinition(ElementNames.forXMLName(prefix, elementName), elementProcessors);
-            } else { // this.templateMode.isText()
-                elementDefinition =
-                        buildTextElementDefinition(this.templateMode, ElementNames.forTextName(prefix, elementName), elementProcessors);
-            }
+            this.snapshot = current.add(this.templateMode.isCaseSensitive(), elementDefinition);
 
-            final String[] completeElementNames = elementDefinition.elementName.completeElementNames;
+            return elementDefinition;
 
-            for (final String completeElementName : completeElementNames) {
+        }
 
-                index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, completeElementName);
 
-                // binary Search returned (-(insertion point) - 1)
-                this.repositoryNames.add(((index + 1) * -1), completeElementName);
-                this.repository.add(((index + 1) * -1), elementDefinition);
+        private ElementDefinition storeElement(final String text) {
 
+            final Snapshot current = this.snapshot;
+            final int index = binarySearch(this.templateMode.isCaseSensitive(), current.names, text);
+            if (index >= 0) {
+                // It was already added while we were waiting for the lock!
+                return current.elementDefinitions[index];
             }
 
+            final ElementDefinition elementDefinition = buildElement(text);
+
+            this.snapshot = current.add(this.templateMode.isCaseSensitive(), elementDefinition);
+
             return elementDefinition;
 
         }
 
 
-        private ElementDefinition storeStandardElement(final ElementDefinition elementDefinition) {
+        private ElementDefinition storeElement(final String prefix, final String elementName) {
 
-            // This method will only be called from within the ElementDefinitions class itself, during initialization of
-            // standard elements.
+            final Snapshot current = this.snapshot;
+            final int index = binarySearch(this.templateMode.isCaseSensitive(), current.names, prefix, elementName);
+            if (index >= 0) {
+                // It was already added while we were waiting for the lock!
+                return current.elementDefinitions[index];
+            }
 
-            final String[] completeElementNames = elementDefinition.elementName.completeElementNames;
+            final ElementDefinition elementDefinition = buildElement(prefix, elementName);
 
-            int index;
-            for (final String completeElementName : completeElementNames) {
+            this.snapshot = current.add(this.templateMode.isCaseSensitive(), elementDefinition);
 
-                index = binarySearch(this.templateMode.isCaseSensitive(), this.standardRepositoryNames, completeElementName);
+            return elementDefinition;
 
-                // binary Search returned (-(insertion point) - 1)
-                this.standardRepositoryNames.add(((index + 1) * -1), completeElementName);
-                this.standardRepository.add(((index + 1) * -1), elementDefinition);
+        }
 
-                index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, completeElementName);
 
-                // binary Search returned (-(insertion point) - 1)
-                this.repositoryNames.add(((index + 1) * -1), completeElementName);
-                this.repository.add(((index + 1) * -1), elementDefinition);
+        private ElementDefinition storeStandardElement(final ElementDefinition elementDefinition) {
 
-            }
+            // This method will only be called from within the ElementDefinitions class itself, during initialization of
+            // standard elements.
+
+            this.standardSnapshot = this.standardSnapshot.add(this.templateMode.isCaseSensitive(), elementDefinition);
+            this.snapshot = this.snapshot.add(this.templateMode.isCaseSensitive(), elementDefinition);
 
             return elementDefinition;
 
@@ -977,10 +985,10 @@ private ElementDefinition storeStandardElement(final ElementDefinition elementDe
 
 
         private static int binarySearch(
-                final boolean caseSensitive, final List<String> values, final char[] text, final int offset, final int len) {
+                final boolean caseSensitive, final String[] values, final char[] text, final int offset, final int len) {
 
             int low = 0;
-            int high = values.size() - 1;
+            int high = values.length - 1;
 
             int mid, cmp;
             String midVal;
@@ -988,7 +996,7 @@ private static int binarySearch(
             while (low <= high) {
 
                 mid = (low + high) >>> 1;
-                midVal = values.get(mid);
+                midVal = values[mid];
 
                 cmp = TextUtils.compareTo(caseSensitive, midVal, 0, midVal.length(), text, offset, len);
 
@@ -1008,10 +1016,15 @@ private static int binarySearch(
         }
 
 
-        private static int binarySearch(final boolean caseSensitive, final List<String> values, final String text) {
+        private static int binarySearch(final boolean caseSensitive, final String[] values, final String text) {
+            return binarySearch(caseSensitive, values, values.length, text);
+        }
+
+
+        private static int binarySearch(final boolean caseSensitive, final String[] values, final int size, final String text) {
 
             int low = 0;
-            int high = values.size() - 1;
+            int high = size - 1;
 
             int mid, cmp;
             String midVal;
@@ -1019,7 +1032,7 @@ private static int binarySearch(final boolean caseSensitive, final List<String>
             while (low <= high) {
 
                 mid = (low + high) >>> 1;
-                midVal = values.get(mid);
+                midVal = values[mid];
 
                 cmp = TextUtils.compareTo(caseSensitive, midVal, text);
 
@@ -1040,7 +1053,7 @@ private static int binarySearch(final boolean caseSensitive, final List<String>
 
 
         private static int binarySearch(final boolean caseSensitive,
-                                        final List<String> values, final String prefix, final String elementName) {
+                                        final String[] values, final String prefix, final String elementName) {
 
             // This method will be specialized in finding prefixed element names (in the prefix:name form)
 
@@ -1052,7 +1065,7 @@ private static int binarySearch(final boolean caseSensitive,
             final int elementNameLen = elementName.length();
 
             int low = 0;
-            int high = values.size() - 1;
+            int high = values.length - 1;
 
             int mid, cmp;
             String midVal;
@@ -1061,7 +1074,7 @@ private static int binarySearch(final boolean caseSensitive,
             while (low <= high) {
 
                 mid = (low + high) >>> 1;
-                midVal = values.get(mid);
+                midVal = values[mid];
                 midValLen = midVal.length();
 
                 if (TextUtils.startsWith(caseSensitive, midVal, prefix)) {
@@ -1125,6 +1138,58 @@ private static int binarySearch(final boolean caseSensitive,
         }
 
 
+        /*
+         * Immutable contents of the repository: names are kept sorted so that binary search can be applied on
+         * them, and each position in the elementDefinitions array corresponds to the same position in names. Note
+         * an ElementDefinition will appear once for each of the complete names of its element.
+         */
+        private static final class Snapshot {
+
+            static final Snapshot EMPTY = new Snapshot(new String[0], new ElementDefinition[0]);
+
+            final String[] names;
+            final ElementDefinition[] elementDefinitions;
+
+            Snapshot(final String[] names, final ElementDefinition[] elementDefinitions) {
+                super();
+                this.names = names;
+                this.elementDefinitions = elementDefinitions;
+            }
+
+            Snapshot add(final boolean caseSensitive, final ElementDefinition elementDefinition) {
+
+                final String[] completeElementNames = elementDefinition.elementName.completeElementNames;
+
+                final int newSize = this.names.length + completeElementNames.length;
+                final String[] newNames = new String[newSize];
+                final ElementDefinition[] newElementDefinitions = new ElementDefinition[newSize];
+
+                System.arraycopy(this.names, 0, newNames, 0, this.names.length);
+                System.arraycopy(this.elementDefinitions, 0, newElementDefinitions, 0, this.elementDefinitions.length);
+
+                int size = this.names.length;
+                int index, insertionPoint;
+                for (final String completeElementName : completeElementNames) {
+
+                    index = binarySearch(caseSensitive, newNames, size, completeElementName);
+
+                    // binary Search returned (-(insertion point) - 1)
+                    insertionPoint = ((index + 1) * -1);
+                    System.arraycopy(newNames, insertionPoint, newNames, insertionPoint + 1, size - insertionPoint);
+                    System.arraycopy(newElementDefinitions, insertionPoint, newElementDefinitions, insertionPoint + 1, size - insertionPoint);
+                    newNames[insertionPoint] = completeElementName;
+                    newElementDefinitions[insertionPoint] = elementDefinition;
+                    size++;
+
+                }
+
+                return new Snapshot(newNames, newElementDefinitions);
+
+            }
+
+        }
+
+
     }
 
 
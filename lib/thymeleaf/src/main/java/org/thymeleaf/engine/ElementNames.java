@@ -19,12 +19,6 @@
  */
 package org.thymeleaf.engine;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-
 import org.thymeleaf.templatemode.TemplateMode;
 import org.thymeleaf.util.TextUtils;
 
@@ -42,6 +36,18 @@ public class ElementNames {
     private static final ElementNamesRepository xmlElementNamesRepository = new ElementNamesRepository(TemplateMode.XML);
     private static final ElementNamesRepository textElementNamesRepository = new ElementNamesRepository(TemplateMode.TEXT);
 
+    /**
+     * <p>
+     *   Default maximum size of the repositories of <em>ad-hoc</em> element names: {@value} (no limit,
+     *   repositories are unbounded).
+     * </p>
+     *
+     * @since 3.1.2
+     */
+    public static final int DEFAULT_AD_HOC_NAMES_MAX_SIZE = -1;
+
+    private static volatile int adHocNamesMaxSize = DEFAULT_AD_HOC_NAMES_MAX_SIZE;
+
 
 
 
@@ -493,6 +499,119 @@ public static HTMLElementName forHTMLName(final String prefix, final String elem
 
 
     
+    /**
+     * <p>
+     *   Returns the maximum amount of <em>ad-hoc</em> element names that will be kept in each name repository
+     *   (one per template mode), or {@code -1} if repositories are unbounded.
+     * </p>
+     *
+     * @return the maximum size of the ad-hoc part of each repository, or -1 if unbounded.
+     * @since 3.1.2
+     */
+    public static int getAdHocNamesMaxSize() {
+        return adHocNamesMaxSize;
+    }
+
+
+    /**
+     * <p>
+     *   Sets the maximum amount of <em>ad-hoc</em> element names that will be kept in each name repository
+     *   (one per template mode). Setting a value greater than zero enables <em>bounded mode</em>.
+     * </p>
+     * <p>
+     *   In bounded mode, the names of standard elements and those matched by the processors configured in
+     *   template engines are <em>pinned</em> and will never leave the repository. Any other names, whether found
+     *   by the parsers in the contents of templates or obtained by specifying them as a {@code String} (e.g.
+     *   element names computed during template execution), are considered <em>ad-hoc</em>, and will be stored in a
+     *   size-limited structure from which they can be evicted. This avoids the unlimited growth of the
+     *   repositories when processing lots of different (e.g. user-provided) contents.
+     * </p>
+     * <p>
+     *   Note that in bounded mode different instances of {@link ElementName} might be created for the same
+     *   ad-hoc name during the life of the application, so these should be compared by means of
+     *   {@link ElementName#equals(Object)}. Also note this setting is global to all the template engine
+     *   instances in the application, and that its value also applies to the element definitions of each
+     *   engine ({@link ElementDefinitions}).
+     * </p>
+     *
+     * @param maxSize the maximum size of the ad-hoc part of each repository, or -1 for no limit.
+     * @since 3.1.2
+     */
+    public static void setAdHocNamesMaxSize(final int maxSize) {
+        if (maxSize != -1 && maxSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be either -1 (no limit) or greater than zero");
+        }
+        adHocNamesMaxSize = maxSize;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the amount of <em>pinned</em> complete element names currently stored in the name repositories
+     *   (adding up all template modes). If repositories are unbounded, all names are considered pinned.
+     * </p>
+     *
+     * @return the amount of pinned complete names.
+     * @since 3.1.2
+     */
+    public static int getPinnedNamesSize() {
+        return htmlElementNamesRepository.pinnedSize() +
+                xmlElementNamesRepository.pinnedSize() +
+                textElementNamesRepository.pinnedSize();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the amount of <em>ad-hoc</em> complete element names currently stored in the name repositories
+     *   (adding up all template modes). Will be zero if repositories are unbounded.
+     * </p>
+     *
+     * @return the amount of ad-hoc complete names.
+     * @since 3.1.2
+     */
+    public static int getAdHocNamesSize() {
+        return htmlElementNamesRepository.adHocSize() +
+                xmlElementNamesRepository.adHocSize() +
+                textElementNamesRepository.adHocSize();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the amount of <em>ad-hoc</em> complete element names that have been evicted from the
+     *   name repositories (adding up all template modes) since bounded mode was last configured.
+     * </p>
+     *
+     * @return the amount of evicted ad-hoc complete names.
+     * @since 3.1.2
+     */
+    public static long getAdHocNamesEvictionCount() {
+        return htmlElementNamesRepository.adHocEvictionCount() +
+                xmlElementNamesRepository.adHocEvictionCount() +
+                textElementNamesRepository.adHocEvictionCount();
+    }
+
+
+
+
+    /*
+     * Pins a name, so that it will never be evicted from its repository when working in bounded mode. Used by the
+     * engine for the names of standard elements and of those matched by the configured processors.
+     */
+    static void pin(final ElementName elementName) {
+        if (elementName instanceof HTMLElementName) {
+            htmlElementNamesRepository.pinElement(elementName);
+        } else if (elementName instanceof XMLElementName) {
+            xmlElementNamesRepository.pinElement(elementName);
+        } else { // elementName instanceof TextElementName
+            textElementNamesRepository.pinElement(elementName);
+        }
+    }
+
+
+
+
     private ElementNames() {
         super();
     }
@@ -505,18 +624,25 @@ private ElementNames() {
     /*
      * This repository class is thread-safe, as it will contain new instances of ElementName created during
      * processing (created when asking the repository for them when they do not exist yet). As any thread can
-     * create a new element, this has to be lock-protected.
+     * create a new element, writes have to be synchronized.
+     *
+     * Reads, on the other side, are lock-free: the contents of the repository are kept in an immutable snapshot
+     * (sorted arrays) that is replaced as a whole (copy-on-write) each time a new element is stored. Given the
+     * number of different element names used in an application is normally very low and stabilizes quickly,
+     * writes will be very rare and readers (i.e. the parsers, for every element in every template) will never
+     * have to wait for any other thread.
+     *
+     * When working in bounded mode (see setAdHocNamesMaxSize()), names that are not in the snapshot (i.e. not
+     * pinned) are not added to it, but kept in a bounded structure instead. Only the engine pins names, by means
+     * of pin().
      */
     static final class ElementNamesRepository {
 
         private final TemplateMode templateMode;
 
-        private final List<String> repositoryNames;  // read-write, sync will be needed
-        private final List<ElementName> repository;  // read-write, sync will be needed
+        private volatile Snapshot snapshot; // immutable, replaced as a whole (copy-on-write) on each store
 
-        private final ReadWriteLock lock = new ReentrantReadWriteLock(true);
-        private final Lock readLock = this.lock.readLock();
-        private final Lock writeLock = this.lock.writeLock();
+        private volatile BoundedNameCache<ElementName> adHocNames; // only used in bounded mode
 
 
         ElementNamesRepository(final TemplateMode templateMode) {
@@ -525,41 +651,42 @@ static final class ElementNamesRepository {
 
             this.templateMode = templateMode;
 
-            this.repositoryNames = new ArrayList<String>(500);
-            this.repository = new ArrayList<ElementName>(500);
+            this.snapshot = Snapshot.EMPTY;
 
         }
 
 
         ElementName getElement(final char[] text, final int offset, final int len) {
 
-            int index;
-
-            this.readLock.lock();
-            try {
+            /*
+             * First look for the element in the current snapshot, which needs no synchronization
+             */
+            final Snapshot current = this.snapshot;
+            final int index = binarySearch(this.templateMode.isCaseSensitive(), current.names, text, offset, len);
 
-                /*
-                 * First look for the element in the namespaced repository
-                 */
-                index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, text, offset, len);
+            if (index >= 0) {
+                return current.elementNames[index];
+            }
 
-                if (index >= 0) {
-                    return this.repository.get(index);
+            /*
+             * NOT FOUND. If working in bounded mode this is an ad-hoc name, which will not be added to the
+             * snapshot but to a bounded (and evictable) structure instead.
+             */
+            final BoundedNameCache<ElementName> adHocNames = adHocNames();
+            if (adHocNames != null) {
+                ElementName name = adHocNames.get(text, offset, len);
+                if (name == null) {
+                    name = buildElement(text, offset, len);
+                    adHocNames.put(name.completeElementNames, name);
                 }
-
-            } finally {
-                this.readLock.unlock();
+                return name;
             }
 
-
             /*
-             * NOT FOUND. We need to obtain a write lock and store the text
+             * Not in bounded mode. We need to synchronize and store the text
              */
-            this.writeLock.lock();
-            try {
+            synchronized (this) {
                 return storeElement(text, offset, len);
-            } finally {
-                this.writeLock.unlock();
             }
 
         }
@@ -567,33 +694,35 @@ ElementName getElement(final char[] text, final int offset, final int len) {
 
         ElementName getElement(final String completeElementName) {
 
-            int index;
-
-            this.readLock.lock();
-            try {
+            /*
+             * First look for the element in the current snapshot, which needs no synchronization
+             */
+            final Snapshot current = this.snapshot;
+            final int index = binarySearch(this.templateMode.isCaseSensitive(), current.names, completeElementName);
 
-                /*
-                 * First look for the element in the namespaced repository
-                 */
-                index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, completeElementName);
+            if (index >= 0) {
+                return current.elementNames[index];
+            }
 
-                if (index >= 0) {
-                    return this.repository.get(index);
+            /*
+             * NOT FOUND. If working in bounded mode this is an ad-hoc name (e.g. computed during template execution),
+             * which will be kept in the same bounded structure as the ad-hoc names found by the parsers.
+             */
+            final BoundedNameCache<ElementName> adHocNames = adHocNames();
+            if (adHocNames != null) {
+                ElementName name = adHocNames.get(completeElementName);
+                if (name == null) {
+                    name = buildElement(completeElementName);
+                    adHocNames.put(name.completeElementNames, name);
                 }
-
-            } finally {
-                this.readLock.unlock();
+                return name;
             }
 
-
             /*
-             * NOT FOUND. We need to obtain a write lock and store the text
+             * Not in bounded mode. We need to synchronize and store the text
              */
-            this.writeLock.lock();
-            try {
+            synchronized (this) {
                 return storeElement(completeElementName);
-            } finally {
-                this.writeLock.unlock();
             }
 
         }
@@ -601,145 +730,204 @@ ElementName getElement(final String completeElementName) {
 
         ElementName getElement(final String prefix, final String elementName) {
 
-            int index;
-
-            this.readLock.lock();
-            try {
+            /*
+             * First look for the element in the current snapshot, which needs no synchronization
+             */
+            final Snapshot current = this.snapshot;
+            final int index = binarySearch(this.templateMode.isCaseSensitive(), current.names, prefix, elementName);
 
-                /*
-                 * First look for the element in the namespaced repository
-                 */
-                index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, prefix, elementName);
+            if (index >= 0) {
+                return current.elementNames[index];
+            }
 
-                if (index >= 0) {
-                    return this.repository.get(index);
+            /*
+             * NOT FOUND. If working in bounded mode this is an ad-hoc name (e.g. computed during template execution),
+             * which will be kept in the same bounded structure as the ad-hoc names found by the parsers.
+             */
+            final BoundedNameCache<ElementName> adHocNames = adHocNames();
+            if (adHocNames != null) {
+                ElementName name = adHocNames.get(prefix, elementName);
+                if (name == null) {
+                    name = buildElement(prefix, elementName);
+                    adHocNames.put(name.completeElementNames, name);
                 }
-
-            } finally {
-                this.readLock.unlock();
+                return name;
             }
 
-
             /*
-             * NOT FOUND. We need to obtain a write lock and store the text
+             * Not in bounded mode. We need to synchronize and store the text
              */
-            this.writeLock.lock();
-            try {
+            synchronized (this) {
                 return storeElement(prefix, elementName);
-            } finally {
-                this.writeLock.unlock();
             }
 
         }
 
 
-        private ElementName storeElement(final char[] text, final int offset, final int len) {
+        void pinElement(final ElementName elementName) {
 
-            int index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, text, offset, len);
-            if (index >= 0) {
-                // It was already added while we were waiting for the lock!
-                return this.repository.get(index);
-            }
+            synchronized (this) {
+
+                final Snapshot current = this.snapshot;
+                final int index =
+                        binarySearch(this.templateMode.isCaseSensitive(), current.names, elementName.completeElementNames[0]);
+                if (index >= 0) {
+                    // Already pinned (or not working in bounded mode)
+                    return;
+                }
+
+                this.snapshot = current.add(this.templateMode.isCaseSensitive(), elementName);
 
-            final ElementName name;
-            if (this.templateMode == TemplateMode.HTML) {
-                name = buildHTMLElementName(text, offset, len);
-            } else if (this.templateMode == TemplateMode.XML) {
-                name = buildXMLElementName(text, offset, len);
-            } else { // this.templateMode.isText()
-                name = buildTextElementName(text, offset, len);
             }
 
-            final String[] completeElementNames = name.completeElementNames;
+        }
 
-            for (final String completeElementName : completeElementNames) {
 
-                index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, completeElementName);
+        int pinnedSize() {
+            return this.snapshot.names.length;
+        }
 
-                // binary Search returned (-(insertion point) - 1)
-                this.repositoryNames.add(((index + 1) * -1), completeElementName);
-                this.repository.add(((index + 1) * -1), name);
 
-            }
+        int adHocSize() {
+            final BoundedNameCache<ElementName> adHocNames = this.adHocNames;
+            return (adHocNames == null? 0 : adHocNames.size());
+        }
 
-            return name;
 
+        long adHocEvictionCount() {
+            final BoundedNameCache<ElementName> adHocNames = this.adHocNames;
+            return (adHocNames == null? 0L : adHocNames.getEvictionCount());
         }
 
 
-        private ElementName storeElement(final String elementName) {
+        private BoundedNameCache<ElementName> adHocNames() {
 
-            int index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, elementName);
-            if (index >= 0) {
-                // It was already added while we were waiting for the lock!
-                return this.repository.get(index);
+            final int maxSize = adHocNamesMaxSize;
+            if (maxSize <= 0) {
+                return null;
+            }
+
+            final BoundedNameCache<ElementName> current = this.adHocNames;
+            if (current != null && current.getRequestedMaxSize() == maxSize) {
+                return current;
+            }
+
+            // Bounded mode has just been enabled or reconfigured
+            synchronized (this) {
+                if (this.adHocNames == null || this.adHocNames.getRequestedMaxSize() != maxSize) {
+                    this.adHocNames = new BoundedNameCache<ElementName>(this.templateMode.isCaseSensitive(), maxSize);
+                }
+                return this.adHocNames;
+            }
+
+        }
+
+
+        private ElementName buildElement(final char[] text, final int offset, final int len) {
+            if (this.templateMode == TemplateMode.HTML) {
+                return buildHTMLElementName(text, offset, len);
+            }
+            if (this.templateMode == TemplateMode.XML) {
+                return buildXMLElementName(text, offset, len);
             }
+            // this.templateMode.isText()
+            return buildTextElementName(text, offset, len);
+        }
+
 
-            final ElementName name;
+        private ElementName buildElement(final String completeElementName) {
             if (this.templateMode == TemplateMode.HTML) {
-                name = buildHTMLElementName(elementName);
-            } else if (this.templateMode == TemplateMode.XML) {
-                name = buildXMLElementName(elementName);
-            } else { // this.templateMode.isText()
-                name = buildTextElementName(elementName);
+                return buildHTMLElementName(completeElementName);
             }
+            if (this.templateMode == TemplateMode.XML) {
+                return buildXMLElementName(completeElementName);
+            }
+            // this.templateMode.isText()
+            return buildTextElementName(completeElementName);
+        }
 
-            final String[] completeElementNames = name.completeElementNames;
 
-            for (final String completeElementName : completeElementNames) {
+        private ElementName buildElement(final String prefix, final String elementName) {
+            if (this.templateMode == TemplateMode.HTML) {
+                return buildHTMLElementName(prefix, elementName);
+            }
+            if (this.templateMode == TemplateMode.XML) {
+                return buildXMLElementName(prefix, elementName);
+            }
+            // this.templateMode.isText()
+            return buildTextElementName(prefix, elementName);
+        }
 
-                index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, completeElementName);
 
-                // binary Search returned (-(insertion point) - 1)
-                this.repositoryNames.add(((index + 1) * -1), completeElementName);
-                this.repository.add(((index + 1) * -1), name);
+        private ElementName storeElement(final char[] text, final int offset, final int len) {
 
+            final Snapshot current = this.snapshot;
+            final int index = binarySearch(this.templateMode.isCaseSensitive(), current.names, text, offset, len);
+            if (index >= 0) {
+                // It was already added while we were waiting for the lock!
+                return current.elementNames[index];
             }
 
+            final ElementName name = buildElement(text, offset, len);
+
+            this.snapshot = current.add(this.templateMode.isCaseSensitive(), name);
+
             return name;
 
         }
 
 
-        private ElementName storeElement(final String prefix, final String elementName) {
+        private ElementName storeElement(final String elementName) {
 
-            int index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, prefix, elementName);
+            final Snapshot current = this.snapshot;
+            final int index = binarySearch(this.templateMode.isCaseSensitive(), current.names, elementName);
             if (index >= 0) {
                 // It was already added while we were waiting for the lock!
-                return this.repository.get(index);
+                return current.elementNames[index];
             }
 
-            final ElementName name;
-            if (this.templateMode == TemplateMode.HTML) {
-                name = buildHTMLElementName(prefix, elementName);
-            } else if (this.templateMode == TemplateMode.XML) {
-                name = buildXMLElementName(prefix, elementName);
-            } else { // this.templateMode.isText()
-                name = buildTextElementName(prefix, elementName);
+            // If the name was being used as an ad-hoc name, we will pin that same instance
+            final BoundedNameCache<ElementName> adHocNames = this.adHocNames;
+            ElementName name = (adHocNames != null? adHocNames.get(elementName) : null);
+            if (name == null) {
+                name = buildElement(elementName);
             }
 
-            final String[] completeElementNames = name.completeElementNames;
+            this.snapshot = current.add(this.templateMode.isCaseSensitive(), name);
 
-            for (final String completeElementName : completeElementNames) {
+            return name;
 
-                index = binarySearch(this.templateMode.isCaseSensitive(), this.repositoryNames, completeElementName);
+        }
 
-                // binary Search returned (-(insertion point) - 1)
-                this.repositoryNames.add(((index + 1) * -1), completeElementName);
-                this.repository.add(((index + 1) * -1), name);
 
+        private ElementName storeElement(final String prefix, final String elementName) {
+
+            final Snapshot current = this.snapshot;
+            final int index = binarySearch(this.templateMode.isCaseSensitive(), current.names, prefix, elementName);
+            if (index >= 0) {
+                // It was already added while we were waiting for the lock!
+                return current.elementNames[index];
+            }
+
+            // If the name was being used as an ad-hoc name, we will pin that same instance
+            final BoundedNameCache<ElementName> adHocNames = this.adHocNames;
+            ElementName name = (adHocNames != null? adHocNames.get(prefix, elementName) : null);
+            if (name == null) {
+                name = buildElement(prefix, elementName);
             }
 
+            this.snapshot = current.add(this.templateMode.isCaseSensitive(), name);
+
             return name;
 
         }
 
 
         private static int binarySearch(
-                final boolean caseSensitive, final List<String> values, final char[] text, final int offset, final int len) {
+                final boolean caseSensitive, final String[] values, final char[] text, final int offset, final int len) {
 
             int low = 0;
-            int high = values.size() - 1;
+            int high = values.length - 1;
 
             int mid, cmp;
             String midVal;
@@ -747,7 +935,7 @@ private static int binarySearch(
             while (low <= high) {
 
                 mid = (low + high) >>> 1;
-                midVal = values.get(mid);
+                midVal = values[mid];
 
                 cmp = TextUtils.compareTo(caseSensitive, midVal, 0, midVal.length(), text, offset, len);
 
@@ -767,10 +955,15 @@ private static int binarySearch(
         }
 
 
-        private static int binarySearch(final boolean caseSensitive, final List<String> values, final String text) {
+        private static int binarySearch(final boolean caseSensitive, final String[] values, final String text) {
+            return binarySearch(caseSensitive, values, values.length, text);
+        }
+
+
+        private static int binarySearch(final boolean caseSensitive, final String[] values, final int size, final String text) {
 
             int low = 0;
-            int high = values.size() - 1;
+            int high = size - 1;
 
             int mid, cmp;
             String midVal;
@@ -778,7 +971,7 @@ private static int binarySearch(final boolean caseSensitive, final List<String>
             while (low <= high) {
 
                 mid = (low + high) >>> 1;
-                midVal = values.get(mid);
+                midVal = values[mid];
 
                 cmp = TextUtils.compareTo(caseSensitive, midVal, text);
 
@@ -799,7 +992,7 @@ private static int binarySearch(final boolean caseSensitive, final List<String>
 
 
         private static int binarySearch(final boolean caseSensitive,
-                                        final List<String> values, final String prefix, final String elementName) {
+                                        final String[] values, final String prefix, final String elementName) {
 
             // This method will be specialized in finding prefixed element names (in the prefix:name form)
 
@@ -811,7 +1004,7 @@ private static int binarySearch(final boolean caseSensitive,
             final int elementNameLen = elementName.length();
 
             int low = 0;
-            int high = values.size() - 1;
+            int high = values.length - 1;
 
             int mid, cmp;
             String midVal;
@@ -820,7 +1013,7 @@ private static int binarySearch(final boolean caseSensitive,
             while (low <= high) {
 
                 mid = (low + high) >>> 1;
-                midVal = values.get(mid);
+                midVal = values[mid];
                 midValLen = midVal.length();
 
                 if (TextUtils.startsWith(caseSensitive, midVal, prefix)) {
@@ -884,6 +1077,58 @@ private static int binarySearch(final boolean caseSensitive,
         }
 
 
+        /*
+         * Immutable contents of the repository: names are kept sorted so that binary search can be applied on
+         * them, and each position in the elementNames array corresponds to the same position in names. Note
+         * an ElementName will appear once for each of its complete names.
+         */
+        private static final class Snapshot {
+
+            static final Snapshot EMPTY = new Snapshot(new String[0], new ElementName[0]);
+
+            final String[] names;
+            final ElementName[] elementNames;
+
+            Snapshot(final String[] names, final ElementName[] elementNames) {
+                super();
+                this.names = names;
+                this.elementNames = elementNames;
+            }
+
+            Snapshot add(final boolean caseSensitive, final ElementName elementName) {
+
+                final String[] completeElementNames = elementName.completeElementNames;
+
+                final int newSize = this.names.length + completeElementNames.length;
+                final String[] newNames = new String[newSize];
+                final ElementName[] newElementNames = new ElementName[newSize];
+
+                System.arraycopy(this.names, 0, newNames, 0, this.names.length);
+                System.arraycopy(this.elementNames, 0, newElementNames, 0, this.elementNames.length);
+
+                int size = this.names.length;
+                int index, insertionPoint;
+                for (final String completeElementName : completeElementNames) {
+
+                    index = binarySearch(caseSensitive, newNames, size, completeElementName);
+
+                    // binary Search returned (-(insertion point) - 1)
+                    insertionPoint = ((index + 1) * -1);
+                    System.arraycopy(newNames, insertionPoint, newNames, insertionPoint + 1, size - insertionPoint);
+                    System.arraycopy(newElementNames, insertionPoint, newElementNames, insertionPoint + 1, size - insertionPoint);
+                    newNames[insertionPoint] = completeElementName;
+                    newElementNames[insertionPoint] = elementName;
+                    size++;
+
+                }
+
+                return new Snapshot(newNames, newElementNames);
+
+            }
+
+        }
+
+
     }
 
 
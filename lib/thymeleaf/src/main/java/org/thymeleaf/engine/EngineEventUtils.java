@@ -19,12 +19,20 @@
  */
 package org.thymeleaf.engine;
 
+import org.thymeleaf.IEngineConfiguration;
 import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.model.IAttribute;
 import org.thymeleaf.model.ICDATASection;
 import org.thymeleaf.model.IComment;
 import org.thymeleaf.model.IProcessableElementTag;
 import org.thymeleaf.model.IText;
+import org.thymeleaf.standard.expression.AssignationSequence;
+import org.thymeleaf.standard.expression.AssignationUtils;
+import org.thymeleaf.standard.expression.Each;
+import org.thymeleaf.standard.expression.EachUtils;
 import org.thymeleaf.standard.expression.FragmentExpression;
+import org.thymeleaf.standard.expression.FragmentSignature;
+import org.thymeleaf.standard.expression.FragmentSignatureUtils;
 import org.thymeleaf.standard.expression.IStandardExpression;
 import org.thymeleaf.standard.expression.IStandardExpressionParser;
 import org.thymeleaf.standard.expression.StandardExpressions;
@@ -192,22 +200,20 @@ private static boolean computeInlineable(final CharSequence text) {
     public static IStandardExpression computeAttributeExpression(
             final ITemplateContext context, final IProcessableElementTag tag, final AttributeName attributeName, final String attributeValue) {
 
-        if (!(tag instanceof AbstractProcessableElementTag)) {
+        final Attribute attribute = computeCacheableAttribute(tag, attributeName);
+        if (attribute == null) {
             return parseAttributeExpression(context, attributeValue);
         }
 
-        final AbstractProcessableElementTag processableElementTag = (AbstractProcessableElementTag)tag;
-        final Attribute attribute = (Attribute) processableElementTag.getAttribute(attributeName);
-
-        IStandardExpression expression = attribute.getCachedStandardExpression();
-        if (expression != null) {
-            return expression;
+        final Object parsedValue = attribute.getCachedParsedValue();
+        if (parsedValue instanceof IStandardExpression) {
+            return (IStandardExpression) parsedValue;
         }
 
-        expression = parseAttributeExpression(context, attributeValue);
-        // If the expression has been correctly parsed AND it does not contain preprocessing marks (_), nor it is a FragmentExpression, cache it!
-        if (expression != null && !(expression instanceof FragmentExpression) && attributeValue.indexOf('_') < 0) {
-            attribute.setCachedStandardExpression(expression);
+        final IStandardExpression expression = parseAttributeExpression(context, attributeValue);
+        // If the expression has been correctly parsed AND it does not contain preprocessing marks (__), nor it is a FragmentExpression, cache it!
+        if (expression != null && !(expression instanceof FragmentExpression) && !hasPreprocessingMarks(attributeValue)) {
+            attribute.setCachedParsedValue(expression);
         }
 
         return expression;
@@ -215,6 +221,107 @@ public static IStandardExpression computeAttributeExpression(
     }
 
 
+    /*
+     * Equivalent to computeAttributeExpression(...), but for attributes containing iteration specs (th:each)
+     */
+    public static Each computeAttributeEach(
+            final ITemplateContext context, final IProcessableElementTag tag, final AttributeName attributeName, final String attributeValue) {
+
+        final Attribute attribute = computeCacheableAttribute(tag, attributeName);
+        if (attribute == null) {
+            return EachUtils.parseEach(context, attributeValue);
+        }
+
+        final Object parsedValue = attribute.getCachedParsedValue();
+        if (parsedValue instanceof Each) {
+            return (Each) parsedValue;
+        }
+
+        final Each each = EachUtils.parseEach(context, attributeValue);
+        if (each != null && !hasPreprocessingMarks(attributeValue)) {
+            attribute.setCachedParsedValue(each);
+        }
+
+        return each;
+
+    }
+
+
+    /*
+     * Equivalent to computeAttributeExpression(...), but for attributes containing assignation sequences (th:with,
+     * th:attr...). Note the same attribute will always be processed by the same processor, so the value of
+     * allowParametersWithoutValue will not change for an already cached assignation sequence.
+     */
+    public static AssignationSequence computeAttributeAssignationSequence(
+            final ITemplateContext context, final IProcessableElementTag tag, final AttributeName attributeName, final String attributeValue,
+            final boolean allowParametersWithoutValue) {
+
+        final Attribute attribute = computeCacheableAttribute(tag, attributeName);
+        if (attribute == null) {
+            return AssignationUtils.parseAssignationSequence(context, attributeValue, allowParametersWithoutValue);
+        }
+
+        final Object parsedValue = attribute.getCachedParsedValue();
+        if (parsedValue instanceof AssignationSequence) {
+            return (AssignationSequence) parsedValue;
+        }
+
+        final AssignationSequence assignations =
+                AssignationUtils.parseAssignationSequence(context, attributeValue, allowParametersWithoutValue);
+        if (assignations != null && !hasPreprocessingMarks(attributeValue)) {
+            attribute.setCachedParsedValue(assignations);
+        }
+
+        return assignations;
+
+    }
+
+
+    /*
+     * Equivalent to computeAttributeExpression(...), but for attributes containing fragment signatures (th:fragment).
+     * Fragment signatures are never preprocessed, so they can always be cached.
+     */
+    public static FragmentSignature computeAttributeFragmentSignature(
+            final IEngineConfiguration configuration, final IProcessableElementTag tag, final AttributeName attributeName, final String attributeValue) {
+
+        final Attribute attribute = computeCacheableAttribute(tag, attributeName);
+        if (attribute == null) {
+            return FragmentSignatureUtils.parseFragmentSignature(configuration, attributeValue);
+        }
+
+        final Object parsedValue = attribute.getCachedParsedValue();
+        if (parsedValue instanceof FragmentSignature) {
+            return (FragmentSignature) parsedValue;
+        }
+
+        final FragmentSignature fragmentSignature = FragmentSignatureUtils.parseFragmentSignature(configuration, attributeValue);
+        if (fragmentSignature != null) {
+            attribute.setCachedParsedValue(fragmentSignature);
+        }
+
+        return fragmentSignature;
+
+    }
+
+
+    private static Attribute computeCacheableAttribute(final IProcessableElementTag tag, final AttributeName attributeName) {
+        if (!(tag instanceof AbstractProcessableElementTag)) {
+            return null;
+        }
+        final IAttribute attribute = ((AbstractProcessableElementTag)tag).getAttribute(attributeName);
+        return (attribute instanceof Attribute? (Attribute) attribute : null);
+    }
+
+
+    /*
+     * Preprocessing can only happen if there is a "__...__" structure in the attribute value. If there is not,
+     * the result of parsing the value will not depend on the context, and can therefore be cached.
+     */
+    private static boolean hasPreprocessingMarks(final String attributeValue) {
+        return attributeValue.indexOf("__") >= 0;
+    }
+
+
     private static IStandardExpression parseAttributeExpression(final ITemplateContext context, final String attributeValue) {
         final IStandardExpressionParser expressionParser = StandardExpressions.getExpressionParser(context.getConfiguration());
         return expressionParser.parseExpression(context, attributeValue);
@@ -0,0 +1,85 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.engine;
+
+import java.util.concurrent.CountDownLatch;
+
+/*
+ * Represents the parsing of a template (identified by its TemplateCacheKey) that is currently being performed by
+ * some thread. Other threads needing the same template while this parsing is in progress can wait for it and
+ * reuse its result instead of parsing the template again themselves.
+ *
+ * Instances are owned by the thread that creates them, which is the one in charge of the parsing.
+ *
+ * The result will be null if the parsing thread could not produce a cacheable model (e.g. the template was not
+ * cacheable, did not exist or parsing failed). In such case waiting threads are expected to go on and parse the
+ * template on their own, so that they get the exact same outcome they would have got without waiting.
+ *
+ * @author Daniel Fernandez
+ * @since 3.1.2
+ *
+ */
+final class InFlightTemplateParse {
+
+    private final Thread owner;
+    private final CountDownLatch latch;
+    private volatile TemplateModel templateModel;
+
+
+
+    InFlightTemplateParse() {
+        super();
+        this.owner = Thread.currentThread();
+        this.latch = new CountDownLatch(1);
+        this.templateModel = null;
+    }
+
+
+
+    boolean isOwnedByCurrentThread() {
+        return this.owner == Thread.currentThread();
+    }
+
+
+    /*
+     * Can be called more than once (only the first call has any effect), which allows the parsing thread to
+     * publish the result as soon as it is available and then also call this at a "finally" block.
+     */
+    void finish(final TemplateModel templateModel) {
+        if (this.latch.getCount() > 0L) {
+            this.templateModel = templateModel;
+            this.latch.countDown();
+        }
+    }
+
+
+    TemplateModel waitForModel() {
+        try {
+            this.latch.await();
+        } catch (final InterruptedException e) {
+            // We will not wait anymore, but we should not swallow the interruption either
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        return this.templateModel;
+    }
+
+
+}
@@ -30,6 +30,7 @@
 import org.thymeleaf.context.ITemplateContext;
 import org.thymeleaf.engine.TemplateModelController.SkipBody;
 import org.thymeleaf.exceptions.TemplateProcessingException;
+import org.thymeleaf.instrumentation.ProcessorProfiler;
 import org.thymeleaf.model.ICDATASection;
 import org.thymeleaf.model.ICloseElementTag;
 import org.thymeleaf.model.IComment;
@@ -115,6 +116,10 @@ public final class ProcessorTemplateHandler implements ITemplateHandler {
     private IEngineContext engineContext = null;
     private TemplateFlowController flowController = null; // optional, only if the template should be throttled
 
+    // Will only be non-null if processor profiling has been enabled at the engine configuration. All processor
+    // executions check this before taking any measurements, so that profiling has no cost when disabled.
+    private ProcessorProfiler processorProfiler = null;
+
 
     // These arrays will be initialized with all the registered processors for the different kind of non-element
     // processors. This is done so because non-element processors will not change during the execution of the engine
@@ -213,6 +218,8 @@ public void setContext(final ITemplateContext context) {
 
         this.templateMode = this.context.getTemplateMode(); // Just a way to avoid doing the call each time
 
+        this.processorProfiler = this.configuration.getProcessorProfiler();
+
         if (this.context instanceof IEngineContext) {
             this.engineContext = (IEngineContext) this.context;
         } else {
@@ -325,7 +332,11 @@ public void handleTemplateStart(final ITemplateStart itemplateStart) {
 
             structureHandler.reset();
 
+            final long profilingStartNanos = (this.processorProfiler != null? System.nanoTime() : 0L);
             this.templateBoundariesProcessors[i].processTemplateStart(this.context, itemplateStart, structureHandler);
+            if (this.processorProfiler != null) {
+                this.processorProfiler.processorExecuted(this.templateBoundariesProcessors[i], itemplateStart, System.nanoTime() - profilingStartNanos);
+            }
 
             if (this.engineContext != null) {
                 structureHandler.applyContextModifications(this.engineContext);
@@ -412,7 +423,11 @@ public void handleTemplateEnd(final ITemplateEnd itemplateEnd) {
 
             structureHandler.reset();
 
+            final long profilingStartNanos = (this.processorProfiler != null? System.nanoTime() : 0L);
             this.templateBoundariesProcessors[i].processTemplateEnd(this.context, itemplateEnd, structureHandler);
+            if (this.processorProfiler != null) {
+                this.processorProfiler.processorExecuted(this.templateBoundariesProcessors[i], itemplateEnd, System.nanoTime() - profilingStartNanos);
+            }
 
             if (this.engineContext != null) {
                 structureHandler.applyContextModifications(this.engineContext);
@@ -557,7 +572,11 @@ public void handleText(final IText itext) {
 
             structureHandler.reset();
 
+            final long profilingStartNanos = (this.processorProfiler != null? System.nanoTime() : 0L);
             this.textProcessors[i].process(this.context, text, structureHandler);
+            if (this.processorProfiler != null) {
+                this.processorProfiler.processorExecuted(this.textProcessors[i], itext, System.nanoTime() - profilingStartNanos);
+            }
 
             if (structureHandler.setText) {
 
@@ -662,7 +681,11 @@ public void handleComment(final IComment icomment) {
 
             structureHandler.reset();
 
+            final long profilingStartNanos = (this.processorProfiler != null? System.nanoTime() : 0L);
             this.commentProcessors[i].process(this.context, comment, structureHandler);
+            if (this.processorProfiler != null) {
+                this.processorProfiler.processorExecuted(this.commentProcessors[i], icomment, System.nanoTime() - profilingStartNanos);
+            }
 
             if (structureHandler.setContent) {
 
@@ -767,7 +790,11 @@ public void handleCDATASection(final ICDATASection icdataSection) {
 
             structureHandler.reset();
 
+            final long profilingStartNanos = (this.processorProfiler != null? System.nanoTime() : 0L);
             this.cdataSectionProcessors[i].process(this.context, cdataSection, structureHandler);
+            if (this.processorProfiler != null) {
+                this.processorProfiler.processorExecuted(this.cdataSectionProcessors[i], icdataSection, System.nanoTime() - profilingStartNanos);
+            }
 
             if (structureHandler.setContent) {
 
@@ -915,7 +942,11 @@ public void handleStandaloneElement(final IStandaloneElementTag istandaloneEleme
             if (processor instanceof IElementTagProcessor) {
 
                 final IElementTagProcessor elementProcessor = ((IElementTagProcessor)processor);
+                final long profilingStartNanos = (this.processorProfiler != null? System.nanoTime() : 0L);
                 elementProcessor.process(this.context, standaloneElementTag, tagStructureHandler);
+                if (this.processorProfiler != null) {
+                    this.processorProfiler.processorExecuted(elementProcessor, standaloneElementTag, System.nanoTime() - profilingStartNanos);
+                }
 
                 // Apply any context modifications made by the processor (local vars, inlining, etc.)
                 tagStructureHandler.applyContextModifications(this.engineContext);
@@ -1128,7 +1159,11 @@ public void handleStandaloneElement(final IStandaloneElementTag istandaloneEleme
                 final Model processedModel = new Model(gatheredModel);
 
                 // Execute the processor on the just-created Model
+                final long profilingStartNanos = (this.processorProfiler != null? System.nanoTime() : 0L);
                 ((IElementModelProcessor) processor).process(this.context, processedModel, modelStructureHandler);
+                if (this.processorProfiler != null) {
+                    this.processorProfiler.processorExecuted(processor, standaloneElementTag, System.nanoTime() - profilingStartNanos);
+                }
 
                 // Apply any context modifications made by the processor (local vars, inlining, etc.)
                 modelStructureHandler.applyContextModifications(this.engineContext);
@@ -1311,7 +1346,11 @@ public void handleOpenElement(final IOpenElementTag iopenElementTag) {
             if (processor instanceof IElementTagProcessor) {
 
                 final IElementTagProcessor elementProcessor = ((IElementTagProcessor)processor);
+                final long profilingStartNanos = (this.processorProfiler != null? System.nanoTime() : 0L);
                 elementProcessor.process(this.context, openElementTag, tagStructureHandler);
+                if (this.processorProfiler != null) {
+                    this.processorProfiler.processorExecuted(elementProcessor, openElementTag, System.nanoTime() - profilingStartNanos);
+                }
 
                 // Apply any context modifications made by the processor (local vars, inlining, etc.)
                 tagStructureHandler.applyContextModifications(this.engineContext);
@@ -1507,7 +1546,11 @@ public void handleOpenElement(final IOpenElementTag iopenElementTag) {
                 final Model processedModel = new Model(gatheredModel);
 
                 // Execute the processor on the just-created Model
+                final long profilingStartNanos = (this.processorProfiler != null? System.nanoTime() : 0L);
                 ((IElementModelProcessor) processor).process(this.context, processedModel, modelStructureHandler);
+                if (this.processorProfiler != null) {
+                    this.processorProfiler.processorExecuted(processor, openElementTag, System.nanoTime() - profilingStartNanos);
+                }
 
                 // Apply any context modifications made by the processor (local vars, inlining, etc.)
                 modelStructureHandler.applyContextModifications(this.engineContext);
@@ -1755,7 +1798,11 @@ public void handleDocType(final IDocType idocType) {
 
             structureHandler.reset();
 
+            final long profilingStartNanos = (this.processorProfiler != null? System.nanoTime() : 0L);
             this.docTypeProcessors[i].process(this.context, docType, structureHandler);
+            if (this.processorProfiler != null) {
+                this.processorProfiler.processorExecuted(this.docTypeProcessors[i], idocType, System.nanoTime() - profilingStartNanos);
+            }
 
             if (structureHandler.setDocType) {
 
@@ -1866,7 +1913,11 @@ public void handleXMLDeclaration(final IXMLDeclaration ixmlDeclaration) {
 
             structureHandler.reset();
 
+            final long profilingStartNanos = (this.processorProfiler != null? System.nanoTime() : 0L);
             this.xmlDeclarationProcessors[i].process(this.context, xmlDeclaration, structureHandler);
+            if (this.processorProfiler != null) {
+                this.processorProfiler.processorExecuted(this.xmlDeclarationProcessors[i], ixmlDeclaration, System.nanoTime() - profilingStartNanos);
+            }
 
             if (structureHandler.setXMLDeclaration) {
 
@@ -1976,7 +2027,11 @@ public void handleProcessingInstruction(final IProcessingInstruction iprocessing
 
             structureHandler.reset();
 
+            final long profilingStartNanos = (this.processorProfiler != null? System.nanoTime() : 0L);
             this.processingInstructionProcessors[i].process(this.context, processingInstruction, structureHandler);
+            if (this.processorProfiler != null) {
+                this.processorProfiler.processorExecuted(this.processingInstructionProcessors[i], iprocessingInstruction, System.nanoTime() - profilingStartNanos);
+            }
 
             if (structureHandler.setProcessingInstruction) {
 
@@ -0,0 +1,336 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateparser.markup.decoupled.StandardDecoupledTemplateLogicResolver;
+
+/*
+ * Index of the element blocks contained in a (complete) parsed template, allowing the computation of the models
+ * corresponding to fragment selectors (e.g. the "X" in "~{template :: X}") as views on the events of the complete
+ * model, instead of parsing the template again with a block selector for each different set of selectors.
+ *
+ * Only selectors that consist of a mere name are served from this index. The semantics of these are the same
+ * as those applied by the template parsers using TemplateFragmentMarkupReferenceResolver, i.e. a name selects
+ * every element with such name plus every element with a fragment or ref attribute for that name (either
+ * th:fragment="X", th:fragment="X(...)", th:fragment="X (...)" or th:ref="X", also in their data-* form in HTML).
+ * Elements contained inside an already selected element are not selected again.
+ *
+ * The index is computed lazily (and at most once, barring races, which are harmless) for each complete
+ * TemplateModel, and is stored in the model itself, so that it lives exactly as long as the cached model does.
+ *
+ * @author Daniel Fernandez
+ * @since 3.1.2
+ *
+ */
+final class TemplateFragmentIndex {
+
+    // Used for models that cannot be indexed (e.g. unbalanced), so that they are not analyzed again
+    private static final TemplateFragmentIndex NON_INDEXABLE = new TemplateFragmentIndex(null, null, null, false);
+
+    private final TemplateModel templateModel;
+    // Blocks are stored as pairs of (start,end) positions in the event queue, both inclusive
+    private final Map<String,int[]> blocksByElementName;
+    private final Map<String,int[]> blocksByReference;
+    private final boolean caseSensitiveElementNames;
+
+
+
+    static boolean isIndexable(
+            final IEngineConfiguration configuration, final TemplateMode templateMode,
+            final boolean useDecoupledLogic, final Set<String> templateSelectors) {
+        if (templateMode != TemplateMode.HTML && templateMode != TemplateMode.XML) {
+            return false;
+        }
+        // Decoupled logic resolvers receive the selectors, so custom ones might resolve different logic for each
+        if (useDecoupledLogic &&
+                !(configuration.getDecoupledTemplateLogicResolver() instanceof StandardDecoupledTemplateLogicResolver)) {
+            return false;
+        }
+        // Without a prefix, the parsers will not resolve names as fragment references
+        if (configuration.getStandardDialectPrefix() == null) {
+            return false;
+        }
+        for (final String templateSelector : templateSelectors) {
+            if (!isSimpleName(templateSelector)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    private static boolean isSimpleName(final String templateSelector) {
+        final int len = templateSelector.length();
+        if (len == 0) {
+            return false;
+        }
+        char c;
+        for (int i = 0; i < len; i++) {
+            c = templateSelector.charAt(i);
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' ||
+                    (i > 0 && ((c >= '0' && c <= '9') || c == '-')))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+
+    static TemplateFragmentIndex forModel(final TemplateModel templateModel) {
+        TemplateFragmentIndex index = templateModel.fragmentIndex;
+        if (index == null) {
+            index = computeIndex(templateModel);
+            templateModel.fragmentIndex = index;
+        }
+        return (index == NON_INDEXABLE? null : index);
+    }
+
+
+
+
+    private TemplateFragmentIndex(
+            final TemplateModel templateModel,
+            final Map<String,int[]> blocksByElementName, final Map<String,int[]> blocksByReference,
+            final boolean caseSensitiveElementNames) {
+        super();
+        this.templateModel = templateModel;
+        this.blocksByElementName = blocksByElementName;
+        this.blocksByReference = blocksByReference;
+        this.caseSensitiveElementNames = caseSensitiveElementNames;
+    }
+
+
+
+
+    TemplateModel select(final TemplateData templateData, final Set<String> templateSelectors) {
+
+        final List<int[]> selectorBlocks = new ArrayList<int[]>(templateSelectors.size() * 2);
+        for (final String templateSelector : templateSelectors) {
+            final String elementName =
+                    (this.caseSensitiveElementNames? templateSelector : templateSelector.toLowerCase());
+            addBlocks(selectorBlocks, this.blocksByElementName.get(elementName));
+            addBlocks(selectorBlocks, this.blocksByReference.get(templateSelector));
+        }
+
+        // Blocks are sorted in document order (starting position), so that nested blocks come after their container
+        final int[][] blocks = selectorBlocks.toArray(new int[selectorBlocks.size()][]);
+        Arrays.sort(blocks, (b1, b2) -> Integer.compare(b1[0], b2[0]));
+
+        final IEngineTemplateEvent[] queue = this.templateModel.queue;
+        final List<IEngineTemplateEvent> events = new ArrayList<IEngineTemplateEvent>();
+        events.add(queue[0]); // TemplateStart
+        int lastSelected = -1;
+        for (final int[] block : blocks) {
+            if (block[0] <= lastSelected) {
+                // Nested inside an already selected block (or the same block selected by several selectors)
+                continue;
+            }
+            events.addAll(Arrays.asList(queue).subList(block[0], block[1] + 1));
+            lastSelected = block[1];
+        }
+        events.add(queue[queue.length - 1]); // TemplateEnd
+
+        return new TemplateModel(
+                this.templateModel.configuration, templateData, events.toArray(new IEngineTemplateEvent[events.size()]));
+
+    }
+
+
+    private static void addBlocks(final List<int[]> selectorBlocks, final int[] positions) {
+        if (positions == null) {
+            return;
+        }
+        for (int i = 0; i < positions.length; i += 2) {
+            selectorBlocks.add(new int[] { positions[i], positions[i + 1] });
+        }
+    }
+
+
+
+
+    private static TemplateFragmentIndex computeIndex(final TemplateModel templateModel) {
+
+        final TemplateMode templateMode = templateModel.getTemplateMode();
+        final boolean html = (templateMode == TemplateMode.HTML);
+        final String prefix =
+                (html?
+                    templateModel.configuration.getStandardDialectPrefix().toLowerCase() :
+                    templateModel.configuration.getStandardDialectPrefix());
+
+        final String fragmentAttributeName = prefix + ":fragment";
+        final String refAttributeName = prefix + ":ref";
+        final String dataFragmentAttributeName = "data-" + prefix + "-fragment";
+        final String dataRefAttributeName = "data-" + prefix + "-ref";
+
+        final Map<String,List<Integer>> blocksByElementName = new HashMap<String, List<Integer>>(20);
+        final Map<String,List<Integer>> blocksByReference = new HashMap<String, List<Integer>>(20);
+
+        final IEngineTemplateEvent[] queue = templateModel.queue;
+        final int[] openElementStack = new int[queue.length];
+        int stackSize = 0;
+
+        for (int i = 0; i < queue.length; i++) {
+
+            final IEngineTemplateEvent event = queue[i];
+
+            if (event instanceof OpenElementTag) {
+                openElementStack[stackSize++] = i;
+            } else if (event instanceof CloseElementTag) {
+                final CloseElementTag closeElementTag = (CloseElementTag) event;
+                if (closeElementTag.isUnmatched()) {
+                    continue;
+                }
+                if (stackSize == 0) {
+                    return NON_INDEXABLE;
+                }
+                final int start = openElementStack[--stackSize];
+                if (!sameElementName(html, (OpenElementTag) queue[start], closeElementTag)) {
+                    return NON_INDEXABLE;
+                }
+                indexBlock(
+                        blocksByElementName, blocksByReference, (OpenElementTag) queue[start], start, i, html,
+                        fragmentAttributeName, refAttributeName, dataFragmentAttributeName, dataRefAttributeName);
+            } else if (event instanceof StandaloneElementTag) {
+                indexBlock(
+                        blocksByElementName, blocksByReference, (StandaloneElementTag) event, i, i, html,
+                        fragmentAttributeName, refAttributeName, dataFragmentAttributeName, dataRefAttributeName);
+            }
+
+        }
+
+        if (stackSize != 0) {
+            return NON_INDEXABLE;
+        }
+
+        return new TemplateFragmentIndex(
+                templateModel, toPositionArrays(blocksByElementName), toPositionArrays(blocksByReference), !html);
+
+    }
+
+
+    private static boolean sameElementName(
+            final boolean html, final OpenElementTag openElementTag, final CloseElementTag closeElementTag) {
+        final String openName = openElementTag.getElementCompleteName();
+        final String closeName = closeElementTag.getElementCompleteName();
+        return (html? openName.equalsIgnoreCase(closeName) : openName.equals(closeName));
+    }
+
+
+    private static void indexBlock(
+            final Map<String,List<Integer>> blocksByElementName, final Map<String,List<Integer>> blocksByReference,
+            final AbstractProcessableElementTag elementTag, final int start, final int end, final boolean html,
+            final String fragmentAttributeName, final String refAttributeName,
+            final String dataFragmentAttributeName, final String dataRefAttributeName) {
+
+        final String elementName = elementTag.getElementCompleteName();
+        addBlock(blocksByElementName, (html? elementName.toLowerCase() : elementName), start, end);
+
+        if (elementTag.attributes == null || elementTag.attributes.attributes == null) {
+            return;
+        }
+
+        for (final Attribute attribute : elementTag.attributes.attributes) {
+
+            final String attributeName = attribute.getAttributeCompleteName();
+            final String value = attribute.getValue();
+            if (value == null) {
+                continue;
+            }
+
+            final boolean fragment;
+            if (matchesName(html, attributeName, fragmentAttributeName) ||
+                    (html && matchesName(true, attributeName, dataFragmentAttributeName))) {
+                fragment = true;
+            } else if (matchesName(html, attributeName, refAttributeName) ||
+                    (html && matchesName(true, attributeName, dataRefAttributeName))) {
+                fragment = false;
+            } else {
+                continue;
+            }
+
+            // Exact value: X
+            addBlock(blocksByReference, value, start, end);
+
+            if (fragment) {
+                // Value with parameters: X(...) or X (...)
+                final int parenthesisPos = value.indexOf('(');
+                if (parenthesisPos > 0) {
+                    final int nameEnd =
+                            (value.charAt(parenthesisPos - 1) == ' '? parenthesisPos - 1 : parenthesisPos);
+                    if (nameEnd > 0) {
+                        addBlock(blocksByReference, value.substring(0, nameEnd), start, end);
+                    }
+                }
+            }
+
+        }
+
+    }
+
+
+    private static boolean matchesName(final boolean html, final String attributeName, final String name) {
+        return (html? attributeName.equalsIgnoreCase(name) : attributeName.equals(name));
+    }
+
+
+    private static void addBlock(
+            final Map<String,List<Integer>> blocks, final String name, final int start, final int end) {
+        List<Integer> positions = blocks.get(name);
+        if (positions == null) {
+            positions = new ArrayList<Integer>(2);
+            blocks.put(name, positions);
+        } else if (positions.get(positions.size() - 2).intValue() == start) {
+            // Already added for this same element (e.g. both th:fragment and th:ref with the same name)
+            return;
+        }
+        positions.add(Integer.valueOf(start));
+        positions.add(Integer.valueOf(end));
+    }
+
+
+    private static Map<String,int[]> toPositionArrays(final Map<String,List<Integer>> blocks) {
+        if (blocks.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        final Map<String,int[]> positionArrays = new HashMap<String, int[]>(blocks.size() + 1, 1.0f);
+        for (final Map.Entry<String,List<Integer>> entry : blocks.entrySet()) {
+            final List<Integer> positions = entry.getValue();
+            final int[] positionArray = new int[positions.size()];
+            for (int i = 0; i < positionArray.length; i++) {
+                positionArray[i] = positions.get(i).intValue();
+            }
+            positionArrays.put(entry.getKey(), positionArray);
+        }
+        return positionArrays;
+    }
+
+
+}
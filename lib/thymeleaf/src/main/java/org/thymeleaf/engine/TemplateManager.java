@@ -19,12 +19,17 @@
  */
 package org.thymeleaf.engine;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Writer;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,6 +47,7 @@
 import org.thymeleaf.context.ITemplateContext;
 import org.thymeleaf.exceptions.TemplateInputException;
 import org.thymeleaf.exceptions.TemplateProcessingException;
+import org.thymeleaf.instrumentation.ITemplateInstrumentation;
 import org.thymeleaf.postprocessor.IPostProcessor;
 import org.thymeleaf.preprocessor.IPreProcessor;
 import org.thymeleaf.templatemode.TemplateMode;
@@ -84,6 +90,9 @@ public final class TemplateManager {
 
 
     private final ICache<TemplateCacheKey,TemplateModel> templateCache; // might be null! (= no cache)
+    private final ITemplateInstrumentation templateInstrumentation;
+    private final ConcurrentHashMap<TemplateCacheKey,InFlightTemplateParse> inFlightParses; // might be null! (= no single-flight)
+    private final boolean fragmentIndexing;
 
 
 
@@ -103,6 +112,8 @@ public TemplateManager(final IEngineConfiguration configuration) {
 
         this.configuration = configuration;
 
+        this.templateInstrumentation = this.configuration.getTemplateInstrumentation();
+
         final ICacheManager cacheManager = this.configuration.getCacheManager();
 
         if (cacheManager == null) {
@@ -111,6 +122,16 @@ public TemplateManager(final IEngineConfiguration configuration) {
             this.templateCache = cacheManager.getTemplateCache();
         }
 
+        // Single-flight parsing only makes sense if there is a cache in which to share the parsed templates
+        if (this.templateCache != null && this.configuration.isSingleFlightTemplateParsing()) {
+            this.inFlightParses = new ConcurrentHashMap<TemplateCacheKey, InFlightTemplateParse>(16, 0.75f, 16);
+        } else {
+            this.inFlightParses = null;
+        }
+
+        // Fragment indexing only makes sense if there is a cache in which to keep the complete templates
+        this.fragmentIndexing = (this.templateCache != null && this.configuration.isFragmentIndexing());
+
         final boolean standardDialectPresent = this.configuration.isStandardDialectPresent();
 
         // TODO Make these parser implementations configurable: one parser per template mode, then make default implementations extensible/configurable (e.g. AttoParser config)
@@ -175,6 +196,101 @@ public void clearCachesFor(final String template) {
 
 
 
+    /**
+     * <p>
+     *   Writes a snapshot of the contents of the template cache to the specified output stream, so that it
+     *   can be later used for pre-populating the template cache of a new template engine by means of
+     *   {@link #loadTemplateModelSnapshot(InputStream)}, avoiding the need to parse these templates again.
+     * </p>
+     * <p>
+     *   Only the cached models of templates that can be resolved again by the template resolvers will be
+     *   included in the snapshot (e.g. fragments created from Strings during template processing will not).
+     * </p>
+     * <p>
+     *   Note the output stream will be flushed, but not closed.
+     * </p>
+     *
+     * @param outputStream the output stream the snapshot will be written to.
+     * @return the number of cached template models included in the snapshot (0 if there is no template cache).
+     * @throws IOException if the snapshot cannot be written.
+     * @since 3.1.2
+     */
+    public int writeTemplateModelSnapshot(final OutputStream outputStream) throws IOException {
+        Validate.notNull(outputStream, "Output stream cannot be null");
+        final Map<TemplateCacheKey,TemplateModel> entries = new LinkedHashMap<TemplateCacheKey, TemplateModel>();
+        if (this.templateCache != null) {
+            for (final TemplateCacheKey templateCacheKey : this.templateCache.keySet()) {
+                final TemplateModel templateModel = this.templateCache.get(templateCacheKey);
+                if (templateModel != null) {
+                    entries.put(templateCacheKey, templateModel);
+                }
+            }
+        }
+        return TemplateModelSnapshot.write(this.configuration, entries, outputStream);
+    }
+
+
+    /**
+     * <p>
+     *   Pre-populates the template cache with the template models contained in a snapshot previously
+     *   created by means of {@link #writeTemplateModelSnapshot(OutputStream)}.
+     * </p>
+     * <p>
+     *   Snapshots are validated before being used: if the snapshot was created by a different version of
+     *   Thymeleaf or by an engine configured with a different set of dialects, it will be completely ignored.
+     *   Besides, each template will be resolved again and its model will only be loaded if it is still
+     *   cacheable and the contents of its template resource have not changed since the snapshot was created.
+     * </p>
+     * <p>
+     *   Note the input stream will not be closed.
+     * </p>
+     *
+     * @param inputStream the input stream the snapshot will be read from.
+     * @return the number of template models that have been put into the template cache (0 if there is no
+     *         template cache).
+     * @throws IOException if the snapshot cannot be read or is corrupt. No template models will be
+     *         put into the template cache in such case.
+     * @since 3.1.2
+     */
+    public int loadTemplateModelSnapshot(final InputStream inputStream) throws IOException {
+        Validate.notNull(inputStream, "Input stream cannot be null");
+        if (this.templateCache == null) {
+            return 0;
+        }
+        final Map<TemplateCacheKey,TemplateModel> entries =
+                TemplateModelSnapshot.read(this.configuration, this::resolveForSnapshot, inputStream);
+        for (final Map.Entry<TemplateCacheKey,TemplateModel> entry : entries.entrySet()) {
+            this.templateCache.put(entry.getKey(), entry.getValue());
+        }
+        return entries.size();
+    }
+
+
+    private TemplateData resolveForSnapshot(
+            final String ownerTemplate, final String template, final Set<String> templateSelectors,
+            final TemplateMode templateMode, final Map<String,Object> templateResolutionAttributes) {
+
+        final TemplateResolution templateResolution =
+                resolveTemplate(this.configuration, ownerTemplate, template, templateResolutionAttributes, false);
+
+        // Models built with decoupled logic also depend on the contents of a second resource, so we will not use them
+        if (templateResolution == null ||
+                !templateResolution.getValidity().isCacheable() ||
+                templateResolution.getUseDecoupledLogic()) {
+            return null;
+        }
+
+        final ITemplateResource resource = templateResolution.getTemplateResource();
+        if (resource == null || (!templateResolution.isTemplateResourceExistenceVerified() && !resource.exists())) {
+            return null;
+        }
+
+        return buildTemplateData(templateResolution, template, templateSelectors, templateMode, true);
+
+    }
+
+
+
 
 
 
@@ -231,8 +347,15 @@ public TemplateModel parseStandalone(
         /*
          * First look at the cache - it might be already cached
          */
+        InFlightTemplateParse inFlightParse = null;
         if (useCache && this.templateCache != null) {
-            final TemplateModel cached =  this.templateCache.get(cacheKey);
+            TemplateModel cached =  this.templateCache.get(cacheKey);
+            if (cached == null) {
+                // If single-flight parsing is enabled, either let other threads know we are parsing this template or,
+                // if another thread is already parsing it right now, wait for it and reuse its result
+                inFlightParse = startInFlightParse(cacheKey);
+                cached = waitForInFlightParse(inFlightParse);
+            }
             if (cached != null) {
                 /*
                  * Just at the end, and importantly AFTER CACHING, check if we need to apply any pre-processors
@@ -243,85 +366,182 @@ public TemplateModel parseStandalone(
         }
 
 
-        /*
-         * Resolve the template
-         */
-        final TemplateResolution templateResolution =
-                resolveTemplate(this.configuration, ownerTemplate, template, templateResolutionAttributes, failIfNotExists);
+        try {
 
+            /*
+             * Resolve the template
+             */
+            final TemplateResolution templateResolution =
+                    resolveTemplate(this.configuration, ownerTemplate, template, templateResolutionAttributes, failIfNotExists);
+
+
+            /*
+             * Once the template has been resolved (or tried to), and depending on the value of our 'failIfNotExists'
+             * flag, we will check two conditions in which we will be returning null:
+             *
+             *    1. No template resolver has been able to resolve the template (this can happen if resolvers are
+             *       configured with the 'checkExistence' flag to true).
+             *    2. If the template was resolved, its existence should be checked in order to avoid exceptions during
+             *       the reading phase.
+             *
+             * NOTE we will not cache this "null" result because the fact that a template is cacheable or not is
+             * determined by template resolvers. And in this case there is no template resolver being applied
+             * (actually, we are here because no resolver had success).
+             */
+            if (!failIfNotExists) {
+
+                if (templateResolution == null) {
+                    // No resolver could resolve this
+                    return null;
+                }
 
-        /*
-         * Once the template has been resolved (or tried to), and depending on the value of our 'failIfNotExists'
-         * flag, we will check two conditions in which we will be returning null:
-         *
-         *    1. No template resolver has been able to resolve the template (this can happen if resolvers are
-         *       configured with the 'checkExistence' flag to true).
-         *    2. If the template was resolved, its existence should be checked in order to avoid exceptions during
-         *       the reading phase.
-         *
-         * NOTE we will not cache this "null" result because the fact that a template is cacheable or not is
-         * determined by template resolvers. And in this case there is no template resolver being applied
-         * (actually, we are here because no resolver had success).
-         */
-        if (!failIfNotExists) {
+                if (!templateResolution.isTemplateResourceExistenceVerified()) {
+                    final ITemplateResource resource = templateResolution.getTemplateResource();
+                    if (resource == null || !resource.exists()) {
+                        // Calling resource.exists() each time is not great, but think this only happens if the resource
+                        // has not been cached (e.g. when it does not exist)
+                        return null;
+                    }
+                }
 
-            if (templateResolution == null) {
-                // No resolver could resolve this
-                return null;
             }
 
-            if (!templateResolution.isTemplateResourceExistenceVerified()) {
-                final ITemplateResource resource = templateResolution.getTemplateResource();
-                if (resource == null || !resource.exists()) {
-                    // Calling resource.exists() each time is not great, but think this only happens if the resource
-                    // has not been cached (e.g. when it does not exist)
-                    return null;
+
+            /*
+             * Build the TemplateData object
+             */
+            final TemplateData templateData =
+                    buildTemplateData(templateResolution, template, cleanTemplateSelectors, templateMode, useCache);
+
+
+            /*
+             * If we are selecting fragments from a cacheable template, try to compute the selected model as a view on
+             * the (cached) complete template, so that the template is not read and parsed again for each different
+             * set of selectors.
+             */
+            if (this.fragmentIndexing && cleanTemplateSelectors != null && useCache &&
+                    templateResolution.getValidity().isCacheable() &&
+                    TemplateFragmentIndex.isIndexable(
+                            this.configuration, templateData.getTemplateMode(),
+                            templateResolution.getUseDecoupledLogic(), cleanTemplateSelectors)) {
+
+                final TemplateModel completeTemplateModel =
+                        obtainCompleteTemplateModel(template, templateMode, templateResolutionAttributes, templateResolution);
+                final TemplateFragmentIndex fragmentIndex = TemplateFragmentIndex.forModel(completeTemplateModel);
+
+                if (fragmentIndex != null) {
+
+                    final TemplateModel templateModel = fragmentIndex.select(templateData, cleanTemplateSelectors);
+
+                    this.templateCache.put(cacheKey, templateModel);
+                    finishInFlightParse(cacheKey, inFlightParse, templateModel);
+
+                    return applyPreProcessorsIfNeeded(context, templateModel);
+
                 }
+
             }
 
-        }
 
+            /*
+             *  Create the Template Handler that will be in charge of building the TemplateModel
+             */
+            final ModelBuilderTemplateHandler builderHandler = new ModelBuilderTemplateHandler(this.configuration, templateData);
 
-        /*
-         * Build the TemplateData object
-         */
-        final TemplateData templateData =
-                buildTemplateData(templateResolution, template, cleanTemplateSelectors, templateMode, useCache);
 
+            /*
+             * PROCESS THE TEMPLATE
+             */
+            final ITemplateParser parser = getParserForTemplateMode(templateData.getTemplateMode());
+            parser.parseStandalone(
+                    this.configuration,
+                    ownerTemplate, template, cleanTemplateSelectors, templateData.getTemplateResource(),
+                    templateData.getTemplateMode(), templateResolution.getUseDecoupledLogic(), builderHandler);
 
-        /*
-         *  Create the Template Handler that will be in charge of building the TemplateModel
-         */
-        final ModelBuilderTemplateHandler builderHandler = new ModelBuilderTemplateHandler(this.configuration, templateData);
+            final TemplateModel templateModel = builderHandler.getModel();
 
 
-        /*
-         * PROCESS THE TEMPLATE
-         */
-        final ITemplateParser parser = getParserForTemplateMode(templateData.getTemplateMode());
-        parser.parseStandalone(
-                this.configuration,
-                ownerTemplate, template, cleanTemplateSelectors, templateData.getTemplateResource(),
-                templateData.getTemplateMode(), templateResolution.getUseDecoupledLogic(), builderHandler);
+            /*
+             * Cache the template if it is cacheable
+             */
+            if (useCache && this.templateCache != null) {
+                if (templateResolution.getValidity().isCacheable()) {
+                    this.templateCache.put(cacheKey, templateModel);
+                    finishInFlightParse(cacheKey, inFlightParse, templateModel);
+                }
+            }
 
-        final TemplateModel templateModel = builderHandler.getModel();
 
+            /*
+             * Last step: just at the end, and importantly AFTER CACHING, check if we need to apply any pre-processors
+             * to this model before returning and letting the engine insert the model in any way it needs.
+             */
+            return applyPreProcessorsIfNeeded(context, templateModel);
 
-        /*
-         * Cache the template if it is cacheable
-         */
-        if (useCache && this.templateCache != null) {
-            if (templateResolution.getValidity().isCacheable()) {
-                this.templateCache.put(cacheKey, templateModel);
-            }
+        } finally {
+            // If not already done, let waiting threads know they will need to parse this template on their own
+            finishInFlightParse(cacheKey, inFlightParse, null);
         }
 
+    }
 
-        /*
-         * Last step: just at the end, and importantly AFTER CACHING, check if we need to apply any pre-processors
-         * to this model before returning and letting the engine insert the model in any way it needs.
-         */
-        return applyPreProcessorsIfNeeded(context, templateModel);
+
+
+
+    /*
+     * Obtains the complete (non-selected) model of a template that has already been resolved, from the cache if
+     * possible. Models parsed here are cached under the same key that would be used for processing the complete
+     * template as a first-level template (i.e. without an owner template), so that the same entry is shared by
+     * every template that inserts fragments from it, and also by the processing of the template itself.
+     *
+     * NOTE pre-processors are not applied here, as this model is only used as a source for selecting fragments.
+     */
+    private TemplateModel obtainCompleteTemplateModel(
+            final String template, final TemplateMode templateMode,
+            final Map<String,Object> templateResolutionAttributes, final TemplateResolution templateResolution) {
+
+        final TemplateCacheKey cacheKey =
+                new TemplateCacheKey(
+                        null, // ownerTemplate
+                        template, null,
+                        0, 0,
+                        templateMode,
+                        templateResolutionAttributes);
+
+        TemplateModel cached = this.templateCache.get(cacheKey);
+        InFlightTemplateParse inFlightParse = null;
+        if (cached == null) {
+            // Same as for any other cache entries, only one thread at a time should be parsing the complete template
+            inFlightParse = startInFlightParse(cacheKey);
+            cached = waitForInFlightParse(inFlightParse);
+        }
+        if (cached != null) {
+            return cached;
+        }
+
+        try {
+
+            final TemplateData templateData = buildTemplateData(templateResolution, template, null, templateMode, true);
+
+            final ModelBuilderTemplateHandler builderHandler = new ModelBuilderTemplateHandler(this.configuration, templateData);
+
+            final ITemplateParser parser = getParserForTemplateMode(templateData.getTemplateMode());
+            parser.parseStandalone(
+                    this.configuration,
+                    null, template, null, templateData.getTemplateResource(),
+                    templateData.getTemplateMode(), templateResolution.getUseDecoupledLogic(), builderHandler);
+
+            final TemplateModel templateModel = builderHandler.getModel();
+
+            this.templateCache.put(cacheKey, templateModel);
+            finishInFlightParse(cacheKey, inFlightParse, templateModel);
+
+            return templateModel;
+
+        } finally {
+            // If not already done, let waiting threads know they will need to parse this template on their own
+            finishInFlightParse(cacheKey, inFlightParse, null);
+        }
 
     }
 
@@ -470,6 +690,115 @@ public TemplateModel parseString(
 
 
 
+    /*
+     * Resolves and parses a standalone template into the template cache (if it is not already there) without
+     * processing it, so that later executions of this template do not need to parse it. Used for warming up the
+     * template cache. Will return true if the model for this template spec is now in the template cache, and false
+     * if the template is not cacheable (or there is no template cache, in which case it will only be resolved).
+     * Resolution or parsing errors are raised.
+     *
+     * NOTE the cache key is the one used for processing the template spec as a first-level template. Fragments
+     * inserted from other templates are cached under keys including their owner template, so these will only
+     * benefit from warming up if fragment indexing is enabled, as the complete template model from which
+     * fragments are selected is also warmed up then (and shared among all owner templates).
+     */
+    public boolean parseAndCache(final TemplateSpec templateSpec) {
+
+        Validate.notNull(templateSpec, "Template Specification cannot be null");
+
+        final String template = templateSpec.getTemplate();
+        final Set<String> templateSelectors = templateSpec.getTemplateSelectors();
+        final TemplateMode templateMode = templateSpec.getTemplateMode();
+        final Map<String, Object> templateResolutionAttributes = templateSpec.getTemplateResolutionAttributes();
+
+        if (this.templateCache == null) {
+            // Nothing can be cached, but resolution problems should still be reported
+            resolveTemplate(this.configuration, null, template, templateResolutionAttributes, true);
+            return false;
+        }
+
+        // Same cache key as the one that will be used when processing the template (see parseAndProcess)
+        final TemplateCacheKey cacheKey =
+                new TemplateCacheKey(
+                        null, // ownerTemplate
+                        template, templateSelectors,
+                        0, 0, // lineOffset, colOffset
+                        templateMode,
+                        templateResolutionAttributes);
+
+        TemplateModel cached = this.templateCache.get(cacheKey);
+        InFlightTemplateParse inFlightParse = null;
+        if (cached == null) {
+            inFlightParse = startInFlightParse(cacheKey);
+            cached = waitForInFlightParse(inFlightParse);
+        }
+        if (cached != null) {
+            return true;
+        }
+
+        try {
+
+            final TemplateResolution templateResolution =
+                    resolveTemplate(this.configuration, null, template, templateResolutionAttributes, true);
+
+            if (!templateResolution.getValidity().isCacheable()) {
+                return false;
+            }
+
+            final TemplateData templateData =
+                    buildTemplateData(templateResolution, template, templateSelectors, templateMode, true);
+
+            /*
+             * Same as in parseStandalone: selecting by name from the complete template also warms up the complete
+             * template model that fragment insertions from any other template will select from.
+             */
+            if (this.fragmentIndexing && templateSelectors != null &&
+                    TemplateFragmentIndex.isIndexable(
+                            this.configuration, templateData.getTemplateMode(),
+                            templateResolution.getUseDecoupledLogic(), templateSelectors)) {
+
+                final TemplateModel completeTemplateModel =
+                        obtainCompleteTemplateModel(template, templateMode, templateResolutionAttributes, templateResolution);
+                final TemplateFragmentIndex fragmentIndex = TemplateFragmentIndex.forModel(completeTemplateModel);
+
+                if (fragmentIndex != null) {
+
+                    final TemplateModel templateModel = fragmentIndex.select(templateData, templateSelectors);
+
+                    this.templateCache.put(cacheKey, templateModel);
+                    finishInFlightParse(cacheKey, inFlightParse, templateModel);
+
+                    return true;
+
+                }
+
+            }
+
+            final ModelBuilderTemplateHandler builderHandler = new ModelBuilderTemplateHandler(this.configuration, templateData);
+
+            final ITemplateParser parser = getParserForTemplateMode(templateData.getTemplateMode());
+            parser.parseStandalone(
+                    this.configuration,
+                    null, template, templateSelectors, templateData.getTemplateResource(),
+                    templateData.getTemplateMode(), templateResolution.getUseDecoupledLogic(), builderHandler);
+
+            final TemplateModel templateModel = builderHandler.getModel();
+
+            this.templateCache.put(cacheKey, templateModel);
+            finishInFlightParse(cacheKey, inFlightParse, templateModel);
+
+            return true;
+
+        } finally {
+            // If not already done, let waiting threads know they will need to parse this template on their own
+            finishInFlightParse(cacheKey, inFlightParse, null);
+        }
+
+    }
+
+
+
+
 
 
     /*
@@ -550,6 +879,38 @@ public void parseAndProcess(
         Validate.notNull(context, "Context cannot be null");
         Validate.notNull(writer, "Writer cannot be null");
 
+        if (!this.templateInstrumentation.isEnabled()) {
+            parseAndProcess(templateSpec, context, writer, null);
+            return;
+        }
+
+        final TemplateRenderRecorder recorder =
+                new TemplateRenderRecorder(
+                        this.templateInstrumentation, templateSpec.getTemplate(), templateSpec.getTemplateSelectors(),
+                        templateSpec.getTemplateMode(), writer);
+        try {
+            parseAndProcess(templateSpec, context, recorder.getWriter(), recorder);
+        } catch (final RuntimeException e) {
+            recorder.failed(e);
+            throw e;
+        } catch (final Error e) {
+            recorder.failed(e);
+            throw e;
+        }
+        recorder.processed();
+
+    }
+
+
+    /*
+     * The recorder will be null if instrumentation is not enabled
+     */
+    private void parseAndProcess(
+            final TemplateSpec templateSpec,
+            final IContext context,
+            final Writer writer,
+            final TemplateRenderRecorder recorder) {
+
 
         // TemplateSpec will already have validated its contents, so need to do it here (template selectors,
         // resolution attributes, etc.)
@@ -571,12 +932,24 @@ public void parseAndProcess(
         /*
          * First look at the cache - it might be already cached
          */
+        InFlightTemplateParse inFlightParse = null;
         if (this.templateCache != null) {
 
-            final TemplateModel cached =  this.templateCache.get(cacheKey);
+            TemplateModel cached =  this.templateCache.get(cacheKey);
+
+            if (cached == null) {
+                // If single-flight parsing is enabled, either let other threads know we are parsing this template or,
+                // if another thread is already parsing it right now, wait for it and reuse its result
+                inFlightParse = startInFlightParse(cacheKey);
+                cached = waitForInFlightParse(inFlightParse);
+            }
 
             if (cached != null) {
 
+                if (recorder != null) {
+                    recorder.cacheHit(cached.getTemplateData().getTemplateMode());
+                }
+
                 final IEngineContext engineContext =
                         EngineContextManager.prepareEngineContext(this.configuration, cached.getTemplateData(), templateResolutionAttributes, context);
 
@@ -600,81 +973,105 @@ public void parseAndProcess(
         }
 
 
-        /*
-         * Resolve the template
-         */
-        final TemplateResolution templateResolution =
-                resolveTemplate(this.configuration, null, template, templateResolutionAttributes, true);
+        try {
 
+            /*
+             * Resolve the template
+             */
+            final TemplateResolution templateResolution =
+                    resolveTemplate(this.configuration, null, template, templateResolutionAttributes, true);
 
-        /*
-         * Build the TemplateData object
-         */
-        final TemplateData templateData =
-                buildTemplateData(templateResolution, template, templateSelectors, templateMode, true);
+            // Non-cacheable templates will never be made available to other threads, so these should not wait
+            // for us (we might be streaming the template to the output for quite some time)
+            if (!templateResolution.getValidity().isCacheable()) {
+                finishInFlightParse(cacheKey, inFlightParse, null);
+            }
 
 
-        /*
-         * Prepare the context instance that corresponds to this execution of the template engine
-         */
-        final IEngineContext engineContext =
-                EngineContextManager.prepareEngineContext(this.configuration, templateData, templateResolutionAttributes, context);
+            /*
+             * Build the TemplateData object
+             */
+            final TemplateData templateData =
+                    buildTemplateData(templateResolution, template, templateSelectors, templateMode, true);
 
+            if (recorder != null) {
+                recorder.resolved(templateData.getTemplateMode());
+            }
 
-        /*
-         * Create the handler chain to process the data.
-         * This is PARSE + PROCESS, so its called from the TemplateEngine, and the only case in which we should apply
-         * both pre-processors and post-processors (besides creating a last output-to-writer step)
-         */
-        final ProcessorTemplateHandler processorTemplateHandler = new ProcessorTemplateHandler();
-        final ITemplateHandler processingHandlerChain =
-                createTemplateProcessingHandlerChain(engineContext, true, true, processorTemplateHandler, writer);
 
+            /*
+             * Prepare the context instance that corresponds to this execution of the template engine
+             */
+            final IEngineContext engineContext =
+                    EngineContextManager.prepareEngineContext(this.configuration, templateData, templateResolutionAttributes, context);
 
-        /*
-         * Obtain the parser
-         */
-        final ITemplateParser parser = getParserForTemplateMode(engineContext.getTemplateMode());
 
+            /*
+             * Create the handler chain to process the data.
+             * This is PARSE + PROCESS, so its called from the TemplateEngine, and the only case in which we should apply
+             * both pre-processors and post-processors (besides creating a last output-to-writer step)
+             */
+            final ProcessorTemplateHandler processorTemplateHandler = new ProcessorTemplateHandler();
+            final ITemplateHandler processingHandlerChain =
+                    createTemplateProcessingHandlerChain(engineContext, true, true, processorTemplateHandler, writer);
 
-        /*
-         * If the resolved template is cacheable, so we will first read it as an object, cache it, and then process it
-         */
-        if (templateResolution.getValidity().isCacheable() && this.templateCache != null) {
 
-            // Create the handler chain to create the Template object
-            final ModelBuilderTemplateHandler builderHandler = new ModelBuilderTemplateHandler(this.configuration, templateData);
+            /*
+             * Obtain the parser
+             */
+            final ITemplateParser parser = getParserForTemplateMode(engineContext.getTemplateMode());
 
-            // Process the template into a TemplateModel
-            parser.parseStandalone(
-                    this.configuration,
-                    null, template, templateSelectors, templateData.getTemplateResource(),
-                    engineContext.getTemplateMode(), templateResolution.getUseDecoupledLogic(), builderHandler);
 
-            // Obtain the TemplateModel
-            final TemplateModel templateModel = builderHandler.getModel();
+            /*
+             * If the resolved template is cacheable, so we will first read it as an object, cache it, and then process it
+             */
+            if (templateResolution.getValidity().isCacheable() && this.templateCache != null) {
 
-            // Put the new template into cache
-            this.templateCache.put(cacheKey, templateModel);
+                // Create the handler chain to create the Template object
+                final ModelBuilderTemplateHandler builderHandler = new ModelBuilderTemplateHandler(this.configuration, templateData);
 
-            // Process the read (+cached) template itself
-            templateModel.process(processingHandlerChain);
+                // Process the template into a TemplateModel
+                parser.parseStandalone(
+                        this.configuration,
+                        null, template, templateSelectors, templateData.getTemplateResource(),
+                        engineContext.getTemplateMode(), templateResolution.getUseDecoupledLogic(), builderHandler);
 
-        } else {
+                // Obtain the TemplateModel
+                final TemplateModel templateModel = builderHandler.getModel();
 
-            //  Process the template, which is not cacheable (so no worry about caching)
-            parser.parseStandalone(
-                    this.configuration,
-                    null, template, templateSelectors, templateData.getTemplateResource(),
-                    engineContext.getTemplateMode(), templateResolution.getUseDecoupledLogic(),  processingHandlerChain);
+                if (recorder != null) {
+                    recorder.parsed();
+                }
 
-        }
+                // Put the new template into cache
+                this.templateCache.put(cacheKey, templateModel);
 
+                // Other threads waiting for this template can go on now, no need to wait until we process it
+                finishInFlightParse(cacheKey, inFlightParse, templateModel);
+
+                // Process the read (+cached) template itself
+                templateModel.process(processingHandlerChain);
+
+            } else {
+
+                //  Process the template, which is not cacheable (so no worry about caching)
+                parser.parseStandalone(
+                        this.configuration,
+                        null, template, templateSelectors, templateData.getTemplateResource(),
+                        engineContext.getTemplateMode(), templateResolution.getUseDecoupledLogic(),  processingHandlerChain);
+
+            }
 
-        /*
-         * Dispose the engine context now that processing has been done
-         */
-        EngineContextManager.disposeEngineContext(engineContext);
+
+            /*
+             * Dispose the engine context now that processing has been done
+             */
+            EngineContextManager.disposeEngineContext(engineContext);
+
+        } finally {
+            // If not already done, let waiting threads know they will need to parse this template on their own
+            finishInFlightParse(cacheKey, inFlightParse, null);
+        }
 
 
     }
@@ -719,9 +1116,17 @@ public ThrottledTemplateProcessor parseAndProcessThrottled(final TemplateSpec te
         /*
          * First look at the cache - it might be already cached
          */
+        InFlightTemplateParse inFlightParse = null;
         if (this.templateCache != null) {
 
-            final TemplateModel cached =  this.templateCache.get(cacheKey);
+            TemplateModel cached =  this.templateCache.get(cacheKey);
+
+            if (cached == null) {
+                // If single-flight parsing is enabled, either let other threads know we are parsing this template or,
+                // if another thread is already parsing it right now, wait for it and reuse its result
+                inFlightParse = startInFlightParse(cacheKey);
+                cached = waitForInFlightParse(inFlightParse);
+            }
 
             if (cached != null) {
 
@@ -750,78 +1155,132 @@ public ThrottledTemplateProcessor parseAndProcessThrottled(final TemplateSpec te
         }
 
 
-        /*
-         * Resolve the template
-         */
-        final TemplateResolution templateResolution =
-                resolveTemplate(this.configuration, null, template, templateResolutionAttributes, true);
+        try {
 
+            /*
+             * Resolve the template
+             */
+            final TemplateResolution templateResolution =
+                    resolveTemplate(this.configuration, null, template, templateResolutionAttributes, true);
 
-        /*
-         * Build the TemplateData object
-         */
-        final TemplateData templateData =
-                buildTemplateData(templateResolution, template, templateSelectors, templateMode, true);
+            // Non-cacheable templates will never be made available to other threads, so these should not wait
+            // for us (we might be streaming the template to the output for quite some time)
+            if (!templateResolution.getValidity().isCacheable()) {
+                finishInFlightParse(cacheKey, inFlightParse, null);
+            }
 
 
-        /*
-         * Prepare the context instance that corresponds to this execution of the template engine
-         */
-        final IEngineContext engineContext =
-                EngineContextManager.prepareEngineContext(this.configuration, templateData, templateResolutionAttributes, context);
+            /*
+             * Build the TemplateData object
+             */
+            final TemplateData templateData =
+                    buildTemplateData(templateResolution, template, templateSelectors, templateMode, true);
 
 
-        /*
-         * Create the handler chain to process the data.
-         * This is PARSE + PROCESS, so its called from the TemplateEngine, and the only case in which we should apply
-         * both pre-processors and post-processors (besides creating a last output-to-writer step)
-         */
-        final ProcessorTemplateHandler processorTemplateHandler = new ProcessorTemplateHandler();
-        processorTemplateHandler.setFlowController(flowController);
-        final ITemplateHandler processingHandlerChain =
-                createTemplateProcessingHandlerChain(engineContext, true, true, processorTemplateHandler, throttledTemplateWriter);
+            /*
+             * Prepare the context instance that corresponds to this execution of the template engine
+             */
+            final IEngineContext engineContext =
+                    EngineContextManager.prepareEngineContext(this.configuration, templateData, templateResolutionAttributes, context);
 
 
-        /*
-         * Obtain the parser
-         */
-        final ITemplateParser parser = getParserForTemplateMode(engineContext.getTemplateMode());
+            /*
+             * Create the handler chain to process the data.
+             * This is PARSE + PROCESS, so its called from the TemplateEngine, and the only case in which we should apply
+             * both pre-processors and post-processors (besides creating a last output-to-writer step)
+             */
+            final ProcessorTemplateHandler processorTemplateHandler = new ProcessorTemplateHandler();
+            processorTemplateHandler.setFlowController(flowController);
+            final ITemplateHandler processingHandlerChain =
+                    createTemplateProcessingHandlerChain(engineContext, true, true, processorTemplateHandler, throttledTemplateWriter);
 
 
-        /*
-         * Parse the template into a TemplateModel. Even if we are not using the cache, throttled template processings
-         * will always be processed first into a TemplateModel, so that throttling can then be applied on an
-         * already-in-memory sequence of events
-         */
-        final ModelBuilderTemplateHandler builderHandler = new ModelBuilderTemplateHandler(this.configuration, templateData);
-        parser.parseStandalone(
-                this.configuration,
-                null, template, templateSelectors, templateData.getTemplateResource(),
-                engineContext.getTemplateMode(), templateResolution.getUseDecoupledLogic(), builderHandler);
-        final TemplateModel templateModel = builderHandler.getModel();
+            /*
+             * Obtain the parser
+             */
+            final ITemplateParser parser = getParserForTemplateMode(engineContext.getTemplateMode());
 
 
-        /*
-         * If cache is active, put the cached TemplateModel into cache
-         */
-        if (templateResolution.getValidity().isCacheable() && this.templateCache != null) {
+            /*
+             * Parse the template into a TemplateModel. Even if we are not using the cache, throttled template processings
+             * will always be processed first into a TemplateModel, so that throttling can then be applied on an
+             * already-in-memory sequence of events
+             */
+            final ModelBuilderTemplateHandler builderHandler = new ModelBuilderTemplateHandler(this.configuration, templateData);
+            parser.parseStandalone(
+                    this.configuration,
+                    null, template, templateSelectors, templateData.getTemplateResource(),
+                    engineContext.getTemplateMode(), templateResolution.getUseDecoupledLogic(), builderHandler);
+            final TemplateModel templateModel = builderHandler.getModel();
 
-            // Put the new template into cache
-            this.templateCache.put(cacheKey, templateModel);
 
+            /*
+             * If cache is active, put the cached TemplateModel into cache
+             */
+            if (templateResolution.getValidity().isCacheable() && this.templateCache != null) {
+
+                // Put the new template into cache
+                this.templateCache.put(cacheKey, templateModel);
+
+                // Other threads waiting for this template can go on now
+                finishInFlightParse(cacheKey, inFlightParse, templateModel);
+
+            }
+
+
+            /*
+             * Return the throttled template processor
+             */
+            return new ThrottledTemplateProcessor(
+                    templateSpec, engineContext, templateModel, processingHandlerChain,
+                    processorTemplateHandler, flowController, throttledTemplateWriter);
+
+        } finally {
+            // If not already done, let waiting threads know they will need to parse this template on their own
+            finishInFlightParse(cacheKey, inFlightParse, null);
         }
 
+    }
 
-        /*
-         * Return the throttled template processor
-         */
-        return new ThrottledTemplateProcessor(
-                templateSpec, engineContext, templateModel, processingHandlerChain,
-                processorTemplateHandler, flowController, throttledTemplateWriter);
 
+
+
+
+
+    /*
+     * Single-flight parsing: if enabled, only one thread at a time will be parsing a specific template (identified
+     * by its cache key), and any other threads needing that same template will wait for it to be parsed and cached
+     * instead of parsing it themselves too. This avoids having lots of redundant parsing operations for the same
+     * template when its cache entry is missing (e.g. at startup or after eviction) and there is a high load.
+     */
+
+    private InFlightTemplateParse startInFlightParse(final TemplateCacheKey cacheKey) {
+        if (this.inFlightParses == null) {
+            return null;
+        }
+        final InFlightTemplateParse inFlightParse = new InFlightTemplateParse();
+        final InFlightTemplateParse existing = this.inFlightParses.putIfAbsent(cacheKey, inFlightParse);
+        return (existing == null? inFlightParse : existing);
     }
 
 
+    private static TemplateModel waitForInFlightParse(final InFlightTemplateParse inFlightParse) {
+        if (inFlightParse == null || inFlightParse.isOwnedByCurrentThread()) {
+            // Either there is nothing to wait for, or we are the ones supposed to be parsing
+            return null;
+        }
+        return inFlightParse.waitForModel();
+    }
+
+
+    private void finishInFlightParse(
+            final TemplateCacheKey cacheKey, final InFlightTemplateParse inFlightParse, final TemplateModel templateModel) {
+        if (inFlightParse == null || !inFlightParse.isOwnedByCurrentThread()) {
+            return;
+        }
+        this.inFlightParses.remove(cacheKey, inFlightParse);
+        inFlightParse.finish(templateModel);
+    }
 
 
 
@@ -44,6 +44,9 @@ public final class TemplateModel implements IModel {
     final TemplateData templateData;
     final IEngineTemplateEvent[] queue; // This is final because this IModel is IMMUTABLE
 
+    // Lazily computed when fragments are selected from this (complete, cached) model. See TemplateFragmentIndex
+    volatile TemplateFragmentIndex fragmentIndex = null;
+
 
     // Package-protected constructor, because we don't want anyone creating these objects from outside the engine.
     // If a processor (be it standard or custom-made) wants to create a piece of model, that should be a Model
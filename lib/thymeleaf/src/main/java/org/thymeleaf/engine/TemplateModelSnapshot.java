@@ -0,0 +1,835 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.engine;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+
+import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.Thymeleaf;
+import org.thymeleaf.DialectConfiguration;
+import org.thymeleaf.cache.TemplateCacheKey;
+import org.thymeleaf.model.AttributeValueQuotes;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresource.ITemplateResource;
+
+/*
+ * Binary serialization of cached TemplateModel objects, so that the template cache of a template engine can be
+ * stored into a snapshot file (at build time, or when the application shuts down) and then used for pre-populating
+ * the template cache of a new template engine at initialization time, avoiding the need to parse these templates
+ * again.
+ *
+ * Snapshots are made of a header and a sequence of entries:
+ *
+ *   - The header contains a format version, the Thymeleaf version and a fingerprint of the dialect configuration
+ *     of the engine. If any of them does not match those of the engine loading the snapshot, the whole snapshot
+ *     is considered stale and discarded (parsing results depend on them).
+ *   - Each entry contains a template cache key, the model's template data and its events, plus a fingerprint of
+ *     the contents of the template resource. When loading, templates are resolved again (which is cheap
+ *     compared to parsing) and entries are discarded if the template cannot be resolved anymore, is not
+ *     cacheable, uses decoupled logic or its contents have changed since the snapshot was created.
+ *   - Each entry is preceded by its length and a CRC32 checksum of its contents, so that corrupt entries can
+ *     be detected before they are read. Corrupt snapshots are completely discarded.
+ *
+ * Strings are written in UTF-8 and de-duplicated by means of a per-entry string table, and integers are written
+ * as variable-length quantities, which makes snapshots quite compact.
+ *
+ * Only the entries corresponding to templates that can be resolved again are included in snapshots: string
+ * fragments (see TemplateManager#parseString(...)) and entries whose template resolution attributes are not all
+ * of them Strings will be skipped.
+ *
+ * @author Daniel Fernandez
+ * @since 3.1.2
+ *
+ */
+final class TemplateModelSnapshot {
+
+    private static final int MAGIC = 0x54484D53; // "THMS"
+    private static final int FORMAT_VERSION = 2;
+
+    private static final byte EVENT_TEXT = 1;
+    private static final byte EVENT_COMMENT = 2;
+    private static final byte EVENT_CDATA_SECTION = 3;
+    private static final byte EVENT_DOCTYPE = 4;
+    private static final byte EVENT_XML_DECLARATION = 5;
+    private static final byte EVENT_PROCESSING_INSTRUCTION = 6;
+    private static final byte EVENT_OPEN_ELEMENT_TAG = 7;
+    private static final byte EVENT_CLOSE_ELEMENT_TAG = 8;
+    private static final byte EVENT_STANDALONE_ELEMENT_TAG = 9;
+
+    private static final byte ATTRIBUTES_NULL = 0;
+    private static final byte ATTRIBUTES_EMPTY = 1;
+    private static final byte ATTRIBUTES_PRESENT = 2;
+
+    private static final int STRING_NULL = 0;
+    private static final int STRING_NEW = 1;
+    // Any other value means a reference to an already read string: (index + 2)
+
+    // Serialized entries are read in chunks, so that corrupt lengths do not cause huge allocations
+    private static final int ENTRY_READ_CHUNK_SIZE = 65536;
+
+
+
+
+    /*
+     * Writes the specified entries to the output stream, and returns the number of entries actually written.
+     */
+    static int write(
+            final IEngineConfiguration configuration,
+            final Map<TemplateCacheKey,TemplateModel> entries,
+            final OutputStream outputStream) throws IOException {
+
+        final List<byte[]> serializedEntries = new ArrayList<byte[]>(entries.size());
+        for (final Map.Entry<TemplateCacheKey,TemplateModel> entry : entries.entrySet()) {
+            final byte[] serializedEntry = writeEntry(entry.getKey(), entry.getValue());
+            if (serializedEntry != null) {
+                serializedEntries.add(serializedEntry);
+            }
+        }
+
+        final DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeUTF(Thymeleaf.getVersion());
+        out.writeUTF(computeConfigurationFingerprint(configuration));
+        out.writeInt(serializedEntries.size());
+        for (final byte[] serializedEntry : serializedEntries) {
+            out.writeInt(serializedEntry.length);
+            out.writeInt(computeChecksum(serializedEntry));
+            out.write(serializedEntry);
+        }
+        out.flush();
+
+        return serializedEntries.size();
+
+    }
+
+
+
+
+    /*
+     * Reads the entries in a snapshot, returning them as a map. Entries will already be validated, i.e.
+     * the returned map will contain no stale entries. If the snapshot as a whole is stale, an empty map
+     * will be returned. Any IOExceptions will be raised before any entries are returned, so that a corrupt
+     * snapshot is never partially used. Corrupt data will always be reported as an IOException.
+     */
+    static Map<TemplateCacheKey,TemplateModel> read(
+            final IEngineConfiguration configuration, final TemplateResolver templateResolver,
+            final InputStream inputStream) throws IOException {
+
+        final DataInputStream in = new DataInputStream(inputStream);
+
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Input is not a template model snapshot");
+        }
+        if (in.readInt() != FORMAT_VERSION) {
+            return Collections.emptyMap();
+        }
+        if (!Thymeleaf.getVersion().equals(in.readUTF())) {
+            return Collections.emptyMap();
+        }
+        if (!computeConfigurationFingerprint(configuration).equals(in.readUTF())) {
+            return Collections.emptyMap();
+        }
+
+        final int entryCount = in.readInt();
+        if (entryCount < 0) {
+            throw new IOException("Invalid entry count in template model snapshot: " + entryCount);
+        }
+        final List<byte[]> serializedEntries = new ArrayList<byte[]>(Math.min(entryCount, 1024));
+        for (int i = 0; i < entryCount; i++) {
+            serializedEntries.add(readSerializedEntry(in));
+        }
+
+        final Map<TemplateCacheKey,TemplateModel> entries = new LinkedHashMap<TemplateCacheKey, TemplateModel>();
+        for (final byte[] serializedEntry : serializedEntries) {
+            try {
+                readEntry(configuration, templateResolver, serializedEntry, entries);
+            } catch (final RuntimeException e) {
+                // Data that passes all format checks might still be rejected by the event constructors
+                throw new IOException("Corrupt entry in template model snapshot", e);
+            }
+        }
+        return entries;
+
+    }
+
+
+
+
+    private static byte[] readSerializedEntry(final DataInputStream in) throws IOException {
+
+        final int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Invalid entry length in template model snapshot: " + length);
+        }
+        final int checksum = in.readInt();
+
+        final byte[] serializedEntry = readBytes(in, length);
+        if (computeChecksum(serializedEntry) != checksum) {
+            throw new IOException("Checksum mismatch for entry in template model snapshot");
+        }
+        return serializedEntry;
+
+    }
+
+
+    private static byte[] readBytes(final DataInputStream in, final int length) throws IOException {
+
+        if (length <= ENTRY_READ_CHUNK_SIZE) {
+            final byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            return bytes;
+        }
+
+        // Large (or corrupt) lengths: memory will only grow as long as there actually is data to be read
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream(ENTRY_READ_CHUNK_SIZE);
+        final byte[] chunk = new byte[ENTRY_READ_CHUNK_SIZE];
+        int remaining = length;
+        while (remaining > 0) {
+            final int chunkSize = Math.min(remaining, ENTRY_READ_CHUNK_SIZE);
+            in.readFully(chunk, 0, chunkSize);
+            baos.write(chunk, 0, chunkSize);
+            remaining -= chunkSize;
+        }
+        return baos.toByteArray();
+
+    }
+
+
+
+
+    private static byte[] writeEntry(final TemplateCacheKey key, final TemplateModel model) throws IOException {
+
+        final TemplateData templateData = model.getTemplateData();
+
+        // Only standalone templates (not string fragments) can be resolved again when loading the snapshot
+        if (key.getLineOffset() != 0 || key.getColOffset() != 0 || !key.getTemplate().equals(templateData.getTemplate())) {
+            return null;
+        }
+        final Map<String,Object> templateResolutionAttributes = key.getTemplateResolutionAttributes();
+        if (templateResolutionAttributes != null) {
+            for (final Object value : templateResolutionAttributes.values()) {
+                if (value != null && !(value instanceof String)) {
+                    return null;
+                }
+            }
+        }
+        if (templateData.getTemplateResource() == null) {
+            return null;
+        }
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream(256);
+        final EntryOutput out = new EntryOutput(baos);
+
+        out.writeString(key.getOwnerTemplate());
+        out.writeString(key.getTemplate());
+        out.writeStringSet(key.getTemplateSelectors());
+        out.writeString(key.getTemplateMode() == null? null : key.getTemplateMode().name());
+        if (templateResolutionAttributes == null) {
+            out.writeVarInt(0);
+        } else {
+            out.writeVarInt(templateResolutionAttributes.size() + 1);
+            for (final Map.Entry<String,Object> attribute : templateResolutionAttributes.entrySet()) {
+                out.writeString(attribute.getKey());
+                out.writeString((String) attribute.getValue());
+            }
+        }
+
+        out.writeStringSet(templateData.getTemplateSelectors());
+        out.writeString(templateData.getTemplateMode().name());
+        out.writeLong(computeResourceFingerprint(templateData.getTemplateResource()));
+
+        // First and last events are always TemplateStart and TemplateEnd
+        final IEngineTemplateEvent[] queue = model.queue;
+        out.writeVarInt(queue.length - 2);
+        for (int i = 1; i < queue.length - 1; i++) {
+            if (!writeEvent(out, queue[i])) {
+                // Unknown type of event, this model cannot be included in the snapshot
+                return null;
+            }
+        }
+
+        out.flush();
+        return baos.toByteArray();
+
+    }
+
+
+
+
+    private static void readEntry(
+            final IEngineConfiguration configuration, final TemplateResolver templateResolver,
+            final byte[] serializedEntry, final Map<TemplateCacheKey,TemplateModel> entries) throws IOException {
+
+        final EntryInput in = new EntryInput(new ByteArrayInputStream(serializedEntry));
+
+        final String ownerTemplate = in.readString();
+        final String template = in.readString();
+        final Set<String> templateSelectors = in.readStringSet();
+        final String templateModeName = in.readString();
+        final TemplateMode templateMode = (templateModeName == null? null : toTemplateMode(templateModeName));
+        final int templateResolutionAttributesSize = in.readCount();
+        final Map<String,Object> templateResolutionAttributes;
+        if (templateResolutionAttributesSize == 0) {
+            templateResolutionAttributes = null;
+        } else {
+            templateResolutionAttributes = new HashMap<String, Object>(templateResolutionAttributesSize + 1, 1.0f);
+            for (int i = 0; i < templateResolutionAttributesSize - 1; i++) {
+                templateResolutionAttributes.put(in.readString(), in.readString());
+            }
+        }
+
+        final Set<String> templateDataSelectors = in.readStringSet();
+        final TemplateMode templateDataMode = toTemplateMode(in.readString());
+        final long resourceFingerprint = in.readLong();
+
+
+        /*
+         * Validate the entry by resolving the template again and checking that resolution produces the same
+         * template data, and that the contents of the template resource have not changed. Templates that cannot
+         * be resolved or read anymore (e.g. they have been deleted) only invalidate their own entries.
+         */
+        final TemplateData templateData;
+        try {
+            templateData =
+                    templateResolver.resolve(ownerTemplate, template, templateSelectors, templateMode, templateResolutionAttributes);
+        } catch (final RuntimeException e) {
+            return;
+        }
+        if (templateData == null ||
+                templateData.getTemplateMode() != templateDataMode ||
+                !equalSets(templateData.getTemplateSelectors(), templateDataSelectors)) {
+            return;
+        }
+        final long currentResourceFingerprint;
+        try {
+            currentResourceFingerprint = computeResourceFingerprint(templateData.getTemplateResource());
+        } catch (final IOException | RuntimeException e) {
+            return;
+        }
+        if (currentResourceFingerprint != resourceFingerprint) {
+            return;
+        }
+
+
+        /*
+         * Rebuild the events
+         */
+        final int eventCount = in.readCount();
+        final IEngineTemplateEvent[] queue = new IEngineTemplateEvent[eventCount + 2];
+        queue[0] = TemplateStart.TEMPLATE_START_INSTANCE;
+        for (int i = 1; i <= eventCount; i++) {
+            queue[i] = readEvent(configuration, in);
+        }
+        queue[queue.length - 1] = TemplateEnd.TEMPLATE_END_INSTANCE;
+
+        final TemplateCacheKey key =
+                new TemplateCacheKey(
+                        ownerTemplate, template, templateSelectors, 0, 0, templateMode, templateResolutionAttributes);
+
+        entries.put(key, new TemplateModel(configuration, templateData, queue));
+
+    }
+
+
+
+
+    private static boolean writeEvent(final EntryOutput out, final IEngineTemplateEvent event) throws IOException {
+
+        if (event instanceof Text) {
+            out.writeByte(EVENT_TEXT);
+            out.writeString(((Text) event).getText());
+        } else if (event instanceof Comment) {
+            final Comment comment = (Comment) event;
+            out.writeByte(EVENT_COMMENT);
+            out.writeString(comment.prefix);
+            out.writeString(comment.getContent());
+            out.writeString(comment.suffix);
+        } else if (event instanceof CDATASection) {
+            final CDATASection cdataSection = (CDATASection) event;
+            out.writeByte(EVENT_CDATA_SECTION);
+            out.writeString(cdataSection.prefix);
+            out.writeString(cdataSection.getContent());
+            out.writeString(cdataSection.suffix);
+        } else if (event instanceof DocType) {
+            final DocType docType = (DocType) event;
+            out.writeByte(EVENT_DOCTYPE);
+            out.writeString(docType.getDocType());
+            out.writeString(docType.getKeyword());
+            out.writeString(docType.getElementName());
+            out.writeString(docType.getPublicId());
+            out.writeString(docType.getSystemId());
+            out.writeString(docType.getInternalSubset());
+        } else if (event instanceof XMLDeclaration) {
+            final XMLDeclaration xmlDeclaration = (XMLDeclaration) event;
+            out.writeByte(EVENT_XML_DECLARATION);
+            out.writeString(xmlDeclaration.getXmlDeclaration());
+            out.writeString(xmlDeclaration.getKeyword());
+            out.writeString(xmlDeclaration.getVersion());
+            out.writeString(xmlDeclaration.getEncoding());
+            out.writeString(xmlDeclaration.getStandalone());
+        } else if (event instanceof ProcessingInstruction) {
+            final ProcessingInstruction processingInstruction = (ProcessingInstruction) event;
+            out.writeByte(EVENT_PROCESSING_INSTRUCTION);
+            out.writeString(processingInstruction.getProcessingInstruction());
+            out.writeString(processingInstruction.getTarget());
+            out.writeString(processingInstruction.getContent());
+        } else if (event instanceof OpenElementTag) {
+            final OpenElementTag tag = (OpenElementTag) event;
+            out.writeByte(EVENT_OPEN_ELEMENT_TAG);
+            writeElementTag(out, tag);
+            writeAttributes(out, tag.attributes);
+        } else if (event instanceof StandaloneElementTag) {
+            final StandaloneElementTag tag = (StandaloneElementTag) event;
+            out.writeByte(EVENT_STANDALONE_ELEMENT_TAG);
+            writeElementTag(out, tag);
+            writeAttributes(out, tag.attributes);
+            out.writeBoolean(tag.minimized);
+        } else if (event instanceof CloseElementTag) {
+            final CloseElementTag tag = (CloseElementTag) event;
+            out.writeByte(EVENT_CLOSE_ELEMENT_TAG);
+            writeElementTag(out, tag);
+            out.writeString(tag.trailingWhiteSpace);
+            out.writeBoolean(tag.unmatched);
+        } else {
+            return false;
+        }
+
+        final AbstractTemplateEvent templateEvent = (AbstractTemplateEvent) event;
+        out.writeString(templateEvent.templateName);
+        out.writeVarInt(templateEvent.line);
+        out.writeVarInt(templateEvent.col);
+
+        return true;
+
+    }
+
+
+    private static void writeElementTag(final EntryOutput out, final AbstractElementTag tag) throws IOException {
+        out.writeString(tag.templateMode.name());
+        out.writeString(tag.elementCompleteName);
+        out.writeBoolean(tag.synthetic);
+    }
+
+
+    private static void writeAttributes(final EntryOutput out, final Attributes attributes) throws IOException {
+
+        if (attributes == null) {
+            out.writeByte(ATTRIBUTES_NULL);
+            return;
+        }
+        if (attributes == Attributes.EMPTY_ATTRIBUTES) {
+            out.writeByte(ATTRIBUTES_EMPTY);
+            return;
+        }
+
+        out.writeByte(ATTRIBUTES_PRESENT);
+
+        if (attributes.attributes == null) {
+            out.writeVarInt(0);
+        } else {
+            out.writeVarInt(attributes.attributes.length + 1);
+            for (final Attribute attribute : attributes.attributes) {
+                out.writeString(attribute.completeName);
+                out.writeString(attribute.operator);
+                out.writeString(attribute.value);
+                out.writeString(attribute.valueQuotes == null? null : attribute.valueQuotes.name());
+                out.writeString(attribute.templateName);
+                out.writeVarInt(attribute.line);
+                out.writeVarInt(attribute.col);
+            }
+        }
+
+        if (attributes.innerWhiteSpaces == null) {
+            out.writeVarInt(0);
+        } else {
+            out.writeVarInt(attributes.innerWhiteSpaces.length + 1);
+            for (final String innerWhiteSpace : attributes.innerWhiteSpaces) {
+                out.writeString(innerWhiteSpace);
+            }
+        }
+
+    }
+
+
+
+
+    private static IEngineTemplateEvent readEvent(final IEngineConfiguration configuration, final EntryInput in) throws IOException {
+
+        final byte type = in.readByte();
+
+        switch (type) {
+
+            case EVENT_TEXT: {
+                final String text = in.readString();
+                return new Text(text, in.readString(), in.readVarInt(), in.readVarInt());
+            }
+            case EVENT_COMMENT: {
+                final String prefix = in.readString();
+                final String content = in.readString();
+                final String suffix = in.readString();
+                return new Comment(prefix, content, suffix, in.readString(), in.readVarInt(), in.readVarInt());
+            }
+            case EVENT_CDATA_SECTION: {
+                final String prefix = in.readString();
+                final String content = in.readString();
+                final String suffix = in.readString();
+                return new CDATASection(prefix, content, suffix, in.readString(), in.readVarInt(), in.readVarInt());
+            }
+            case EVENT_DOCTYPE: {
+                final String docType = in.readString();
+                final String keyword = in.readString();
+                final String elementName = in.readString();
+                final String publicId = in.readString();
+                final String systemId = in.readString();
+                final String internalSubset = in.readString();
+                return new DocType(
+                        docType, keyword, elementName, publicId, systemId, internalSubset,
+                        in.readString(), in.readVarInt(), in.readVarInt());
+            }
+            case EVENT_XML_DECLARATION: {
+                final String xmlDeclaration = in.readString();
+                final String keyword = in.readString();
+                final String version = in.readString();
+                final String encoding = in.readString();
+                final String standalone = in.readString();
+                return new XMLDeclaration(
+                        xmlDeclaration, keyword, version, encoding, standalone,
+                        in.readString(), in.readVarInt(), in.readVarInt());
+            }
+            case EVENT_PROCESSING_INSTRUCTION: {
+                final String processingInstruction = in.readString();
+                final String target = in.readString();
+                final String content = in.readString();
+                return new ProcessingInstruction(
+                        processingInstruction, target, content, in.readString(), in.readVarInt(), in.readVarInt());
+            }
+            case EVENT_OPEN_ELEMENT_TAG: {
+                final TemplateMode templateMode = toTemplateMode(in.readString());
+                final String elementCompleteName = in.readString();
+                final boolean synthetic = in.readBoolean();
+                final Attributes attributes = readAttributes(configuration, templateMode, in);
+                return new OpenElementTag(
+                        templateMode, configuration.getElementDefinitions().forName(templateMode, elementCompleteName),
+                        elementCompleteName, attributes, synthetic, in.readString(), in.readVarInt(), in.readVarInt());
+            }
+            case EVENT_STANDALONE_ELEMENT_TAG: {
+                final TemplateMode templateMode = toTemplateMode(in.readString());
+                final String elementCompleteName = in.readString();
+                final boolean synthetic = in.readBoolean();
+                final Attributes attributes = readAttributes(configuration, templateMode, in);
+                final boolean minimized = in.readBoolean();
+                return new StandaloneElementTag(
+                        templateMode, configuration.getElementDefinitions().forName(templateMode, elementCompleteName),
+                        elementCompleteName, attributes, synthetic, minimized, in.readString(), in.readVarInt(), in.readVarInt());
+            }
+            case EVENT_CLOSE_ELEMENT_TAG: {
+                final TemplateMode templateMode = toTemplateMode(in.readString());
+                final String elementCompleteName = in.readString();
+                final boolean synthetic = in.readBoolean();
+                final String trailingWhiteSpace = in.readString();
+                final boolean unmatched = in.readBoolean();
+                return new CloseElementTag(
+                        templateMode, configuration.getElementDefinitions().forName(templateMode, elementCompleteName),
+                        elementCompleteName, trailingWhiteSpace, synthetic, unmatched, in.readString(), in.readVarInt(), in.readVarInt());
+            }
+            default:
+                throw new IOException("Unknown event type in template model snapshot: " + type);
+
+        }
+
+    }
+
+
+    private static Attributes readAttributes(
+            final IEngineConfiguration configuration, final TemplateMode templateMode, final EntryInput in) throws IOException {
+
+        final byte type = in.readByte();
+        if (type == ATTRIBUTES_NULL) {
+            return null;
+        }
+        if (type == ATTRIBUTES_EMPTY) {
+            return Attributes.EMPTY_ATTRIBUTES;
+        }
+
+        final AttributeDefinitions attributeDefinitions = configuration.getAttributeDefinitions();
+
+        final int attributeCount = in.readCount();
+        final Attribute[] attributes;
+        if (attributeCount == 0) {
+            attributes = null;
+        } else {
+            attributes = new Attribute[attributeCount - 1];
+            for (int i = 0; i < attributes.length; i++) {
+                final String completeName = in.readString();
+                final String operator = in.readString();
+                final String value = in.readString();
+                final String valueQuotes = in.readString();
+                attributes[i] =
+                        new Attribute(
+                                attributeDefinitions.forName(templateMode, completeName), completeName, operator, value,
+                                (valueQuotes == null? null : toAttributeValueQuotes(valueQuotes)),
+                                in.readString(), in.readVarInt(), in.readVarInt());
+            }
+        }
+
+        final int innerWhiteSpaceCount = in.readCount();
+        final String[] innerWhiteSpaces;
+        if (innerWhiteSpaceCount == 0) {
+            innerWhiteSpaces = null;
+        } else {
+            innerWhiteSpaces = new String[innerWhiteSpaceCount - 1];
+            for (int i = 0; i < innerWhiteSpaces.length; i++) {
+                innerWhiteSpaces[i] = in.readString();
+            }
+        }
+
+        return new Attributes(attributes, innerWhiteSpaces);
+
+    }
+
+
+
+
+    private static TemplateMode toTemplateMode(final String name) throws IOException {
+        if (name == null) {
+            throw new IOException("Missing template mode in template model snapshot");
+        }
+        try {
+            return TemplateMode.valueOf(name);
+        } catch (final IllegalArgumentException e) {
+            throw new IOException("Unknown template mode in template model snapshot: " + name);
+        }
+    }
+
+
+    private static AttributeValueQuotes toAttributeValueQuotes(final String name) throws IOException {
+        try {
+            return AttributeValueQuotes.valueOf(name);
+        } catch (final IllegalArgumentException e) {
+            throw new IOException("Unknown attribute value quotes in template model snapshot: " + name);
+        }
+    }
+
+
+
+
+    private static String computeConfigurationFingerprint(final IEngineConfiguration configuration) {
+        // Parsing results depend on the dialects being used (and their prefixes), e.g. because of inlining
+        final TreeSet<String> dialects = new TreeSet<String>();
+        for (final DialectConfiguration dialectConfiguration : configuration.getDialectConfigurations()) {
+            dialects.add(dialectConfiguration.getDialect().getClass().getName() + ":" + dialectConfiguration.getPrefix());
+        }
+        return dialects.toString();
+    }
+
+
+    private static long computeResourceFingerprint(final ITemplateResource resource) throws IOException {
+        // 64-bit FNV-1a hash of the resource contents
+        long hash = 0xcbf29ce484222325L;
+        final Reader reader = resource.reader();
+        try {
+            final char[] buffer = new char[4096];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    hash ^= buffer[i];
+                    hash *= 0x100000001b3L;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return hash;
+    }
+
+
+    private static int computeChecksum(final byte[] serializedEntry) {
+        final CRC32 crc = new CRC32();
+        crc.update(serializedEntry, 0, serializedEntry.length);
+        return (int) crc.getValue();
+    }
+
+
+    private static boolean equalSets(final Set<String> set1, final Set<String> set2) {
+        if (set1 == null || set1.isEmpty()) {
+            return (set2 == null || set2.isEmpty());
+        }
+        return set1.equals(set2);
+    }
+
+
+
+
+    /*
+     * Resolves templates when loading a snapshot (implemented by TemplateManager). Should return null if the
+     * template cannot be resolved or is not cacheable or, in general, if its model should not be loaded
+     * from a snapshot.
+     */
+    interface TemplateResolver {
+
+        TemplateData resolve(
+                final String ownerTemplate, final String template, final Set<String> templateSelectors,
+                final TemplateMode templateMode, final Map<String,Object> templateResolutionAttributes);
+
+    }
+
+
+
+
+    private static final class EntryOutput extends DataOutputStream {
+
+        private final Map<String,Integer> strings = new HashMap<String, Integer>();
+
+        EntryOutput(final OutputStream out) {
+            super(out);
+        }
+
+        void writeString(final String str) throws IOException {
+            if (str == null) {
+                writeVarInt(STRING_NULL);
+                return;
+            }
+            final Integer index = this.strings.get(str);
+            if (index != null) {
+                writeVarInt(index.intValue() + 2);
+                return;
+            }
+            this.strings.put(str, Integer.valueOf(this.strings.size()));
+            final byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(STRING_NEW);
+            writeVarInt(bytes.length);
+            write(bytes);
+        }
+
+        void writeStringSet(final Set<String> set) throws IOException {
+            if (set == null) {
+                writeVarInt(0);
+                return;
+            }
+            writeVarInt(set.size() + 1);
+            for (final String str : set) {
+                writeString(str);
+            }
+        }
+
+        void writeVarInt(final int value) throws IOException {
+            int v = value;
+            while ((v & ~0x7F) != 0) {
+                writeByte((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            writeByte(v);
+        }
+
+    }
+
+
+    private static final class EntryInput extends DataInputStream {
+
+        private final List<String> strings = new ArrayList<String>();
+
+        EntryInput(final InputStream in) {
+            super(in);
+        }
+
+        String readString() throws IOException {
+            final int code = readVarInt();
+            if (code == STRING_NULL) {
+                return null;
+            }
+            if (code != STRING_NEW) {
+                final int index = code - 2;
+                if (index < 0 || index >= this.strings.size()) {
+                    throw new IOException("Invalid string reference in template model snapshot: " + code);
+                }
+                return this.strings.get(index);
+            }
+            final byte[] bytes = new byte[readCount()];
+            readFully(bytes);
+            final String str = new String(bytes, StandardCharsets.UTF_8);
+            this.strings.add(str);
+            return str;
+        }
+
+        Set<String> readStringSet() throws IOException {
+            final int size = readCount();
+            if (size == 0) {
+                return null;
+            }
+            if (size == 2) {
+                return Collections.singleton(readString());
+            }
+            // Template selectors are always ordered (see TemplateManager), so we need to use a TreeSet
+            final TreeSet<String> set = new TreeSet<String>();
+            for (int i = 0; i < size - 1; i++) {
+                set.add(readString());
+            }
+            return Collections.unmodifiableSet(set);
+        }
+
+        /*
+         * Reads a length or count (of bytes, strings, events...). As every element takes at least one byte, a
+         * valid value can never be greater than the number of bytes left in the entry.
+         */
+        int readCount() throws IOException {
+            final int count = readVarInt();
+            if (count < 0 || count > available() + 1) {
+                throw new IOException("Invalid length or count in template model snapshot: " + count);
+            }
+            return count;
+        }
+
+        int readVarInt() throws IOException {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (shift > 28) {
+                    throw new IOException("Malformed variable-length integer in template model snapshot");
+                }
+                b = readByte();
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+    }
+
+
+}
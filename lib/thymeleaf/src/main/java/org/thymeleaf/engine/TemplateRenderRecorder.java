@@ -0,0 +1,178 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.engine;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Set;
+
+import org.thymeleaf.instrumentation.ITemplateInstrumentation;
+import org.thymeleaf.instrumentation.TemplateRenderPhase;
+import org.thymeleaf.templatemode.TemplateMode;
+
+/*
+ * Measures the phases of the rendering of a template and reports them to the configured
+ * ITemplateInstrumentation. Objects of this class are only created when instrumentation is enabled, and are
+ * used from a single thread.
+ *
+ * Output is measured by wrapping the output writer, accumulating the number of characters written and the time
+ * spent inside the writer, which will be reported as the OUTPUT phase and subtracted from the PROCESS phase.
+ *
+ * @author Daniel Fernandez
+ * @since 3.1.2
+ *
+ */
+final class TemplateRenderRecorder {
+
+    private final ITemplateInstrumentation instrumentation;
+    private final String template;
+    private final Set<String> templateSelectors;
+    private final RecordingWriter writer;
+    private final long startNanos;
+
+    private TemplateMode templateMode;
+    private boolean cached = false;
+    private long phaseStartNanos;
+
+
+
+    TemplateRenderRecorder(
+            final ITemplateInstrumentation instrumentation,
+            final String template, final Set<String> templateSelectors, final TemplateMode templateMode,
+            final Writer writer) {
+        super();
+        this.instrumentation = instrumentation;
+        this.template = template;
+        this.templateSelectors = templateSelectors;
+        this.templateMode = templateMode;
+        this.writer = new RecordingWriter(writer);
+        this.startNanos = System.nanoTime();
+        this.phaseStartNanos = this.startNanos;
+    }
+
+
+    Writer getWriter() {
+        return this.writer;
+    }
+
+
+    void cacheHit(final TemplateMode templateMode) {
+        this.cached = true;
+        this.templateMode = templateMode;
+        this.phaseStartNanos = System.nanoTime();
+    }
+
+
+    void resolved(final TemplateMode templateMode) {
+        this.templateMode = templateMode;
+        phaseCompleted(TemplateRenderPhase.RESOLVE);
+    }
+
+
+    void parsed() {
+        phaseCompleted(TemplateRenderPhase.PARSE);
+    }
+
+
+    void processed() {
+
+        final long now = System.nanoTime();
+        final long outputNanos = this.writer.nanos;
+
+        this.instrumentation.phaseCompleted(
+                this.template, this.templateSelectors, this.templateMode,
+                TemplateRenderPhase.PROCESS, Math.max(0L, (now - this.phaseStartNanos) - outputNanos));
+        this.instrumentation.phaseCompleted(
+                this.template, this.templateSelectors, this.templateMode, TemplateRenderPhase.OUTPUT, outputNanos);
+
+        this.instrumentation.renderCompleted(
+                this.template, this.templateSelectors, this.templateMode, this.cached,
+                now - this.startNanos, this.writer.characters);
+
+    }
+
+
+    void failed(final Throwable failure) {
+        this.instrumentation.renderFailed(
+                this.template, this.templateSelectors, this.templateMode, System.nanoTime() - this.startNanos, failure);
+    }
+
+
+    private void phaseCompleted(final TemplateRenderPhase phase) {
+        final long now = System.nanoTime();
+        this.instrumentation.phaseCompleted(
+                this.template, this.templateSelectors, this.templateMode, phase, now - this.phaseStartNanos);
+        this.phaseStartNanos = now;
+    }
+
+
+
+
+    private static final class RecordingWriter extends Writer {
+
+        private final Writer delegate;
+        long characters = 0L;
+        long nanos = 0L;
+
+        RecordingWriter(final Writer delegate) {
+            super();
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(final int c) throws IOException {
+            final long start = System.nanoTime();
+            this.delegate.write(c);
+            this.nanos += System.nanoTime() - start;
+            this.characters++;
+        }
+
+        @Override
+        public void write(final char[] cbuf, final int off, final int len) throws IOException {
+            final long start = System.nanoTime();
+            this.delegate.write(cbuf, off, len);
+            this.nanos += System.nanoTime() - start;
+            this.characters += len;
+        }
+
+        @Override
+        public void write(final String str, final int off, final int len) throws IOException {
+            final long start = System.nanoTime();
+            this.delegate.write(str, off, len);
+            this.nanos += System.nanoTime() - start;
+            this.characters += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            final long start = System.nanoTime();
+            this.delegate.flush();
+            this.nanos += System.nanoTime() - start;
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.delegate.close();
+        }
+
+    }
+
+
+}
@@ -0,0 +1,382 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.instrumentation;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.util.Validate;
+
+/**
+ * <p>
+ *   Implementation of {@link ITemplateInstrumentation} that aggregates the durations of each rendering
+ *   phase, total rendering times and output sizes into in-process histograms, per template.
+ * </p>
+ * <p>
+ *   Histograms use power-of-two buckets (i.e. each bucket covers values from {@code 2^(n-1)} to
+ *   {@code 2^n - 1}), so recording a value is cheap and does not need any locking, at the cost of
+ *   percentiles being approximations (upper bounds of the bucket they fall into).
+ * </p>
+ * <p>
+ *   Metrics are aggregated by template name plus template selectors (if any), in the form
+ *   {@code template} or {@code template::[selector1, selector2]}. In order to avoid unbounded memory use
+ *   (e.g. when templates are Strings containing the template code itself), a maximum number of different
+ *   templates is tracked (by default {@value #DEFAULT_MAX_TEMPLATES}). Once this limit is reached, metrics
+ *   for new templates will be aggregated under the {@value #OTHER_TEMPLATES} key.
+ * </p>
+ * <p>
+ *   Objects of this class are <strong>thread-safe</strong>.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.1.2
+ *
+ */
+public class HistogramTemplateInstrumentation implements ITemplateInstrumentation {
+
+    public static final int DEFAULT_MAX_TEMPLATES = 1000;
+    public static final String OTHER_TEMPLATES = "[other]";
+
+    private final int maxTemplates;
+    private final ConcurrentHashMap<String,TemplateMetrics> metrics;
+
+
+
+    public HistogramTemplateInstrumentation() {
+        this(DEFAULT_MAX_TEMPLATES);
+    }
+
+
+    public HistogramTemplateInstrumentation(final int maxTemplates) {
+        super();
+        Validate.isTrue(maxTemplates > 0, "Maximum number of templates must be greater than zero");
+        this.maxTemplates = maxTemplates;
+        this.metrics = new ConcurrentHashMap<String, TemplateMetrics>(64);
+    }
+
+
+
+
+    public boolean isEnabled() {
+        return true;
+    }
+
+
+    public void phaseCompleted(
+            final String template, final Set<String> templateSelectors, final TemplateMode templateMode,
+            final TemplateRenderPhase phase, final long durationNanos) {
+        obtainMetrics(template, templateSelectors).phases[phase.ordinal()].record(durationNanos);
+    }
+
+
+    public void renderCompleted(
+            final String template, final Set<String> templateSelectors, final TemplateMode templateMode,
+            final boolean cached, final long durationNanos, final long charactersWritten) {
+        final TemplateMetrics templateMetrics = obtainMetrics(template, templateSelectors);
+        templateMetrics.render.record(durationNanos);
+        templateMetrics.outputSize.record(charactersWritten);
+        if (cached) {
+            templateMetrics.cacheHits.increment();
+        }
+    }
+
+
+    public void renderFailed(
+            final String template, final Set<String> templateSelectors, final TemplateMode templateMode,
+            final long durationNanos, final Throwable failure) {
+        obtainMetrics(template, templateSelectors).failures.increment();
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Returns the keys of all the templates for which metrics have been recorded.
+     * </p>
+     *
+     * @return the template keys, ordered.
+     */
+    public Set<String> getTemplates() {
+        return Collections.unmodifiableSet(new TreeSet<String>(this.metrics.keySet()));
+    }
+
+
+    /**
+     * <p>
+     *   Returns the histogram of the durations (in nanoseconds) of a specific rendering phase for a template.
+     * </p>
+     *
+     * @param template the template key.
+     * @param phase the rendering phase.
+     * @return the histogram, or {@code null} if no metrics have been recorded for the template.
+     */
+    public Histogram getPhaseHistogram(final String template, final TemplateRenderPhase phase) {
+        Validate.notNull(phase, "Phase cannot be null");
+        final TemplateMetrics templateMetrics = this.metrics.get(template);
+        return (templateMetrics == null? null : templateMetrics.phases[phase.ordinal()].snapshot());
+    }
+
+
+    /**
+     * <p>
+     *   Returns the histogram of the total rendering times (in nanoseconds) of a template, for all successful
+     *   renderings.
+     * </p>
+     *
+     * @param template the template key.
+     * @return the histogram, or {@code null} if no metrics have been recorded for the template.
+     */
+    public Histogram getRenderHistogram(final String template) {
+        final TemplateMetrics templateMetrics = this.metrics.get(template);
+        return (templateMetrics == null? null : templateMetrics.render.snapshot());
+    }
+
+
+    /**
+     * <p>
+     *   Returns the histogram of the output sizes (in characters) of a template, for all successful renderings.
+     * </p>
+     *
+     * @param template the template key.
+     * @return the histogram, or {@code null} if no metrics have been recorded for the template.
+     */
+    public Histogram getOutputSizeHistogram(final String template) {
+        final TemplateMetrics templateMetrics = this.metrics.get(template);
+        return (templateMetrics == null? null : templateMetrics.outputSize.snapshot());
+    }
+
+
+    /**
+     * <p>
+     *   Returns the number of renderings of a template that used a template model obtained from the
+     *   template cache.
+     * </p>
+     *
+     * @param template the template key.
+     * @return the number of renderings, or 0 if no metrics have been recorded for the template.
+     */
+    public long getCacheHitCount(final String template) {
+        final TemplateMetrics templateMetrics = this.metrics.get(template);
+        return (templateMetrics == null? 0L : templateMetrics.cacheHits.sum());
+    }
+
+
+    /**
+     * <p>
+     *   Returns the number of failed renderings of a template.
+     * </p>
+     *
+     * @param template the template key.
+     * @return the number of failures, or 0 if no metrics have been recorded for the template.
+     */
+    public long getFailureCount(final String template) {
+        final TemplateMetrics templateMetrics = this.metrics.get(template);
+        return (templateMetrics == null? 0L : templateMetrics.failures.sum());
+    }
+
+
+    /**
+     * <p>
+     *   Removes all recorded metrics.
+     * </p>
+     */
+    public void reset() {
+        this.metrics.clear();
+    }
+
+
+
+
+    private TemplateMetrics obtainMetrics(final String template, final Set<String> templateSelectors) {
+
+        final String key =
+                (templateSelectors == null || templateSelectors.isEmpty()?
+                        template : template + "::" + new LinkedHashSet<String>(templateSelectors));
+
+        TemplateMetrics templateMetrics = this.metrics.get(key);
+        if (templateMetrics != null) {
+            return templateMetrics;
+        }
+
+        // Size might be temporarily exceeded by a few entries due to concurrency, which is not a problem
+        final String definitiveKey = (this.metrics.size() < this.maxTemplates? key : OTHER_TEMPLATES);
+        templateMetrics = this.metrics.get(definitiveKey);
+        if (templateMetrics != null) {
+            return templateMetrics;
+        }
+        final TemplateMetrics newTemplateMetrics = new TemplateMetrics();
+        templateMetrics = this.metrics.putIfAbsent(definitiveKey, newTemplateMetrics);
+        return (templateMetrics == null? newTemplateMetrics : templateMetrics);
+
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Immutable snapshot of a histogram.
+     * </p>
+     * <p>
+     *   Values are recorded into 64 power-of-two buckets: bucket 0 contains value 0, and bucket {@code n}
+     *   contains values from {@code 2^(n-1)} to {@code 2^n - 1}.
+     * </p>
+     *
+     * @since 3.1.2
+     */
+    public static final class Histogram {
+
+        private final long[] bucketCounts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+
+        Histogram(final long[] bucketCounts, final long count, final long sum, final long max) {
+            super();
+            this.bucketCounts = bucketCounts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return this.count;
+        }
+
+        public long getSum() {
+            return this.sum;
+        }
+
+        public long getMax() {
+            return this.max;
+        }
+
+        public double getMean() {
+            return (this.count == 0L? 0.0d : ((double) this.sum / (double) this.count));
+        }
+
+        /**
+         * <p>
+         *   Returns an approximation of the value at the specified percentile: the upper bound of the bucket
+         *   that contains it (or the maximum recorded value, if lower).
+         * </p>
+         *
+         * @param percentile the percentile, between 0 and 100.
+         * @return the approximate value, or 0 if no values have been recorded.
+         */
+        public long getValueAtPercentile(final double percentile) {
+            Validate.isTrue(percentile >= 0.0d && percentile <= 100.0d, "Percentile must be between 0 and 100");
+            long total = 0L;
+            for (final long bucketCount : this.bucketCounts) {
+                total += bucketCount;
+            }
+            if (total == 0L) {
+                return 0L;
+            }
+            final long target = Math.max(1L, (long) Math.ceil((percentile / 100.0d) * total));
+            long accumulated = 0L;
+            for (int i = 0; i < this.bucketCounts.length; i++) {
+                accumulated += this.bucketCounts[i];
+                if (accumulated >= target) {
+                    final long upperBound = (i == 0? 0L : (i >= 63? Long.MAX_VALUE : (1L << i) - 1L));
+                    return Math.min(upperBound, this.max);
+                }
+            }
+            return this.max;
+        }
+
+        public long[] getBucketCounts() {
+            return this.bucketCounts.clone();
+        }
+
+        @Override
+        public String toString() {
+            return "Histogram{count=" + this.count + ", mean=" + getMean() + ", p50=" + getValueAtPercentile(50.0d) +
+                    ", p99=" + getValueAtPercentile(99.0d) + ", max=" + this.max + "}";
+        }
+
+    }
+
+
+
+
+    private static final class HistogramRecorder {
+
+        private static final int BUCKETS = 64;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong max = new AtomicLong(0L);
+
+        void record(final long value) {
+            final long v = Math.max(0L, value);
+            this.buckets.incrementAndGet(Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(v)));
+            this.count.increment();
+            this.sum.add(v);
+            long currentMax;
+            while (v > (currentMax = this.max.get())) {
+                if (this.max.compareAndSet(currentMax, v)) {
+                    break;
+                }
+            }
+        }
+
+        Histogram snapshot() {
+            final long[] bucketCounts = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                bucketCounts[i] = this.buckets.get(i);
+            }
+            return new Histogram(bucketCounts, this.count.sum(), this.sum.sum(), this.max.get());
+        }
+
+    }
+
+
+    private static final class TemplateMetrics {
+
+        final HistogramRecorder[] phases;
+        final HistogramRecorder render = new HistogramRecorder();
+        final HistogramRecorder outputSize = new HistogramRecorder();
+        final LongAdder cacheHits = new LongAdder();
+        final LongAdder failures = new LongAdder();
+
+        TemplateMetrics() {
+            super();
+            this.phases = new HistogramRecorder[TemplateRenderPhase.values().length];
+            for (int i = 0; i < this.phases.length; i++) {
+                this.phases[i] = new HistogramRecorder();
+            }
+        }
+
+    }
+
+
+}
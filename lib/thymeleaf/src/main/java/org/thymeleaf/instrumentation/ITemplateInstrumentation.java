@@ -0,0 +1,119 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.instrumentation;
+
+import java.util.Set;
+
+import org.thymeleaf.templatemode.TemplateMode;
+
+/**
+ * <p>
+ *   Interface to be implemented by objects that want to be notified of the time spent by the template engine
+ *   in each of the phases of the rendering of templates (see {@link TemplateRenderPhase}), along with the
+ *   amount of output produced, so that it can be exported to metrics or monitoring systems.
+ * </p>
+ * <p>
+ *   Instrumentation is configured by means of
+ *   {@link org.thymeleaf.TemplateEngine#setTemplateInstrumentation(ITemplateInstrumentation)}, and by default
+ *   a {@link NoOpTemplateInstrumentation} will be used, which disables all measurements. A
+ *   {@link HistogramTemplateInstrumentation} implementation is also provided that aggregates
+ *   all measurements in-process.
+ * </p>
+ * <p>
+ *   Rendering operations on standalone templates executed by the {@code process(...)} methods of the template engine
+ *   are instrumented. Throttled processing and the processing of fragments inserted into other templates are not
+ *   reported separately (fragment insertion time is part of the {@link TemplateRenderPhase#PROCESS} phase of the
+ *   template they are inserted into).
+ * </p>
+ * <p>
+ *   Methods in this interface will be called from the threads rendering templates, so they should
+ *   return quickly. Implementations of this interface should be <strong>thread-safe</strong>.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.1.2
+ *
+ */
+public interface ITemplateInstrumentation {
+
+    /**
+     * <p>
+     *   Returns whether this instrumentation is enabled. If not, the template engine will not perform any
+     *   measurements at all and none of the other methods in this interface will be called.
+     * </p>
+     * <p>
+     *   This method will be called once at the beginning of each rendering operation.
+     * </p>
+     *
+     * @return {@code true} if instrumentation is enabled, {@code false} if not.
+     */
+    public boolean isEnabled();
+
+    /**
+     * <p>
+     *   Called each time a phase of the rendering of a template has finished.
+     * </p>
+     *
+     * @param template the template being rendered (usually its name).
+     * @param templateSelectors the template selectors being applied, or {@code null} if none.
+     * @param templateMode the template mode, or {@code null} if it is not known yet (i.e. when template
+     *                     resolution fails).
+     * @param phase the phase that has finished.
+     * @param durationNanos the time spent in the phase, in nanoseconds.
+     */
+    public void phaseCompleted(
+            final String template, final Set<String> templateSelectors, final TemplateMode templateMode,
+            final TemplateRenderPhase phase, final long durationNanos);
+
+    /**
+     * <p>
+     *   Called when the rendering of a template has finished successfully.
+     * </p>
+     *
+     * @param template the template being rendered (usually its name).
+     * @param templateSelectors the template selectors being applied, or {@code null} if none.
+     * @param templateMode the template mode.
+     * @param cached whether the template model was obtained from the template cache (i.e. no resolution
+     *               nor parsing were needed).
+     * @param durationNanos the total time spent rendering the template, in nanoseconds.
+     * @param charactersWritten the amount of characters written to output.
+     */
+    public void renderCompleted(
+            final String template, final Set<String> templateSelectors, final TemplateMode templateMode,
+            final boolean cached, final long durationNanos, final long charactersWritten);
+
+    /**
+     * <p>
+     *   Called when the rendering of a template fails.
+     * </p>
+     *
+     * @param template the template being rendered (usually its name).
+     * @param templateSelectors the template selectors being applied, or {@code null} if none.
+     * @param templateMode the template mode, or {@code null} if it is not known yet (i.e. when template
+     *                     resolution fails).
+     * @param durationNanos the time spent until the failure, in nanoseconds.
+     * @param failure the exception or error that made rendering fail.
+     */
+    public void renderFailed(
+            final String template, final Set<String> templateSelectors, final TemplateMode templateMode,
+            final long durationNanos, final Throwable failure);
+
+}
@@ -0,0 +1,72 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.instrumentation;
+
+import java.util.Set;
+
+import org.thymeleaf.templatemode.TemplateMode;
+
+/**
+ * <p>
+ *   No-op implementation of {@link ITemplateInstrumentation}, used by default. Given it reports itself as not
+ *   enabled, the template engine will not perform any measurements when it is being used.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.1.2
+ *
+ */
+public final class NoOpTemplateInstrumentation implements ITemplateInstrumentation {
+
+    public static final NoOpTemplateInstrumentation INSTANCE = new NoOpTemplateInstrumentation();
+
+
+    private NoOpTemplateInstrumentation() {
+        super();
+    }
+
+
+    public boolean isEnabled() {
+        return false;
+    }
+
+
+    public void phaseCompleted(
+            final String template, final Set<String> templateSelectors, final TemplateMode templateMode,
+            final TemplateRenderPhase phase, final long durationNanos) {
+        // Nothing to do
+    }
+
+
+    public void renderCompleted(
+            final String template, final Set<String> templateSelectors, final TemplateMode templateMode,
+            final boolean cached, final long durationNanos, final long charactersWritten) {
+        // Nothing to do
+    }
+
+
+    public void renderFailed(
+            final String template, final Set<String> templateSelectors, final TemplateMode templateMode,
+            final long durationNanos, final Throwable failure) {
+        // Nothing to do
+    }
+
+}
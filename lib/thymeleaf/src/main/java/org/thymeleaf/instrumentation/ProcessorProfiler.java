@@ -0,0 +1,465 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.instrumentation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.thymeleaf.model.ITemplateEvent;
+import org.thymeleaf.processor.IProcessor;
+import org.thymeleaf.processor.cdatasection.ICDATASectionProcessor;
+import org.thymeleaf.processor.comment.ICommentProcessor;
+import org.thymeleaf.processor.doctype.IDocTypeProcessor;
+import org.thymeleaf.processor.element.IElementProcessor;
+import org.thymeleaf.processor.processinginstruction.IProcessingInstructionProcessor;
+import org.thymeleaf.processor.templateboundaries.ITemplateBoundariesProcessor;
+import org.thymeleaf.processor.text.ITextProcessor;
+import org.thymeleaf.processor.xmldeclaration.IXMLDeclarationProcessor;
+import org.thymeleaf.util.ProcessorConfigurationUtils;
+import org.thymeleaf.util.Validate;
+
+/**
+ * <p>
+ *   Profiler that records, for each processor executed by the template engine and for each template location
+ *   (template name and line) it is executed at, the number of invocations and the time spent in them.
+ * </p>
+ * <p>
+ *   Profiling is enabled by setting an instance of this class into the template engine by means of
+ *   {@link org.thymeleaf.TemplateEngine#setProcessorProfiler(ProcessorProfiler)}. When no profiler is set
+ *   (the default), the engine will not perform any measurements at all. Measurements are accumulated until
+ *   {@link #reset()} is called, and can be queried at any moment by means of {@link #getProfiles()},
+ *   {@link #getProcessorProfiles()} or {@link #getReport(int)}.
+ * </p>
+ * <p>
+ *   Measured times are those spent inside the {@code process(...)} method of each processor, which includes the
+ *   evaluation of any expressions (e.g. {@link org.thymeleaf.standard.expression.IStandardExpression}s) executed
+ *   by the processor. They do not include the processing of the markup that processors might produce or
+ *   enable: for example, the time spent in a {@code th:each} processor is the time spent evaluating the
+ *   iterated expression, and the time spent in a {@code th:insert} processor is the time spent resolving
+ *   and obtaining the inserted fragment. The markup resulting from these is processed afterwards, and
+ *   its processors are profiled separately (at their own template locations).
+ * </p>
+ * <p>
+ *   In order to avoid unbounded memory use (e.g. when templates are Strings containing the template code itself),
+ *   a maximum number of processor locations is tracked (by default {@value #DEFAULT_MAX_LOCATIONS}). Once this
+ *   limit is reached, measurements for new locations will be aggregated per processor, without location.
+ * </p>
+ * <p>
+ *   Objects of this class are <strong>thread-safe</strong>.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.1.2
+ *
+ */
+public class ProcessorProfiler {
+
+    public static final int DEFAULT_MAX_LOCATIONS = 10000;
+
+    private final int maxLocations;
+    private final ConcurrentHashMap<ProcessorLocation,ProcessorCounters> counters;
+
+
+
+    public ProcessorProfiler() {
+        this(DEFAULT_MAX_LOCATIONS);
+    }
+
+
+    public ProcessorProfiler(final int maxLocations) {
+        super();
+        Validate.isTrue(maxLocations > 0, "Maximum number of locations must be greater than zero");
+        this.maxLocations = maxLocations;
+        this.counters = new ConcurrentHashMap<ProcessorLocation, ProcessorCounters>(256);
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Records the execution of a processor. This method is called by the template engine each time
+     *   a processor is executed while profiling is enabled.
+     * </p>
+     *
+     * @param processor the processor that was executed.
+     * @param event the template event the processor was executed on (will be used for obtaining
+     *              the template location).
+     * @param durationNanos the time spent in the processor, in nanoseconds.
+     */
+    public void processorExecuted(final IProcessor processor, final ITemplateEvent event, final long durationNanos) {
+
+        final ProcessorLocation location =
+                (event.hasLocation()?
+                        new ProcessorLocation(processor, event.getTemplateName(), event.getLine()) :
+                        new ProcessorLocation(processor, null, -1));
+
+        ProcessorCounters processorCounters = this.counters.get(location);
+        if (processorCounters == null) {
+            // Size might be temporarily exceeded by a few entries due to concurrency, which is not a problem
+            final ProcessorLocation definitiveLocation =
+                    (this.counters.size() < this.maxLocations? location : new ProcessorLocation(processor, null, -1));
+            final ProcessorCounters newProcessorCounters = new ProcessorCounters();
+            processorCounters = this.counters.putIfAbsent(definitiveLocation, newProcessorCounters);
+            if (processorCounters == null) {
+                processorCounters = newProcessorCounters;
+            }
+        }
+
+        processorCounters.record(durationNanos);
+
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Returns the profiles of all the processor executions recorded, per processor and template location,
+     *   ordered by total time (descending).
+     * </p>
+     *
+     * @return the processor profiles.
+     */
+    public List<ProcessorProfile> getProfiles() {
+        final List<ProcessorProfile> profiles = new ArrayList<ProcessorProfile>(this.counters.size());
+        for (final Map.Entry<ProcessorLocation,ProcessorCounters> entry : this.counters.entrySet()) {
+            final ProcessorLocation location = entry.getKey();
+            final ProcessorCounters processorCounters = entry.getValue();
+            profiles.add(
+                    new ProcessorProfile(
+                            location.processor, location.templateName, location.line,
+                            processorCounters.count.sum(), processorCounters.totalNanos.sum(),
+                            processorCounters.maxNanos.get()));
+        }
+        Collections.sort(profiles, ProcessorProfileComparator.INSTANCE);
+        return Collections.unmodifiableList(profiles);
+    }
+
+
+    /**
+     * <p>
+     *   Returns the profiles of all the processors executed, aggregating all the template locations
+     *   they were executed at, ordered by total time (descending). Template name and line will not be
+     *   available in the returned profiles.
+     * </p>
+     *
+     * @return the processor profiles.
+     */
+    public List<ProcessorProfile> getProcessorProfiles() {
+
+        final Map<IProcessor,long[]> aggregated = new IdentityHashMap<IProcessor, long[]>();
+        for (final Map.Entry<ProcessorLocation,ProcessorCounters> entry : this.counters.entrySet()) {
+            final ProcessorCounters processorCounters = entry.getValue();
+            long[] values = aggregated.get(entry.getKey().processor);
+            if (values == null) {
+                values = new long[3];
+                aggregated.put(entry.getKey().processor, values);
+            }
+            values[0] += processorCounters.count.sum();
+            values[1] += processorCounters.totalNanos.sum();
+            values[2] = Math.max(values[2], processorCounters.maxNanos.get());
+        }
+
+        final List<ProcessorProfile> profiles = new ArrayList<ProcessorProfile>(aggregated.size());
+        for (final Map.Entry<IProcessor,long[]> entry : aggregated.entrySet()) {
+            final long[] values = entry.getValue();
+            profiles.add(new ProcessorProfile(entry.getKey(), null, -1, values[0], values[1], values[2]));
+        }
+        Collections.sort(profiles, ProcessorProfileComparator.INSTANCE);
+        return Collections.unmodifiableList(profiles);
+
+    }
+
+
+    /**
+     * <p>
+     *   Returns a human-readable report containing the profiles of the processors that consumed the most time,
+     *   both aggregated per processor and per template location.
+     * </p>
+     *
+     * @param maxEntries the maximum number of entries to be included in each section of the report.
+     * @return the report.
+     */
+    public String getReport(final int maxEntries) {
+
+        Validate.isTrue(maxEntries > 0, "Maximum number of entries must be greater than zero");
+
+        final StringBuilder report = new StringBuilder(256);
+
+        report.append("PROCESSORS\n");
+        appendProfiles(report, getProcessorProfiles(), maxEntries);
+        report.append("LOCATIONS\n");
+        appendProfiles(report, getProfiles(), maxEntries);
+
+        return report.toString();
+
+    }
+
+
+    /*
+     * Processors are registered into the engine configuration wrapped (in order to be linked to their dialects),
+     * and we want profiles to show the processors as they were created by dialects.
+     */
+    private static IProcessor unwrap(final IProcessor processor) {
+        if (processor instanceof IElementProcessor) {
+            return ProcessorConfigurationUtils.unwrap((IElementProcessor) processor);
+        }
+        if (processor instanceof ITextProcessor) {
+            return ProcessorConfigurationUtils.unwrap((ITextProcessor) processor);
+        }
+        if (processor instanceof ITemplateBoundariesProcessor) {
+            return ProcessorConfigurationUtils.unwrap((ITemplateBoundariesProcessor) processor);
+        }
+        if (processor instanceof ICommentProcessor) {
+            return ProcessorConfigurationUtils.unwrap((ICommentProcessor) processor);
+        }
+        if (processor instanceof ICDATASectionProcessor) {
+            return ProcessorConfigurationUtils.unwrap((ICDATASectionProcessor) processor);
+        }
+        if (processor instanceof IDocTypeProcessor) {
+            return ProcessorConfigurationUtils.unwrap((IDocTypeProcessor) processor);
+        }
+        if (processor instanceof IXMLDeclarationProcessor) {
+            return ProcessorConfigurationUtils.unwrap((IXMLDeclarationProcessor) processor);
+        }
+        if (processor instanceof IProcessingInstructionProcessor) {
+            return ProcessorConfigurationUtils.unwrap((IProcessingInstructionProcessor) processor);
+        }
+        return processor;
+    }
+
+
+    private static void appendProfiles(
+            final StringBuilder report, final List<ProcessorProfile> profiles, final int maxEntries) {
+        final int size = Math.min(profiles.size(), maxEntries);
+        for (int i = 0; i < size; i++) {
+            report.append("  ").append(profiles.get(i)).append('\n');
+        }
+        if (profiles.size() > size) {
+            report.append("  (").append(profiles.size() - size).append(" more)\n");
+        }
+    }
+
+
+    /**
+     * <p>
+     *   Removes all the measurements recorded so far.
+     * </p>
+     */
+    public void reset() {
+        this.counters.clear();
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Immutable profile of the executions of a processor, either at a specific template location or
+     *   aggregated for all locations.
+     * </p>
+     *
+     * @since 3.1.2
+     */
+    public static final class ProcessorProfile {
+
+        private final IProcessor processor;
+        private final String templateName;
+        private final int line;
+        private final long invocationCount;
+        private final long totalTimeNanos;
+        private final long maxTimeNanos;
+
+        ProcessorProfile(
+                final IProcessor processor, final String templateName, final int line,
+                final long invocationCount, final long totalTimeNanos, final long maxTimeNanos) {
+            super();
+            this.processor = unwrap(processor);
+            this.templateName = templateName;
+            this.line = line;
+            this.invocationCount = invocationCount;
+            this.totalTimeNanos = totalTimeNanos;
+            this.maxTimeNanos = maxTimeNanos;
+        }
+
+        public IProcessor getProcessor() {
+            return this.processor;
+        }
+
+        /**
+         * <p>
+         *   Returns a description of the processor: its class name plus the element or attribute name
+         *   it matches, for element processors.
+         * </p>
+         *
+         * @return the processor description.
+         */
+        public String getProcessorDescription() {
+            if (this.processor instanceof IElementProcessor) {
+                final IElementProcessor elementProcessor = (IElementProcessor) this.processor;
+                if (elementProcessor.getMatchingAttributeName() != null) {
+                    return this.processor.getClass().getName() + "(" + elementProcessor.getMatchingAttributeName() + ")";
+                }
+                if (elementProcessor.getMatchingElementName() != null) {
+                    return this.processor.getClass().getName() + "(" + elementProcessor.getMatchingElementName() + ")";
+                }
+            }
+            return this.processor.getClass().getName();
+        }
+
+        /**
+         * <p>
+         *   Returns the name of the template the processor was executed at, or {@code null} if the
+         *   location is unknown or this profile aggregates several locations.
+         * </p>
+         *
+         * @return the template name.
+         */
+        public String getTemplateName() {
+            return this.templateName;
+        }
+
+        /**
+         * <p>
+         *   Returns the line the processor was executed at, or {@code -1} if the location is unknown or
+         *   this profile aggregates several locations.
+         * </p>
+         *
+         * @return the line.
+         */
+        public int getLine() {
+            return this.line;
+        }
+
+        public long getInvocationCount() {
+            return this.invocationCount;
+        }
+
+        public long getTotalTimeNanos() {
+            return this.totalTimeNanos;
+        }
+
+        public long getMaxTimeNanos() {
+            return this.maxTimeNanos;
+        }
+
+        public double getMeanTimeNanos() {
+            return (this.invocationCount == 0L? 0.0d : (double)this.totalTimeNanos / (double)this.invocationCount);
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder strBuilder = new StringBuilder(128);
+            strBuilder.append(getProcessorDescription());
+            if (this.templateName != null) {
+                strBuilder.append(" at \"").append(this.templateName).append("\":").append(this.line);
+            }
+            strBuilder.append(" invocations=").append(this.invocationCount);
+            strBuilder.append(" totalNanos=").append(this.totalTimeNanos);
+            strBuilder.append(" maxNanos=").append(this.maxTimeNanos);
+            return strBuilder.toString();
+        }
+
+    }
+
+
+
+
+    private static final class ProcessorLocation {
+
+        final IProcessor processor;
+        final String templateName;
+        final int line;
+
+        ProcessorLocation(final IProcessor processor, final String templateName, final int line) {
+            super();
+            this.processor = unwrap(processor);
+            this.templateName = templateName;
+            this.line = line;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ProcessorLocation)) {
+                return false;
+            }
+            final ProcessorLocation that = (ProcessorLocation) o;
+            return this.processor == that.processor &&
+                    this.line == that.line &&
+                    (this.templateName == null? that.templateName == null : this.templateName.equals(that.templateName));
+        }
+
+        @Override
+        public int hashCode() {
+            int result = System.identityHashCode(this.processor);
+            result = 31 * result + (this.templateName != null? this.templateName.hashCode() : 0);
+            result = 31 * result + this.line;
+            return result;
+        }
+
+    }
+
+
+
+
+    private static final class ProcessorCounters {
+
+        final LongAdder count = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong(0L);
+
+        void record(final long durationNanos) {
+            this.count.increment();
+            this.totalNanos.add(durationNanos);
+            long max;
+            while (durationNanos > (max = this.maxNanos.get()) && !this.maxNanos.compareAndSet(max, durationNanos)) {
+                // Retry until we either set the new max or someone else sets a greater one
+            }
+        }
+
+    }
+
+
+
+
+    private static final class ProcessorProfileComparator implements Comparator<ProcessorProfile> {
+
+        static final ProcessorProfileComparator INSTANCE = new ProcessorProfileComparator();
+
+        public int compare(final ProcessorProfile o1, final ProcessorProfile o2) {
+            return Long.compare(o2.totalTimeNanos, o1.totalTimeNanos);
+        }
+
+    }
+
+
+}
@@ -0,0 +1,57 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.instrumentation;
+
+/**
+ * <p>
+ *   Phases of the rendering of a template, as reported to {@link ITemplateInstrumentation} implementations.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.1.2
+ *
+ */
+public enum TemplateRenderPhase {
+
+    /**
+     * Resolution of the template by the configured template resolvers.
+     */
+    RESOLVE,
+
+    /**
+     * Parsing of the template into a template model. Only reported for cacheable templates that are not already
+     * in the template cache: non-cacheable templates are parsed and processed at the same time, so their parsing
+     * time will be reported as part of the {@link #PROCESS} phase.
+     */
+    PARSE,
+
+    /**
+     * Processing of the template (execution of processors, evaluation of expressions, etc.), not including
+     * the time spent writing output.
+     */
+    PROCESS,
+
+    /**
+     * Time spent writing output to the output writer during processing.
+     */
+    OUTPUT
+
+}
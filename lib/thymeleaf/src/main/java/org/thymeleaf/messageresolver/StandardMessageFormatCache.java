@@ -0,0 +1,338 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.messageresolver;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ *   Bounded cache of the compiled message formats used by {@link StandardMessageResolver} (and therefore also by
+ *   origin-based message resolution in Spring environments) for formatting messages with their parameters, so
+ *   that message patterns do not need to be parsed again each time a parameterized message is resolved.
+ * </p>
+ * <p>
+ *   Formats are cached by message pattern and locale. Patterns that only contain simple placeholders
+ *   (like {@code "Hello {0}, you have {1} new messages"}) are compiled into a list of literal and argument
+ *   segments that are formatted without using {@link MessageFormat} at all, as long as the arguments being
+ *   applied need no number or date formatting. Any other patterns (or arguments) are formatted by means of a
+ *   {@link MessageFormat} that is parsed only once, and cloned for each use (as {@link MessageFormat} objects are
+ *   not thread-safe). In both cases, results are exactly the same as those of
+ *   {@code new MessageFormat(pattern, locale).format(arguments)}.
+ * </p>
+ * <p>
+ *   A maximum of {@value #MAX_SIZE} formats will be cached: once this limit is reached, formats for new
+ *   combinations of pattern and locale will be created (and discarded) each time they are needed.
+ * </p>
+ * <p>
+ *   Hit and miss counts are kept so that the effectiveness of this cache can be monitored.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.1.2
+ */
+public final class StandardMessageFormatCache {
+
+    public static final int MAX_SIZE = 512;
+
+    // Same limit as applied by MessageFormat, which will raise an exception for higher indexes
+    private static final int MAX_ARGUMENT_INDEX = 10000;
+
+    private static final ConcurrentHashMap<FormatKey,CompiledMessageFormat> formats =
+            new ConcurrentHashMap<FormatKey, CompiledMessageFormat>(32, 0.9f, 2);
+
+    private static final LongAdder hitCount = new LongAdder();
+    private static final LongAdder missCount = new LongAdder();
+
+
+
+
+    static String format(final String pattern, final Locale locale, final Object[] arguments) {
+
+        final FormatKey key = new FormatKey(pattern, locale);
+
+        CompiledMessageFormat format = formats.get(key);
+        if (format != null) {
+            hitCount.increment();
+            return format.format(arguments);
+        }
+        missCount.increment();
+
+        // Invalid patterns will raise the same exception as MessageFormat, and will not be cached
+        format = CompiledMessageFormat.compile(pattern, locale);
+        if (formats.size() < MAX_SIZE) {
+            // Size might be temporarily exceeded by a few entries due to concurrency, which is not a problem
+            final CompiledMessageFormat existingFormat = formats.putIfAbsent(key, format);
+            if (existingFormat != null) {
+                format = existingFormat;
+            }
+        }
+        return format.format(arguments);
+
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Returns the number of times a message format was found in the cache.
+     * </p>
+     *
+     * @return the hit count.
+     */
+    public static long getHitCount() {
+        return hitCount.sum();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the number of times a message format was not found in the cache, and therefore had to be compiled.
+     * </p>
+     *
+     * @return the miss count.
+     */
+    public static long getMissCount() {
+        return missCount.sum();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the number of message formats currently in the cache.
+     * </p>
+     *
+     * @return the cache size.
+     */
+    public static int getSize() {
+        return formats.size();
+    }
+
+
+    /**
+     * <p>
+     *   Removes all message formats from the cache and resets hit and miss counts.
+     * </p>
+     */
+    public static void clear() {
+        formats.clear();
+        hitCount.reset();
+        missCount.reset();
+    }
+
+
+
+
+    private StandardMessageFormatCache() {
+        super();
+    }
+
+
+
+
+    private static final class CompiledMessageFormat {
+
+        private final String pattern;
+        private final Locale locale;
+        // Literal segments are Strings and argument segments are Integers. Null if the pattern is not simple.
+        private final Object[] segments;
+        // Only created if the pattern is not simple, or the first time it is needed otherwise
+        private volatile MessageFormat messageFormat;
+
+
+        static CompiledMessageFormat compile(final String pattern, final Locale locale) {
+            final Object[] segments = computeSimpleSegments(pattern);
+            final MessageFormat messageFormat = (segments == null? new MessageFormat(pattern, locale) : null);
+            return new CompiledMessageFormat(pattern, locale, segments, messageFormat);
+        }
+
+
+        private CompiledMessageFormat(
+                final String pattern, final Locale locale, final Object[] segments, final MessageFormat messageFormat) {
+            super();
+            this.pattern = pattern;
+            this.locale = locale;
+            this.segments = segments;
+            this.messageFormat = messageFormat;
+        }
+
+
+        String format(final Object[] arguments) {
+
+            if (this.segments == null || needsFormatting(this.segments, arguments)) {
+                MessageFormat format = this.messageFormat;
+                if (format == null) {
+                    format = new MessageFormat(this.pattern, this.locale);
+                    this.messageFormat = format;
+                }
+                // MessageFormat objects are not thread-safe, so we cannot use the cached one directly
+                return ((MessageFormat) format.clone()).format(arguments);
+            }
+
+            if (this.segments.length == 1 && this.segments[0] instanceof String) {
+                // No arguments at all: no need to copy anything
+                return (String) this.segments[0];
+            }
+
+            final StringBuilder strBuilder = new StringBuilder(this.pattern.length() + 16);
+            for (final Object segment : this.segments) {
+                if (segment instanceof String) {
+                    strBuilder.append((String) segment);
+                    continue;
+                }
+                final int argumentIndex = ((Integer) segment).intValue();
+                if (arguments == null || argumentIndex >= arguments.length) {
+                    // Same as MessageFormat: missing arguments are output as their placeholders
+                    strBuilder.append('{').append(argumentIndex).append('}');
+                    continue;
+                }
+                final Object argument = arguments[argumentIndex];
+                strBuilder.append(argument == null? "null" : argument.toString());
+            }
+            return strBuilder.toString();
+
+        }
+
+
+        /*
+         * Numbers and dates are formatted by MessageFormat in a locale-dependent way, so in such case we will
+         * let MessageFormat do its job.
+         */
+        private static boolean needsFormatting(final Object[] segments, final Object[] arguments) {
+            if (arguments == null) {
+                return false;
+            }
+            for (final Object segment : segments) {
+                if (segment instanceof Integer) {
+                    final int argumentIndex = ((Integer) segment).intValue();
+                    if (argumentIndex < arguments.length &&
+                            (arguments[argumentIndex] instanceof Number || arguments[argumentIndex] instanceof Date)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+
+        /*
+         * Splits the pattern into literal and argument segments if it only contains simple argument placeholders
+         * (e.g. {0}) and no quotes. Returns null otherwise.
+         */
+        private static Object[] computeSimpleSegments(final String pattern) {
+
+            final int len = pattern.length();
+            final List<Object> segments = new ArrayList<Object>(4);
+
+            int literalStart = 0;
+            int i = 0;
+            while (i < len) {
+
+                final char c = pattern.charAt(i);
+
+                if (c == '\'') {
+                    return null;
+                }
+
+                if (c != '{') {
+                    // Note unmatched closing braces are considered literals by MessageFormat
+                    i++;
+                    continue;
+                }
+
+                int argumentIndex = 0;
+                int j = i + 1;
+                while (j < len && pattern.charAt(j) >= '0' && pattern.charAt(j) <= '9') {
+                    argumentIndex = argumentIndex * 10 + (pattern.charAt(j) - '0');
+                    if (argumentIndex >= MAX_ARGUMENT_INDEX) {
+                        return null;
+                    }
+                    j++;
+                }
+                if (j == i + 1 || j >= len || pattern.charAt(j) != '}') {
+                    // Not a simple placeholder (e.g. has a format type or style), or not a valid one at all
+                    return null;
+                }
+
+                if (literalStart < i) {
+                    segments.add(pattern.substring(literalStart, i));
+                }
+                segments.add(Integer.valueOf(argumentIndex));
+                i = j + 1;
+                literalStart = i;
+
+            }
+
+            if (literalStart < len) {
+                segments.add(literalStart == 0? pattern : pattern.substring(literalStart));
+            }
+
+            return segments.toArray(new Object[segments.size()]);
+
+        }
+
+    }
+
+
+
+
+    private static final class FormatKey {
+
+        private final String pattern;
+        private final Locale locale;
+        private final int hashCode;
+
+        FormatKey(final String pattern, final Locale locale) {
+            super();
+            this.pattern = pattern;
+            this.locale = locale;
+            this.hashCode = 31 * pattern.hashCode() + (locale != null? locale.hashCode() : 0);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof FormatKey)) {
+                return false;
+            }
+            final FormatKey that = (FormatKey) o;
+            return this.hashCode == that.hashCode &&
+                    this.pattern.equals(that.pattern) &&
+                    (this.locale != null? this.locale.equals(that.locale) : that.locale == null);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+
+    }
+
+
+}
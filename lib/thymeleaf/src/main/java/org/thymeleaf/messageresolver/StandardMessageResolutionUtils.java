@@ -23,7 +23,6 @@
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
-import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -253,8 +252,8 @@ static String formatMessage(final Locale locale, final String message, final Obj
         if (!isFormatCandidate(message)) { // trying to avoid creating MessageFormat if not needed
             return message;
         }
-        final MessageFormat messageFormat = new MessageFormat(message, locale);
-        return messageFormat.format((messageParameters != null? messageParameters : EMPTY_MESSAGE_PARAMETERS));
+        return StandardMessageFormatCache.format(
+                message, locale, (messageParameters != null? messageParameters : EMPTY_MESSAGE_PARAMETERS));
     }
 
 
@@ -414,8 +414,9 @@ protected Map<String,String> resolveMessagesForOrigin(final Class<?> origin, fin
      *   Format a message, merging it with its parameters, before returning.
      * </p>
      * <p>
-     *   This is meant to be overridden by subclasses if necessary. The default mechanism will simply
-     *   use a standard {@link java.text.MessageFormat} instance.
+     *   This is meant to be overridden by subclasses if necessary. The default mechanism will produce
+     *   the same results as a standard {@link java.text.MessageFormat} instance, but using formats compiled
+     *   and cached by {@link StandardMessageFormatCache}.
      * </p>
      *
      * @param locale the locale
@@ -34,6 +34,7 @@
 import org.thymeleaf.standard.expression.IStandardVariableExpressionEvaluator;
 import org.thymeleaf.standard.expression.OGNLVariableExpressionEvaluator;
 import org.thymeleaf.standard.expression.StandardConversionService;
+import org.thymeleaf.standard.expression.StandardExpressionCompiler;
 import org.thymeleaf.standard.expression.StandardExpressionObjectFactory;
 import org.thymeleaf.standard.expression.StandardExpressionParser;
 import org.thymeleaf.standard.expression.StandardExpressions;
@@ -134,6 +135,9 @@
     protected IStandardJavaScriptSerializer javaScriptSerializer = null;
     protected IStandardCSSSerializer cssSerializer = null;
 
+    // Expression compilation is disabled unless a compiler is explicitly set
+    protected StandardExpressionCompiler expressionCompiler = null;
+
     // Note this is not settable - just lazily initialized
     protected IExpressionObjectFactory expressionObjectFactory = null;
 
@@ -294,6 +298,45 @@ public void setConversionService(final IStandardConversionService conversionServ
     }
 
 
+
+    /**
+     * <p>
+     *   Returns the Standard Expression Compiler that is configured to be used at this instance of the
+     *   Standard Dialect, if any.
+     * </p>
+     * <p>
+     *   This will be {@code null} by default, which means Standard Expressions will always be interpreted.
+     * </p>
+     *
+     * @return the Standard Expression Compiler object, or {@code null} if expression compilation is disabled.
+     * @since 3.1.2
+     */
+    public StandardExpressionCompiler getExpressionCompiler() {
+        return this.expressionCompiler;
+    }
+
+
+    /**
+     * <p>
+     *   Sets the Standard Expression Compiler that should be used at this instance of the Standard Dialect
+     *   for compiling frequently executed Standard Expressions.
+     * </p>
+     * <p>
+     *   This will be {@code null} by default, which means Standard Expressions will always be interpreted.
+     * </p>
+     * <p>
+     *   This method has no effect once the Template Engine has been initialized.
+     * </p>
+     *
+     * @param expressionCompiler the Standard Expression Compiler object to be used, or {@code null} for
+     *                           disabling expression compilation.
+     * @since 3.1.2
+     */
+    public void setExpressionCompiler(final StandardExpressionCompiler expressionCompiler) {
+        this.expressionCompiler = expressionCompiler;
+    }
+
+
     /**
      * <p>
      *   Returns the Standard JavaScript Serializer (implementation of {@link IStandardJavaScriptSerializer})
@@ -387,7 +430,7 @@ public void setCSSSerializer(final IStandardCSSSerializer cssSerializer) {
 
     public Map<String, Object> getExecutionAttributes() {
 
-        final Map<String,Object> executionAttributes = new HashMap<String, Object>(5, 1.0f);
+        final Map<String,Object> executionAttributes = new HashMap<String, Object>(6, 1.0f);
         executionAttributes.put(
                 StandardExpressions.STANDARD_VARIABLE_EXPRESSION_EVALUATOR_ATTRIBUTE_NAME, getVariableExpressionEvaluator());
         executionAttributes.put(
@@ -398,6 +441,10 @@ public Map<String, Object> getExecutionAttributes() {
                 StandardSerializers.STANDARD_JAVASCRIPT_SERIALIZER_ATTRIBUTE_NAME, getJavaScriptSerializer());
         executionAttributes.put(
                 StandardSerializers.STANDARD_CSS_SERIALIZER_ATTRIBUTE_NAME, getCSSSerializer());
+        if (getExpressionCompiler() != null) {
+            executionAttributes.put(
+                    StandardExpressions.STANDARD_EXPRESSION_COMPILER_ATTRIBUTE_NAME, getExpressionCompiler());
+        }
 
         return executionAttributes;
 
@@ -21,6 +21,7 @@
 
 import java.io.Serializable;
 
+import org.thymeleaf.IEngineConfiguration;
 import org.thymeleaf.context.IExpressionContext;
 import org.thymeleaf.exceptions.TemplateProcessingException;
 import org.thymeleaf.util.Validate;
@@ -50,7 +51,12 @@ public abstract class Expression implements IStandardExpression, Serializable {
     
     public static final char NESTING_START_CHAR = '(';
     public static final char NESTING_END_CHAR = ')';
-    
+
+
+    // Only used when a StandardExpressionCompiler has been configured. Races on the counter are harmless.
+    private transient int executionCount = 0;
+    private transient volatile StandardExpressionCompiler.CompiledNode compiledNode = null;
+
     
     
     protected Expression() {
@@ -59,6 +65,19 @@ protected Expression() {
     
     
     public abstract String getStringRepresentation();
+
+
+    int incrementExecutionCount() {
+        return ++this.executionCount;
+    }
+
+    StandardExpressionCompiler.CompiledNode getCompiledNode() {
+        return this.compiledNode;
+    }
+
+    void setCompiledNode(final StandardExpressionCompiler.CompiledNode compiledNode) {
+        this.compiledNode = compiledNode;
+    }
     
     
     @Override
@@ -132,8 +151,19 @@ public Object execute(
 
         Validate.notNull(context, "Context cannot be null");
 
+        final IEngineConfiguration configuration = context.getConfiguration();
+
         final IStandardVariableExpressionEvaluator variableExpressionEvaluator =
-                StandardExpressions.getVariableExpressionEvaluator(context.getConfiguration());
+                StandardExpressions.getVariableExpressionEvaluator(configuration);
+
+        // Checking the flag first means no lookup of the compiler is needed at all (also for each nested
+        // expression) if expression compilation has not been configured
+        if (configuration.isStandardExpressionCompilerPresent()) {
+            final StandardExpressionCompiler expressionCompiler = StandardExpressions.getExpressionCompiler(configuration);
+            if (expressionCompiler != null) {
+                return expressionCompiler.execute(context, this, variableExpressionEvaluator, expContext);
+            }
+        }
 
         final Object result = execute(context, this, variableExpressionEvaluator, expContext);
         return LiteralValue.unwrap(result);
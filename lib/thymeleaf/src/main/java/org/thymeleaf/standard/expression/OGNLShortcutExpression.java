@@ -19,13 +19,7 @@
  */
 package org.thymeleaf.standard.expression;
 
-import java.beans.BeanInfo;
-import java.beans.IntrospectionException;
-import java.beans.Introspector;
-import java.beans.PropertyDescriptor;
 import java.lang.reflect.Array;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.Enumeration;
 import java.util.Iterator;
 import java.util.List;
@@ -45,9 +39,6 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.thymeleaf.IEngineConfiguration;
-import org.thymeleaf.cache.ExpressionCacheKey;
-import org.thymeleaf.cache.ICache;
-import org.thymeleaf.cache.ICacheManager;
 import org.thymeleaf.context.IContext;
 
 /**
@@ -61,15 +52,16 @@ final class OGNLShortcutExpression {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(OGNLShortcutExpression.class);
 
-    private static final String EXPRESSION_CACHE_TYPE_OGNL_SHORTCUT = "ognlsc";
-    private static final Object[] NO_PARAMS = new Object[0];
-
     private final String[] expressionLevels;
+    // Monomorphic inline caches (one per expression level) for the property readers used on bean objects.
+    // Races on these are harmless: entries are immutable, and the worst case is a lookup at the registry.
+    private final PropertyReaderCacheEntry[] propertyReaderCache;
 
 
     OGNLShortcutExpression(final String[] expressionLevels) {
         super();
         this.expressionLevels = expressionLevels;
+        this.propertyReaderCache = new PropertyReaderCacheEntry[expressionLevels.length];
     }
 
 
@@ -77,11 +69,10 @@ Object evaluate(
             final IEngineConfiguration configuration, final Map<String, Object> context, final Object root)
             throws Exception {
 
-        final ICacheManager cacheManager = configuration.getCacheManager();
-        final ICache<ExpressionCacheKey, Object> expressionCache = (cacheManager == null? null : cacheManager.getExpressionCache());
-
         Object target = root;
-        for (final String propertyName : this.expressionLevels) {
+        for (int level = 0; level < this.expressionLevels.length; level++) {
+
+            final String propertyName = this.expressionLevels[level];
 
             // If target is null, we will mimic what OGNL does in these cases...
             if (target == null) {
@@ -100,7 +91,7 @@ Object evaluate(
                 // Because of the way OGNL works, the "OgnlRuntime.getTargetClass(...)" of a Class object is the class
                 // object itself, so we might be trying to apply a PropertyAccessor to a Class instead of a real object,
                 // something we avoid by means of this shortcut
-                target = getObjectProperty(expressionCache, propertyName, target);
+                target = getObjectProperty(level, propertyName, target);
 
             } else if (OGNLContextPropertyAccessor.class.equals(ognlPropertyAccessor.getClass())) {
 
@@ -108,7 +99,7 @@ Object evaluate(
 
             } else if (ObjectPropertyAccessor.class.equals(ognlPropertyAccessor.getClass())) {
 
-                target = getObjectProperty(expressionCache, propertyName, target);
+                target = getObjectProperty(level, propertyName, target);
 
             } else if (MapPropertyAccessor.class.equals(ognlPropertyAccessor.getClass())) {
 
@@ -116,23 +107,23 @@ Object evaluate(
 
             } else if (ListPropertyAccessor.class.equals(ognlPropertyAccessor.getClass())) {
 
-                target = getListProperty(expressionCache, propertyName, (List<?>) target);
+                target = getListProperty(propertyName, (List<?>) target);
 
             } else if (SetPropertyAccessor.class.equals(ognlPropertyAccessor.getClass())) {
 
-                target = getSetProperty(expressionCache, propertyName, (Set<?>) target);
+                target = getSetProperty(propertyName, (Set<?>) target);
 
             } else if (IteratorPropertyAccessor.class.equals(ognlPropertyAccessor.getClass())) {
 
-                target = getIteratorProperty(expressionCache, propertyName, (Iterator<?>) target);
+                target = getIteratorProperty(propertyName, (Iterator<?>) target);
 
             } else if (EnumerationPropertyAccessor.class.equals(ognlPropertyAccessor.getClass())) {
 
-                target = getEnumerationProperty(expressionCache, propertyName, (Enumeration<?>) target);
+                target = getEnumerationProperty(propertyName, (Enumeration<?>) target);
 
             } else if (ArrayPropertyAccessor.class.equals(ognlPropertyAccessor.getClass())) {
 
-                target = getArrayProperty(expressionCache, propertyName, (Object[]) target);
+                target = getArrayProperty(propertyName, (Object[]) target);
 
             } else {
                 // OGNL would like to apply a different property accessor (probably a custom one we do not know). In
@@ -169,57 +160,41 @@ private static Object getContextProperty(
     }
 
 
-    private static Object getObjectProperty(
-            final ICache<ExpressionCacheKey,Object> expressionCache, final String propertyName, final Object target) {
+    private Object getObjectProperty(final int level, final String propertyName, final Object target) {
 
         final Class<?> currClass = OgnlRuntime.getTargetClass(target);
-        final ExpressionCacheKey cacheKey = computeMethodCacheKey(currClass, propertyName);
 
-        Method readMethod = null;
-
-        if (expressionCache != null) {
-            readMethod = (Method) expressionCache.get(cacheKey);
+        final PropertyReaderCacheEntry cacheEntry = this.propertyReaderCache[level];
+        if (cacheEntry != null && cacheEntry.targetClass == currClass) {
+            return cacheEntry.propertyReader.read(target);
         }
 
-        if (readMethod == null) {
+        final OGNLShortcutPropertyAccessors.PropertyReader propertyReader = computePropertyReader(currClass, propertyName);
+        this.propertyReaderCache[level] = new PropertyReaderCacheEntry(currClass, propertyReader);
 
-            final BeanInfo beanInfo;
-            try {
-                beanInfo = Introspector.getBeanInfo(currClass);
-            } catch (final IntrospectionException e) {
-                // Something went wrong during introspection - wash hands, just let OGNL decide what to do
-                throw new OGNLShortcutExpressionNotApplicableException();
-            }
+        return propertyReader.read(target);
 
-            final PropertyDescriptor[] propertyDescriptors = beanInfo.getPropertyDescriptors();
-            if (propertyDescriptors != null) {
-                for (final PropertyDescriptor propertyDescriptor : propertyDescriptors) {
-                    if (propertyDescriptor.getName().equals(propertyName)) {
-                        readMethod = propertyDescriptor.getReadMethod();
-                        if (readMethod != null && expressionCache != null) {
-                            expressionCache.put(cacheKey, readMethod);
-                        }
-                        break;
-                    }
-                }
-            }
+    }
 
-        }
 
-        if (readMethod == null) {
+    private static Object getObjectProperty(final String propertyName, final Object target) {
+        final Class<?> currClass = OgnlRuntime.getTargetClass(target);
+        return computePropertyReader(currClass, propertyName).read(target);
+    }
+
+
+    private static OGNLShortcutPropertyAccessors.PropertyReader computePropertyReader(
+            final Class<?> targetClass, final String propertyName) {
+
+        final OGNLShortcutPropertyAccessors.PropertyReader propertyReader =
+                OGNLShortcutPropertyAccessors.getPropertyReader(targetClass, propertyName);
+
+        if (propertyReader == null) {
             // The property name does not match any getter methods - better let OGNL decide what to do
             throw new OGNLShortcutExpressionNotApplicableException();
         }
 
-        try {
-            return readMethod.invoke(target, NO_PARAMS);
-        } catch (final IllegalAccessException e) {
-            // Oops! we better let OGNL take care of this its own way...
-            throw new OGNLShortcutExpressionNotApplicableException();
-        } catch (final InvocationTargetException e) {
-            // Oops! we better let OGNL take care of this its own way...
-            throw new OGNLShortcutExpressionNotApplicableException();
-        }
+        return propertyReader;
 
     }
 
@@ -259,7 +234,7 @@ private static Object getMapProperty(final String propertyName, final Map<?,?> m
 
 
     public static Object getListProperty(
-            final ICache<ExpressionCacheKey,Object> expressionCache, final String propertyName, final List<?> list) {
+            final String propertyName, final List<?> list) {
 
         /*
          * This method will try to mimic the behaviour of the ognl.ListPropertyAccessor class, with the exception
@@ -282,14 +257,14 @@ public static Object getListProperty(
         }
 
         // Default to treating the list object as any other object
-        return getObjectProperty(expressionCache, propertyName, list);
+        return getObjectProperty(propertyName, list);
 
     }
 
 
 
     public static Object getArrayProperty(
-            final ICache<ExpressionCacheKey,Object> expressionCache, final String propertyName, final Object[] array) {
+            final String propertyName, final Object[] array) {
 
         /*
          * This method will try to mimic the behaviour of the ognl.ArrayPropertyAccessor class, with the exception
@@ -306,14 +281,14 @@ public static Object getArrayProperty(
         }
 
         // Default to treating the array object as any other object
-        return getObjectProperty(expressionCache, propertyName, array);
+        return getObjectProperty(propertyName, array);
 
     }
 
 
 
     public static Object getEnumerationProperty(
-            final ICache<ExpressionCacheKey,Object> expressionCache, final String propertyName, final Enumeration enumeration) {
+            final String propertyName, final Enumeration enumeration) {
 
         /*
          * This method will try to mimic the behaviour of the ognl.EnumerationPropertyAccessor class, with the exception
@@ -329,14 +304,14 @@ public static Object getEnumerationProperty(
         }
 
         // Default to treating the enumeration object as any other object
-        return getObjectProperty(expressionCache, propertyName, enumeration);
+        return getObjectProperty(propertyName, enumeration);
 
     }
 
 
 
     public static Object getIteratorProperty(
-            final ICache<ExpressionCacheKey,Object> expressionCache, final String propertyName, final Iterator<?> iterator) {
+            final String propertyName, final Iterator<?> iterator) {
 
         /*
          * This method will try to mimic the behaviour of the ognl.IteratorPropertyAccessor class, with the exception
@@ -352,14 +327,14 @@ public static Object getIteratorProperty(
         }
 
         // Default to treating the iterator object as any other object
-        return getObjectProperty(expressionCache, propertyName, iterator);
+        return getObjectProperty(propertyName, iterator);
 
     }
 
 
 
     public static Object getSetProperty(
-            final ICache<ExpressionCacheKey,Object> expressionCache, final String propertyName, final Set<?> set) {
+            final String propertyName, final Set<?> set) {
 
         /*
          * This method will try to mimic the behaviour of the ognl.IteratorPropertyAccessor class, with the exception
@@ -378,7 +353,7 @@ public static Object getSetProperty(
         }
 
         // Default to treating the set object as any other object
-        return getObjectProperty(expressionCache, propertyName, set);
+        return getObjectProperty(propertyName, set);
 
     }
 
@@ -443,8 +418,17 @@ private static String[] doParseExpr(final String expression, final int level, fi
 
 
 
-    private static ExpressionCacheKey computeMethodCacheKey(final Class<?> targetClass, final String propertyName) {
-        return new ExpressionCacheKey(EXPRESSION_CACHE_TYPE_OGNL_SHORTCUT, targetClass.getName(), propertyName);
+    private static final class PropertyReaderCacheEntry {
+
+        final Class<?> targetClass;
+        final OGNLShortcutPropertyAccessors.PropertyReader propertyReader;
+
+        PropertyReaderCacheEntry(final Class<?> targetClass, final OGNLShortcutPropertyAccessors.PropertyReader propertyReader) {
+            super();
+            this.targetClass = targetClass;
+            this.propertyReader = propertyReader;
+        }
+
     }
 
 
@@ -0,0 +1,289 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.standard.expression;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ *   Registry of property readers used by {@link OGNLShortcutExpression} for accessing bean properties.
+ * </p>
+ * <p>
+ *   Getter methods are introspected only once per class, and readers are created for them the first time each
+ *   property is accessed. Whenever possible, readers will be backed by a function generated by means of
+ *   {@link LambdaMetafactory} (which allows the JIT to inline the getter call), defaulting to a plain
+ *   {@link MethodHandle} if the class declaring the getter cannot be linked from this class' class loader.
+ * </p>
+ * <p>
+ *   Readers are stored by means of a {@link ClassValue}, so that they will not prevent classes (and their
+ *   class loaders) from being garbage-collected.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.1.2
+ *
+ */
+final class OGNLShortcutPropertyAccessors {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OGNLShortcutPropertyAccessors.class);
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType GENERIC_READER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType FUNCTION_FACTORY_TYPE = MethodType.methodType(Function.class);
+
+    private static final ClassValue<ClassPropertyReaders> CLASS_PROPERTY_READERS =
+            new ClassValue<ClassPropertyReaders>() {
+                @Override
+                protected ClassPropertyReaders computeValue(final Class<?> type) {
+                    return new ClassPropertyReaders(type);
+                }
+            };
+
+
+
+
+    /*
+     * Returns null if no getter method exists for the specified property
+     */
+    static PropertyReader getPropertyReader(final Class<?> targetClass, final String propertyName) {
+        return CLASS_PROPERTY_READERS.get(targetClass).getPropertyReader(propertyName);
+    }
+
+
+
+
+    private static PropertyReader createPropertyReader(final Method readMethod) {
+
+        final MethodHandle methodHandle;
+        try {
+            methodHandle = LOOKUP.unreflect(readMethod);
+        } catch (final IllegalAccessException e) {
+            // Not accessible from here. Reflection would fail in the same way, so better let OGNL decide what to do
+            return NonAccessiblePropertyReader.INSTANCE;
+        }
+
+        if (isLinkable(readMethod.getDeclaringClass()) && isLinkable(readMethod.getReturnType())) {
+            try {
+                final CallSite callSite =
+                        LambdaMetafactory.metafactory(
+                                LOOKUP, "apply", FUNCTION_FACTORY_TYPE, GENERIC_READER_TYPE,
+                                methodHandle, methodHandle.type().wrap());
+                @SuppressWarnings("unchecked")
+                final Function<Object,Object> function = (Function<Object,Object>) callSite.getTarget().invoke();
+                return new FunctionPropertyReader(function);
+            } catch (final Throwable t) {
+                // Will simply default to the MethodHandle-based reader
+                if (LOGGER.isTraceEnabled()) {
+                    LOGGER.trace(
+                            "[THYMELEAF] Could not generate a function-based property reader for method {}, a " +
+                            "method handle will be used instead", readMethod, t);
+                }
+            }
+        }
+
+        return new MethodHandlePropertyReader(methodHandle.asType(GENERIC_READER_TYPE));
+
+    }
+
+
+    /*
+     * Generated functions will be defined in this class' class loader, so they can only be used if the classes
+     * they reference are public and resolve to the same Class objects from this class loader.
+     */
+    private static boolean isLinkable(final Class<?> type) {
+        if (type.isPrimitive()) {
+            return true;
+        }
+        if (type.isArray()) {
+            return isLinkable(type.getComponentType());
+        }
+        if (!Modifier.isPublic(type.getModifiers())) {
+            return false;
+        }
+        try {
+            return Class.forName(type.getName(), false, OGNLShortcutPropertyAccessors.class.getClassLoader()) == type;
+        } catch (final ClassNotFoundException e) {
+            return false;
+        } catch (final LinkageError e) {
+            return false;
+        }
+    }
+
+
+
+
+    private static final class ClassPropertyReaders {
+
+        private final Map<String,Method> readMethods;
+        private final ConcurrentHashMap<String,PropertyReader> readers;
+
+
+        ClassPropertyReaders(final Class<?> targetClass) {
+
+            super();
+
+            Map<String,Method> methods;
+            try {
+                final BeanInfo beanInfo = Introspector.getBeanInfo(targetClass);
+                final PropertyDescriptor[] propertyDescriptors = beanInfo.getPropertyDescriptors();
+                methods = new HashMap<String, Method>(propertyDescriptors == null? 1 : propertyDescriptors.length + 1, 1.0f);
+                if (propertyDescriptors != null) {
+                    for (final PropertyDescriptor propertyDescriptor : propertyDescriptors) {
+                        final Method readMethod = propertyDescriptor.getReadMethod();
+                        if (readMethod != null) {
+                            methods.put(propertyDescriptor.getName(), readMethod);
+                        }
+                    }
+                }
+            } catch (final IntrospectionException e) {
+                // Something went wrong during introspection - no readers will be available for this class
+                methods = Collections.emptyMap();
+            }
+
+            this.readMethods = methods;
+            // Only properties with an existing getter will be added, so this map is bounded
+            this.readers = new ConcurrentHashMap<String, PropertyReader>(4);
+
+        }
+
+
+        PropertyReader getPropertyReader(final String propertyName) {
+
+            final PropertyReader reader = this.readers.get(propertyName);
+            if (reader != null) {
+                return reader;
+            }
+
+            final Method readMethod = this.readMethods.get(propertyName);
+            if (readMethod == null) {
+                return null;
+            }
+
+            final PropertyReader newReader = createPropertyReader(readMethod);
+            final PropertyReader existingReader = this.readers.putIfAbsent(propertyName, newReader);
+            return (existingReader != null? existingReader : newReader);
+
+        }
+
+    }
+
+
+
+
+    static abstract class PropertyReader {
+
+        PropertyReader() {
+            super();
+        }
+
+        /*
+         * Any exceptions raised during the execution of the getter will provoke an
+         * OGNLShortcutExpressionNotApplicableException, so that OGNL can handle them its own way.
+         */
+        abstract Object read(final Object target);
+
+    }
+
+
+    private static final class FunctionPropertyReader extends PropertyReader {
+
+        private final Function<Object,Object> function;
+
+        FunctionPropertyReader(final Function<Object,Object> function) {
+            super();
+            this.function = function;
+        }
+
+        @Override
+        Object read(final Object target) {
+            try {
+                return this.function.apply(target);
+            } catch (final Throwable t) {
+                throw new OGNLShortcutExpression.OGNLShortcutExpressionNotApplicableException();
+            }
+        }
+
+    }
+
+
+    private static final class MethodHandlePropertyReader extends PropertyReader {
+
+        private final MethodHandle methodHandle;
+
+        MethodHandlePropertyReader(final MethodHandle methodHandle) {
+            super();
+            this.methodHandle = methodHandle;
+        }
+
+        @Override
+        Object read(final Object target) {
+            try {
+                return (Object) this.methodHandle.invokeExact(target);
+            } catch (final Throwable t) {
+                throw new OGNLShortcutExpression.OGNLShortcutExpressionNotApplicableException();
+            }
+        }
+
+    }
+
+
+    private static final class NonAccessiblePropertyReader extends PropertyReader {
+
+        static final NonAccessiblePropertyReader INSTANCE = new NonAccessiblePropertyReader();
+
+        private NonAccessiblePropertyReader() {
+            super();
+        }
+
+        @Override
+        Object read(final Object target) {
+            throw new OGNLShortcutExpression.OGNLShortcutExpressionNotApplicableException();
+        }
+
+    }
+
+
+
+
+    private OGNLShortcutPropertyAccessors() {
+        super();
+    }
+
+
+}
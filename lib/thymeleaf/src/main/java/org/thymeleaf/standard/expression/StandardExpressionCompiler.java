@@ -0,0 +1,845 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.standard.expression;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.thymeleaf.context.IExpressionContext;
+import org.thymeleaf.util.EvaluationUtils;
+import org.thymeleaf.util.Validate;
+
+/**
+ * <p>
+ *   Optional compiler for Thymeleaf Standard Expressions.
+ * </p>
+ * <p>
+ *   When an instance of this class is configured at the Standard Dialect
+ *   (see {@link org.thymeleaf.standard.StandardDialect#setExpressionCompiler(StandardExpressionCompiler)}),
+ *   the engine will count the executions of each parsed expression. Once an expression has been executed
+ *   the number of times specified by the <em>compilation threshold</em>, its tree will be compiled into a
+ *   tree of specialized evaluator objects, which will be used for all subsequent executions.
+ * </p>
+ * <p>
+ *   Compiled evaluators:
+ * </p>
+ * <ul>
+ *   <li>Avoid the type-based dispatching performed at every node of the expression tree during
+ *       interpretation.</li>
+ *   <li>Fold literals (text, number, boolean, null, no-op and generic tokens) into constants, and also any
+ *       operations whose operands are all constant (e.g. {@code 1 + 2} or {@code true ? 'a' : 'b'}).</li>
+ *   <li>Share with the interpreter the exact implementation of every operator, so that results (and errors)
+ *       are exactly the same as those obtained by interpretation.</li>
+ * </ul>
+ * <p>
+ *   Expression types not known to this compiler (e.g. custom {@link IStandardExpression} implementations) are
+ *   evaluated by falling back to the interpreter.
+ * </p>
+ * <p>
+ *   This class is thread-safe.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.1.2
+ *
+ */
+public final class StandardExpressionCompiler {
+
+    /**
+     * <p>
+     *   Default number of executions after which an expression will be compiled. Value = {@code 100}.
+     * </p>
+     */
+    public static final int DEFAULT_COMPILATION_THRESHOLD = 100;
+
+
+    private final int compilationThreshold;
+
+    private final AtomicLong compiledExpressions = new AtomicLong(0L);
+    private final AtomicLong foldedExpressions = new AtomicLong(0L);
+    private final AtomicLong interpretedExpressions = new AtomicLong(0L);
+
+
+
+    /**
+     * <p>
+     *   Creates a new compiler, using {@link #DEFAULT_COMPILATION_THRESHOLD} as compilation threshold.
+     * </p>
+     */
+    public StandardExpressionCompiler() {
+        this(DEFAULT_COMPILATION_THRESHOLD);
+    }
+
+
+    /**
+     * <p>
+     *   Creates a new compiler.
+     * </p>
+     *
+     * @param compilationThreshold the number of executions after which an expression will be compiled. A value
+     *                             of {@code 1} means expressions will be compiled the first time they are executed.
+     */
+    public StandardExpressionCompiler(final int compilationThreshold) {
+        super();
+        Validate.isTrue(compilationThreshold > 0, "Compilation threshold must be > 0");
+        this.compilationThreshold = compilationThreshold;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the number of executions after which an expression will be compiled.
+     * </p>
+     *
+     * @return the compilation threshold.
+     */
+    public int getCompilationThreshold() {
+        return this.compilationThreshold;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the number of expressions that have been compiled so far.
+     * </p>
+     *
+     * @return the number of compiled expressions.
+     */
+    public long getCompiledExpressionCount() {
+        return this.compiledExpressions.get();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the number of (sub)expressions that have been folded into constants so far during compilation.
+     * </p>
+     *
+     * @return the number of folded expressions.
+     */
+    public long getFoldedExpressionCount() {
+        return this.foldedExpressions.get();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the number of (sub)expressions that could not be compiled and will therefore be evaluated by
+     *   falling back to the interpreter, even if they are part of a compiled expression.
+     * </p>
+     *
+     * @return the number of interpreted expressions.
+     */
+    public long getInterpretedExpressionCount() {
+        return this.interpretedExpressions.get();
+    }
+
+
+
+
+    Object execute(
+            final IExpressionContext context, final Expression expression,
+            final IStandardVariableExpressionEvaluator expressionEvaluator,
+            final StandardExpressionExecutionContext expContext) {
+
+        CompiledNode compiled = expression.getCompiledNode();
+
+        if (compiled == null && expression.incrementExecutionCount() >= this.compilationThreshold) {
+            // Several threads might compile the same expression at the same time, which is not a problem
+            compiled = compile(context, expression, expressionEvaluator, expContext);
+            expression.setCompiledNode(compiled);
+            this.compiledExpressions.incrementAndGet();
+        }
+
+        if (compiled != null) {
+            return LiteralValue.unwrap(compiled.evaluate(context, expressionEvaluator, expContext));
+        }
+
+        return LiteralValue.unwrap(Expression.execute(context, expression, expressionEvaluator, expContext));
+
+    }
+
+
+
+
+    /*
+     * The context and execution context of the execution that triggered compilation are only used for
+     * folding operations on constants, which do not depend on them.
+     */
+    private CompiledNode compile(
+            final IExpressionContext context, final IStandardExpression expression,
+            final IStandardVariableExpressionEvaluator expressionEvaluator,
+            final StandardExpressionExecutionContext expContext) {
+
+        final CompiledNode node = compileNode(context, expression, expressionEvaluator, expContext);
+        if (node.isConstant() || !node.isFoldable()) {
+            return node;
+        }
+
+        // All operands are constant, so we can try to evaluate this operation now
+        final Object value;
+        try {
+            value = node.evaluate(context, expressionEvaluator, expContext);
+        } catch (final RuntimeException e) {
+            // Evaluation will fail at runtime too, and that is when this error should be raised
+            return node;
+        }
+        this.foldedExpressions.incrementAndGet();
+        return new ConstantNode(value);
+
+    }
+
+
+    private CompiledNode compileNode(
+            final IExpressionContext context, final IStandardExpression expression,
+            final IStandardVariableExpressionEvaluator expressionEvaluator,
+            final StandardExpressionExecutionContext expContext) {
+
+        if (!(expression instanceof Expression)) {
+            this.interpretedExpressions.incrementAndGet();
+            return new ForeignNode(expression);
+        }
+
+        // Simple expressions
+
+        if (expression instanceof VariableExpression) {
+            return new VariableNode((VariableExpression) expression);
+        }
+        if (expression instanceof MessageExpression ||
+                expression instanceof LinkExpression ||
+                expression instanceof FragmentExpression ||
+                expression instanceof SelectionVariableExpression) {
+            return new InterpretedNode((Expression) expression);
+        }
+        if (expression instanceof TextLiteralExpression ||
+                expression instanceof NumberTokenExpression ||
+                expression instanceof BooleanTokenExpression ||
+                expression instanceof NullTokenExpression ||
+                expression instanceof NoOpTokenExpression ||
+                expression instanceof GenericTokenExpression) {
+            // Literals do not depend on the context
+            return new ConstantNode(Expression.execute(context, (Expression) expression, expressionEvaluator, expContext));
+        }
+
+        // Complex expressions
+
+        if (expression instanceof AdditionExpression) {
+            final AdditionExpression addition = (AdditionExpression) expression;
+            return new AdditionNode(
+                    compile(context, addition.getLeft(), expressionEvaluator, expContext),
+                    compile(context, addition.getRight(), expressionEvaluator, expContext));
+        }
+        if (expression instanceof SubtractionExpression) {
+            final SubtractionExpression subtraction = (SubtractionExpression) expression;
+            return new OperatorNode(
+                    new SubtractionExpression(
+                            compileOperand(context, subtraction.getLeft(), expressionEvaluator, expContext),
+                            compileOperand(context, subtraction.getRight(), expressionEvaluator, expContext)),
+                    (ctx, exp, expCtx) -> SubtractionExpression.executeSubtraction(ctx, (SubtractionExpression) exp, expCtx));
+        }
+        if (expression instanceof MultiplicationExpression) {
+            final MultiplicationExpression multiplication = (MultiplicationExpression) expression;
+            return new OperatorNode(
+                    new MultiplicationExpression(
+                            compileOperand(context, multiplication.getLeft(), expressionEvaluator, expContext),
+                            compileOperand(context, multiplication.getRight(), expressionEvaluator, expContext)),
+                    (ctx, exp, expCtx) -> MultiplicationExpression.executeMultiplication(ctx, (MultiplicationExpression) exp, expCtx));
+        }
+        if (expression instanceof DivisionExpression) {
+            final DivisionExpression division = (DivisionExpression) expression;
+            return new OperatorNode(
+                    new DivisionExpression(
+                            compileOperand(context, division.getLeft(), expressionEvaluator, expContext),
+                            compileOperand(context, division.getRight(), expressionEvaluator, expContext)),
+                    (ctx, exp, expCtx) -> DivisionExpression.executeDivision(ctx, (DivisionExpression) exp, expCtx));
+        }
+        if (expression instanceof RemainderExpression) {
+            final RemainderExpression remainder = (RemainderExpression) expression;
+            return new OperatorNode(
+                    new RemainderExpression(
+                            compileOperand(context, remainder.getLeft(), expressionEvaluator, expContext),
+                            compileOperand(context, remainder.getRight(), expressionEvaluator, expContext)),
+                    (ctx, exp, expCtx) -> RemainderExpression.executeRemainder(ctx, (RemainderExpression) exp, expCtx));
+        }
+        if (expression instanceof ConditionalExpression) {
+            final ConditionalExpression conditional = (ConditionalExpression) expression;
+            final CompiledNode condition = compile(context, conditional.getConditionExpression(), expressionEvaluator, expContext);
+            final CompiledNode thenNode = compile(context, conditional.getThenExpression(), expressionEvaluator, expContext);
+            final CompiledNode elseNode = compile(context, conditional.getElseExpression(), expressionEvaluator, expContext);
+            if (condition.isConstant()) {
+                // Only one of the branches will ever be executed
+                this.foldedExpressions.incrementAndGet();
+                final boolean cond = EvaluationUtils.evaluateAsBoolean(LiteralValue.unwrap(((ConstantNode) condition).value));
+                return new UnwrappingNode(cond? thenNode : elseNode);
+            }
+            return new ConditionalNode(condition, thenNode, elseNode);
+        }
+        if (expression instanceof DefaultExpression) {
+            final DefaultExpression defaultExpression = (DefaultExpression) expression;
+            return new DefaultNode(
+                    compile(context, defaultExpression.getQueriedExpression(), expressionEvaluator, expContext),
+                    compile(context, defaultExpression.getDefaultExpression(), expressionEvaluator, expContext));
+        }
+        if (expression instanceof MinusExpression) {
+            final MinusExpression minus = (MinusExpression) expression;
+            return new OperatorNode(
+                    new MinusExpression(compileOperand(context, minus.getOperand(), expressionEvaluator, expContext)),
+                    (ctx, exp, expCtx) -> MinusExpression.executeMinus(ctx, (MinusExpression) exp, expCtx));
+        }
+        if (expression instanceof NegationExpression) {
+            return new NegationNode(
+                    compile(context, ((NegationExpression) expression).getOperand(), expressionEvaluator, expContext));
+        }
+        if (expression instanceof AndExpression) {
+            final AndExpression and = (AndExpression) expression;
+            return new AndNode(
+                    compile(context, and.getLeft(), expressionEvaluator, expContext),
+                    compile(context, and.getRight(), expressionEvaluator, expContext));
+        }
+        if (expression instanceof OrExpression) {
+            final OrExpression or = (OrExpression) expression;
+            return new OrNode(
+                    compile(context, or.getLeft(), expressionEvaluator, expContext),
+                    compile(context, or.getRight(), expressionEvaluator, expContext));
+        }
+        if (expression instanceof EqualsExpression) {
+            final EqualsExpression equals = (EqualsExpression) expression;
+            return new OperatorNode(
+                    new EqualsExpression(
+                            compileOperand(context, equals.getLeft(), expressionEvaluator, expContext),
+                            compileOperand(context, equals.getRight(), expressionEvaluator, expContext)),
+                    (ctx, exp, expCtx) -> EqualsExpression.executeEquals(ctx, (EqualsExpression) exp, expCtx));
+        }
+        if (expression instanceof NotEqualsExpression) {
+            final NotEqualsExpression notEquals = (NotEqualsExpression) expression;
+            return new OperatorNode(
+                    new NotEqualsExpression(
+                            compileOperand(context, notEquals.getLeft(), expressionEvaluator, expContext),
+                            compileOperand(context, notEquals.getRight(), expressionEvaluator, expContext)),
+                    (ctx, exp, expCtx) -> NotEqualsExpression.executeNotEquals(ctx, (NotEqualsExpression) exp, expCtx));
+        }
+        if (expression instanceof GreaterThanExpression) {
+            final GreaterThanExpression greaterThan = (GreaterThanExpression) expression;
+            return new OperatorNode(
+                    new GreaterThanExpression(
+                            compileOperand(context, greaterThan.getLeft(), expressionEvaluator, expContext),
+                            compileOperand(context, greaterThan.getRight(), expressionEvaluator, expContext)),
+                    (ctx, exp, expCtx) -> GreaterThanExpression.executeGreaterThan(ctx, (GreaterThanExpression) exp, expCtx));
+        }
+        if (expression instanceof GreaterOrEqualToExpression) {
+            final GreaterOrEqualToExpression greaterOrEqualTo = (GreaterOrEqualToExpression) expression;
+            return new OperatorNode(
+                    new GreaterOrEqualToExpression(
+                            compileOperand(context, greaterOrEqualTo.getLeft(), expressionEvaluator, expContext),
+                            compileOperand(context, greaterOrEqualTo.getRight(), expressionEvaluator, expContext)),
+                    (ctx, exp, expCtx) -> GreaterOrEqualToExpression.executeGreaterOrEqualTo(ctx, (GreaterOrEqualToExpression) exp, expCtx));
+        }
+        if (expression instanceof LessThanExpression) {
+            final LessThanExpression lessThan = (LessThanExpression) expression;
+            return new OperatorNode(
+                    new LessThanExpression(
+                            compileOperand(context, lessThan.getLeft(), expressionEvaluator, expContext),
+                            compileOperand(context, lessThan.getRight(), expressionEvaluator, expContext)),
+                    (ctx, exp, expCtx) -> LessThanExpression.executeLessThan(ctx, (LessThanExpression) exp, expCtx));
+        }
+        if (expression instanceof LessOrEqualToExpression) {
+            final LessOrEqualToExpression lessOrEqualTo = (LessOrEqualToExpression) expression;
+            return new OperatorNode(
+                    new LessOrEqualToExpression(
+                            compileOperand(context, lessOrEqualTo.getLeft(), expressionEvaluator, expContext),
+                            compileOperand(context, lessOrEqualTo.getRight(), expressionEvaluator, expContext)),
+                    (ctx, exp, expCtx) -> LessOrEqualToExpression.executeLessOrEqualTo(ctx, (LessOrEqualToExpression) exp, expCtx));
+        }
+
+        // Unknown expression type: let the interpreter deal with it
+        this.interpretedExpressions.incrementAndGet();
+        return new InterpretedNode((Expression) expression);
+
+    }
+
+
+    /*
+     * Operands of operators whose implementation is shared with the interpreter need to be wrapped into
+     * Expression objects, keeping the simple/complex nature of the original operand so that string
+     * representations (used in logs and error messages) do not change.
+     */
+    private Expression compileOperand(
+            final IExpressionContext context, final IStandardExpression operand,
+            final IStandardVariableExpressionEvaluator expressionEvaluator,
+            final StandardExpressionExecutionContext expContext) {
+        final CompiledNode node = compile(context, operand, expressionEvaluator, expContext);
+        if (operand instanceof ComplexExpression) {
+            return new CompiledComplexOperand(node, operand);
+        }
+        return new CompiledSimpleOperand(node, operand);
+    }
+
+
+
+
+    /*
+     * Compiled nodes return the same values as Expression.execute(context, expression, evaluator, expContext)
+     * would for the expressions they have been compiled from, i.e. without literal-unwrapping.
+     */
+    abstract static class CompiledNode {
+
+        CompiledNode() {
+            super();
+        }
+
+        abstract Object evaluate(
+                final IExpressionContext context, final IStandardVariableExpressionEvaluator expressionEvaluator,
+                final StandardExpressionExecutionContext expContext);
+
+        boolean isConstant() {
+            return false;
+        }
+
+        // True if the result of this node only depends on the values of its operands, and these are all constant
+        boolean isFoldable() {
+            return false;
+        }
+
+    }
+
+
+    private static final class ConstantNode extends CompiledNode {
+
+        private final Object value;
+
+        ConstantNode(final Object value) {
+            super();
+            this.value = value;
+        }
+
+        @Override
+        Object evaluate(
+                final IExpressionContext context, final IStandardVariableExpressionEvaluator expressionEvaluator,
+                final StandardExpressionExecutionContext expContext) {
+            return this.value;
+        }
+
+        @Override
+        boolean isConstant() {
+            return true;
+        }
+
+    }
+
+
+    private static final class VariableNode extends CompiledNode {
+
+        private final VariableExpression expression;
+
+        VariableNode(final VariableExpression expression) {
+            super();
+            this.expression = expression;
+        }
+
+        @Override
+        Object evaluate(
+                final IExpressionContext context, final IStandardVariableExpressionEvaluator expressionEvaluator,
+                final StandardExpressionExecutionContext expContext) {
+            return VariableExpression.executeVariableExpression(context, this.expression, expressionEvaluator, expContext);
+        }
+
+    }
+
+
+    private static final class InterpretedNode extends CompiledNode {
+
+        private final Expression expression;
+
+        InterpretedNode(final Expression expression) {
+            super();
+            this.expression = expression;
+        }
+
+        @Override
+        Object evaluate(
+                final IExpressionContext context, final IStandardVariableExpressionEvaluator expressionEvaluator,
+                final StandardExpressionExecutionContext expContext) {
+            return Expression.execute(context, this.expression, expressionEvaluator, expContext);
+        }
+
+    }
+
+
+    private static final class ForeignNode extends CompiledNode {
+
+        private final IStandardExpression expression;
+
+        ForeignNode(final IStandardExpression expression) {
+            super();
+            this.expression = expression;
+        }
+
+        @Override
+        Object evaluate(
+                final IExpressionContext context, final IStandardVariableExpressionEvaluator expressionEvaluator,
+                final StandardExpressionExecutionContext expContext) {
+            return this.expression.execute(context, expContext);
+        }
+
+    }
+
+
+    private static final class UnwrappingNode extends CompiledNode {
+
+        private final CompiledNode node;
+
+        UnwrappingNode(final CompiledNode node) {
+            super();
+            this.node = node;
+        }
+
+        @Override
+        Object evaluate(
+                final IExpressionContext context, final IStandardVariableExpressionEvaluator expressionEvaluator,
+                final StandardExpressionExecutionContext expContext) {
+            return LiteralValue.unwrap(this.node.evaluate(context, expressionEvaluator, expContext));
+        }
+
+        @Override
+        boolean isFoldable() {
+            return this.node.isConstant();
+        }
+
+    }
+
+
+    private static final class AdditionNode extends CompiledNode {
+
+        private final CompiledNode left;
+        private final CompiledNode right;
+
+        AdditionNode(final CompiledNode left, final CompiledNode right) {
+            super();
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        Object evaluate(
+                final IExpressionContext context, final IStandardVariableExpressionEvaluator expressionEvaluator,
+                final StandardExpressionExecutionContext expContext) {
+
+            // Same as AdditionExpression: operands must not be literal-unwrapped before being added
+            Object leftValue = this.left.evaluate(context, expressionEvaluator, expContext);
+            Object rightValue = this.right.evaluate(context, expressionEvaluator, expContext);
+
+            if (leftValue == null) {
+                leftValue = "null";
+            }
+            if (rightValue == null) {
+                rightValue = "null";
+            }
+
+            final BigDecimal leftNumberValue = EvaluationUtils.evaluateAsNumber(leftValue);
+            if (leftNumberValue != null) {
+                final BigDecimal rightNumberValue = EvaluationUtils.evaluateAsNumber(rightValue);
+                if (rightNumberValue != null) {
+                    return leftNumberValue.add(rightNumberValue);
+                }
+            }
+
+            return new LiteralValue(LiteralValue.unwrap(leftValue).toString() + (LiteralValue.unwrap(rightValue).toString()));
+
+        }
+
+        @Override
+        boolean isFoldable() {
+            return this.left.isConstant() && this.right.isConstant();
+        }
+
+    }
+
+
+    private static final class ConditionalNode extends CompiledNode {
+
+        private final CompiledNode condition;
+        private final CompiledNode thenNode;
+        private final CompiledNode elseNode;
+
+        ConditionalNode(final CompiledNode condition, final CompiledNode thenNode, final CompiledNode elseNode) {
+            super();
+            this.condition = condition;
+            this.thenNode = thenNode;
+            this.elseNode = elseNode;
+        }
+
+        @Override
+        Object evaluate(
+                final IExpressionContext context, final IStandardVariableExpressionEvaluator expressionEvaluator,
+                final StandardExpressionExecutionContext expContext) {
+            final Object condObj = LiteralValue.unwrap(this.condition.evaluate(context, expressionEvaluator, expContext));
+            if (EvaluationUtils.evaluateAsBoolean(condObj)) {
+                return LiteralValue.unwrap(this.thenNode.evaluate(context, expressionEvaluator, expContext));
+            }
+            return LiteralValue.unwrap(this.elseNode.evaluate(context, expressionEvaluator, expContext));
+        }
+
+    }
+
+
+    private static final class DefaultNode extends CompiledNode {
+
+        private final CompiledNode queried;
+        private final CompiledNode defaultNode;
+
+        DefaultNode(final CompiledNode queried, final CompiledNode defaultNode) {
+            super();
+            this.queried = queried;
+            this.defaultNode = defaultNode;
+        }
+
+        @Override
+        Object evaluate(
+                final IExpressionContext context, final IStandardVariableExpressionEvaluator expressionEvaluator,
+                final StandardExpressionExecutionContext expContext) {
+            final Object queriedValue = LiteralValue.unwrap(this.queried.evaluate(context, expressionEvaluator, expContext));
+            if (queriedValue == null) {
+                return LiteralValue.unwrap(this.defaultNode.evaluate(context, expressionEvaluator, expContext));
+            }
+            return queriedValue;
+        }
+
+        @Override
+        boolean isFoldable() {
+            return this.queried.isConstant() && this.defaultNode.isConstant();
+        }
+
+    }
+
+
+    private static final class NegationNode extends CompiledNode {
+
+        private final CompiledNode operand;
+
+        NegationNode(final CompiledNode operand) {
+            super();
+            this.operand = operand;
+        }
+
+        @Override
+        Object evaluate(
+                final IExpressionContext context, final IStandardVariableExpressionEvaluator expressionEvaluator,
+                final StandardExpressionExecutionContext expContext) {
+            final Object operandValue = LiteralValue.unwrap(this.operand.evaluate(context, expressionEvaluator, expContext));
+            return Boolean.valueOf(!EvaluationUtils.evaluateAsBoolean(operandValue));
+        }
+
+        @Override
+        boolean isFoldable() {
+            return this.operand.isConstant();
+        }
+
+    }
+
+
+    private static final class AndNode extends CompiledNode {
+
+        private final CompiledNode left;
+        private final CompiledNode right;
+
+        AndNode(final CompiledNode left, final CompiledNode right) {
+            super();
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        Object evaluate(
+                final IExpressionContext context, final IStandardVariableExpressionEvaluator expressionEvaluator,
+                final StandardExpressionExecutionContext expContext) {
+            final Object leftValue = LiteralValue.unwrap(this.left.evaluate(context, expressionEvaluator, expContext));
+            if (!EvaluationUtils.evaluateAsBoolean(leftValue)) {
+                return Boolean.FALSE;
+            }
+            final Object rightValue = LiteralValue.unwrap(this.right.evaluate(context, expressionEvaluator, expContext));
+            return Boolean.valueOf(EvaluationUtils.evaluateAsBoolean(rightValue));
+        }
+
+        @Override
+        boolean isFoldable() {
+            return this.left.isConstant() && this.right.isConstant();
+        }
+
+    }
+
+
+    private static final class OrNode extends CompiledNode {
+
+        private final CompiledNode left;
+        private final CompiledNode right;
+
+        OrNode(final CompiledNode left, final CompiledNode right) {
+            super();
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        Object evaluate(
+                final IExpressionContext context, final IStandardVariableExpressionEvaluator expressionEvaluator,
+                final StandardExpressionExecutionContext expContext) {
+            final Object leftValue = LiteralValue.unwrap(this.left.evaluate(context, expressionEvaluator, expContext));
+            if (EvaluationUtils.evaluateAsBoolean(leftValue)) {
+                return Boolean.TRUE;
+            }
+            final Object rightValue = LiteralValue.unwrap(this.right.evaluate(context, expressionEvaluator, expContext));
+            return Boolean.valueOf(EvaluationUtils.evaluateAsBoolean(rightValue));
+        }
+
+        @Override
+        boolean isFoldable() {
+            return this.left.isConstant() && this.right.isConstant();
+        }
+
+    }
+
+
+    private interface OperatorExecutor {
+
+        Object execute(
+                final IExpressionContext context, final Expression expression,
+                final StandardExpressionExecutionContext expContext);
+
+    }
+
+
+    /*
+     * Operators are executed by the same code used by the interpreter, on an expression object equivalent
+     * to the original one but which operands have been compiled.
+     */
+    private static final class OperatorNode extends CompiledNode {
+
+        private final Expression expression;
+        private final OperatorExecutor executor;
+        private final boolean foldable;
+
+        OperatorNode(final Expression expression, final OperatorExecutor executor) {
+            super();
+            this.expression = expression;
+            this.executor = executor;
+            if (expression instanceof BinaryOperationExpression) {
+                final BinaryOperationExpression operation = (BinaryOperationExpression) expression;
+                this.foldable = isConstantOperand(operation.getLeft()) && isConstantOperand(operation.getRight());
+            } else {
+                this.foldable = isConstantOperand(((MinusExpression) expression).getOperand());
+            }
+        }
+
+        private static boolean isConstantOperand(final IStandardExpression operand) {
+            return ((CompiledOperand) operand).getNode().isConstant();
+        }
+
+        @Override
+        Object evaluate(
+                final IExpressionContext context, final IStandardVariableExpressionEvaluator expressionEvaluator,
+                final StandardExpressionExecutionContext expContext) {
+            return this.executor.execute(context, this.expression, expContext);
+        }
+
+        @Override
+        boolean isFoldable() {
+            return this.foldable;
+        }
+
+    }
+
+
+    private interface CompiledOperand {
+
+        CompiledNode getNode();
+
+    }
+
+
+    private static final class CompiledSimpleOperand extends SimpleExpression implements CompiledOperand {
+
+        private static final long serialVersionUID = -2170286366428624441L;
+
+        private final transient CompiledNode node;
+        private final String stringRepresentation;
+
+        CompiledSimpleOperand(final CompiledNode node, final IStandardExpression operand) {
+            super();
+            this.node = node;
+            this.stringRepresentation = operand.getStringRepresentation();
+        }
+
+        public CompiledNode getNode() {
+            return this.node;
+        }
+
+        @Override
+        public String getStringRepresentation() {
+            return this.stringRepresentation;
+        }
+
+        @Override
+        public Object execute(final IExpressionContext context, final StandardExpressionExecutionContext expContext) {
+            return executeOperand(this.node, context, expContext);
+        }
+
+    }
+
+
+    private static final class CompiledComplexOperand extends ComplexExpression implements CompiledOperand {
+
+        private static final long serialVersionUID = 3395203185634542196L;
+
+        private final transient CompiledNode node;
+        private final String stringRepresentation;
+
+        CompiledComplexOperand(final CompiledNode node, final IStandardExpression operand) {
+            super();
+            this.node = node;
+            this.stringRepresentation = operand.getStringRepresentation();
+        }
+
+        public CompiledNode getNode() {
+            return this.node;
+        }
+
+        @Override
+        public String getStringRepresentation() {
+            return this.stringRepresentation;
+        }
+
+        @Override
+        public Object execute(final IExpressionContext context, final StandardExpressionExecutionContext expContext) {
+            return executeOperand(this.node, context, expContext);
+        }
+
+    }
+
+
+    private static Object executeOperand(
+            final CompiledNode node, final IExpressionContext context, final StandardExpressionExecutionContext expContext) {
+        final IStandardVariableExpressionEvaluator expressionEvaluator =
+                (node.isConstant()? null : StandardExpressions.getVariableExpressionEvaluator(context.getConfiguration()));
+        return LiteralValue.unwrap(node.evaluate(context, expressionEvaluator, expContext));
+    }
+
+
+}
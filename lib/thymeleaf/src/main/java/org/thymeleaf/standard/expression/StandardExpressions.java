@@ -59,6 +59,14 @@ public final class StandardExpressions {
      */
     public static final String STANDARD_CONVERSION_SERVICE_ATTRIBUTE_NAME = "StandardConversionService";
 
+    /**
+     * Name used for registering the (optional) <i>Standard Expression Compiler</i> object as an
+     * <i>execution attribute</i> at the Standard Dialects.
+     *
+     * @since 3.1.2
+     */
+    public static final String STANDARD_EXPRESSION_COMPILER_ATTRIBUTE_NAME = "StandardExpressionCompiler";
+
 
 
 
@@ -150,4 +158,31 @@ public static IStandardConversionService getConversionService(final IEngineConfi
     }
 
 
+
+
+
+    /**
+     * <p>
+     *   Obtain the expression compiler ({@link StandardExpressionCompiler}) registered by
+     *   the Standard Dialect that is being currently used, if any.
+     * </p>
+     * <p>
+     *   Expression compilation is optional, so this method will return {@code null} if no compiler
+     *   has been registered.
+     * </p>
+     *
+     * @param configuration the configuration object for the current template execution environment.
+     * @return the expression compiler object, or {@code null} if none has been registered.
+     * @since 3.1.2
+     */
+    public static StandardExpressionCompiler getExpressionCompiler(final IEngineConfiguration configuration) {
+        final Object expressionCompiler =
+                configuration.getExecutionAttributes().get(STANDARD_EXPRESSION_COMPILER_ATTRIBUTE_NAME);
+        if (expressionCompiler instanceof StandardExpressionCompiler) {
+            return (StandardExpressionCompiler) expressionCompiler;
+        }
+        return null;
+    }
+
+
 }
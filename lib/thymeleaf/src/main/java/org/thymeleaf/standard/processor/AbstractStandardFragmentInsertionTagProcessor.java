@@ -29,10 +29,12 @@
 import org.thymeleaf.context.IEngineContext;
 import org.thymeleaf.context.ITemplateContext;
 import org.thymeleaf.engine.AttributeName;
+import org.thymeleaf.engine.EngineEventUtils;
 import org.thymeleaf.engine.TemplateData;
 import org.thymeleaf.engine.TemplateModel;
 import org.thymeleaf.exceptions.TemplateInputException;
 import org.thymeleaf.exceptions.TemplateProcessingException;
+import org.thymeleaf.model.IAttribute;
 import org.thymeleaf.model.ICloseElementTag;
 import org.thymeleaf.model.IModel;
 import org.thymeleaf.model.IOpenElementTag;
@@ -167,15 +169,19 @@ protected void doProcess(
             final String dialectPrefix = attributeName.getPrefix();
             final IProcessableElementTag fragmentHolderEvent = (IProcessableElementTag) firstEvent;
 
-            if (fragmentHolderEvent.hasAttribute(dialectPrefix, FRAGMENT_ATTR_NAME)) {
+            final IAttribute fragmentAttribute = fragmentHolderEvent.getAttribute(dialectPrefix, FRAGMENT_ATTR_NAME);
+            if (fragmentAttribute != null) {
                 // The selected fragment actually has a "th:fragment" attribute, so we should process its signature
 
                 final String fragmentSignatureSpec =
-                        EscapedAttributeUtils.unescapeAttribute(fragmentModel.getTemplateMode(), fragmentHolderEvent.getAttributeValue(dialectPrefix, FRAGMENT_ATTR_NAME));
+                        EscapedAttributeUtils.unescapeAttribute(fragmentModel.getTemplateMode(), fragmentAttribute.getValue());
                 if (!StringUtils.isEmptyOrWhitespace(fragmentSignatureSpec)) {
 
+                    // Fragment signatures are parsed once per (cached) fragment template model
                     final FragmentSignature fragmentSignature =
-                            FragmentSignatureUtils.parseFragmentSignature(configuration, fragmentSignatureSpec);
+                            EngineEventUtils.computeAttributeFragmentSignature(
+                                    configuration, fragmentHolderEvent,
+                                    fragmentAttribute.getAttributeDefinition().getAttributeName(), fragmentSignatureSpec);
                     if (fragmentSignature != null) {
 
                         // Reshape the fragment parameters into the ones that we will actually use, according to the signature
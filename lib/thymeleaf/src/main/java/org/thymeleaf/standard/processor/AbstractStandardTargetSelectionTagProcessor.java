@@ -23,12 +23,11 @@
 
 import org.thymeleaf.context.ITemplateContext;
 import org.thymeleaf.engine.AttributeName;
+import org.thymeleaf.engine.EngineEventUtils;
 import org.thymeleaf.model.IProcessableElementTag;
 import org.thymeleaf.processor.element.AbstractAttributeTagProcessor;
 import org.thymeleaf.processor.element.IElementTagStructureHandler;
 import org.thymeleaf.standard.expression.IStandardExpression;
-import org.thymeleaf.standard.expression.IStandardExpressionParser;
-import org.thymeleaf.standard.expression.StandardExpressions;
 import org.thymeleaf.templatemode.TemplateMode;
 
 /**
@@ -55,10 +54,8 @@ protected final void doProcess(
             final AttributeName attributeName, final String attributeValue,
             final IElementTagStructureHandler structureHandler) {
 
-        final IStandardExpressionParser expressionParser = StandardExpressions.getExpressionParser(context.getConfiguration());
-
         final IStandardExpression expression =
-                expressionParser.parseExpression(context, attributeValue);
+                EngineEventUtils.computeAttributeExpression(context, tag, attributeName, attributeValue);
 
         validateSelectionValue(context, tag, attributeName, attributeValue, expression);
 
@@ -24,12 +24,11 @@
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.ITemplateContext;
 import org.thymeleaf.engine.AttributeName;
+import org.thymeleaf.engine.EngineEventUtils;
 import org.thymeleaf.exceptions.TemplateProcessingException;
 import org.thymeleaf.model.IProcessableElementTag;
 import org.thymeleaf.standard.expression.EqualsExpression;
 import org.thymeleaf.standard.expression.IStandardExpression;
-import org.thymeleaf.standard.expression.IStandardExpressionParser;
-import org.thymeleaf.standard.expression.StandardExpressions;
 import org.thymeleaf.templatemode.TemplateMode;
 import org.thymeleaf.util.EvaluationUtils;
 import org.thymeleaf.util.LoggingUtils;
@@ -96,10 +95,8 @@ protected boolean isVisible(
 
         }
 
-        final IStandardExpressionParser expressionParser = StandardExpressions.getExpressionParser(context.getConfiguration());
-
         final IStandardExpression caseExpression =
-                expressionParser.parseExpression(context, attributeValue);
+                EngineEventUtils.computeAttributeExpression(context, tag, attributeName, attributeValue);
 
         final EqualsExpression equalsExpression = new EqualsExpression(switchStructure.getExpression(), caseExpression);
 
@@ -22,6 +22,7 @@
 import org.attoparser.util.TextUtil;
 import org.thymeleaf.context.ITemplateContext;
 import org.thymeleaf.engine.AttributeName;
+import org.thymeleaf.engine.EngineEventUtils;
 import org.thymeleaf.exceptions.TemplateProcessingException;
 import org.thymeleaf.model.IAttribute;
 import org.thymeleaf.model.IProcessableElementTag;
@@ -32,10 +33,8 @@
 import org.thymeleaf.processor.element.MatchingElementName;
 import org.thymeleaf.standard.expression.FragmentExpression;
 import org.thymeleaf.standard.expression.IStandardExpression;
-import org.thymeleaf.standard.expression.IStandardExpressionParser;
 import org.thymeleaf.standard.expression.NoOpToken;
 import org.thymeleaf.standard.expression.StandardExpressionExecutionContext;
-import org.thymeleaf.standard.expression.StandardExpressions;
 import org.thymeleaf.templatemode.TemplateMode;
 import org.thymeleaf.util.EscapedAttributeUtils;
 
@@ -134,18 +133,13 @@ private static void processDefaultAttribute(
             }
 
 
-            /*
-             * Obtain the parser
-             */
-            final IStandardExpressionParser expressionParser = StandardExpressions.getExpressionParser(context.getConfiguration());
-
             /*
              * Execute the expression, handling nulls in a way consistent with the rest of the Standard Dialect
              */
             final Object expressionResult;
             if (attributeValue != null) {
 
-                final IStandardExpression expression = expressionParser.parseExpression(context, attributeValue);
+                final IStandardExpression expression = EngineEventUtils.computeAttributeExpression(context, tag, attributeName, attributeValue);
 
                 if (expression != null && expression instanceof FragmentExpression) {
                     // This is merely a FragmentExpression (not complex, not combined with anything), so we can apply a shortcut
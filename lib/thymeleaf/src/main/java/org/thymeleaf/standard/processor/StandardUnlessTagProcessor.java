@@ -21,10 +21,9 @@
 
 import org.thymeleaf.context.ITemplateContext;
 import org.thymeleaf.engine.AttributeName;
+import org.thymeleaf.engine.EngineEventUtils;
 import org.thymeleaf.model.IProcessableElementTag;
 import org.thymeleaf.standard.expression.IStandardExpression;
-import org.thymeleaf.standard.expression.IStandardExpressionParser;
-import org.thymeleaf.standard.expression.StandardExpressions;
 import org.thymeleaf.templatemode.TemplateMode;
 import org.thymeleaf.util.EvaluationUtils;
 
@@ -52,9 +51,7 @@ protected boolean isVisible(
             final IProcessableElementTag tag,
             final AttributeName attributeName, final String attributeValue) {
 
-        final IStandardExpressionParser expressionParser = StandardExpressions.getExpressionParser(context.getConfiguration());
-
-        final IStandardExpression expression = expressionParser.parseExpression(context, attributeValue);
+        final IStandardExpression expression = EngineEventUtils.computeAttributeExpression(context, tag, attributeName, attributeValue);
         final Object value = expression.execute(context);
 
         return !EvaluationUtils.evaluateAsBoolean(value);
@@ -24,6 +24,7 @@
 import org.thymeleaf.IEngineConfiguration;
 import org.thymeleaf.context.ITemplateContext;
 import org.thymeleaf.engine.AttributeName;
+import org.thymeleaf.engine.EngineEventUtils;
 import org.thymeleaf.engine.TemplateModel;
 import org.thymeleaf.model.IProcessableElementTag;
 import org.thymeleaf.postprocessor.IPostProcessor;
@@ -32,10 +33,8 @@
 import org.thymeleaf.standard.expression.Fragment;
 import org.thymeleaf.standard.expression.FragmentExpression;
 import org.thymeleaf.standard.expression.IStandardExpression;
-import org.thymeleaf.standard.expression.IStandardExpressionParser;
 import org.thymeleaf.standard.expression.NoOpToken;
 import org.thymeleaf.standard.expression.StandardExpressionExecutionContext;
-import org.thymeleaf.standard.expression.StandardExpressions;
 import org.thymeleaf.templatemode.TemplateMode;
 
 /**
@@ -66,9 +65,8 @@ protected void doProcess(
 
         final IEngineConfiguration configuration = context.getConfiguration();
 
-        final IStandardExpressionParser expressionParser = StandardExpressions.getExpressionParser(configuration);
-
-        final IStandardExpression expression = expressionParser.parseExpression(context, attributeValue);
+        final IStandardExpression expression =
+                EngineEventUtils.computeAttributeExpression(context, tag, attributeName, attributeValue);
 
         final Object expressionResult;
         if (expression != null && expression instanceof FragmentExpression) {
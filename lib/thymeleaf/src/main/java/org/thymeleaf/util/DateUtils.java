@@ -39,7 +39,13 @@
 public final class DateUtils {
     
     
-    private static final Map<DateFormatKey,DateFormat> dateFormats = new ConcurrentHashMap<DateFormatKey, DateFormat>(4, 0.9f, 2);
+    /*
+     * Formatters are cached per pattern, locale and time zone. The number of different combinations of these is
+     * normally small, but as patterns could come from anywhere (even user input), the cache is bounded: once it
+     * is full, formatters for new combinations will just be created (and discarded) on each call.
+     */
+    private static final int DATE_FORMATS_MAX_SIZE = 512;
+    private static final Map<DateFormatKey,FormatPool> dateFormats = new ConcurrentHashMap<DateFormatKey, FormatPool>(16, 0.9f, 2);
 
     /*
      * This SimpleDateFormat defines an almost-ISO8601 formatter.
@@ -48,9 +54,10 @@ public final class DateUtils {
      * timezone as "+02:00" or "Z" instead of "+0200") was not added until Java SE 7. So the use of this
      * SimpleDateFormat object requires additional post-processing.
      *
-     * Note SimpleDateFormat objects are NOT thread-safe, so use of this object must be synchronized.
+     * Note SimpleDateFormat objects are NOT thread-safe, so this is used through a pool of formatters.
      */
-    private static final SimpleDateFormat ISO8601_DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZZZ");
+    private static final FormatPool ISO8601_DATE_FORMAT =
+            new FormatPool(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZZZ"));
 
     
     
@@ -508,34 +515,46 @@ private static String formatDate(final Object target, final String pattern, fina
             return null;
         }
 
-        final DateFormatKey key = new DateFormatKey(target, pattern, locale);
-        
-        DateFormat dateFormat = dateFormats.get(key);
-        if (dateFormat == null) {
-            if (StringUtils.isEmptyOrWhitespace(pattern)) {
-                dateFormat = DateFormat.getDateTimeInstance(DateFormat.LONG, DateFormat.LONG, locale);
-            } else {
-                dateFormat = new SimpleDateFormat(pattern, locale);
-            }
-            if (key.timeZone != null) {
-                dateFormat.setTimeZone(key.timeZone);
-            }
-            dateFormats.put(key, dateFormat);
-        }
-        
+        final java.util.Date targetDate;
         if (target instanceof Calendar) {
-            synchronized (dateFormat) {
-                return dateFormat.format(((Calendar) target).getTime());
-            }
+            targetDate = ((Calendar) target).getTime();
         } else if (target instanceof java.util.Date) {
-            synchronized (dateFormat) {
-                return dateFormat.format((java.util.Date)target);
-            }
+            targetDate = (java.util.Date) target;
         } else {
             throw new IllegalArgumentException(
                     "Cannot format object of class \"" + target.getClass().getName() + "\" as a date");
         }
-        
+
+        final DateFormatKey key = new DateFormatKey(target, pattern, locale);
+
+        FormatPool formatPool = dateFormats.get(key);
+        if (formatPool == null) {
+            formatPool = new FormatPool(createDateFormat(key));
+            if (dateFormats.size() < DATE_FORMATS_MAX_SIZE) {
+                // Size might be temporarily exceeded by a few entries due to concurrency, which is not a problem
+                final FormatPool existingFormatPool = dateFormats.putIfAbsent(key, formatPool);
+                if (existingFormatPool != null) {
+                    formatPool = existingFormatPool;
+                }
+            }
+        }
+
+        return formatPool.format(targetDate);
+
+    }
+
+
+    private static DateFormat createDateFormat(final DateFormatKey key) {
+        final DateFormat dateFormat;
+        if (StringUtils.isEmptyOrWhitespace(key.format)) {
+            dateFormat = DateFormat.getDateTimeInstance(DateFormat.LONG, DateFormat.LONG, key.locale);
+        } else {
+            dateFormat = new SimpleDateFormat(key.format, key.locale);
+        }
+        if (key.timeZone != null) {
+            dateFormat.setTimeZone(key.timeZone);
+        }
+        return dateFormat;
     }
 
 
@@ -564,10 +583,7 @@ public static String formatISO(final Object target) {
                     "Cannot format object of class \"" + target.getClass().getName() + "\" as a date");
         }
 
-        final String formatted;
-        synchronized (ISO8601_DATE_FORMAT) {
-            formatted = ISO8601_DATE_FORMAT.format(targetDate);
-        }
+        final String formatted = ISO8601_DATE_FORMAT.format(targetDate);
 
         final StringBuilder strBuilder = new StringBuilder(formatted.length() + 1);
         strBuilder.append(formatted);
@@ -0,0 +1,96 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.util;
+
+import java.text.Format;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+ * java.text.Format objects (DateFormat, NumberFormat...) are not thread-safe, so instead of synchronizing on a
+ * single formatter (which makes all threads formatting with the same pattern contend for it) or creating a new
+ * one each time (which is expensive, as it requires locale data lookups), this pool keeps a prototype that is never
+ * used for formatting, plus a small lock-free array of clones of it. Threads take a formatter from the pool (or clone
+ * a new one if the pool is empty), use it in isolation and then give it back. As all formatters are clones of the
+ * same prototype, results are exactly the same as if the prototype itself was used.
+ *
+ * @author Daniel Fernandez
+ * @since 3.1.2
+ *
+ */
+final class FormatPool {
+
+    private static final int POOL_SIZE =
+            Math.max(2, Math.min(16, Integer.highestOneBit(Runtime.getRuntime().availableProcessors()) << 1));
+
+    private final Format prototype;
+    private final AtomicReferenceArray<Format> pool;
+
+
+
+    FormatPool(final Format prototype) {
+        super();
+        this.prototype = prototype;
+        this.pool = new AtomicReferenceArray<Format>(POOL_SIZE);
+    }
+
+
+    /*
+     * The prototype should never be used for formatting nor modified, but it can be used for reading its
+     * configuration.
+     */
+    Format getPrototype() {
+        return this.prototype;
+    }
+
+
+    String format(final Object target) {
+
+        // Starting at a different slot for each thread reduces the chances of threads competing for the same
+        // formatter. POOL_SIZE is always a power of two.
+        final int start = (int) Thread.currentThread().getId() & (POOL_SIZE - 1);
+
+        Format format = null;
+        for (int i = 0; format == null && i < POOL_SIZE; i++) {
+            final int slot = (start + i) & (POOL_SIZE - 1);
+            final Format pooled = this.pool.get(slot);
+            if (pooled != null && this.pool.compareAndSet(slot, pooled, null)) {
+                format = pooled;
+            }
+        }
+        if (format == null) {
+            // The prototype is never modified, so cloning it concurrently is safe
+            format = (Format) this.prototype.clone();
+        }
+
+        final String result = format.format(target);
+
+        for (int i = 0; i < POOL_SIZE; i++) {
+            final int slot = (start + i) & (POOL_SIZE - 1);
+            if (this.pool.get(slot) == null && this.pool.compareAndSet(slot, null, format)) {
+                break;
+            }
+        }
+
+        return result;
+
+    }
+
+
+}
@@ -19,12 +19,15 @@
  */
 package org.thymeleaf.util;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 
@@ -35,6 +38,15 @@
  */
 public final class NumberUtils {
 
+    /*
+     * Creating NumberFormat objects is expensive (it requires locale data lookups), so formatters are cached
+     * per type, locale and formatting options. The number of different combinations of these is normally small,
+     * but the cache is bounded anyway: once it is full, formatters for new combinations will be created on each call.
+     */
+    private static final int NUMBER_FORMATS_MAX_SIZE = 512;
+    private static final ConcurrentHashMap<NumberFormatKey,NumberFormatter> numberFormats =
+            new ConcurrentHashMap<NumberFormatKey, NumberFormatter>(16, 0.9f, 2);
+
     
     
     public static String format(final Number target, final Integer minIntegerDigits, final Locale locale) {
@@ -202,17 +214,42 @@ private static String formatNumber(final Number target, final Integer minInteger
             return null;
         }
 
-        DecimalFormat format = (DecimalFormat)NumberFormat.getNumberInstance(locale);
-        format.setMinimumFractionDigits(fractionDigits.intValue());
-        format.setMaximumFractionDigits(fractionDigits.intValue());
-        if (minIntegerDigits != null) {
-            format.setMinimumIntegerDigits(minIntegerDigits.intValue());
+        final NumberFormatKey key =
+                new NumberFormatKey(
+                        NumberFormatKey.TYPE_NUMBER, locale, minIntegerDigits, fractionDigits.intValue(),
+                        thousandsPointType, decimalPointType);
+
+        NumberFormatter formatter = numberFormats.get(key);
+        if (formatter == null) {
+            formatter = cacheNumberFormatter(key, new NumberFormatter(createDecimalFormat(key), true));
         }
-        format.setDecimalSeparatorAlwaysShown(decimalPointType != NumberPointType.NONE && fractionDigits.intValue() > 0);
-        format.setGroupingUsed(thousandsPointType != NumberPointType.NONE);
-        format.setDecimalFormatSymbols(computeDecimalFormatSymbols(decimalPointType, thousandsPointType, locale));
-        
-        return format.format(target);
+
+        return formatter.format(target);
+
+    }
+
+
+    private static DecimalFormat createDecimalFormat(final NumberFormatKey key) {
+        final DecimalFormat format = (DecimalFormat)NumberFormat.getNumberInstance(key.locale);
+        format.setMinimumFractionDigits(key.fractionDigits);
+        format.setMaximumFractionDigits(key.fractionDigits);
+        if (key.minIntegerDigits != null) {
+            format.setMinimumIntegerDigits(key.minIntegerDigits.intValue());
+        }
+        format.setDecimalSeparatorAlwaysShown(key.decimalPointType != NumberPointType.NONE && key.fractionDigits > 0);
+        format.setGroupingUsed(key.thousandsPointType != NumberPointType.NONE);
+        format.setDecimalFormatSymbols(computeDecimalFormatSymbols(key.decimalPointType, key.thousandsPointType, key.locale));
+        return format;
+    }
+
+
+    private static NumberFormatter cacheNumberFormatter(final NumberFormatKey key, final NumberFormatter formatter) {
+        if (numberFormats.size() >= NUMBER_FORMATS_MAX_SIZE) {
+            return formatter;
+        }
+        // Size might be temporarily exceeded by a few entries due to concurrency, which is not a problem
+        final NumberFormatter existingFormatter = numberFormats.putIfAbsent(key, formatter);
+        return (existingFormatter == null? formatter : existingFormatter);
     }
 
 
@@ -282,9 +319,15 @@ public static String formatCurrency(final Number target, final Locale locale) {
             return null;
         }
 
-        NumberFormat format = NumberFormat.getCurrencyInstance(locale);
+        final NumberFormatKey key =
+                new NumberFormatKey(NumberFormatKey.TYPE_CURRENCY, locale, null, -1, null, null);
 
-        return format.format(target);
+        NumberFormatter formatter = numberFormats.get(key);
+        if (formatter == null) {
+            formatter = cacheNumberFormatter(key, new NumberFormatter(NumberFormat.getCurrencyInstance(locale), false));
+        }
+
+        return formatter.format(target);
     }
 
     /**
@@ -308,18 +351,265 @@ public static String formatPercent(final Number target, final Integer minInteger
             return null;
         }
 
-        NumberFormat format = NumberFormat.getPercentInstance(locale);
-        format.setMinimumFractionDigits(fractionDigits.intValue());
-        format.setMaximumFractionDigits(fractionDigits.intValue());
-        if (minIntegerDigits != null) {
-            format.setMinimumIntegerDigits(minIntegerDigits.intValue());
+        final NumberFormatKey key =
+                new NumberFormatKey(
+                        NumberFormatKey.TYPE_PERCENT, locale, minIntegerDigits, fractionDigits.intValue(), null, null);
+
+        NumberFormatter formatter = numberFormats.get(key);
+        if (formatter == null) {
+            final NumberFormat format = NumberFormat.getPercentInstance(locale);
+            format.setMinimumFractionDigits(fractionDigits.intValue());
+            format.setMaximumFractionDigits(fractionDigits.intValue());
+            if (minIntegerDigits != null) {
+                format.setMinimumIntegerDigits(minIntegerDigits.intValue());
+            }
+            formatter = cacheNumberFormatter(key, new NumberFormatter(format, false));
         }
 
-        return format.format(target);
+        return formatter.format(target);
     }
 
 
     private NumberUtils() {
         super();
     }
+
+
+
+
+    /*
+     * Formats numbers by means of a pool of clones of a NumberFormat prototype (so that no synchronization is
+     * needed) and, for the most common cases in DecimalFormat-based number formatters (integral types, BigDecimal and
+     * double/float values with a small number of fraction digits), by directly writing digits and separators as
+     * computed from the prototype's configuration, which avoids using DecimalFormat at all. Results of this
+     * fast path are the same as those of DecimalFormat (including HALF_EVEN rounding and the "-0" DecimalFormat
+     * outputs for negative values that round to zero).
+     */
+    private static final class NumberFormatter {
+
+        private static final int FAST_PATH_MAX_INTEGER_DIGITS = 32;
+        private static final int FAST_PATH_MAX_FRACTION_DIGITS = 16;
+
+        private final FormatPool pool;
+
+        private final boolean fastPath;
+        private final int minIntegerDigits;
+        private final int fractionDigits;
+        private final boolean groupingUsed;
+        private final int groupingSize;
+        private final char zeroDigit;
+        private final char groupingSeparator;
+        private final char decimalSeparator;
+        private final String positivePrefix;
+        private final String positiveSuffix;
+        private final String negativePrefix;
+        private final String negativeSuffix;
+
+
+        NumberFormatter(final NumberFormat format, final boolean allowFastPath) {
+
+            super();
+
+            this.pool = new FormatPool(format);
+
+            if (allowFastPath && format instanceof DecimalFormat) {
+
+                final DecimalFormat decimalFormat = (DecimalFormat) format;
+                final DecimalFormatSymbols symbols = decimalFormat.getDecimalFormatSymbols();
+
+                this.fastPath =
+                        decimalFormat.getMultiplier() == 1 &&
+                        decimalFormat.getMaximumIntegerDigits() == Integer.MAX_VALUE &&
+                        decimalFormat.getMinimumIntegerDigits() <= FAST_PATH_MAX_INTEGER_DIGITS &&
+                        decimalFormat.getMinimumFractionDigits() == decimalFormat.getMaximumFractionDigits() &&
+                        decimalFormat.getMaximumFractionDigits() <= FAST_PATH_MAX_FRACTION_DIGITS &&
+                        decimalFormat.getRoundingMode() == RoundingMode.HALF_EVEN &&
+                        !decimalFormat.toPattern().contains("E");
+                this.minIntegerDigits = decimalFormat.getMinimumIntegerDigits();
+                this.fractionDigits = decimalFormat.getMaximumFractionDigits();
+                this.groupingUsed = decimalFormat.isGroupingUsed() && decimalFormat.getGroupingSize() > 0;
+                this.groupingSize = decimalFormat.getGroupingSize();
+                this.zeroDigit = symbols.getZeroDigit();
+                this.groupingSeparator = symbols.getGroupingSeparator();
+                this.decimalSeparator = symbols.getDecimalSeparator();
+                this.positivePrefix = decimalFormat.getPositivePrefix();
+                this.positiveSuffix = decimalFormat.getPositiveSuffix();
+                this.negativePrefix = decimalFormat.getNegativePrefix();
+                this.negativeSuffix = decimalFormat.getNegativeSuffix();
+
+            } else {
+
+                this.fastPath = false;
+                this.minIntegerDigits = 0;
+                this.fractionDigits = 0;
+                this.groupingUsed = false;
+                this.groupingSize = 0;
+                this.zeroDigit = '0';
+                this.groupingSeparator = ',';
+                this.decimalSeparator = '.';
+                this.positivePrefix = null;
+                this.positiveSuffix = null;
+                this.negativePrefix = null;
+                this.negativeSuffix = null;
+
+            }
+
+        }
+
+
+        String format(final Number target) {
+
+            if (this.fastPath) {
+
+                if (target instanceof Integer || target instanceof Long || target instanceof Short || target instanceof Byte) {
+                    final long value = target.longValue();
+                    final String digits = Long.toString(value);
+                    return build(value < 0L, (value < 0L ? digits.substring(1) : digits), null);
+                }
+
+                if (target instanceof BigDecimal) {
+                    final BigDecimal value = (BigDecimal) target;
+                    return build(value.signum() < 0, value.setScale(this.fractionDigits, RoundingMode.HALF_EVEN));
+                }
+
+                if (target instanceof Double || target instanceof Float) {
+                    final double value = target.doubleValue();
+                    if (!Double.isNaN(value) && !Double.isInfinite(value)) {
+                        /*
+                         * DecimalFormat uses the shortest decimal representation of the double (the one computed by
+                         * Double.toString()) and, only if that has to be rounded, rounds taking into account the exact
+                         * binary value of the double (e.g. 1.015 is actually 1.01499999999999990230037... and
+                         * therefore rounds to 1.01).
+                         */
+                        final BigDecimal shortest = new BigDecimal(Double.toString(value));
+                        final BigDecimal rounded =
+                                (shortest.scale() > this.fractionDigits?
+                                        new BigDecimal(value).setScale(this.fractionDigits, RoundingMode.HALF_EVEN) :
+                                        shortest.setScale(this.fractionDigits));
+                        final boolean negative = (value < 0.0d || (value == 0.0d && 1.0d / value < 0.0d));
+                        return build(negative, rounded);
+                    }
+                }
+
+            }
+
+            return this.pool.format(target);
+
+        }
+
+
+        private String build(final boolean negative, final BigDecimal rounded) {
+            final String plain = rounded.abs().toPlainString();
+            final int pointPos = plain.indexOf('.');
+            if (pointPos < 0) {
+                return build(negative, plain, null);
+            }
+            return build(negative, plain.substring(0, pointPos), plain.substring(pointPos + 1));
+        }
+
+
+        private String build(final boolean negative, final String integerDigits, final String fractionDigitsValue) {
+
+            // Same as DecimalFormat, a zero integer part will only be output if required by the minimum integer
+            // digits, or if there is nothing else to output.
+            final int integerLen = ("0".equals(integerDigits)? 0 : integerDigits.length());
+            final int count = Math.max(this.minIntegerDigits, integerLen);
+
+            final StringBuilder strBuilder = new StringBuilder(count + (count / 3) + this.fractionDigits + 8);
+            strBuilder.append(negative? this.negativePrefix : this.positivePrefix);
+
+            final int sizeBeforeIntegerPart = strBuilder.length();
+            for (int i = count - 1; i >= 0; i--) {
+                if (i < integerLen) {
+                    strBuilder.append(localize(integerDigits.charAt(integerLen - 1 - i)));
+                } else {
+                    strBuilder.append(this.zeroDigit);
+                }
+                if (this.groupingUsed && i > 0 && (i % this.groupingSize == 0)) {
+                    strBuilder.append(this.groupingSeparator);
+                }
+            }
+
+            if (this.fractionDigits > 0) {
+                strBuilder.append(this.decimalSeparator);
+                for (int i = 0; i < this.fractionDigits; i++) {
+                    strBuilder.append(
+                            fractionDigitsValue != null && i < fractionDigitsValue.length()?
+                                    localize(fractionDigitsValue.charAt(i)) : this.zeroDigit);
+                }
+            } else if (strBuilder.length() == sizeBeforeIntegerPart) {
+                strBuilder.append(this.zeroDigit);
+            }
+
+            strBuilder.append(negative? this.negativeSuffix : this.positiveSuffix);
+            return strBuilder.toString();
+
+        }
+
+
+        private char localize(final char digit) {
+            return (char) (this.zeroDigit + (digit - '0'));
+        }
+
+    }
+
+
+
+
+    private static final class NumberFormatKey {
+
+        static final int TYPE_NUMBER = 0;
+        static final int TYPE_CURRENCY = 1;
+        static final int TYPE_PERCENT = 2;
+
+        final int type;
+        final Locale locale;
+        final Integer minIntegerDigits;
+        final int fractionDigits;
+        final NumberPointType thousandsPointType;
+        final NumberPointType decimalPointType;
+
+        NumberFormatKey(
+                final int type, final Locale locale, final Integer minIntegerDigits, final int fractionDigits,
+                final NumberPointType thousandsPointType, final NumberPointType decimalPointType) {
+            super();
+            this.type = type;
+            this.locale = locale;
+            this.minIntegerDigits = minIntegerDigits;
+            this.fractionDigits = fractionDigits;
+            this.thousandsPointType = thousandsPointType;
+            this.decimalPointType = decimalPointType;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof NumberFormatKey)) {
+                return false;
+            }
+            final NumberFormatKey that = (NumberFormatKey) o;
+            return this.type == that.type &&
+                    this.fractionDigits == that.fractionDigits &&
+                    this.locale.equals(that.locale) &&
+                    (this.minIntegerDigits == null? that.minIntegerDigits == null : this.minIntegerDigits.equals(that.minIntegerDigits)) &&
+                    this.thousandsPointType == that.thousandsPointType &&
+                    this.decimalPointType == that.decimalPointType;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = this.type;
+            result = 31 * result + this.locale.hashCode();
+            result = 31 * result + (this.minIntegerDigits != null? this.minIntegerDigits.hashCode() : 0);
+            result = 31 * result + this.fractionDigits;
+            result = 31 * result + (this.thousandsPointType != null? this.thousandsPointType.hashCode() : 0);
+            result = 31 * result + (this.decimalPointType != null? this.decimalPointType.hashCode() : 0);
+            return result;
+        }
+
+    }
+
+
 }
@@ -0,0 +1,247 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.util.temporal;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ *   Bounded cache of the {@link DateTimeFormatter} objects used by {@link TemporalFormattingUtils} (and therefore
+ *   by the {@code #temporals} expression utility object), so that patterns do not need to be parsed again
+ *   each time a {@code java.time} object is formatted.
+ * </p>
+ * <p>
+ *   Formatters are cached by pattern (or format style), locale, time zone and, when the resulting formatter
+ *   depends on it, the class of the object being formatted. As {@link DateTimeFormatter} objects are immutable
+ *   and thread-safe, cached formatters can be used concurrently without any synchronization. A maximum of
+ *   {@value #MAX_SIZE} formatters will be cached: once this limit is reached, formatters for new combinations
+ *   of the above will be created (and discarded) each time they are needed.
+ * </p>
+ * <p>
+ *   Hit and miss counts are kept so that the effectiveness of this cache can be monitored.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.1.2
+ */
+public final class TemporalFormatterCache {
+
+    public static final int MAX_SIZE = 512;
+
+    private static final ConcurrentHashMap<FormatterKey,DateTimeFormatter> formatters =
+            new ConcurrentHashMap<FormatterKey, DateTimeFormatter>(32, 0.9f, 2);
+
+    private static final LongAdder hitCount = new LongAdder();
+    private static final LongAdder missCount = new LongAdder();
+
+
+
+
+    /*
+     * Returns the formatter to be used when no pattern is specified, which depends on the type of target.
+     */
+    static DateTimeFormatter defaultFormatterFor(final Object target, final Locale locale) {
+        final FormatterKey key = new FormatterKey(null, target.getClass(), locale, null);
+        DateTimeFormatter formatter = formatters.get(key);
+        if (formatter != null) {
+            hitCount.increment();
+            return formatter;
+        }
+        missCount.increment();
+        formatter = TemporalObjects.formatterFor(target, locale);
+        return cacheFormatter(key, formatter);
+    }
+
+
+    /*
+     * Returns the formatter for a pattern, which can either be a DateTimeFormatter pattern or the name of one of
+     * the FormatStyle values (SHORT, MEDIUM, LONG, FULL).
+     */
+    static DateTimeFormatter formatterFor(
+            final String pattern, final Class<?> targetClass, final Locale locale, final ZoneId zoneId) {
+
+        final FormatStyle formatStyle = formatStyleFor(pattern);
+
+        // Format-style formatters depend on the kind of target (but not on the zone), pattern-based ones
+        // depend on the zone (but not on the kind of target).
+        final FormatterKey key;
+        if (formatStyle != null) {
+            final Class<?> kind =
+                    (LocalDate.class.isAssignableFrom(targetClass)?
+                            LocalDate.class : (LocalTime.class.isAssignableFrom(targetClass)? LocalTime.class : null));
+            key = new FormatterKey(pattern, kind, locale, null);
+        } else {
+            key = new FormatterKey(pattern, null, locale, zoneId);
+        }
+
+        DateTimeFormatter formatter = formatters.get(key);
+        if (formatter != null) {
+            hitCount.increment();
+            return formatter;
+        }
+        missCount.increment();
+
+        if (formatStyle != null) {
+            if (key.targetKind == LocalDate.class) {
+                formatter = DateTimeFormatter.ofLocalizedDate(formatStyle).withLocale(locale);
+            } else if (key.targetKind == LocalTime.class) {
+                formatter = DateTimeFormatter.ofLocalizedTime(formatStyle).withLocale(locale);
+            } else {
+                formatter = DateTimeFormatter.ofLocalizedDateTime(formatStyle).withLocale(locale);
+            }
+        } else {
+            formatter = DateTimeFormatter.ofPattern(pattern, locale).withZone(zoneId);
+        }
+
+        return cacheFormatter(key, formatter);
+
+    }
+
+
+    private static FormatStyle formatStyleFor(final String pattern) {
+        switch (pattern) {
+            case "SHORT"  : return FormatStyle.SHORT;
+            case "MEDIUM" : return FormatStyle.MEDIUM;
+            case "LONG"   : return FormatStyle.LONG;
+            case "FULL"   : return FormatStyle.FULL;
+            default       : return null;
+        }
+    }
+
+
+    private static DateTimeFormatter cacheFormatter(final FormatterKey key, final DateTimeFormatter formatter) {
+        if (formatters.size() >= MAX_SIZE) {
+            return formatter;
+        }
+        // Size might be temporarily exceeded by a few entries due to concurrency, which is not a problem
+        final DateTimeFormatter existingFormatter = formatters.putIfAbsent(key, formatter);
+        return (existingFormatter == null? formatter : existingFormatter);
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Returns the number of times a formatter was found in the cache.
+     * </p>
+     *
+     * @return the hit count.
+     */
+    public static long getHitCount() {
+        return hitCount.sum();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the number of times a formatter was not found in the cache, and therefore had to be created.
+     * </p>
+     *
+     * @return the miss count.
+     */
+    public static long getMissCount() {
+        return missCount.sum();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the number of formatters currently in the cache.
+     * </p>
+     *
+     * @return the cache size.
+     */
+    public static int getSize() {
+        return formatters.size();
+    }
+
+
+    /**
+     * <p>
+     *   Removes all formatters from the cache and resets hit and miss counts.
+     * </p>
+     */
+    public static void clear() {
+        formatters.clear();
+        hitCount.reset();
+        missCount.reset();
+    }
+
+
+
+
+    private TemporalFormatterCache() {
+        super();
+    }
+
+
+
+
+    private static final class FormatterKey {
+
+        final String pattern;
+        final Class<?> targetKind;
+        final Locale locale;
+        final ZoneId zoneId;
+
+        FormatterKey(final String pattern, final Class<?> targetKind, final Locale locale, final ZoneId zoneId) {
+            super();
+            this.pattern = pattern;
+            this.targetKind = targetKind;
+            this.locale = locale;
+            this.zoneId = zoneId;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof FormatterKey)) {
+                return false;
+            }
+            final FormatterKey that = (FormatterKey) o;
+            return (this.pattern == null? that.pattern == null : this.pattern.equals(that.pattern)) &&
+                    this.targetKind == that.targetKind &&
+                    this.locale.equals(that.locale) &&
+                    (this.zoneId == null? that.zoneId == null : this.zoneId.equals(that.zoneId));
+        }
+
+        @Override
+        public int hashCode() {
+            int result = (this.pattern != null? this.pattern.hashCode() : 0);
+            result = 31 * result + (this.targetKind != null? this.targetKind.hashCode() : 0);
+            result = 31 * result + this.locale.hashCode();
+            result = 31 * result + (this.zoneId != null? this.zoneId.hashCode() : 0);
+            return result;
+        }
+
+    }
+
+}
@@ -19,12 +19,9 @@
  */
 package org.thymeleaf.util.temporal;
 
-import java.time.LocalDate;
-import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.chrono.ChronoZonedDateTime;
 import java.time.format.DateTimeFormatter;
-import java.time.format.FormatStyle;
 import java.time.temporal.ChronoField;
 import java.time.temporal.TemporalAccessor;
 import java.util.Locale;
@@ -178,10 +175,10 @@ private String formatDate(final Object target, final String pattern, final Local
         try {
             DateTimeFormatter formatter;
             if (StringUtils.isEmptyOrWhitespace(pattern)) {
-                formatter = TemporalObjects.formatterFor(target, formattingLocale);
+                formatter = TemporalFormatterCache.defaultFormatterFor(target, formattingLocale);
                 return formatter.format(TemporalObjects.temporal(target));
             } else {
-                formatter = computeFormatter(pattern, target.getClass(), formattingLocale, zoneId);
+                formatter = TemporalFormatterCache.formatterFor(pattern, target.getClass(), formattingLocale, zoneId);
                 return formatter.format(TemporalObjects.zonedTime(target, this.defaultZoneId));
             }
         } catch (final Exception e) {
@@ -190,26 +187,4 @@ private String formatDate(final Object target, final String pattern, final Local
         }
     }
 
-    private static DateTimeFormatter computeFormatter(final String pattern, final Class<?> targetClass,
-                                                      final Locale locale, final ZoneId zoneId) {
-        final FormatStyle formatStyle;
-        switch (pattern) {
-            case "SHORT"  : formatStyle = FormatStyle.SHORT; break;
-            case "MEDIUM" : formatStyle = FormatStyle.MEDIUM; break;
-            case "LONG"   : formatStyle = FormatStyle.LONG; break;
-            case "FULL"   : formatStyle = FormatStyle.FULL; break;
-            default       : formatStyle = null; break;
-        }
-        if (formatStyle != null) {
-            if (LocalDate.class.isAssignableFrom(targetClass)) {
-                return DateTimeFormatter.ofLocalizedDate(formatStyle).withLocale(locale);
-            }
-            if (LocalTime.class.isAssignableFrom(targetClass)) {
-                return DateTimeFormatter.ofLocalizedTime(formatStyle).withLocale(locale);
-            }
-            return DateTimeFormatter.ofLocalizedDateTime(formatStyle).withLocale(locale);
-        }
-        return DateTimeFormatter.ofPattern(pattern, locale).withZone(zoneId);
-    }
-
 }
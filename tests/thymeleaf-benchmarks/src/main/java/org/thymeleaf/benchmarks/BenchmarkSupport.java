@@ -0,0 +1,213 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.benchmarks;
+
+import java.io.OutputStream;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+
+/*
+ * Common infrastructure for the benchmarks: template engine configuration, model objects and
+ * output sinks that do not retain (or allocate) anything, so that allocation measured with
+ * "-prof gc" only comes from the engine itself.
+ */
+final class BenchmarkSupport {
+
+
+    static TemplateEngine createTemplateEngine(final boolean spring, final boolean cacheable) {
+
+        final ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
+        templateResolver.setPrefix("templates/");
+        templateResolver.setSuffix(".html");
+        templateResolver.setTemplateMode(TemplateMode.HTML);
+        templateResolver.setCharacterEncoding("UTF-8");
+        templateResolver.setCacheable(cacheable);
+
+        final TemplateEngine templateEngine = (spring? new SpringTemplateEngine() : new TemplateEngine());
+        templateEngine.setTemplateResolver(templateResolver);
+        return templateEngine;
+
+    }
+
+
+    static Map<String,Object> createModel(final int itemCount) {
+
+        final List<Item> items = new ArrayList<Item>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            items.add(new Item(i, "Item number " + i, BigDecimal.valueOf(i * 125L, 2)));
+        }
+
+        final Map<String,Object> model = new HashMap<String, Object>();
+        model.put("title", "Thymeleaf benchmark");
+        model.put("version", "3.1.2");
+        model.put("user", new User("John Apricot", new Address("Main Street, 1", "Springfield")));
+        model.put("items", items);
+        model.put("rows", items);
+        return model;
+
+    }
+
+
+    static Context createContext(final int itemCount) {
+        return new Context(Locale.US, createModel(itemCount));
+    }
+
+
+
+
+    private BenchmarkSupport() {
+        super();
+    }
+
+
+
+
+    static final class NullWriter extends Writer {
+
+        @Override
+        public void write(final int c) {
+            // Nothing to do
+        }
+
+        @Override
+        public void write(final char[] cbuf, final int off, final int len) {
+            // Nothing to do
+        }
+
+        @Override
+        public void write(final String str, final int off, final int len) {
+            // Nothing to do
+        }
+
+        @Override
+        public void flush() {
+            // Nothing to do
+        }
+
+        @Override
+        public void close() {
+            // Nothing to do
+        }
+
+    }
+
+
+    static final class NullOutputStream extends OutputStream {
+
+        @Override
+        public void write(final int b) {
+            // Nothing to do
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+            // Nothing to do
+        }
+
+    }
+
+
+
+
+    public static final class User {
+
+        private final String name;
+        private final Address address;
+
+        User(final String name, final Address address) {
+            super();
+            this.name = name;
+            this.address = address;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public Address getAddress() {
+            return this.address;
+        }
+
+    }
+
+
+    public static final class Address {
+
+        private final String street;
+        private final String city;
+
+        Address(final String street, final String city) {
+            super();
+            this.street = street;
+            this.city = city;
+        }
+
+        public String getStreet() {
+            return this.street;
+        }
+
+        public String getCity() {
+            return this.city;
+        }
+
+    }
+
+
+    public static final class Item {
+
+        private final int id;
+        private final String name;
+        private final BigDecimal price;
+
+        Item(final int id, final String name, final BigDecimal price) {
+            super();
+            this.id = id;
+            this.name = name;
+            this.price = price;
+        }
+
+        public int getId() {
+            return this.id;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public BigDecimal getPrice() {
+            return this.price;
+        }
+
+    }
+
+
+}
@@ -0,0 +1,128 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.thymeleaf.cache.CacheEvictionPolicy;
+import org.thymeleaf.cache.ICache;
+import org.thymeleaf.cache.StandardCache;
+import org.thymeleaf.cache.TinyLFUCache;
+
+
+/*
+ * Cache get/put operations under contention: several threads reading while another one writes
+ * ("readWrite" group), and all threads reading ("read"). Keys are preallocated and the key set is twice
+ * the size of the cache, so that there is a steady flow of misses and evictions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CacheContentionBenchmark {
+
+    private static final int MAX_SIZE = 1000;
+    private static final int KEY_COUNT = 2 * MAX_SIZE;
+
+    @Param({"FIFO", "TINY_LFU"})
+    public CacheEvictionPolicy evictionPolicy;
+
+    private ICache<String,Object> cache;
+    private String[] keys;
+    private Object value;
+
+
+    @State(Scope.Thread)
+    public static class ThreadCursor {
+
+        int next = 0;
+
+        int nextIndex() {
+            // Skewed access: half of the operations go to 10% of the keys. Masking the sign bit keeps the
+            // index non-negative once the counter overflows (long runs), without altering its parity
+            final int n = (this.next++ & Integer.MAX_VALUE);
+            return ((n & 1) == 0? (n % (KEY_COUNT / 10)) : (n % KEY_COUNT));
+        }
+
+    }
+
+
+    @Setup
+    public void setup() {
+        if (this.evictionPolicy == CacheEvictionPolicy.TINY_LFU) {
+            this.cache =
+                    new TinyLFUCache<String, Object>(
+                            "benchmark", 16, MAX_SIZE, null, null, LoggerFactory.getLogger(CacheContentionBenchmark.class), false);
+        } else {
+            this.cache =
+                    new StandardCache<String, Object>(
+                            "benchmark", false, 16, MAX_SIZE, null, LoggerFactory.getLogger(CacheContentionBenchmark.class), false);
+        }
+        this.keys = new String[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            this.keys[i] = "key" + i;
+        }
+        this.value = new Object();
+        for (int i = 0; i < MAX_SIZE; i++) {
+            this.cache.put(this.keys[i], this.value);
+        }
+    }
+
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(3)
+    public Object readWriteGet(final ThreadCursor cursor) {
+        return this.cache.get(this.keys[cursor.nextIndex()]);
+    }
+
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public void readWritePut(final ThreadCursor cursor) {
+        this.cache.put(this.keys[cursor.nextIndex()], this.value);
+    }
+
+
+    @Benchmark
+    @Threads(4)
+    public Object read(final ThreadCursor cursor) {
+        return this.cache.get(this.keys[cursor.nextIndex()]);
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.cache.StandardCacheManager;
+import org.thymeleaf.context.ExpressionContext;
+import org.thymeleaf.context.IExpressionContext;
+import org.thymeleaf.standard.expression.IStandardExpressionParser;
+import org.thymeleaf.standard.expression.StandardExpressions;
+
+
+/*
+ * Parsing of Standard Expressions (StandardExpressionParser#parseExpression), with and without the
+ * expression cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ExpressionParsingBenchmark {
+
+    private static final String[] EXPRESSIONS =
+            new String[] {
+                    "${user.name}",
+                    "*{address.city} ?: 'n/a'",
+                    "@{/items/{id}(id=${item.id},page=${page})}",
+                    "${items.size() > 3} and not ${user == null}",
+                    "'Hello, ' + ${user.name} + '!'",
+                    "|Hello, ${user.name}!|",
+                    "~{fragments :: card(${item})}",
+                    "${#numbers.formatDecimal(item.price, 1, 2)}"
+            };
+
+    @Param({"true", "false"})
+    public boolean expressionCache;
+
+    private IStandardExpressionParser expressionParser;
+    private IExpressionContext context;
+
+
+    @Setup
+    public void setup() {
+        final StandardCacheManager cacheManager = new StandardCacheManager();
+        if (!this.expressionCache) {
+            cacheManager.setExpressionCacheMaxSize(0);
+        }
+        final TemplateEngine templateEngine = BenchmarkSupport.createTemplateEngine(false, true);
+        templateEngine.setCacheManager(cacheManager);
+        this.expressionParser = StandardExpressions.getExpressionParser(templateEngine.getConfiguration());
+        this.context = new ExpressionContext(templateEngine.getConfiguration());
+    }
+
+
+    @Benchmark
+    public void parseExpressions(final Blackhole blackhole) {
+        for (final String expression : EXPRESSIONS) {
+            blackhole.consume(this.expressionParser.parseExpression(this.context, expression));
+        }
+    }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.benchmarks;
+
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+
+
+/*
+ * Fragment insertion (th:insert / th:replace, with and without fragment parameters) from a
+ * separate template, including a fragment inserted once per iterated item.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class FragmentInsertionBenchmark {
+
+    @Param({"10", "100"})
+    public int items;
+
+    private TemplateEngine templateEngine;
+    private Context context;
+    private Writer writer;
+
+
+    @Setup
+    public void setup() {
+        this.templateEngine = BenchmarkSupport.createTemplateEngine(false, true);
+        this.context = BenchmarkSupport.createContext(this.items);
+        this.writer = new BenchmarkSupport.NullWriter();
+        this.templateEngine.process("layout", this.context, this.writer);
+    }
+
+
+    @Benchmark
+    public void insertFragments() {
+        this.templateEngine.process("layout", this.context, this.writer);
+    }
+
+}
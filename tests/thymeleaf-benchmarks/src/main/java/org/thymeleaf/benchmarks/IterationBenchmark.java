@@ -0,0 +1,76 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.benchmarks;
+
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+
+
+/*
+ * Iteration (th:each) over a large number of rows, with a few expressions evaluated per row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class IterationBenchmark {
+
+    @Param({"10000"})
+    public int rows;
+
+    @Param({"ognl", "spel"})
+    public String language;
+
+    private TemplateEngine templateEngine;
+    private Context context;
+    private Writer writer;
+
+
+    @Setup
+    public void setup() {
+        this.templateEngine = BenchmarkSupport.createTemplateEngine("spel".equals(this.language), true);
+        this.context = BenchmarkSupport.createContext(this.rows);
+        this.writer = new BenchmarkSupport.NullWriter();
+        this.templateEngine.process("table", this.context, this.writer);
+    }
+
+
+    @Benchmark
+    public void iterate() {
+        this.templateEngine.process("table", this.context, this.writer);
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.benchmarks;
+
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+
+
+/*
+ * Full parse + process of a medium-sized HTML page (TemplateManager#parseAndProcess), both with the
+ * template model served from the template cache and with the template being resolved and parsed
+ * again on each execution.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TemplateProcessingBenchmark {
+
+    @Param({"true", "false"})
+    public boolean cacheable;
+
+    private TemplateEngine templateEngine;
+    private Context context;
+    private Writer writer;
+
+
+    @Setup
+    public void setup() {
+        this.templateEngine = BenchmarkSupport.createTemplateEngine(false, this.cacheable);
+        this.context = BenchmarkSupport.createContext(20);
+        this.writer = new BenchmarkSupport.NullWriter();
+        // Make sure the engine is initialized (and the template cached, if cacheable) before measuring
+        this.templateEngine.process("page", this.context, this.writer);
+    }
+
+
+    @Benchmark
+    public void process() {
+        this.templateEngine.process("page", this.context, this.writer);
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.benchmarks;
+
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thymeleaf.IThrottledTemplateProcessor;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+
+
+/*
+ * Throttled processing (as used by the reactive integrations) producing output in chunks of a
+ * fixed size, both as bytes (OutputStream + charset) and as chars (Writer).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ThrottledOutputBenchmark {
+
+    private static final Charset CHARSET = StandardCharsets.UTF_8;
+
+    @Param({"1024", "8192", "65536"})
+    public int chunkSize;
+
+    @Param({"1000"})
+    public int rows;
+
+    private TemplateEngine templateEngine;
+    private Context context;
+    private OutputStream outputStream;
+    private Writer writer;
+
+
+    @Setup
+    public void setup() {
+        this.templateEngine = BenchmarkSupport.createTemplateEngine(false, true);
+        this.context = BenchmarkSupport.createContext(this.rows);
+        this.outputStream = new BenchmarkSupport.NullOutputStream();
+        this.writer = new BenchmarkSupport.NullWriter();
+        this.templateEngine.process("table", this.context, this.writer);
+    }
+
+
+    @Benchmark
+    public int processBytes() {
+        final IThrottledTemplateProcessor processor = this.templateEngine.processThrottled("table", this.context);
+        int chunks = 0;
+        while (!processor.isFinished()) {
+            processor.process(this.chunkSize, this.outputStream, CHARSET);
+            chunks++;
+        }
+        return chunks;
+    }
+
+
+    @Benchmark
+    public int processChars() {
+        final IThrottledTemplateProcessor processor = this.templateEngine.processThrottled("table", this.context);
+        int chunks = 0;
+        while (!processor.isFinished()) {
+            processor.process(this.chunkSize, this.writer);
+            chunks++;
+        }
+        return chunks;
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.benchmarks;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.cache.TemplateCacheKey;
+import org.thymeleaf.context.EngineContext;
+import org.thymeleaf.context.IExpressionContext;
+import org.thymeleaf.engine.TemplateModel;
+import org.thymeleaf.standard.expression.IStandardExpression;
+import org.thymeleaf.standard.expression.IStandardExpressionParser;
+import org.thymeleaf.standard.expression.StandardExpressions;
+
+
+/*
+ * Evaluation of already-parsed variable expressions, using OGNL (StandardDialect) or
+ * SpEL (SpringStandardDialect) as expression language.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class VariableExpressionBenchmark {
+
+    private static final String[] EXPRESSIONS =
+            new String[] {
+                    "${user.name}",
+                    "${user.address.city}",
+                    "${items.size() > 3}",
+                    "${title + ' - ' + version}",
+                    "${#strings.toUpperCase(user.name)}"
+            };
+
+    @Param({"ognl", "spel"})
+    public String language;
+
+    private IExpressionContext context;
+    private IStandardExpression[] expressions;
+
+
+    @Setup
+    public void setup() {
+        final TemplateEngine templateEngine = BenchmarkSupport.createTemplateEngine("spel".equals(this.language), true);
+        final IStandardExpressionParser expressionParser =
+                StandardExpressions.getExpressionParser(templateEngine.getConfiguration());
+
+        // Variable expressions are evaluated on template contexts, so we need the TemplateData of some template
+        // for creating one. We will take it from the template cache.
+        templateEngine.warmUpTemplateCache(Collections.singleton("page"), null, Runnable::run);
+        final TemplateModel templateModel =
+                templateEngine.getCacheManager().getTemplateCache().get(
+                        new TemplateCacheKey(null, "page", null, 0, 0, null, null));
+        this.context =
+                new EngineContext(
+                        templateEngine.getConfiguration(), templateModel.getTemplateData(), null,
+                        Locale.US, BenchmarkSupport.createModel(10));
+
+        this.expressions = new IStandardExpression[EXPRESSIONS.length];
+        for (int i = 0; i < EXPRESSIONS.length; i++) {
+            this.expressions[i] = expressionParser.parseExpression(this.context, EXPRESSIONS[i]);
+        }
+    }
+
+
+    @Benchmark
+    public void evaluate(final Blackhole blackhole) {
+        for (final IStandardExpression expression : this.expressions) {
+            blackhole.consume(expression.execute(this.context));
+        }
+    }
+
+}
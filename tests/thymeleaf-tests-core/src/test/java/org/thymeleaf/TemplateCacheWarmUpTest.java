@@ -0,0 +1,294 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf;
+
+import java.io.File;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.thymeleaf.cache.ICache;
+import org.thymeleaf.cache.TemplateCacheKey;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.context.IContext;
+import org.thymeleaf.engine.TemplateModel;
+import org.thymeleaf.exceptions.TemplateInputException;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.FileTemplateResolver;
+import org.thymeleaf.util.PatternSpec;
+
+
+public final class TemplateCacheWarmUpTest {
+
+    @TempDir
+    File dir;
+
+
+
+    private static TemplateEngine createEngine(final File dir) throws Exception {
+        return createEngine(dir, true);
+    }
+
+
+    private static TemplateEngine createEngine(final File dir, final boolean cacheable) throws Exception {
+        for (int i = 0; i < 20; i++) {
+            Files.write(
+                    new File(dir, "page" + i + ".html").toPath(),
+                    ("<div><p th:fragment=\"f\" th:text=\"${x}\">" + i + "</p></div>").getBytes(StandardCharsets.UTF_8));
+        }
+        Files.write(new File(dir, "broken.html").toPath(), "<div><p></div>".getBytes(StandardCharsets.UTF_8));
+        final FileTemplateResolver templateResolver = new FileTemplateResolver();
+        templateResolver.setPrefix(dir.getAbsolutePath() + File.separator);
+        templateResolver.setSuffix(".html");
+        templateResolver.setCacheable(cacheable);
+        templateResolver.setCheckExistence(true);
+        final TemplateEngine templateEngine = new TemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+        return templateEngine;
+    }
+
+
+
+    @Test
+    public void testWarmUp() throws Exception {
+
+        final TemplateEngine templateEngine = createEngine(this.dir);
+        final ICache<TemplateCacheKey, TemplateModel> templateCache = templateEngine.getCacheManager().getTemplateCache();
+
+        final PatternSpec patternSpec = new PatternSpec();
+        patternSpec.addPattern("page1*");
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+
+            final TemplateCacheWarmUpResult result =
+                    templateEngine.warmUpTemplateCache(
+                            Arrays.asList("page0", "page1", "page10", "page11", "page2"), patternSpec, executor);
+
+            Assertions.assertTrue(result.isSuccessful());
+            Assertions.assertEquals(3, result.getTemplateSpecs().size());
+            Assertions.assertEquals(result.getTemplateSpecs(), result.getCachedTemplateSpecs());
+            Assertions.assertEquals(3, templateCache.keySet().size());
+            for (final Long parseTime : result.getParseTimes().values()) {
+                Assertions.assertTrue(parseTime.longValue() > 0L);
+            }
+
+            // Warmed-up entries must be the ones used for processing, so processing must not add new entries
+            final Context context = new Context();
+            context.setVariable("x", "X");
+            Assertions.assertEquals("<div><p>X</p></div>", templateEngine.process("page1", context));
+            Assertions.assertEquals(3, templateCache.keySet().size());
+
+            // Fragment selectors create their own entries
+            final TemplateSpec fragmentSpec = new TemplateSpec("page2", Collections.singleton("f"), null, null, null);
+            final TemplateCacheWarmUpResult fragmentResult =
+                    templateEngine.warmUpTemplateCache(
+                            Arrays.asList(fragmentSpec, new TemplateSpec("broken", TemplateMode.XML),
+                                          new TemplateSpec("nonexistent", null, null, null, null)),
+                            executor);
+
+            Assertions.assertFalse(fragmentResult.isSuccessful());
+            Assertions.assertEquals(Collections.singleton(fragmentSpec), fragmentResult.getCachedTemplateSpecs());
+            Assertions.assertEquals(2, fragmentResult.getFailures().size());
+            Assertions.assertTrue(
+                    fragmentResult.getFailures().get(new TemplateSpec("nonexistent", null, null, null, null)) instanceof TemplateInputException);
+            Assertions.assertEquals(4, templateCache.keySet().size());
+            Assertions.assertEquals("<p>X</p>", templateEngine.process(fragmentSpec, context));
+            Assertions.assertEquals(4, templateCache.keySet().size());
+
+        } finally {
+            executor.shutdownNow();
+        }
+
+    }
+
+
+
+    @Test
+    public void testWarmUpNonCacheable() throws Exception {
+
+        final TemplateEngine templateEngine = createEngine(this.dir, false);
+        final ICache<TemplateCacheKey, TemplateModel> templateCache = templateEngine.getCacheManager().getTemplateCache();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+
+            // Non-cacheable templates are resolved, but not parsed (so parsing errors will not be reported)
+            final TemplateCacheWarmUpResult result =
+                    templateEngine.warmUpTemplateCache(
+                            Arrays.asList(new TemplateSpec("page0", TemplateMode.HTML),
+                                          new TemplateSpec("broken", TemplateMode.XML)),
+                            executor);
+
+            Assertions.assertTrue(result.isSuccessful());
+            Assertions.assertEquals(2, result.getTemplateSpecs().size());
+            Assertions.assertTrue(result.getCachedTemplateSpecs().isEmpty());
+            Assertions.assertEquals(0, templateCache.keySet().size());
+
+        } finally {
+            executor.shutdownNow();
+        }
+
+    }
+
+
+
+    @Test
+    public void testWarmUpWithoutCache() throws Exception {
+
+        final TemplateEngine templateEngine = createEngine(this.dir);
+        templateEngine.setCacheManager(null);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+
+            // Without a template cache templates are only resolved, so resolution errors are still reported
+            final TemplateSpec nonexistentSpec = new TemplateSpec("nonexistent", null, null, null, null);
+            final TemplateCacheWarmUpResult result =
+                    templateEngine.warmUpTemplateCache(
+                            Arrays.asList(new TemplateSpec("page0", TemplateMode.HTML), nonexistentSpec), executor);
+
+            Assertions.assertFalse(result.isSuccessful());
+            Assertions.assertEquals(2, result.getTemplateSpecs().size());
+            Assertions.assertTrue(result.getCachedTemplateSpecs().isEmpty());
+            Assertions.assertEquals(Collections.singleton(nonexistentSpec), result.getFailures().keySet());
+            Assertions.assertTrue(result.getFailures().get(nonexistentSpec) instanceof TemplateInputException);
+
+        } finally {
+            executor.shutdownNow();
+        }
+
+    }
+
+
+
+    @Test
+    public void testWarmUpWithFragmentIndexing() throws Exception {
+
+        final TemplateEngine templateEngine = createEngine(this.dir);
+        templateEngine.setFragmentIndexing(true);
+        Files.write(
+                new File(this.dir, "main.html").toPath(),
+                "<main th:insert=\"~{page3 :: f}\"></main>".getBytes(StandardCharsets.UTF_8));
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+
+            final TemplateSpec fragmentSpec = new TemplateSpec("page3", Collections.singleton("f"), null, null, null);
+            final TemplateCacheWarmUpResult result =
+                    templateEngine.warmUpTemplateCache(Collections.singletonList(fragmentSpec), executor);
+            Assertions.assertTrue(result.isSuccessful());
+
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Modifying the file shows whether the fragment inserted from another template is selected from the
+        // complete template model cached during warm-up, or parsed again
+        Files.write(
+                new File(this.dir, "page3.html").toPath(),
+                "<div><p th:fragment=\"f\">modified</p></div>".getBytes(StandardCharsets.UTF_8));
+
+        final Context context = new Context();
+        context.setVariable("x", "X");
+        Assertions.assertEquals("<main><p>X</p></main>", templateEngine.process("main", context));
+
+    }
+
+
+
+    @Test
+    public void testDefaultWarmUp() throws Exception {
+
+        final ITemplateEngine templateEngine = new NonWarmingTemplateEngine();
+
+        final TemplateCacheWarmUpResult result =
+                templateEngine.warmUpTemplateCache(Arrays.asList("page0", "page1"), null, Runnable::run);
+
+        // Default implementation must report failures instead of raising them
+        Assertions.assertFalse(result.isSuccessful());
+        Assertions.assertEquals(2, result.getTemplateSpecs().size());
+        Assertions.assertTrue(result.getCachedTemplateSpecs().isEmpty());
+        Assertions.assertEquals(result.getTemplateSpecs(), result.getFailures().keySet());
+        for (final Throwable failure : result.getFailures().values()) {
+            Assertions.assertTrue(failure instanceof UnsupportedOperationException);
+        }
+
+    }
+
+
+
+
+    private static final class NonWarmingTemplateEngine implements ITemplateEngine {
+
+        public IEngineConfiguration getConfiguration() {
+            throw new UnsupportedOperationException();
+        }
+
+        public String process(final String template, final IContext context) {
+            throw new UnsupportedOperationException();
+        }
+
+        public String process(final String template, final Set<String> templateSelectors, final IContext context) {
+            throw new UnsupportedOperationException();
+        }
+
+        public String process(final TemplateSpec templateSpec, final IContext context) {
+            throw new UnsupportedOperationException();
+        }
+
+        public void process(final String template, final IContext context, final Writer writer) {
+            throw new UnsupportedOperationException();
+        }
+
+        public void process(
+                final String template, final Set<String> templateSelectors, final IContext context, final Writer writer) {
+            throw new UnsupportedOperationException();
+        }
+
+        public void process(final TemplateSpec templateSpec, final IContext context, final Writer writer) {
+            throw new UnsupportedOperationException();
+        }
+
+        public IThrottledTemplateProcessor processThrottled(final String template, final IContext context) {
+            throw new UnsupportedOperationException();
+        }
+
+        public IThrottledTemplateProcessor processThrottled(
+                final String template, final Set<String> templateSelectors, final IContext context) {
+            throw new UnsupportedOperationException();
+        }
+
+        public IThrottledTemplateProcessor processThrottled(final TemplateSpec templateSpec, final IContext context) {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+
+}
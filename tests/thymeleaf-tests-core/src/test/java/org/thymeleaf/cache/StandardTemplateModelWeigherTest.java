@@ -0,0 +1,84 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.cache;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.engine.TemplateModel;
+import org.thymeleaf.templateresolver.StringTemplateResolver;
+
+
+public class StandardTemplateModelWeigherTest {
+
+    public StandardTemplateModelWeigherTest() {
+        super();
+    }
+
+
+    @Test
+    public void testWeightBoundedTemplateCache() {
+
+        final StandardCacheManager cacheManager = new StandardCacheManager();
+        cacheManager.setTemplateCacheMaxWeight(500000L);
+
+        final StringTemplateResolver templateResolver = new StringTemplateResolver();
+        templateResolver.setCacheable(true);
+
+        final TemplateEngine templateEngine = new TemplateEngine();
+        templateEngine.setCacheManager(cacheManager);
+        templateEngine.setTemplateResolver(templateResolver);
+
+        final ICache<TemplateCacheKey, TemplateModel> templateCache = cacheManager.getTemplateCache();
+        Assertions.assertTrue(templateCache instanceof TinyLFUCache);
+        Assertions.assertEquals(0L, templateCache.getWeight());
+
+        templateEngine.process("<p>hello</p>", new Context());
+        final long smallWeight = templateCache.getWeight();
+        Assertions.assertTrue(smallWeight > 0L);
+
+        final StringBuilder big = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            big.append("<div class=\"row\"><p th:text=\"${i}\">Some long text for row number ").append(i).append("</p></div>\n");
+        }
+        templateEngine.process(big.toString(), new Context());
+        final long bigWeight = templateCache.getWeight() - smallWeight;
+        Assertions.assertTrue(bigWeight > 50 * smallWeight);
+
+        // Lots of big templates must not go over the maximum weight
+        for (int i = 0; i < 50; i++) {
+            templateEngine.process(i + big.toString(), new Context());
+        }
+        Assertions.assertTrue(templateCache.getWeight() <= 500000L);
+
+    }
+
+
+    @Test
+    public void testCountBoundedCachesDoNotComputeWeight() {
+
+        final StandardCacheManager cacheManager = new StandardCacheManager();
+        Assertions.assertEquals(-1L, cacheManager.getTemplateCache().getWeight());
+
+    }
+
+
+}
@@ -0,0 +1,166 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.cache;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.helpers.NOPLogger;
+
+
+public class TinyLFUCacheTest {
+
+    public TinyLFUCacheTest() {
+        super();
+    }
+
+
+    @Test
+    public void testPutGetAndClear() {
+
+        final TinyLFUCache<String, String> cache =
+                new TinyLFUCache<String, String>("testPutGet", 2, 10, NOPLogger.NOP_LOGGER);
+
+        Assertions.assertNull(cache.get("a"));
+        cache.put("a", "A");
+        cache.put("b", "B");
+        Assertions.assertEquals("A", cache.get("a"));
+        Assertions.assertEquals("B", cache.get("b"));
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertEquals(2L, cache.getWeight());
+
+        cache.put("a", "AA");
+        Assertions.assertEquals("AA", cache.get("a"));
+        Assertions.assertEquals(2L, cache.getWeight());
+
+        cache.clearKey("a");
+        Assertions.assertNull(cache.get("a"));
+        Assertions.assertEquals(1L, cache.getWeight());
+
+        cache.clear();
+        Assertions.assertNull(cache.get("b"));
+        Assertions.assertEquals(0, cache.size());
+        Assertions.assertEquals(0L, cache.getWeight());
+
+    }
+
+
+    @Test
+    public void testMaxSizeIsRespected() {
+
+        final int maxSize = 10;
+
+        final TinyLFUCache<String, String> cache =
+                new TinyLFUCache<String, String>("testMaxSize", 2, maxSize, NOPLogger.NOP_LOGGER);
+
+        for (int i = 0; i < 1000; i++) {
+            cache.put("key" + i, "value" + i);
+            cache.get("key" + (i / 2));
+        }
+
+        Assertions.assertTrue(cache.size() <= maxSize);
+        Assertions.assertTrue(cache.getWeight() <= maxSize);
+
+    }
+
+
+    @Test
+    public void testFrequentlyUsedEntriesSurviveScans() {
+
+        final int maxSize = 100;
+
+        final TinyLFUCache<String, String> cache =
+                new TinyLFUCache<String, String>("testFrequency", 2, maxSize, NOPLogger.NOP_LOGGER);
+
+        for (int i = 0; i < 10; i++) {
+            cache.put("hot" + i, "hot" + i);
+        }
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 10; i++) {
+                cache.get("hot" + i);
+            }
+        }
+
+        // A scan of entries that are used only once should not be able to evict the hot ones (which are still
+        // being used from time to time, so that they are not forgotten by the aging of the frequency sketch)
+        for (int i = 0; i < 10000; i++) {
+            cache.put("cold" + i, "cold" + i);
+            if (i % 100 == 0) {
+                for (int j = 0; j < 10; j++) {
+                    cache.get("hot" + j);
+                }
+            }
+        }
+
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertEquals("hot" + i, cache.get("hot" + i));
+        }
+        Assertions.assertTrue(cache.size() <= maxSize);
+
+    }
+
+
+    @Test
+    public void testWeightBound() {
+
+        final ICacheEntryWeigher<String, String> weigher = new ICacheEntryWeigher<String, String>() {
+            public int weigh(final String key, final String value) {
+                return value.length();
+            }
+        };
+
+        final TinyLFUCache<String, String> cache =
+                new TinyLFUCache<String, String>("testWeight", 2, 100L, weigher, null, NOPLogger.NOP_LOGGER);
+
+        for (int i = 0; i < 100; i++) {
+            cache.put("key" + i, "0123456789");
+        }
+        Assertions.assertTrue(cache.getWeight() <= 100L);
+        Assertions.assertTrue(cache.size() <= 10);
+
+        // An entry heavier than the whole cache cannot stay
+        cache.put("heavy", new String(new char[200]));
+        Assertions.assertNull(cache.get("heavy"));
+        Assertions.assertTrue(cache.getWeight() <= 100L);
+
+    }
+
+
+    @Test
+    public void testValidityChecker() {
+
+        final ICacheEntryValidityChecker<String, String> checker = new ICacheEntryValidityChecker<String, String>() {
+            public boolean checkIsValueStillValid(final String key, final String value, final long entryCreationTimestamp) {
+                return !value.startsWith("invalid");
+            }
+        };
+
+        final TinyLFUCache<String, String> cache =
+                new TinyLFUCache<String, String>("testValidity", 2, 10L, null, checker, NOPLogger.NOP_LOGGER);
+
+        cache.put("a", "valid");
+        cache.put("b", "invalid");
+        Assertions.assertEquals("valid", cache.get("a"));
+        Assertions.assertNull(cache.get("b"));
+        Assertions.assertFalse(cache.keySet().contains("b"));
+
+    }
+
+
+}
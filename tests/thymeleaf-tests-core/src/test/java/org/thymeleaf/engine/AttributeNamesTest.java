@@ -19,6 +19,8 @@
  */
 package org.thymeleaf.engine;
 
+import java.util.concurrent.CyclicBarrier;
+
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -561,4 +563,46 @@ public void testTextString() {
     }
 
 
+    @Test
+    public void testConcurrentHTMLBuffer() throws Exception {
+
+        final int threadCount = 8;
+        final int nameCount = 200;
+
+        final AttributeName[][] results = new AttributeName[threadCount][nameCount];
+        final CyclicBarrier barrier = new CyclicBarrier(threadCount);
+        final Thread[] threads = new Thread[threadCount];
+
+        for (int t = 0; t < threadCount; t++) {
+            final int thread = t;
+            threads[t] = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        barrier.await();
+                    } catch (final Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                    for (int i = 0; i < nameCount; i++) {
+                        final char[] buffer = ("xx-concurrent-" + i + "yy").toCharArray();
+                        results[thread][i] = AttributeNames.forHTMLName(buffer, 2, buffer.length - 4);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        for (int i = 0; i < nameCount; i++) {
+            Assertions.assertEquals("{-concurrent-" + i + "}", results[0][i].toString());
+            for (int t = 1; t < threadCount; t++) {
+                Assertions.assertSame(results[0][i], results[t][i]);
+            }
+            Assertions.assertSame(results[0][i], AttributeNames.forHTMLName("-concurrent-" + i));
+        }
+
+    }
+
+
 }
@@ -0,0 +1,125 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.cache.StandardCacheManager;
+import org.thymeleaf.cache.TemplateCacheKey;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.model.IAttribute;
+import org.thymeleaf.model.ITemplateEvent;
+import org.thymeleaf.standard.expression.AssignationSequence;
+import org.thymeleaf.standard.expression.Each;
+import org.thymeleaf.standard.expression.FragmentSignature;
+import org.thymeleaf.standard.expression.IStandardExpression;
+import org.thymeleaf.templateresolver.FileTemplateResolver;
+
+
+public final class AttributeParsedValueCacheTest {
+
+
+    private static final String MAIN =
+            "<div th:with=\"a=${greeting}\">" +
+            "<p th:each=\"i : ${items}\" th:text=\"${i}\" th:if=\"${a} != null\">item</p>" +
+            "<span th:text=\"${__${field}__}\">preprocessed</span>" +
+            "<div th:insert=\"~{frag :: f(${a})}\">...</div>" +
+            "</div>";
+
+    private static final String FRAG =
+            "<span th:fragment=\"f(x)\" th:text=\"${x} + '!'\">frag</span>";
+
+
+
+    @Test
+    public void testParsedValuesAreBoundToCachedAttributes() throws Exception {
+
+        final File dir = Files.createTempDirectory("thymeleaf-attrcache").toFile();
+        Files.write(new File(dir, "main.html").toPath(), MAIN.getBytes(StandardCharsets.UTF_8));
+        Files.write(new File(dir, "frag.html").toPath(), FRAG.getBytes(StandardCharsets.UTF_8));
+
+        final FileTemplateResolver templateResolver = new FileTemplateResolver();
+        templateResolver.setPrefix(dir.getAbsolutePath() + File.separator);
+        templateResolver.setSuffix(".html");
+        templateResolver.setCacheable(true);
+        final TemplateEngine templateEngine = new TemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+
+        final Context context = new Context();
+        context.setVariable("greeting", "Hi");
+        context.setVariable("other", "Bye");
+        context.setVariable("items", Arrays.asList("one", "two"));
+
+        context.setVariable("field", "greeting");
+        Assertions.assertEquals(
+                "<div><p>one</p><p>two</p><span>Hi</span><div><span>Hi!</span></div></div>",
+                templateEngine.process("main", context));
+
+        // Second execution will use the parsed values bound to the attributes, except for the preprocessed one
+        context.setVariable("field", "other");
+        Assertions.assertEquals(
+                "<div><p>one</p><p>two</p><span>Bye</span><div><span>Hi!</span></div></div>",
+                templateEngine.process("main", context));
+
+        final Map<String,Object> parsedValues = computeParsedValues(templateEngine);
+        Assertions.assertTrue(parsedValues.get("th:with") instanceof AssignationSequence);
+        Assertions.assertTrue(parsedValues.get("th:each") instanceof Each);
+        Assertions.assertTrue(parsedValues.get("th:if") instanceof IStandardExpression);
+        Assertions.assertTrue(parsedValues.get("th:fragment") instanceof FragmentSignature);
+        Assertions.assertTrue(parsedValues.containsKey("th:text"));
+        Assertions.assertFalse(parsedValues.containsKey("th:insert")); // Fragment expressions are not bound
+
+    }
+
+
+    private static Map<String,Object> computeParsedValues(final TemplateEngine templateEngine) {
+        final Map<String,Object> parsedValues = new HashMap<String, Object>();
+        final StandardCacheManager cacheManager = (StandardCacheManager) templateEngine.getCacheManager();
+        for (final TemplateCacheKey key : cacheManager.getTemplateCache().keySet()) {
+            final TemplateModel templateModel = cacheManager.getTemplateCache().get(key);
+            for (int i = 0; i < templateModel.size(); i++) {
+                final ITemplateEvent event = templateModel.get(i);
+                if (event instanceof AbstractProcessableElementTag) {
+                    for (final IAttribute attribute : ((AbstractProcessableElementTag) event).getAllAttributes()) {
+                        final Object parsedValue = ((Attribute) attribute).getCachedParsedValue();
+                        if (parsedValue != null) {
+                            if (attribute.getValue().contains("__")) {
+                                Assertions.fail("Preprocessed attribute has been bound a parsed value: " + attribute);
+                            }
+                            parsedValues.put(attribute.getAttributeCompleteName(), parsedValue);
+                        }
+                    }
+                }
+            }
+        }
+        return parsedValues;
+    }
+
+
+}
@@ -0,0 +1,146 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.engine;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+
+
+public final class BoundedNameRepositoriesTest {
+
+
+
+    @Test
+    public void testBoundedAttributeNames() {
+
+        AttributeNames.setAdHocNamesMaxSize(64);
+        try {
+
+            final AttributeName pinned = AttributeNames.forHTMLName("th", "boundedtest");
+            AttributeNames.pin(pinned);
+            final int pinnedSize = AttributeNames.getPinnedNamesSize();
+
+            for (int i = 0; i < 5000; i++) {
+                final char[] buffer = ("bounded" + i).toCharArray();
+                final AttributeName name = AttributeNames.forHTMLName(buffer, 0, buffer.length);
+                Assertions.assertEquals("{bounded" + i + "}", name.toString());
+                Assertions.assertEquals(name, AttributeNames.forHTMLName(buffer, 0, buffer.length));
+            }
+
+            Assertions.assertEquals(pinnedSize, AttributeNames.getPinnedNamesSize());
+            Assertions.assertTrue(AttributeNames.getAdHocNamesSize() <= 64);
+            Assertions.assertTrue(AttributeNames.getAdHocNamesEvictionCount() > 0L);
+
+            // Pinned names are always the same instance, no matter how they are asked for
+            final char[] pinnedBuffer = "th:boundedtest".toCharArray();
+            Assertions.assertSame(pinned, AttributeNames.forHTMLName(pinnedBuffer, 0, pinnedBuffer.length));
+            Assertions.assertSame(pinned, AttributeNames.forHTMLName("data-th-boundedtest"));
+
+            // Names asked for as Strings (e.g. computed during template execution) are ad-hoc too
+            final long evictionCount = AttributeNames.getAdHocNamesEvictionCount();
+            for (int i = 0; i < 5000; i++) {
+                final AttributeName name = AttributeNames.forHTMLName("boundedstr" + i);
+                Assertions.assertEquals("{boundedstr" + i + "}", name.toString());
+                Assertions.assertEquals(name, AttributeNames.forHTMLName(null, "boundedstr" + i));
+            }
+            Assertions.assertEquals(pinnedSize, AttributeNames.getPinnedNamesSize());
+            Assertions.assertTrue(AttributeNames.getAdHocNamesSize() <= 64);
+            Assertions.assertTrue(AttributeNames.getAdHocNamesEvictionCount() > evictionCount);
+
+            // Pinning an ad-hoc name pins that same instance
+            final char[] adHocBuffer = "boundedpinned".toCharArray();
+            final AttributeName adHoc = AttributeNames.forHTMLName(adHocBuffer, 0, adHocBuffer.length);
+            AttributeNames.pin(adHoc);
+            Assertions.assertSame(adHoc, AttributeNames.forHTMLName("boundedpinned"));
+            Assertions.assertEquals(pinnedSize + 1, AttributeNames.getPinnedNamesSize());
+
+        } finally {
+            AttributeNames.setAdHocNamesMaxSize(AttributeNames.DEFAULT_AD_HOC_NAMES_MAX_SIZE);
+        }
+
+    }
+
+
+    @Test
+    public void testBoundedElementNames() {
+
+        ElementNames.setAdHocNamesMaxSize(32);
+        try {
+
+            final int pinnedSize = ElementNames.getPinnedNamesSize();
+
+            for (int i = 0; i < 1000; i++) {
+                final char[] buffer = ("x-bounded-" + i).toCharArray();
+                final ElementName name = ElementNames.forXMLName(buffer, 0, buffer.length);
+                Assertions.assertEquals("{x-bounded-" + i + "}", name.toString());
+            }
+
+            Assertions.assertEquals(pinnedSize, ElementNames.getPinnedNamesSize());
+            Assertions.assertTrue(ElementNames.getAdHocNamesSize() <= 32);
+            Assertions.assertTrue(ElementNames.getAdHocNamesEvictionCount() > 0L);
+
+        } finally {
+            ElementNames.setAdHocNamesMaxSize(ElementNames.DEFAULT_AD_HOC_NAMES_MAX_SIZE);
+        }
+
+    }
+
+
+    @Test
+    public void testProcessingInBoundedMode() {
+
+        AttributeNames.setAdHocNamesMaxSize(16);
+        ElementNames.setAdHocNamesMaxSize(16);
+        try {
+
+            final TemplateEngine templateEngine = new TemplateEngine();
+            templateEngine.process("<p th:text=\"${value}\">x</p>", new Context());
+
+            // Names matched by processors are pinned when the engine is initialized
+            final AttributeName thText = AttributeNames.forHTMLName("th", "text");
+            final int attributePinnedSize = AttributeNames.getPinnedNamesSize();
+            final int elementPinnedSize = ElementNames.getPinnedNamesSize();
+
+            for (int i = 0; i < 200; i++) {
+                final String template =
+                        "<my-el" + i + " data-a" + i + "=\"one\" th:attr=\"data-b" + i + "=${value}\" th:text=\"${value}\">x</my-el" + i + ">";
+                final Context context = new Context();
+                context.setVariable("value", "v" + i);
+                Assertions.assertEquals(
+                        "<my-el" + i + " data-a" + i + "=\"one\" data-b" + i + "=\"v" + i + "\">v" + i + "</my-el" + i + ">",
+                        templateEngine.process(template, context));
+            }
+
+            // Neither the names found in templates nor the ones computed by th:attr are pinned
+            Assertions.assertEquals(attributePinnedSize, AttributeNames.getPinnedNamesSize());
+            Assertions.assertEquals(elementPinnedSize, ElementNames.getPinnedNamesSize());
+            Assertions.assertSame(thText, AttributeNames.forHTMLName("th", "text"));
+
+        } finally {
+            AttributeNames.setAdHocNamesMaxSize(AttributeNames.DEFAULT_AD_HOC_NAMES_MAX_SIZE);
+            ElementNames.setAdHocNamesMaxSize(ElementNames.DEFAULT_AD_HOC_NAMES_MAX_SIZE);
+        }
+
+    }
+
+
+}
@@ -0,0 +1,218 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.cache.AlwaysValidCacheEntryValidity;
+import org.thymeleaf.cache.ICacheEntryValidity;
+import org.thymeleaf.cache.NonCacheableCacheEntryValidity;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ITemplateResolver;
+import org.thymeleaf.templateresolver.StringTemplateResolver;
+import org.thymeleaf.templateresolver.TemplateResolution;
+import org.thymeleaf.templateresource.StringTemplateResource;
+
+public final class SingleFlightTemplateParsingTest {
+
+    private static final int THREADS = 8;
+
+
+
+    @Test
+    public void testSingleFlightEnabled() throws Exception {
+
+        final SlowTemplateResolver templateResolver = new SlowTemplateResolver(AlwaysValidCacheEntryValidity.INSTANCE);
+        final TemplateEngine templateEngine = new TemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+        templateEngine.setSingleFlightTemplateParsing(true);
+
+        final List<String> results = processConcurrently(templateEngine);
+        for (final String result : results) {
+            Assertions.assertEquals("<p>hello</p>", result);
+        }
+        Assertions.assertEquals(1, templateResolver.getResolutions());
+
+    }
+
+
+    @Test
+    public void testSingleFlightEnabledNonCacheable() throws Exception {
+
+        final SlowTemplateResolver templateResolver = new SlowTemplateResolver(NonCacheableCacheEntryValidity.INSTANCE);
+        final TemplateEngine templateEngine = new TemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+        templateEngine.setSingleFlightTemplateParsing(true);
+
+        final List<String> results = processConcurrently(templateEngine);
+        for (final String result : results) {
+            Assertions.assertEquals("<p>hello</p>", result);
+        }
+        // Non-cacheable templates are never shared among threads
+        Assertions.assertEquals(THREADS, templateResolver.getResolutions());
+
+    }
+
+
+    @Test
+    public void testSingleFlightNonCacheableConcurrentRendering() throws Exception {
+
+        final StringTemplateResolver templateResolver = new StringTemplateResolver();
+        templateResolver.setCacheable(false);
+        final TemplateEngine templateEngine = new TemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+        templateEngine.setSingleFlightTemplateParsing(true);
+
+        // Each rendering waits for the other one to be in progress, so both need to be rendering at the same time
+        final Rendezvous rendezvous = new Rendezvous(2);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final List<Future<String>> futures = new ArrayList<Future<String>>();
+            for (int i = 0; i < 2; i++) {
+                futures.add(executor.submit(new Callable<String>() {
+                    public String call() throws Exception {
+                        final Context context = new Context();
+                        context.setVariable("rendezvous", rendezvous);
+                        return templateEngine.process("<p th:text=\"${rendezvous.meet()}\">...</p>", context);
+                    }
+                }));
+            }
+            for (final Future<String> future : futures) {
+                Assertions.assertEquals("<p>met</p>", future.get(30L, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+    }
+
+
+    @Test
+    public void testSingleFlightDisabledByDefault() throws Exception {
+
+        final TemplateEngine templateEngine = new TemplateEngine();
+        Assertions.assertFalse(templateEngine.isSingleFlightTemplateParsing());
+        Assertions.assertFalse(templateEngine.getConfiguration().isSingleFlightTemplateParsing());
+
+    }
+
+
+
+
+    private static List<String> processConcurrently(final TemplateEngine templateEngine) throws Exception {
+
+        final CyclicBarrier barrier = new CyclicBarrier(THREADS);
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final List<Future<String>> futures = new ArrayList<Future<String>>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(new Callable<String>() {
+                    public String call() throws Exception {
+                        barrier.await();
+                        return templateEngine.process("test", new Context());
+                    }
+                }));
+            }
+            final List<String> results = new ArrayList<String>();
+            for (final Future<String> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+
+    }
+
+
+
+
+    public static final class Rendezvous {
+
+        private final CyclicBarrier barrier;
+
+        Rendezvous(final int parties) {
+            super();
+            this.barrier = new CyclicBarrier(parties);
+        }
+
+        public String meet() throws Exception {
+            this.barrier.await(10L, TimeUnit.SECONDS);
+            return "met";
+        }
+
+    }
+
+
+
+
+    private static final class SlowTemplateResolver implements ITemplateResolver {
+
+        private final ICacheEntryValidity validity;
+        private final AtomicInteger resolutions = new AtomicInteger(0);
+
+        SlowTemplateResolver(final ICacheEntryValidity validity) {
+            super();
+            this.validity = validity;
+        }
+
+        int getResolutions() {
+            return this.resolutions.get();
+        }
+
+        public String getName() {
+            return "SLOW";
+        }
+
+        public Integer getOrder() {
+            return null;
+        }
+
+        public TemplateResolution resolveTemplate(
+                final IEngineConfiguration configuration, final String ownerTemplate, final String template,
+                final Map<String, Object> templateResolutionAttributes) {
+            this.resolutions.incrementAndGet();
+            try {
+                // Give all the other threads time enough to find the template is being parsed
+                Thread.sleep(300L);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new TemplateResolution(
+                    new StringTemplateResource("<p>hello</p>"), TemplateMode.HTML, this.validity);
+        }
+
+    }
+
+}
@@ -0,0 +1,282 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.engine;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.cache.AlwaysValidCacheEntryValidity;
+import org.thymeleaf.cache.ICacheEntryValidity;
+import org.thymeleaf.cache.NonCacheableCacheEntryValidity;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ITemplateResolver;
+import org.thymeleaf.templateresolver.TemplateResolution;
+import org.thymeleaf.templateresource.ITemplateResource;
+
+public final class TemplateFragmentIndexTest {
+
+
+    private static final String FRAGMENTS =
+            "<!DOCTYPE html>\n" +
+            "<html xmlns:th=\"http://www.thymeleaf.org\">\n" +
+            "<head><title th:fragment=\"title\">Title</title></head>\n" +
+            "<body>\n" +
+            "  <content id=\"nonindexed\">element named content</content>\n" +
+            "  <div th:fragment=\"content\">\n" +
+            "    <p th:fragment=\"content(a)\">nested</p>\n" +
+            "  </div>\n" +
+            "  <div data-th-fragment=\"data\">data <br> void</div>\n" +
+            "  <section th:fragment=\"params (a,b)\"><span th:text=\"${a} + ${b}\">x</span></section>\n" +
+            "  <section th:fragment=\"params2(a)\"><span th:text=\"${a}\">x</span></section>\n" +
+            "  <div th:ref=\"ref-a\">ref <img src=\"x.png\"> <input type=\"text\"/></div>\n" +
+            "  <ul><li th:fragment=\"item\">one</li><li th:fragment=\"item\">two</li></ul>\n" +
+            "  <p>unclosed paragraph\n" +
+            "  <div th:fragment=\"after_p\">after</div>\n" +
+            "  <DIV TH:FRAGMENT=\"Upper\">upper</DIV>\n" +
+            "  <div th:fragment=\"stray\">a</em>b</div>\n" +
+            "  <th:block th:fragment=\"block\">block <b th:text=\"${1 + 1}\">?</b></th:block>\n" +
+            "</body>\n" +
+            "</html>\n";
+
+    private static final String MAIN =
+            "<main>" +
+            "<div th:insert=\"~{fragments :: title}\"></div>" +
+            "<div th:insert=\"~{fragments :: content}\"></div>" +
+            "<div th:insert=\"~{fragments :: data}\"></div>" +
+            "<div th:insert=\"~{fragments :: params('1','2')}\"></div>" +
+            "<div th:insert=\"~{fragments :: params2('x')}\"></div>" +
+            "<div th:insert=\"~{fragments :: ref-a}\"></div>" +
+            "<div th:insert=\"~{fragments :: item}\"></div>" +
+            "<div th:insert=\"~{fragments :: li}\"></div>" +
+            "<div th:insert=\"~{fragments :: after_p}\"></div>" +
+            "<div th:insert=\"~{fragments :: Upper}\"></div>" +
+            "<div th:insert=\"~{fragments :: DIV}\"></div>" +
+            "<div th:insert=\"~{fragments :: stray}\"></div>" +
+            "<div th:insert=\"~{fragments :: block}\"></div>" +
+            "<div th:replace=\"~{fragments :: ul}\"></div>" +
+            "<div th:insert=\"~{fragments :: #nonindexed}\"></div>" +
+            "</main>";
+
+
+
+    @Test
+    public void testFragmentsFromIndex() throws Exception {
+
+        final CountingTemplateResolver parsedResolver = new CountingTemplateResolver(NonCacheableCacheEntryValidity.INSTANCE);
+        final TemplateEngine parsedEngine = new TemplateEngine();
+        parsedEngine.setTemplateResolver(parsedResolver);
+
+        final CountingTemplateResolver indexedResolver = new CountingTemplateResolver(AlwaysValidCacheEntryValidity.INSTANCE);
+        final TemplateEngine indexedEngine = new TemplateEngine();
+        indexedEngine.setTemplateResolver(indexedResolver);
+        indexedEngine.setFragmentIndexing(true);
+
+        final String expected = parsedEngine.process("main", new Context());
+        Assertions.assertEquals(expected, indexedEngine.process("main", new Context()));
+        Assertions.assertEquals(expected, indexedEngine.process("main", new Context()));
+
+        // Non-cacheable templates are parsed once per fragment selected from them
+        Assertions.assertEquals(15, parsedResolver.getReads("fragments"));
+        // Only the complete template plus the selector that cannot be served from the index
+        Assertions.assertEquals(2, indexedResolver.getReads("fragments"));
+
+        // The complete template is shared with other owner templates and with the processing of the template itself
+        final Context context = new Context();
+        context.setVariable("fragment", "title");
+        Assertions.assertTrue(indexedEngine.process("dynamic", context).startsWith("<div>"));
+        indexedEngine.process("fragments", new Context());
+        Assertions.assertEquals(2, indexedResolver.getReads("fragments"));
+
+    }
+
+
+
+
+    @Test
+    public void testFragmentIndexingDisabledByDefault() throws Exception {
+
+        final CountingTemplateResolver templateResolver = new CountingTemplateResolver(AlwaysValidCacheEntryValidity.INSTANCE);
+        final TemplateEngine templateEngine = new TemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+
+        Assertions.assertFalse(templateEngine.isFragmentIndexing());
+
+        templateEngine.process("main", new Context());
+        templateEngine.process("main", new Context());
+
+        // Each different set of selectors is parsed (and cached) on its own
+        Assertions.assertEquals(15, templateResolver.getReads("fragments"));
+
+    }
+
+
+
+
+    @Test
+    public void testConcurrentFragmentsFromIndexWithSingleFlight() throws Exception {
+
+        final String[] fragments = new String[] { "title", "content", "data", "item", "after_p", "Upper", "stray", "block" };
+
+        final CountingTemplateResolver templateResolver =
+                new CountingTemplateResolver(AlwaysValidCacheEntryValidity.INSTANCE, 300L);
+        final TemplateEngine templateEngine = new TemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+        templateEngine.setSingleFlightTemplateParsing(true);
+        templateEngine.setFragmentIndexing(true);
+
+        // Each thread selects a different fragment from the same owner template, so all of them need the complete
+        // template at the same time
+        final CyclicBarrier barrier = new CyclicBarrier(fragments.length);
+        final ExecutorService executor = Executors.newFixedThreadPool(fragments.length);
+        try {
+            final List<Future<String>> futures = new ArrayList<Future<String>>();
+            for (final String fragment : fragments) {
+                futures.add(executor.submit(() -> {
+                    barrier.await();
+                    final Context context = new Context();
+                    context.setVariable("fragment", fragment);
+                    return templateEngine.process("dynamic", context);
+                }));
+            }
+            for (final Future<String> future : futures) {
+                Assertions.assertTrue(future.get().startsWith("<div>"));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assertions.assertEquals(1, templateResolver.getReads("fragments"));
+
+    }
+
+
+
+
+    private static final class CountingTemplateResolver implements ITemplateResolver {
+
+        private final ICacheEntryValidity validity;
+        private final long fragmentsReadDelay;
+        private final Map<String,AtomicInteger> reads = new HashMap<String, AtomicInteger>();
+
+        CountingTemplateResolver(final ICacheEntryValidity validity) {
+            this(validity, 0L);
+        }
+
+        CountingTemplateResolver(final ICacheEntryValidity validity, final long fragmentsReadDelay) {
+            super();
+            this.validity = validity;
+            this.fragmentsReadDelay = fragmentsReadDelay;
+            this.reads.put("main", new AtomicInteger(0));
+            this.reads.put("fragments", new AtomicInteger(0));
+        }
+
+        int getReads(final String template) {
+            return this.reads.get(template).get();
+        }
+
+        public String getName() {
+            return "COUNTING";
+        }
+
+        public Integer getOrder() {
+            return null;
+        }
+
+        public TemplateResolution resolveTemplate(
+                final IEngineConfiguration configuration, final String ownerTemplate, final String template,
+                final Map<String, Object> templateResolutionAttributes) {
+            if ("dynamic".equals(template)) {
+                // Main template inserting the fragment specified as a context variable
+                final String content = "<div th:insert=\"~{fragments :: ${fragment}}\"></div>";
+                return new TemplateResolution(
+                        new CountingTemplateResource(template, content, this.reads.get("main"), 0L), TemplateMode.HTML, this.validity);
+            }
+            final String content = ("main".equals(template)? MAIN : FRAGMENTS);
+            final long readDelay = ("main".equals(template)? 0L : this.fragmentsReadDelay);
+            return new TemplateResolution(
+                    new CountingTemplateResource(template, content, this.reads.get(template), readDelay), TemplateMode.HTML, this.validity);
+        }
+
+    }
+
+
+    private static final class CountingTemplateResource implements ITemplateResource {
+
+        private final String template;
+        private final String content;
+        private final AtomicInteger reads;
+        private final long readDelay;
+
+        CountingTemplateResource(
+                final String template, final String content, final AtomicInteger reads, final long readDelay) {
+            super();
+            this.template = template;
+            this.content = content;
+            this.reads = reads;
+            this.readDelay = readDelay;
+        }
+
+        public String getDescription() {
+            return this.template;
+        }
+
+        public String getBaseName() {
+            return this.template;
+        }
+
+        public boolean exists() {
+            return true;
+        }
+
+        public Reader reader() throws IOException {
+            this.reads.incrementAndGet();
+            if (this.readDelay > 0L) {
+                try {
+                    // Give other threads time enough to need this same template
+                    Thread.sleep(this.readDelay);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return new StringReader(this.content);
+        }
+
+        public ITemplateResource relative(final String relativeLocation) {
+            return new CountingTemplateResource(relativeLocation, "", new AtomicInteger(0), 0L);
+        }
+
+    }
+
+}
@@ -0,0 +1,337 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.engine;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.function.UnaryOperator;
+import java.util.zip.CRC32;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.cache.StandardCacheManager;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.templateresolver.FileTemplateResolver;
+
+
+public final class TemplateModelSnapshotTest {
+
+
+    private static final String MAIN =
+            "<!DOCTYPE html>\n" +
+            "<html>\n" +
+            "<!-- a comment -->\n" +
+            "<body>\n" +
+            "  <p th:text=\"${greeting}\" class='x' data-other>Hello</p>\n" +
+            "  <ul><li th:each=\"i : ${items}\" th:text=\"${i}\">item</li></ul>\n" +
+            "  <br/>\n" +
+            "  <div th:insert=\"~{frag :: f}\">...</div>\n" +
+            "  <script>var a = /*[[${greeting}]]*/ 'x';</script>\n" +
+            "</body>\n" +
+            "</html>\n";
+
+    private static final String FRAG =
+            "<html><body><span th:fragment=\"f\" th:text=\"${greeting} + '!'\">frag</span></body></html>";
+
+
+
+    private static TemplateEngine createEngine(final File dir, final File snapshot) {
+        final FileTemplateResolver templateResolver = new FileTemplateResolver();
+        templateResolver.setPrefix(dir.getAbsolutePath() + File.separator);
+        templateResolver.setSuffix(".html");
+        templateResolver.setCacheable(true);
+        final TemplateEngine templateEngine = new TemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+        templateEngine.setTemplateModelSnapshotFile(snapshot);
+        return templateEngine;
+    }
+
+
+    private static Context createContext() {
+        final Context context = new Context();
+        context.setVariable("greeting", "Hi");
+        context.setVariable("items", Arrays.asList("one", "two"));
+        return context;
+    }
+
+
+    private static File createTemplates() throws IOException {
+        final File dir = Files.createTempDirectory("thymeleaf-snapshot").toFile();
+        Files.write(new File(dir, "main.html").toPath(), MAIN.getBytes(StandardCharsets.UTF_8));
+        Files.write(new File(dir, "frag.html").toPath(), FRAG.getBytes(StandardCharsets.UTF_8));
+        return dir;
+    }
+
+
+
+    @Test
+    public void testSnapshotRoundTrip() throws Exception {
+
+        final File dir = createTemplates();
+        final File snapshot = new File(dir, "templates.snapshot");
+
+        final TemplateEngine engine1 = createEngine(dir, snapshot);
+        final String expected = engine1.process("main", createContext());
+        Assertions.assertTrue(expected.contains("<span>Hi!</span>"));
+        Assertions.assertTrue(engine1.writeTemplateModelSnapshot() >= 2);
+
+        final TemplateEngine engine2 = createEngine(dir, snapshot);
+        // Initialization should pre-populate the template cache
+        engine2.getConfiguration();
+        final StandardCacheManager cacheManager = (StandardCacheManager) engine2.getCacheManager();
+        final int cacheSize = cacheManager.getTemplateCache().keySet().size();
+        Assertions.assertTrue(cacheSize >= 2);
+        Assertions.assertEquals(expected, engine2.process("main", createContext()));
+        Assertions.assertEquals(cacheSize, cacheManager.getTemplateCache().keySet().size());
+
+        // A snapshot of the loaded engine must be identical to the original one
+        final ByteArrayOutputStream snapshot1 = new ByteArrayOutputStream();
+        final ByteArrayOutputStream snapshot2 = new ByteArrayOutputStream();
+        engine1.writeTemplateModelSnapshot(snapshot1);
+        engine2.writeTemplateModelSnapshot(snapshot2);
+        Assertions.assertArrayEquals(snapshot1.toByteArray(), snapshot2.toByteArray());
+
+    }
+
+
+    @Test
+    public void testModifiedTemplatesAreNotLoaded() throws Exception {
+
+        final File dir = createTemplates();
+
+        final TemplateEngine engine1 = createEngine(dir, null);
+        engine1.process("main", createContext());
+        final ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        final int written = engine1.writeTemplateModelSnapshot(snapshot);
+
+        Files.write(
+                new File(dir, "frag.html").toPath(),
+                FRAG.replace("'!'", "'?'").getBytes(StandardCharsets.UTF_8));
+
+        final TemplateEngine engine2 = createEngine(dir, null);
+        final int loaded =
+                engine2.getConfiguration().getTemplateManager().loadTemplateModelSnapshot(
+                        new ByteArrayInputStream(snapshot.toByteArray()));
+        Assertions.assertEquals(written - 1, loaded);
+        Assertions.assertTrue(engine2.process("main", createContext()).contains("<span>Hi?</span>"));
+
+    }
+
+
+    @Test
+    public void testSnapshotFromDifferentDialectsIsIgnored() throws Exception {
+
+        final File dir = createTemplates();
+
+        final TemplateEngine engine1 = createEngine(dir, null);
+        engine1.process("main", createContext());
+        final ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        Assertions.assertTrue(engine1.writeTemplateModelSnapshot(snapshot) > 0);
+
+        final TemplateEngine engine2 = createEngine(dir, null);
+        engine2.setDialect(new org.thymeleaf.standard.StandardDialect() {});
+        Assertions.assertEquals(
+                0,
+                engine2.getConfiguration().getTemplateManager().loadTemplateModelSnapshot(
+                        new ByteArrayInputStream(snapshot.toByteArray())));
+
+    }
+
+
+    @Test
+    public void testCorruptSnapshotIsIgnored() throws Exception {
+
+        final File dir = createTemplates();
+        final File snapshot = new File(dir, "templates.snapshot");
+
+        final TemplateEngine engine1 = createEngine(dir, snapshot);
+        final String expected = engine1.process("main", createContext());
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        engine1.writeTemplateModelSnapshot(out);
+        final byte[] bytes = out.toByteArray();
+        Files.write(snapshot.toPath(), Arrays.copyOf(bytes, bytes.length - 10));
+
+        final TemplateEngine engine2 = createEngine(dir, snapshot);
+        Assertions.assertEquals(expected, engine2.process("main", createContext()));
+
+    }
+
+
+
+
+    @Test
+    public void testBitFlippedSnapshotIsIgnored() throws Exception {
+
+        final File dir = createTemplates();
+        final File snapshot = new File(dir, "templates.snapshot");
+
+        final TemplateEngine engine1 = createEngine(dir, snapshot);
+        final String expected = engine1.process("main", createContext());
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        engine1.writeTemplateModelSnapshot(out);
+        final byte[] bytes = out.toByteArray();
+
+        // Any corruption must either be detected (IOException) or produce valid entries only
+        final TemplateEngine engine2 = createEngine(dir, null);
+        final TemplateManager templateManager = engine2.getConfiguration().getTemplateManager();
+        for (int i = 0; i < bytes.length; i++) {
+            final byte[] flipped = bytes.clone();
+            flipped[i] ^= (byte) (1 << (i % 8));
+            try {
+                templateManager.loadTemplateModelSnapshot(new ByteArrayInputStream(flipped));
+            } catch (final IOException e) {
+                // Fine: corruption detected
+            }
+        }
+        Assertions.assertEquals(expected, engine2.process("main", createContext()));
+
+        // Engines must start normally with corrupt snapshot files
+        final byte[] flipped = bytes.clone();
+        flipped[bytes.length / 2] ^= (byte) 0x10;
+        Files.write(snapshot.toPath(), flipped);
+        final TemplateEngine engine3 = createEngine(dir, snapshot);
+        Assertions.assertEquals(expected, engine3.process("main", createContext()));
+
+    }
+
+
+    @Test
+    public void testInvalidStringReferenceIsDetected() throws Exception {
+
+        final byte[] snapshot =
+                modifyEntries(createSnapshot(), entry -> {
+                    // The first item in each entry is the owner template: make it point to a non-existing string
+                    final byte[] modified = entry.clone();
+                    modified[0] = (byte) 0x05;
+                    return modified;
+                });
+
+        assertLoadFails(snapshot);
+
+    }
+
+
+    @Test
+    public void testInvalidTemplateModeIsDetected() throws Exception {
+
+        final byte[] snapshot =
+                modifyEntries(createSnapshot(), entry -> {
+                    final String str = new String(entry, StandardCharsets.ISO_8859_1);
+                    return str.replace("HTML", "HTMX").getBytes(StandardCharsets.ISO_8859_1);
+                });
+
+        assertLoadFails(snapshot);
+
+    }
+
+
+    @Test
+    public void testDeletedTemplatesAreNotLoaded() throws Exception {
+
+        final File dir = createTemplates();
+
+        final TemplateEngine engine1 = createEngine(dir, null);
+        engine1.process("main", createContext());
+        final ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        final int written = engine1.writeTemplateModelSnapshot(snapshot);
+
+        Files.delete(new File(dir, "frag.html").toPath());
+
+        // Only the entries for the deleted template should be discarded
+        final TemplateEngine engine2 = createEngine(dir, null);
+        final int loaded =
+                engine2.getConfiguration().getTemplateManager().loadTemplateModelSnapshot(
+                        new ByteArrayInputStream(snapshot.toByteArray()));
+        Assertions.assertEquals(written - 1, loaded);
+
+    }
+
+
+
+
+    private static byte[] createSnapshot() throws IOException {
+        final TemplateEngine engine = createEngine(createTemplates(), null);
+        engine.process("main", createContext());
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        engine.writeTemplateModelSnapshot(out);
+        return out.toByteArray();
+    }
+
+
+    private static void assertLoadFails(final byte[] snapshot) throws IOException {
+
+        final File dir = createTemplates();
+
+        final TemplateEngine engine1 = createEngine(dir, null);
+        Assertions.assertThrows(
+                IOException.class,
+                () -> engine1.getConfiguration().getTemplateManager().loadTemplateModelSnapshot(
+                            new ByteArrayInputStream(snapshot)));
+
+        final File snapshotFile = new File(dir, "templates.snapshot");
+        Files.write(snapshotFile.toPath(), snapshot);
+        final TemplateEngine engine2 = createEngine(dir, snapshotFile);
+        Assertions.assertTrue(engine2.process("main", createContext()).contains("<span>Hi!</span>"));
+
+    }
+
+
+    /*
+     * Applies a modification to every entry in a snapshot, recomputing entry lengths and checksums
+     */
+    private static byte[] modifyEntries(final byte[] snapshot, final UnaryOperator<byte[]> modification) throws IOException {
+
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(snapshot));
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(baos);
+
+        out.writeInt(in.readInt());  // magic
+        out.writeInt(in.readInt());  // format version
+        out.writeUTF(in.readUTF());  // thymeleaf version
+        out.writeUTF(in.readUTF());  // configuration fingerprint
+        final int entryCount = in.readInt();
+        out.writeInt(entryCount);
+        for (int i = 0; i < entryCount; i++) {
+            final byte[] entry = new byte[in.readInt()];
+            in.readInt(); // checksum
+            in.readFully(entry);
+            final byte[] modified = modification.apply(entry);
+            final CRC32 crc = new CRC32();
+            crc.update(modified, 0, modified.length);
+            out.writeInt(modified.length);
+            out.writeInt((int) crc.getValue());
+            out.write(modified);
+        }
+        out.flush();
+
+        return baos.toByteArray();
+
+    }
+
+
+}
@@ -0,0 +1,129 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.instrumentation;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.exceptions.TemplateProcessingException;
+import org.thymeleaf.templateresolver.StringTemplateResolver;
+
+
+public final class HistogramTemplateInstrumentationTest {
+
+
+    private static TemplateEngine createEngine(final ITemplateInstrumentation instrumentation) {
+        final StringTemplateResolver templateResolver = new StringTemplateResolver();
+        templateResolver.setCacheable(true);
+        final TemplateEngine templateEngine = new TemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+        templateEngine.setTemplateInstrumentation(instrumentation);
+        return templateEngine;
+    }
+
+
+
+    @Test
+    public void testRenderMetrics() {
+
+        final HistogramTemplateInstrumentation instrumentation = new HistogramTemplateInstrumentation();
+        final TemplateEngine templateEngine = createEngine(instrumentation);
+
+        final String template = "<div><p th:text=\"${x}\" th:fragment=\"f\">a</p></div>";
+        final Context context = new Context();
+        context.setVariable("x", "hello");
+
+        final String output = templateEngine.process(template, context);
+        Assertions.assertEquals("<div><p>hello</p></div>", output);
+        templateEngine.process(template, context);
+
+        Assertions.assertEquals(Collections.singleton(template), instrumentation.getTemplates());
+        Assertions.assertEquals(1L, instrumentation.getPhaseHistogram(template, TemplateRenderPhase.RESOLVE).getCount());
+        Assertions.assertEquals(1L, instrumentation.getPhaseHistogram(template, TemplateRenderPhase.PARSE).getCount());
+        Assertions.assertEquals(2L, instrumentation.getPhaseHistogram(template, TemplateRenderPhase.PROCESS).getCount());
+        Assertions.assertEquals(2L, instrumentation.getPhaseHistogram(template, TemplateRenderPhase.OUTPUT).getCount());
+        Assertions.assertEquals(2L, instrumentation.getRenderHistogram(template).getCount());
+        Assertions.assertTrue(instrumentation.getRenderHistogram(template).getMax() > 0L);
+        Assertions.assertEquals(1L, instrumentation.getCacheHitCount(template));
+        Assertions.assertEquals(output.length(), instrumentation.getOutputSizeHistogram(template).getMax());
+        Assertions.assertEquals(2L * output.length(), instrumentation.getOutputSizeHistogram(template).getSum());
+
+        // Selectors are tracked separately
+        final String fragmentOutput =
+                templateEngine.process(template, Collections.singleton("f"), context);
+        Assertions.assertEquals("<p>hello</p>", fragmentOutput);
+        Assertions.assertEquals(
+                fragmentOutput.length(), instrumentation.getOutputSizeHistogram(template + "::[f]").getMax());
+
+        // Failures
+        final String failing = "<p th:text=\"${x.nonexistent}\">a</p>";
+        Assertions.assertThrows(TemplateProcessingException.class, () -> templateEngine.process(failing, context));
+        Assertions.assertEquals(1L, instrumentation.getFailureCount(failing));
+        Assertions.assertEquals(0L, instrumentation.getRenderHistogram(failing).getCount());
+
+        instrumentation.reset();
+        Assertions.assertTrue(instrumentation.getTemplates().isEmpty());
+        Assertions.assertNull(instrumentation.getRenderHistogram(template));
+
+    }
+
+
+    @Test
+    public void testMaxTemplates() {
+
+        final HistogramTemplateInstrumentation instrumentation = new HistogramTemplateInstrumentation(2);
+        final TemplateEngine templateEngine = createEngine(instrumentation);
+
+        for (int i = 0; i < 10; i++) {
+            templateEngine.process("<p>" + i + "</p>", new Context());
+        }
+
+        Assertions.assertEquals(3, instrumentation.getTemplates().size());
+        Assertions.assertEquals(8L, instrumentation.getRenderHistogram(HistogramTemplateInstrumentation.OTHER_TEMPLATES).getCount());
+
+    }
+
+
+    @Test
+    public void testHistogramPercentiles() {
+
+        final HistogramTemplateInstrumentation instrumentation = new HistogramTemplateInstrumentation();
+        for (int i = 1; i <= 100; i++) {
+            instrumentation.phaseCompleted("t", null, null, TemplateRenderPhase.PROCESS, i * 10L);
+        }
+
+        final HistogramTemplateInstrumentation.Histogram histogram =
+                instrumentation.getPhaseHistogram("t", TemplateRenderPhase.PROCESS);
+        Assertions.assertEquals(100L, histogram.getCount());
+        Assertions.assertEquals(50500L, histogram.getSum());
+        Assertions.assertEquals(1000L, histogram.getMax());
+        Assertions.assertEquals(505.0d, histogram.getMean(), 0.001d);
+        // 500 lies in the [256,511] bucket, 1000 in the [512,1023] bucket (capped by max)
+        Assertions.assertEquals(511L, histogram.getValueAtPercentile(50.0d));
+        Assertions.assertEquals(1000L, histogram.getValueAtPercentile(100.0d));
+        Assertions.assertEquals(15L, histogram.getValueAtPercentile(1.0d));
+
+    }
+
+
+}
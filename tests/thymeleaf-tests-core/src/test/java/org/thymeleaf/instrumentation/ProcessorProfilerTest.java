@@ -0,0 +1,121 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.instrumentation;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.standard.processor.StandardEachTagProcessor;
+import org.thymeleaf.standard.processor.StandardTextTagProcessor;
+
+
+public final class ProcessorProfilerTest {
+
+
+    private static final String TEMPLATE =
+            "<ul>\n" +
+            "  <li th:each=\"item : ${items}\"\n" +
+            "      th:text=\"${item}\">x</li>\n" +
+            "</ul>";
+
+
+
+    @Test
+    public void testProfiling() {
+
+        final ProcessorProfiler profiler = new ProcessorProfiler();
+        final TemplateEngine templateEngine = new TemplateEngine();
+        templateEngine.setProcessorProfiler(profiler);
+        Assertions.assertSame(profiler, templateEngine.getProcessorProfiler());
+
+        final Context context = new Context();
+        context.setVariable("items", Arrays.asList("a", "b", "c"));
+
+        final String output = templateEngine.process(TEMPLATE, context);
+        Assertions.assertTrue(output.contains("<li>c</li>"));
+
+        final ProcessorProfiler.ProcessorProfile each = findProfile(profiler.getProfiles(), StandardEachTagProcessor.class);
+        Assertions.assertEquals(1L, each.getInvocationCount());
+        Assertions.assertEquals(TEMPLATE, each.getTemplateName());
+        Assertions.assertEquals(2, each.getLine());
+
+        final ProcessorProfiler.ProcessorProfile text = findProfile(profiler.getProfiles(), StandardTextTagProcessor.class);
+        Assertions.assertEquals(3L, text.getInvocationCount());
+        Assertions.assertEquals(2, text.getLine());
+        Assertions.assertTrue(text.getTotalTimeNanos() >= text.getMaxTimeNanos());
+        Assertions.assertTrue(text.getProcessorDescription().contains("th:text"));
+
+        templateEngine.process(TEMPLATE, context);
+        Assertions.assertEquals(
+                6L, findProfile(profiler.getProcessorProfiles(), StandardTextTagProcessor.class).getInvocationCount());
+
+        final String report = profiler.getReport(5);
+        Assertions.assertTrue(report.startsWith("PROCESSORS\n"));
+        Assertions.assertTrue(report.contains("LOCATIONS\n"));
+
+        profiler.reset();
+        Assertions.assertTrue(profiler.getProfiles().isEmpty());
+
+    }
+
+
+    @Test
+    public void testMaxLocations() {
+
+        final ProcessorProfiler profiler = new ProcessorProfiler(1);
+        final TemplateEngine templateEngine = new TemplateEngine();
+        templateEngine.setProcessorProfiler(profiler);
+
+        for (int i = 0; i < 5; i++) {
+            templateEngine.process("<p th:text=\"${'t" + i + "'}\">x</p>", new Context());
+        }
+
+        final List<ProcessorProfiler.ProcessorProfile> profiles = profiler.getProcessorProfiles();
+        Assertions.assertEquals(
+                5L, findProfile(profiles, StandardTextTagProcessor.class).getInvocationCount());
+        Assertions.assertTrue(profiler.getProfiles().size() <= 3);
+
+    }
+
+
+    @Test
+    public void testDisabledByDefault() {
+        Assertions.assertNull(new TemplateEngine().getProcessorProfiler());
+    }
+
+
+
+    private static ProcessorProfiler.ProcessorProfile findProfile(
+            final List<ProcessorProfiler.ProcessorProfile> profiles, final Class<?> processorClass) {
+        for (final ProcessorProfiler.ProcessorProfile profile : profiles) {
+            if (processorClass.isInstance(profile.getProcessor())) {
+                return profile;
+            }
+        }
+        Assertions.fail("No profile found for " + processorClass.getName());
+        return null;
+    }
+
+
+}
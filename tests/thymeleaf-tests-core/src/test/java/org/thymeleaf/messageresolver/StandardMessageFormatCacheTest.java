@@ -0,0 +1,139 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.messageresolver;
+
+import java.math.BigDecimal;
+import java.text.MessageFormat;
+import java.util.Date;
+import java.util.Locale;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+public final class StandardMessageFormatCacheTest {
+
+
+    private static final String[] PATTERNS =
+            new String[] {
+                "Hello {0}!",
+                "{0}",
+                "{1} and {0}, again {1}",
+                "{0}{1}{2}",
+                "No arguments}",
+                "Missing {3}",
+                "Leading zeros {00}",
+                "It''s {0}",
+                "Quoted '{0}' and {0}",
+                "{0,number,#.##} items",
+                "{0,choice,0#none|1#one|1<many}",
+                "Total: {1,number,integer} for {0}"
+            };
+
+    private static final Object[][] ARGUMENTS =
+            new Object[][] {
+                new Object[0],
+                new Object[] { "Jane" },
+                new Object[] { "Jane", "John", "Jim" },
+                new Object[] { null, new StringBuilder("sb") },
+                new Object[] { Integer.valueOf(1234567), new BigDecimal("1234.5678"), "x" },
+                new Object[] { new Date(0L), Double.valueOf(0.5d) }
+            };
+
+    private static final Locale[] LOCALES = new Locale[] { Locale.US, new Locale("es", "ES"), Locale.GERMANY };
+
+
+
+    @Test
+    public void testSameResultsAsMessageFormat() throws Exception {
+
+        for (final Locale locale : LOCALES) {
+            for (final String pattern : PATTERNS) {
+                for (final Object[] arguments : ARGUMENTS) {
+                    final Object expected = formatWithMessageFormat(pattern, locale, arguments);
+                    // Twice, in order to use both a newly compiled and a cached format
+                    Assertions.assertEquals(expected, formatWithCache(pattern, locale, arguments), pattern);
+                    Assertions.assertEquals(expected, formatWithCache(pattern, locale, arguments), pattern);
+                }
+            }
+        }
+
+    }
+
+
+    @Test
+    public void testInvalidPatterns() throws Exception {
+
+        Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> StandardMessageFormatCache.format("Unterminated {0", Locale.US, new Object[] { "a" }));
+        Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> StandardMessageFormatCache.format("Unknown type {0,whatever}", Locale.US, new Object[] { "a" }));
+
+    }
+
+
+    @Test
+    public void testCacheUsage() throws Exception {
+
+        // Other code might be using the cache too, so only differences are checked (on a pattern never used before)
+        final String pattern = "Hello {0} (" + System.nanoTime() + ")";
+        final long hitsBefore = StandardMessageFormatCache.getHitCount();
+        final long missesBefore = StandardMessageFormatCache.getMissCount();
+
+        StandardMessageFormatCache.format(pattern, Locale.US, new Object[] { "Jane" });
+        StandardMessageFormatCache.format(pattern, Locale.US, new Object[] { "John" });
+        StandardMessageFormatCache.format(pattern, Locale.GERMANY, new Object[] { "Jane" });
+
+        Assertions.assertEquals(1L, StandardMessageFormatCache.getHitCount() - hitsBefore);
+        Assertions.assertEquals(2L, StandardMessageFormatCache.getMissCount() - missesBefore);
+        Assertions.assertTrue(StandardMessageFormatCache.getSize() >= 2);
+
+        Assertions.assertEquals(
+                "Hello Jane, you are 42",
+                StandardMessageResolutionUtils.formatMessage(
+                        Locale.US, "Hello {0}, you are {1}", new Object[] { "Jane", Integer.valueOf(42) }));
+
+    }
+
+
+
+
+    // Errors (e.g. arguments not matching the format type) are compared by their class
+    private static Object formatWithMessageFormat(final String pattern, final Locale locale, final Object[] arguments) {
+        try {
+            return new MessageFormat(pattern, locale).format(arguments);
+        } catch (final RuntimeException e) {
+            return e.getClass();
+        }
+    }
+
+
+    private static Object formatWithCache(final String pattern, final Locale locale, final Object[] arguments) {
+        try {
+            return StandardMessageFormatCache.format(pattern, locale, arguments);
+        } catch (final RuntimeException e) {
+            return e.getClass();
+        }
+    }
+
+
+}
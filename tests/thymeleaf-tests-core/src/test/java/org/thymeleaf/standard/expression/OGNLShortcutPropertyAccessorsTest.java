@@ -0,0 +1,152 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.standard.expression;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.TemplateEngine;
+
+
+public final class OGNLShortcutPropertyAccessorsTest {
+
+
+
+    @Test
+    public void testPropertyReaders() throws Exception {
+
+        final Customer customer = new Customer("Jane", 42);
+
+        final OGNLShortcutPropertyAccessors.PropertyReader nameReader =
+                OGNLShortcutPropertyAccessors.getPropertyReader(Customer.class, "name");
+        Assertions.assertNotNull(nameReader);
+        // Public classes visible from the engine's class loader should get generated (non-reflective) readers
+        Assertions.assertEquals("FunctionPropertyReader", nameReader.getClass().getSimpleName());
+        Assertions.assertEquals("Jane", nameReader.read(customer));
+        Assertions.assertSame(nameReader, OGNLShortcutPropertyAccessors.getPropertyReader(Customer.class, "name"));
+
+        final OGNLShortcutPropertyAccessors.PropertyReader ageReader =
+                OGNLShortcutPropertyAccessors.getPropertyReader(Customer.class, "age");
+        Assertions.assertEquals(Integer.valueOf(42), ageReader.read(customer));
+        final OGNLShortcutPropertyAccessors.PropertyReader vipReader =
+                OGNLShortcutPropertyAccessors.getPropertyReader(Customer.class, "vip");
+        Assertions.assertEquals(Boolean.TRUE, vipReader.read(customer));
+
+        Assertions.assertNull(OGNLShortcutPropertyAccessors.getPropertyReader(Customer.class, "nonExisting"));
+
+        // Getter exceptions must signal that OGNL should be used instead
+        Assertions.assertThrows(
+                OGNLShortcutExpression.OGNLShortcutExpressionNotApplicableException.class,
+                () -> OGNLShortcutPropertyAccessors.getPropertyReader(Customer.class, "failing").read(customer));
+
+    }
+
+
+    @Test
+    public void testShortcutExpressionInlineCache() throws Exception {
+
+        final IEngineConfiguration configuration = new TemplateEngine().getConfiguration();
+        final OGNLShortcutExpression expression =
+                new OGNLShortcutExpression(OGNLShortcutExpression.parse("customer.name"));
+
+        final Order order = new Order(new Customer("Jane", 42));
+        final Invoice invoice = new Invoice(new Customer("John", 24));
+
+        Assertions.assertEquals("Jane", expression.evaluate(configuration, Collections.emptyMap(), order));
+        Assertions.assertEquals("Jane", expression.evaluate(configuration, Collections.emptyMap(), order));
+        // Different root classes for the same expression will invalidate the inline cache for that level
+        Assertions.assertEquals("John", expression.evaluate(configuration, Collections.emptyMap(), invoice));
+        Assertions.assertEquals("Jane", expression.evaluate(configuration, Collections.emptyMap(), order));
+
+        Assertions.assertThrows(
+                OGNLShortcutExpression.OGNLShortcutExpressionNotApplicableException.class,
+                () -> new OGNLShortcutExpression(OGNLShortcutExpression.parse("customer.nonExisting"))
+                            .evaluate(configuration, Collections.emptyMap(), order));
+
+    }
+
+
+
+
+    public static class Customer {
+
+        private final String name;
+        private final int age;
+
+        public Customer(final String name, final int age) {
+            super();
+            this.name = name;
+            this.age = age;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public int getAge() {
+            return this.age;
+        }
+
+        public boolean isVip() {
+            return this.age > 40;
+        }
+
+        public String getFailing() {
+            throw new IllegalStateException("Failing getter");
+        }
+
+    }
+
+
+    public static class Order {
+
+        private final Customer customer;
+
+        public Order(final Customer customer) {
+            super();
+            this.customer = customer;
+        }
+
+        public Customer getCustomer() {
+            return this.customer;
+        }
+
+    }
+
+
+    public static class Invoice {
+
+        private final Customer customer;
+
+        public Invoice(final Customer customer) {
+            super();
+            this.customer = customer;
+        }
+
+        public Customer getCustomer() {
+            return this.customer;
+        }
+
+    }
+
+
+}
@@ -0,0 +1,145 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.standard.expression;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.standard.StandardDialect;
+import org.thymeleaf.templateresolver.StringTemplateResolver;
+
+
+public final class StandardExpressionCompilerTest {
+
+
+    private static final String[] EXPRESSIONS =
+            new String[] {
+                "23 + 43 + 1",
+                "'.' + 3 + 2",
+                "3 + 2 + '.'",
+                "'a' + ${nothing} + ${one}",
+                "${one} + ${two} * 3 - -${two}",
+                "(${one} + ${two}) * 3 % 2",
+                "${two} / 4",
+                "${name} + ' ' + ${surname}",
+                "${admin}? 'x' : 'y'",
+                "true? 'x' : ${name}",
+                "false? 'x'",
+                "${nothing}?: 'default'",
+                "${name}?: 'default'",
+                "${one} > 0 and ${two} ge 2",
+                "${one} lt 0 or !${admin}",
+                "not true or ${nothing} == null",
+                "${name} != 'Jane' and 1 le 1.0",
+                "'It\\'s ' + |${name} has ${two} items|",
+                "${items}",
+                "'tags: ' + ${items}"
+            };
+
+
+
+    @Test
+    public void testCompiledResults() throws Exception {
+
+        final TemplateEngine interpretingEngine = createTemplateEngine(null);
+        final StandardExpressionCompiler compiler = new StandardExpressionCompiler(1);
+        final TemplateEngine compilingEngine = createTemplateEngine(compiler);
+
+        Assertions.assertFalse(interpretingEngine.getConfiguration().isStandardExpressionCompilerPresent());
+        Assertions.assertTrue(compilingEngine.getConfiguration().isStandardExpressionCompilerPresent());
+
+        for (final String expression : EXPRESSIONS) {
+            final String expected = execute(interpretingEngine, expression);
+            // Several executions, so that we check both the execution triggering compilation and later ones
+            for (int i = 0; i < 3; i++) {
+                Assertions.assertEquals(expected, execute(compilingEngine, expression), expression);
+            }
+        }
+
+        Assertions.assertEquals(EXPRESSIONS.length, compiler.getCompiledExpressionCount());
+        Assertions.assertTrue(compiler.getFoldedExpressionCount() > 0);
+        Assertions.assertEquals(0L, compiler.getInterpretedExpressionCount());
+
+    }
+
+
+    @Test
+    public void testCompilationThreshold() throws Exception {
+
+        final StandardExpressionCompiler compiler = new StandardExpressionCompiler(3);
+        final TemplateEngine compilingEngine = createTemplateEngine(compiler);
+
+        Assertions.assertEquals("<span>Jane Doe</span>", execute(compilingEngine, "${name} + ' ' + ${surname}"));
+        Assertions.assertEquals("<span>Jane Doe</span>", execute(compilingEngine, "${name} + ' ' + ${surname}"));
+        Assertions.assertEquals(0L, compiler.getCompiledExpressionCount());
+        Assertions.assertEquals("<span>Jane Doe</span>", execute(compilingEngine, "${name} + ' ' + ${surname}"));
+        Assertions.assertEquals(1L, compiler.getCompiledExpressionCount());
+        Assertions.assertEquals("<span>Jane Doe</span>", execute(compilingEngine, "${name} + ' ' + ${surname}"));
+        Assertions.assertEquals(1L, compiler.getCompiledExpressionCount());
+
+    }
+
+
+    @Test
+    public void testErrorsAreNotFolded() throws Exception {
+
+        final StandardExpressionCompiler compiler = new StandardExpressionCompiler(1);
+        final TemplateEngine compilingEngine = createTemplateEngine(compiler);
+
+        // Constant operations failing at compile time must still fail at runtime, every time
+        Assertions.assertThrows(RuntimeException.class, () -> execute(compilingEngine, "1 / 0"));
+        Assertions.assertThrows(RuntimeException.class, () -> execute(compilingEngine, "1 / 0"));
+        Assertions.assertEquals(1L, compiler.getCompiledExpressionCount());
+
+    }
+
+
+
+
+    private static TemplateEngine createTemplateEngine(final StandardExpressionCompiler compiler) {
+        final StandardDialect dialect = new StandardDialect();
+        dialect.setExpressionCompiler(compiler);
+        final TemplateEngine templateEngine = new TemplateEngine();
+        templateEngine.setTemplateResolver(new StringTemplateResolver());
+        templateEngine.setDialect(dialect);
+        return templateEngine;
+    }
+
+
+    private static String execute(final TemplateEngine templateEngine, final String expression) {
+
+        final Context context = new Context(Locale.US);
+        context.setVariable("one", Integer.valueOf(1));
+        context.setVariable("two", Integer.valueOf(2));
+        context.setVariable("name", "Jane");
+        context.setVariable("surname", "Doe");
+        context.setVariable("admin", Boolean.FALSE);
+        context.setVariable("items", Arrays.asList("a", "b"));
+
+        return templateEngine.process("<span th:text=\"" + expression + "\">...</span>", context);
+
+    }
+
+
+}
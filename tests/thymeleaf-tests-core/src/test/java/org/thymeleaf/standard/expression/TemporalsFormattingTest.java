@@ -25,11 +25,14 @@
 import java.time.YearMonth;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
 import java.time.temporal.Temporal;
 import java.util.Locale;
 
 import org.junit.jupiter.api.Test;
 import org.thymeleaf.expression.Temporals;
+import org.thymeleaf.util.temporal.TemporalFormatterCache;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -71,6 +74,34 @@ public void testFormatWithPattern() {
         assertEquals(expectd, temporals.format(time, pattern));
     }
 
+    @Test
+    public void testFormatterCache() {
+        Temporal time = LocalDateTime.of(2015, 12, 31, 23, 59);
+        // The cache is shared, so a pattern that cannot have been used before is needed, and only counter
+        // differences are checked
+        String literal = "cache" + System.nanoTime();
+        String pattern = "yyyy '" + literal + "' MM";
+        String expected = "2015 " + literal + " 12";
+        long misses = TemporalFormatterCache.getMissCount();
+        long hits = TemporalFormatterCache.getHitCount();
+        assertEquals(expected, temporals.format(time, pattern));
+        assertEquals(1L, TemporalFormatterCache.getMissCount() - misses);
+        assertEquals(expected, temporals.format(time, pattern));
+        assertEquals(expected, temporals.format(LocalDateTime.of(2015, 12, 1, 0, 0), pattern));
+        assertEquals(1L, TemporalFormatterCache.getMissCount() - misses);
+        assertEquals(2L, TemporalFormatterCache.getHitCount() - hits);
+        // Different locale, different formatter
+        assertEquals(expected, temporals.format(time, pattern, Locale.GERMANY));
+        assertEquals(2L, TemporalFormatterCache.getMissCount() - misses);
+        // Format styles depend on the type of target
+        assertEquals(
+                DateTimeFormatter.ofLocalizedDate(FormatStyle.SHORT).withLocale(Locale.US).format(LocalDate.of(2015, 12, 31)),
+                temporals.format(LocalDate.of(2015, 12, 31), "SHORT"));
+        assertEquals(
+                DateTimeFormatter.ofLocalizedTime(FormatStyle.SHORT).withLocale(Locale.US).format(LocalTime.of(23, 59)),
+                temporals.format(LocalTime.of(23, 59), "SHORT"));
+    }
+
     @Test
     public void testFormatWithPatternAndZone() {
         Temporal time = ZonedDateTime.of(2015, 12, 31, 23, 59, 0, 1, ZoneOffset.UTC);
@@ -19,7 +19,17 @@
  */
 package org.thymeleaf.util;
 
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -53,4 +63,71 @@ public void testCreateToday() {
         Assertions.assertEquals(today.get(Calendar.SECOND), 0);
         Assertions.assertEquals(today.get(Calendar.MILLISECOND), 0);
     }
+
+
+    @Test
+    public void testFormatSameAsSimpleDateFormat() throws Exception {
+
+        final String[] patterns = new String[] { "dd/MMM/yyyy HH:mm", "EEEE, d MMMM yyyy G", "yyyy-MM-dd'T'HH:mm:ss.SSSZ", "z", "" };
+        final Locale[] locales = new Locale[] { Locale.US, new Locale("es", "ES"), Locale.JAPAN };
+        final TimeZone[] timeZones = new TimeZone[] { TimeZone.getTimeZone("UTC"), TimeZone.getTimeZone("America/New_York") };
+
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+
+            final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int t = 0; t < 16; t++) {
+                final int seed = t;
+                futures.add(executor.submit(new Callable<Void>() {
+                    public Void call() {
+                        for (int i = 0; i < 500; i++) {
+                            final String pattern = patterns[(seed + i) % patterns.length];
+                            final Locale locale = locales[(seed + i) % locales.length];
+                            final TimeZone timeZone = timeZones[i % timeZones.length];
+                            final long millis = 1000000000000L + (seed * 1000003L + i) * 86400017L;
+
+                            final Calendar calendar = Calendar.getInstance(timeZone, locale);
+                            calendar.setTimeInMillis(millis);
+
+                            final DateFormat expected =
+                                    (pattern.length() == 0?
+                                            DateFormat.getDateTimeInstance(DateFormat.LONG, DateFormat.LONG, locale) :
+                                            new SimpleDateFormat(pattern, locale));
+                            final String expectedDate = expected.format(new java.util.Date(millis));
+                            expected.setTimeZone(timeZone);
+                            final String expectedCalendar = expected.format(calendar.getTime());
+
+                            if (pattern.length() == 0) {
+                                Assertions.assertEquals(expectedDate, DateUtils.format(new java.util.Date(millis), locale));
+                                Assertions.assertEquals(expectedCalendar, DateUtils.format(calendar, locale));
+                            } else {
+                                Assertions.assertEquals(expectedDate, DateUtils.format(new java.util.Date(millis), pattern, locale));
+                                Assertions.assertEquals(expectedCalendar, DateUtils.format(calendar, pattern, locale));
+                            }
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (final Future<Void> future : futures) {
+                future.get();
+            }
+
+        } finally {
+            executor.shutdown();
+        }
+
+    }
+
+    @Test
+    public void testFormatISO() {
+        final Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(1234567890123L);
+        final StringBuilder expected =
+                new StringBuilder(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZZZ").format(calendar.getTime()));
+        expected.insert(26, ':');
+        Assertions.assertEquals(expected.toString(), DateUtils.formatISO(calendar));
+        Assertions.assertEquals(expected.toString(), DateUtils.formatISO(calendar.getTime()));
+    }
+
 }
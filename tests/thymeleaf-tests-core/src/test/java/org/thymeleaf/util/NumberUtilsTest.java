@@ -1,5 +1,12 @@
 package org.thymeleaf.util;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.util.Locale;
+
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -36,4 +43,95 @@ public void testSequence() {
     }
 
 
+
+    @Test
+    public void testFormatSameAsDecimalFormat() {
+
+        final Locale[] locales =
+                new Locale[] {
+                        Locale.US, Locale.GERMANY, Locale.FRANCE, new Locale("hi", "IN"), new Locale("ar", "EG"),
+                        new Locale("th", "TH", "TH"), new Locale("de", "CH"), Locale.JAPAN };
+        final NumberPointType[] thousandsPointTypes =
+                new NumberPointType[] { NumberPointType.NONE, NumberPointType.DEFAULT, NumberPointType.POINT, NumberPointType.WHITESPACE };
+        final NumberPointType[] decimalPointTypes =
+                new NumberPointType[] { NumberPointType.DEFAULT, NumberPointType.COMMA, NumberPointType.POINT };
+        final Number[] numbers =
+                new Number[] {
+                        Integer.valueOf(0), Integer.valueOf(7), Integer.valueOf(-1234567), Long.valueOf(Long.MIN_VALUE),
+                        Long.valueOf(Long.MAX_VALUE), Short.valueOf((short)-12), Byte.valueOf((byte)100),
+                        new BigDecimal("0"), new BigDecimal("1234.565"), new BigDecimal("-0.004"), new BigDecimal("0.125"),
+                        new BigDecimal("-98765432109876543210.995"), new BigDecimal("1E+3"), new BigDecimal("0.5"),
+                        Double.valueOf(0.0d), Double.valueOf(-0.0d), Double.valueOf(1.005d), Double.valueOf(1.015d),
+                        Double.valueOf(0.125d), Double.valueOf(-0.001d), Double.valueOf(12345.678d), Double.valueOf(1.0E-5d),
+                        Double.valueOf(1.2345678901234567E20d), Double.valueOf(-2.5d), Double.valueOf(Double.NaN),
+                        Double.valueOf(Double.NEGATIVE_INFINITY), Float.valueOf(0.1f), Float.valueOf(-3.14159f),
+                        new BigInteger("123456789012345678901234567890") };
+
+        for (final Locale locale : locales) {
+            for (final NumberPointType thousandsPointType : thousandsPointTypes) {
+                for (final NumberPointType decimalPointType : decimalPointTypes) {
+                    for (int minIntegerDigits = 0; minIntegerDigits <= 5; minIntegerDigits += 5) {
+                        for (int decimalDigits = 0; decimalDigits <= 4; decimalDigits++) {
+                            for (final Number number : numbers) {
+                                final String expected =
+                                        referenceFormat(number, minIntegerDigits, thousandsPointType, decimalDigits, decimalPointType, locale);
+                                final String result =
+                                        NumberUtils.format(number, Integer.valueOf(minIntegerDigits), thousandsPointType, Integer.valueOf(decimalDigits), decimalPointType, locale);
+                                Assertions.assertEquals(
+                                        expected, result,
+                                        number + " [" + locale + ", " + minIntegerDigits + ", " + thousandsPointType + ", " + decimalDigits + ", " + decimalPointType + "]");
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        for (final Locale locale : locales) {
+            for (final Number number : numbers) {
+                Assertions.assertEquals(NumberFormat.getCurrencyInstance(locale).format(number), NumberUtils.formatCurrency(number, locale));
+                final NumberFormat percentFormat = NumberFormat.getPercentInstance(locale);
+                percentFormat.setMinimumFractionDigits(1);
+                percentFormat.setMaximumFractionDigits(1);
+                Assertions.assertEquals(percentFormat.format(number), NumberUtils.formatPercent(number, null, Integer.valueOf(1), locale));
+            }
+        }
+
+    }
+
+
+    /*
+     * The way numbers were formatted before formatters were cached.
+     */
+    private static String referenceFormat(
+            final Number target, final int minIntegerDigits, final NumberPointType thousandsPointType,
+            final int fractionDigits, final NumberPointType decimalPointType, final Locale locale) {
+
+        final DecimalFormat format = (DecimalFormat) NumberFormat.getNumberInstance(locale);
+        format.setMinimumFractionDigits(fractionDigits);
+        format.setMaximumFractionDigits(fractionDigits);
+        format.setMinimumIntegerDigits(minIntegerDigits);
+        format.setDecimalSeparatorAlwaysShown(decimalPointType != NumberPointType.NONE && fractionDigits > 0);
+        format.setGroupingUsed(thousandsPointType != NumberPointType.NONE);
+
+        final DecimalFormatSymbols symbols = new DecimalFormatSymbols(locale);
+        if (decimalPointType == NumberPointType.POINT) {
+            symbols.setDecimalSeparator('.');
+        } else if (decimalPointType == NumberPointType.COMMA) {
+            symbols.setDecimalSeparator(',');
+        }
+        if (thousandsPointType == NumberPointType.POINT) {
+            symbols.setGroupingSeparator('.');
+        } else if (thousandsPointType == NumberPointType.WHITESPACE) {
+            symbols.setGroupingSeparator(' ');
+        } else if (thousandsPointType == NumberPointType.NONE) {
+            symbols.setGroupingSeparator('?');
+        }
+        format.setDecimalFormatSymbols(symbols);
+
+        return format.format(target);
+
+    }
+
+
 }
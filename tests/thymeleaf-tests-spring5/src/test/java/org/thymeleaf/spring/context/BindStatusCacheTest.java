@@ -0,0 +1,78 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.spring.context;
+
+import java.lang.reflect.Proxy;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.spring5.context.BindStatusCache;
+import org.thymeleaf.spring5.context.IThymeleafBindStatus;
+import org.thymeleaf.spring5.context.IThymeleafRequestContext;
+
+public class BindStatusCacheTest {
+
+
+
+    @Test
+    public void testCacheAndInvalidation() throws Exception {
+
+        final IThymeleafRequestContext requestContext1 = proxy(IThymeleafRequestContext.class);
+        final IThymeleafRequestContext requestContext2 = proxy(IThymeleafRequestContext.class);
+        final Object selectionTarget1 = new Object();
+        final Object selectionTarget2 = new Object();
+        final IThymeleafBindStatus bindStatus = proxy(IThymeleafBindStatus.class);
+
+        final BindStatusCache cache = new BindStatusCache();
+
+        Assertions.assertNull(cache.getBindStatus(requestContext1, selectionTarget1, "form.name"));
+        cache.putBindStatus(requestContext1, selectionTarget1, "form.name", bindStatus);
+        Assertions.assertSame(bindStatus, cache.getBindStatus(requestContext1, selectionTarget1, "form.name"));
+        Assertions.assertNull(cache.getBindStatus(requestContext1, selectionTarget1, "form.surname"));
+        Assertions.assertEquals(1, cache.size());
+
+        // A different selection target invalidates the cache
+        Assertions.assertNull(cache.getBindStatus(requestContext1, selectionTarget2, "form.name"));
+        Assertions.assertEquals(0, cache.size());
+
+        cache.putBindStatus(requestContext1, selectionTarget2, "form.name", bindStatus);
+        Assertions.assertSame(bindStatus, cache.getBindStatus(requestContext1, selectionTarget2, "form.name"));
+
+        // And so does a different request context
+        Assertions.assertNull(cache.getBindStatus(requestContext2, selectionTarget2, "form.name"));
+
+        cache.putBindStatus(requestContext2, null, "form.name", bindStatus);
+        Assertions.assertSame(bindStatus, cache.getBindStatus(requestContext2, null, "form.name"));
+        cache.clear();
+        Assertions.assertNull(cache.getBindStatus(requestContext2, null, "form.name"));
+
+    }
+
+
+    private static <T> T proxy(final Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(
+                BindStatusCacheTest.class.getClassLoader(), new Class<?>[] { type },
+                (proxy, method, args) -> {
+                    throw new UnsupportedOperationException(method.getName());
+                }));
+    }
+
+
+}
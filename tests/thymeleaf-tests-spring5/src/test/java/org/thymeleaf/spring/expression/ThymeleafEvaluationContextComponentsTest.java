@@ -0,0 +1,83 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.spring.expression;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.expression.EnvironmentAccessor;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.thymeleaf.spring5.expression.ThymeleafEvaluationContext;
+import org.thymeleaf.spring5.expression.ThymeleafEvaluationContextComponents;
+
+public class ThymeleafEvaluationContextComponentsTest {
+
+
+
+    @Test
+    public void testSharedComponents() throws Exception {
+
+        final StaticApplicationContext applicationContext = new StaticApplicationContext();
+        applicationContext.getBeanFactory().registerSingleton("greeting", "hello");
+        applicationContext.refresh();
+
+        final ThymeleafEvaluationContextComponents components =
+                new ThymeleafEvaluationContextComponents(applicationContext, new DefaultConversionService());
+
+        final ThymeleafEvaluationContext context1 = components.createEvaluationContext();
+        final ThymeleafEvaluationContext context2 = components.createEvaluationContext();
+
+        Assertions.assertNotSame(context1, context2);
+        Assertions.assertSame(applicationContext, context1.getApplicationContext());
+        Assertions.assertSame(context1.getBeanResolver(), context2.getBeanResolver());
+        Assertions.assertSame(context1.getTypeConverter(), context2.getTypeConverter());
+        Assertions.assertSame(context1.getPropertyAccessors(), context2.getPropertyAccessors());
+        Assertions.assertSame(context1.getMethodResolvers(), context2.getMethodResolvers());
+
+        // Variables are per-context
+        context1.setVariable("name", "one");
+        context2.setVariable("name", "two");
+
+        final SpelExpressionParser parser = new SpelExpressionParser();
+        final Expression expression = parser.parseExpression("@greeting + ' ' + #name + ' ' + size()");
+
+        Assertions.assertEquals("hello one 0", expression.getValue(context1, Collections.emptyList()));
+        Assertions.assertEquals("hello two 0", expression.getValue(context2, Collections.emptyList()));
+
+        // Modifying the accessors of one context should not affect the others
+        final int accessorCount = context2.getPropertyAccessors().size();
+        context1.addPropertyAccessor(new EnvironmentAccessor());
+        Assertions.assertEquals(accessorCount + 1, context1.getPropertyAccessors().size());
+        Assertions.assertEquals(accessorCount, context2.getPropertyAccessors().size());
+
+        // Forbidden types are still forbidden
+        Assertions.assertThrows(
+                Exception.class,
+                () -> parser.parseExpression("T(java.lang.Runtime).getRuntime()").getValue(context2));
+
+    }
+
+
+
+}
@@ -0,0 +1,300 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.spring.reactive;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring5.SpringWebFluxTemplateEngine;
+import org.thymeleaf.spring5.context.webflux.ReactiveDataDriverContextVariable;
+import org.thymeleaf.templateresolver.StringTemplateResolver;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+public final class SpringReactiveDataDriverPrefetchTest {
+
+
+    private static final String TEMPLATE =
+            "<html><head><title>Prefetch</title></head>" +
+            "<body><ul><li th:each=\"i : ${items}\" th:text=\"${i}\">...</li></ul></body></html>";
+
+    private static final String TRACKED_TEMPLATE =
+            "<html><head><title>Prefetch</title></head>" +
+            "<body><ul><li th:each=\"i : ${items}\" th:text=\"${i.value}\">...</li></ul></body></html>";
+
+    private static final int BUFFER_SIZE_ELEMENTS = 2;
+    private static final int PREFETCH_BUFFERS = 3;
+
+
+
+    @Test
+    public void testPrefetch() throws Exception {
+
+        final SpringWebFluxTemplateEngine templateEngine = new SpringWebFluxTemplateEngine();
+        templateEngine.setTemplateResolver(new StringTemplateResolver());
+
+        final Context noPrefetchContext = new Context();
+        noPrefetchContext.setVariable("items",
+                new ReactiveDataDriverContextVariable(Flux.range(0, 50), BUFFER_SIZE_ELEMENTS));
+        final String expected = process(templateEngine, noPrefetchContext);
+
+        final AtomicLong outstanding = new AtomicLong(0L);
+        final AtomicLong maxOutstanding = new AtomicLong(0L);
+        final Flux<Integer> items =
+                Flux.range(0, 50)
+                        .doOnNext(i -> outstanding.decrementAndGet())
+                        .doOnRequest(n -> maxOutstanding.accumulateAndGet(outstanding.addAndGet(n), Math::max));
+
+        final Context prefetchContext = new Context();
+        prefetchContext.setVariable("items",
+                new ReactiveDataDriverContextVariable(items, BUFFER_SIZE_ELEMENTS, null, 0L, PREFETCH_BUFFERS));
+
+        Assertions.assertEquals(expected, process(templateEngine, prefetchContext));
+        // Elements requested in advance are bounded by the number of prefetched buffers
+        Assertions.assertTrue(maxOutstanding.get() > 0L);
+        Assertions.assertTrue(maxOutstanding.get() <= (long) PREFETCH_BUFFERS * BUFFER_SIZE_ELEMENTS);
+
+    }
+
+
+    @Test
+    public void testUpstreamOverlapsBufferProcessing() throws Exception {
+
+        final SpringWebFluxTemplateEngine templateEngine = new SpringWebFluxTemplateEngine();
+        templateEngine.setTemplateResolver(new StringTemplateResolver());
+
+        // Elements of the third buffer will only be produced once processing of the first buffer has started,
+        // and processing of the first buffer will not finish until (some of) those elements have been produced
+        final OverlapTracker tracker = new OverlapTracker(2 * BUFFER_SIZE_ELEMENTS);
+        final Flux<TrackedItem> items =
+                Flux.range(0, 20)
+                        .map(i -> tracker.produce(i.intValue()))
+                        .subscribeOn(Schedulers.boundedElastic());
+
+        final Context context = new Context();
+        context.setVariable("items",
+                new ReactiveDataDriverContextVariable(items, BUFFER_SIZE_ELEMENTS, null, 0L, PREFETCH_BUFFERS));
+
+        final String result = process(templateEngine, context, TRACKED_TEMPLATE);
+
+        Assertions.assertTrue(tracker.hasOverlapped());
+        for (int i = 0; i < 20; i++) {
+            Assertions.assertTrue(result.contains("<li>" + i + "</li>"));
+        }
+
+    }
+
+
+    @Test
+    public void testPrefetchBoundsBuffersAheadOfProcessing() throws Exception {
+
+        final SpringWebFluxTemplateEngine templateEngine = new SpringWebFluxTemplateEngine();
+        templateEngine.setTemplateResolver(new StringTemplateResolver());
+
+        // Upstream produces as fast as it is allowed to, while processing is slow
+        final AheadTracker tracker = new AheadTracker();
+        final Flux<AheadItem> items =
+                Flux.range(0, 40)
+                        .map(i -> tracker.produce(i.intValue()))
+                        .subscribeOn(Schedulers.boundedElastic());
+
+        final Context context = new Context();
+        context.setVariable("items",
+                new ReactiveDataDriverContextVariable(items, BUFFER_SIZE_ELEMENTS, null, 0L, PREFETCH_BUFFERS));
+
+        final String result = process(templateEngine, context, TRACKED_TEMPLATE);
+
+        for (int i = 0; i < 40; i++) {
+            Assertions.assertTrue(result.contains("<li>" + i + "</li>"));
+        }
+        // Elements produced but not processed yet: the prefetched buffers, the single buffer requested in advance
+        // by the processing step, and the buffer being processed
+        Assertions.assertTrue(tracker.getMaxAhead() <= (PREFETCH_BUFFERS + 2) * BUFFER_SIZE_ELEMENTS);
+
+    }
+
+
+    @Test
+    public void testDefaultPrefetch() throws Exception {
+        final ReactiveDataDriverContextVariable variable = new ReactiveDataDriverContextVariable(Flux.range(0, 5));
+        Assertions.assertEquals(
+                ReactiveDataDriverContextVariable.DEFAULT_DATA_DRIVER_PREFETCH_BUFFERS, variable.getPrefetchBuffers());
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new ReactiveDataDriverContextVariable(Flux.range(0, 5), 10, null, 0L, -1));
+    }
+
+
+    private static String process(final SpringWebFluxTemplateEngine templateEngine, final Context context) {
+        return process(templateEngine, context, TEMPLATE);
+    }
+
+
+    private static String process(
+            final SpringWebFluxTemplateEngine templateEngine, final Context context, final String template) {
+        final List<DataBuffer> chunks =
+                Flux.from(
+                        templateEngine.processStream(
+                                template, null, context, new DefaultDataBufferFactory(), MediaType.TEXT_HTML,
+                                StandardCharsets.UTF_8)).collectList().block();
+        final StringBuilder result = new StringBuilder();
+        for (final DataBuffer chunk : chunks) {
+            result.append(ReactiveTestUtils.bufferAsString(chunk, StandardCharsets.UTF_8));
+        }
+        return result.toString();
+    }
+
+
+
+
+
+    private static final class OverlapTracker {
+
+        private final int gatedIndex;
+        private final CountDownLatch processingStarted = new CountDownLatch(1);
+        private final AtomicInteger produced = new AtomicInteger(0);
+        private final AtomicBoolean overlapped = new AtomicBoolean(false);
+
+        OverlapTracker(final int gatedIndex) {
+            super();
+            this.gatedIndex = gatedIndex;
+        }
+
+        TrackedItem produce(final int index) {
+            if (index == this.gatedIndex) {
+                await(this.processingStarted);
+            }
+            this.produced.incrementAndGet();
+            return new TrackedItem(this, index);
+        }
+
+        void process(final int index) {
+            if (index != 0) {
+                return;
+            }
+            this.processingStarted.countDown();
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10L);
+            while (System.nanoTime() < deadline) {
+                if (this.produced.get() > this.gatedIndex) {
+                    this.overlapped.set(true);
+                    return;
+                }
+                Thread.yield();
+            }
+        }
+
+        boolean hasOverlapped() {
+            return this.overlapped.get();
+        }
+
+        private static void await(final CountDownLatch latch) {
+            try {
+                latch.await(10L, TimeUnit.SECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+    }
+
+
+    public static final class TrackedItem {
+
+        private final OverlapTracker tracker;
+        private final int value;
+
+        TrackedItem(final OverlapTracker tracker, final int value) {
+            super();
+            this.tracker = tracker;
+            this.value = value;
+        }
+
+        public int getValue() {
+            this.tracker.process(this.value);
+            return this.value;
+        }
+
+    }
+
+
+
+
+
+    private static final class AheadTracker {
+
+        private final AtomicInteger produced = new AtomicInteger(0);
+        private final AtomicInteger processed = new AtomicInteger(0);
+        private final AtomicInteger maxAhead = new AtomicInteger(0);
+
+        AheadTracker() {
+            super();
+        }
+
+        AheadItem produce(final int index) {
+            this.maxAhead.accumulateAndGet(this.produced.incrementAndGet() - this.processed.get(), Math::max);
+            return new AheadItem(this, index);
+        }
+
+        void process() {
+            try {
+                Thread.sleep(2L);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            this.processed.incrementAndGet();
+        }
+
+        int getMaxAhead() {
+            return this.maxAhead.get();
+        }
+
+    }
+
+
+    public static final class AheadItem {
+
+        private final AheadTracker tracker;
+        private final int value;
+
+        AheadItem(final AheadTracker tracker, final int value) {
+            super();
+            this.tracker = tracker;
+            this.value = value;
+        }
+
+        public int getValue() {
+            this.tracker.process();
+            return this.value;
+        }
+
+    }
+
+
+}
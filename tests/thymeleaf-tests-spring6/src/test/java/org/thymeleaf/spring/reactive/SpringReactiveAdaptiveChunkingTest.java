@@ -0,0 +1,88 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.spring.reactive;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringWebFluxTemplateEngine;
+import org.thymeleaf.templateresolver.StringTemplateResolver;
+import reactor.core.publisher.Flux;
+
+public final class SpringReactiveAdaptiveChunkingTest {
+
+
+    private static final String TEMPLATE =
+            "<html><head><title>Adaptive</title></head>" +
+            "<body><ul><li th:each=\"i : ${items}\" th:text=\"${i}\">...</li></ul></body></html>";
+
+
+
+    @Test
+    public void testAdaptiveChunking() throws Exception {
+
+        final Integer[] items = new Integer[2000];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = Integer.valueOf(i);
+        }
+        final Context context = new Context();
+        context.setVariable("items", Arrays.asList(items));
+
+        final SpringWebFluxTemplateEngine templateEngine = new SpringWebFluxTemplateEngine();
+        templateEngine.setTemplateResolver(new StringTemplateResolver());
+
+        final String expected =
+                ReactiveTestUtils.bufferAsString(process(templateEngine, context, Integer.MAX_VALUE).get(0), StandardCharsets.UTF_8);
+
+        templateEngine.setAdaptiveChunkSizing(true);
+        templateEngine.setAdaptiveChunkInitialSizeBytes(64);
+
+        final List<DataBuffer> chunks = process(templateEngine, context, 1024);
+
+        // First chunk is limited to the initial size, so that it can be flushed as soon as possible
+        Assertions.assertEquals(64, chunks.get(0).readableByteCount());
+
+        final StringBuilder result = new StringBuilder();
+        for (final DataBuffer chunk : chunks) {
+            Assertions.assertTrue(chunk.readableByteCount() <= 1024);
+            result.append(ReactiveTestUtils.bufferAsString(chunk, StandardCharsets.UTF_8));
+        }
+        Assertions.assertEquals(expected, result.toString());
+
+    }
+
+
+    private static List<DataBuffer> process(
+            final SpringWebFluxTemplateEngine templateEngine, final Context context, final int responseMaxChunkSizeBytes) {
+        return Flux.from(
+                templateEngine.processStream(
+                        TEMPLATE, null, context, new DefaultDataBufferFactory(), MediaType.TEXT_HTML,
+                        StandardCharsets.UTF_8, responseMaxChunkSizeBytes)).collectList().block();
+    }
+
+
+}
@@ -0,0 +1,79 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.spring.reactive;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringWebFluxTemplateEngine;
+import org.thymeleaf.templateresolver.StringTemplateResolver;
+import reactor.core.publisher.Mono;
+
+public final class SpringReactiveFullModeBufferTest {
+
+
+    private static final String TEMPLATE = "<ul><li th:each=\"i : ${items}\" th:text=\"${i}\">...</li></ul>";
+
+
+
+    @Test
+    public void testBufferSizeEstimate() throws Exception {
+
+        final SpringWebFluxTemplateEngine templateEngine = new SpringWebFluxTemplateEngine();
+        templateEngine.setTemplateResolver(new StringTemplateResolver());
+
+        final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory(false, 16);
+
+        final Integer[] items = new Integer[1000];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = Integer.valueOf(i);
+        }
+        final Context context = new Context();
+        context.setVariable("items", Arrays.asList(items));
+
+        final DataBuffer first = process(templateEngine, bufferFactory, context);
+        final String firstResult = ReactiveTestUtils.bufferAsString(first, StandardCharsets.UTF_8);
+        final int firstSize = firstResult.getBytes(StandardCharsets.UTF_8).length;
+
+        // Second execution should pre-size the buffer according to the size of the first one (plus a margin)
+        final DataBuffer second = process(templateEngine, bufferFactory, context);
+        Assertions.assertEquals(firstSize + (firstSize >> 3), second.capacity());
+        Assertions.assertEquals(firstResult, ReactiveTestUtils.bufferAsString(second, StandardCharsets.UTF_8));
+
+    }
+
+
+    private static DataBuffer process(
+            final SpringWebFluxTemplateEngine templateEngine, final DefaultDataBufferFactory bufferFactory,
+            final Context context) {
+        return Mono.from(
+                templateEngine.processStream(
+                        TEMPLATE, null, context, bufferFactory, MediaType.TEXT_HTML, StandardCharsets.UTF_8,
+                        Integer.MAX_VALUE)).block();
+    }
+
+
+}
@@ -0,0 +1,128 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.spring.util;
+
+import java.beans.PropertyEditor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.propertyeditors.CustomNumberEditor;
+import org.thymeleaf.spring6.context.IThymeleafBindStatus;
+import org.thymeleaf.spring6.util.SpringSelectedValueComparator;
+
+public class SpringSelectedValueComparatorTest {
+
+
+    private static final String[] CANDIDATES =
+            new String[] { "", "1", "2", "3", "01", "17", "x", "MILLISECONDS", "SECONDS", "[1, 2]", "{1, 2}", "2.0" };
+
+
+
+    @Test
+    public void testLookupSameAsExhaustive() throws Exception {
+
+        final List<Object> withNull = new ArrayList<Object>(Arrays.asList(null, 1, 2, 17));
+
+        check(Arrays.asList(1, 2, 17), Integer.class);
+        check(Arrays.asList(1, 2, 17), null);
+        check(withNull, Integer.class);
+        check(new TreeSet<Integer>(Arrays.asList(1, 2, 17)), Integer.class);
+        check(new Integer[] { 2, 3 }, Integer.class);
+        check(new int[] { 1, 2 }, null);
+        check(Arrays.asList(TimeUnit.SECONDS, TimeUnit.DAYS), null);
+        check(Arrays.asList("1", "x"), null);
+        final Map<Object,Object> map = new LinkedHashMap<Object,Object>();
+        map.put(3, "three");
+        map.put(TimeUnit.MILLISECONDS, "ms");
+        check(map, Integer.class);
+        check(Integer.valueOf(2), Integer.class);
+        check(null, Integer.class);
+
+    }
+
+
+    private static void check(final Object boundValue, final Class<?> editorType) {
+
+        final IThymeleafBindStatus bindStatus = createBindStatus(boundValue, editorType);
+        final SpringSelectedValueComparator.SelectedValueLookup lookup =
+                new SpringSelectedValueComparator.SelectedValueLookup();
+
+        for (final String candidate : CANDIDATES) {
+            Assertions.assertEquals(
+                    outcome(() -> SpringSelectedValueComparator.isSelected(bindStatus, candidate)),
+                    outcome(() -> SpringSelectedValueComparator.isSelected(lookup, bindStatus, candidate)),
+                    "Bound value: " + boundValue + ", candidate: \"" + candidate + "\"");
+        }
+
+    }
+
+
+    private static String outcome(final BooleanSupplier selection) {
+        // Exceptions (e.g. coming from PropertyEditors) are part of the compared behaviour
+        try {
+            return String.valueOf(selection.getAsBoolean());
+        } catch (final RuntimeException e) {
+            return e.getClass().getName();
+        }
+    }
+
+
+    private static IThymeleafBindStatus createBindStatus(final Object boundValue, final Class<?> editorType) {
+
+        final InvocationHandler handler = (proxy, method, args) -> {
+            final String name = method.getName();
+            if ("getPath".equals(name) || "getExpression".equals(name)) {
+                return "field";
+            }
+            if ("getValue".equals(name) || "getActualValue".equals(name)) {
+                return boundValue;
+            }
+            if ("getEditor".equals(name)) {
+                return null;
+            }
+            if ("findEditor".equals(name)) {
+                return (editorType != null && editorType.equals(args[0])? createEditor() : null);
+            }
+            throw new UnsupportedOperationException(name);
+        };
+
+        return (IThymeleafBindStatus) Proxy.newProxyInstance(
+                SpringSelectedValueComparatorTest.class.getClassLoader(),
+                new Class<?>[] { IThymeleafBindStatus.class }, handler);
+
+    }
+
+
+    private static PropertyEditor createEditor() {
+        return new CustomNumberEditor(Integer.class, true);
+    }
+
+
+}
@@ -0,0 +1,128 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2022, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.spring.view;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.spring6.view.ThymeleafView;
+import org.thymeleaf.templateresolver.StringTemplateResolver;
+import org.thymeleaf.testing.templateengine.util.JakartaServletMockUtils;
+
+public class ThymeleafViewByteOutputTest {
+
+
+    private static final String TEMPLATE = "<p th:text=\"${message}\">...</p>";
+
+
+
+    @Test
+    public void testBufferedByteOutput() throws Exception {
+
+        final ServletContext servletContext =
+                JakartaServletMockUtils.buildServletContext().attributeMap(new LinkedHashMap<String, Object>()).build();
+        final HttpServletRequest request =
+                JakartaServletMockUtils.buildRequest(servletContext, "test")
+                        .attributeMap(new LinkedHashMap<String, Object>())
+                        .locale(Locale.US)
+                        .build();
+
+        final StaticWebApplicationContext applicationContext = new StaticWebApplicationContext();
+        applicationContext.setServletContext(servletContext);
+        applicationContext.refresh();
+        servletContext.setAttribute(WebApplicationContext.ROOT_WEB_APPLICATION_CONTEXT_ATTRIBUTE, applicationContext);
+        request.setAttribute(DispatcherServlet.WEB_APPLICATION_CONTEXT_ATTRIBUTE, applicationContext);
+
+        final SpringTemplateEngine templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(new StringTemplateResolver());
+
+        final ThymeleafView view = new TemplateEngineThymeleafView(TEMPLATE, templateEngine);
+        view.setApplicationContext(applicationContext);
+        view.setServletContext(servletContext);
+        view.setCharacterEncoding("UTF-8");
+        view.setProducePartialOutputWhileProcessing(false);
+        view.setProduceBufferedByteOutput(true);
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+        Mockito.when(response.getCharacterEncoding()).thenReturn("UTF-8");
+        Mockito.when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+            @Override
+            public void setWriteListener(final WriteListener writeListener) {
+                // Nothing to do
+            }
+            @Override
+            public void write(final int b) {
+                output.write(b);
+            }
+        });
+
+        final Map<String,Object> model = Collections.singletonMap("message", "Caf\u00E9 \u20AC \u4E2D");
+
+        // Render twice so that the second execution reuses a pooled buffer
+        for (int i = 0; i < 2; i++) {
+
+            output.reset();
+            view.render(model, request, response);
+
+            final byte[] expected = "<p>Caf\u00E9 \u20AC \u4E2D</p>".getBytes(StandardCharsets.UTF_8);
+            Assertions.assertArrayEquals(expected, output.toByteArray());
+            Mockito.verify(response, Mockito.times(i + 1)).setContentLength(expected.length);
+
+        }
+
+        Mockito.verify(response, Mockito.never()).getWriter();
+
+    }
+
+
+    private static final class TemplateEngineThymeleafView extends ThymeleafView {
+
+        TemplateEngineThymeleafView(final String templateName, final SpringTemplateEngine templateEngine) {
+            super(templateName);
+            setTemplateEngine(templateEngine);
+            setLocale(Locale.US);
+        }
+
+    }
+
+
+}